@@ -46,6 +46,7 @@ import org.cytoscape.view.presentation.RenderingEngineManager;
 import org.cytoscape.view.presentation.property.BasicVisualLexicon;
 import org.cytoscape.view.vizmap.VisualMappingManager;
 import org.cytoscape.view.vizmap.VisualStyle;
+import org.cytoscape.work.AbstractTask;
 import org.cytoscape.work.ObservableTask;
 import org.cytoscape.work.ProvidesTitle;
 import org.cytoscape.work.TaskMonitor;
@@ -177,6 +178,7 @@ public class CreateNetworkViewTask extends AbstractNetworkCollectionTask
 		try {
 			// By calling this task, actual view will be created even if it's a large network.
 			final CyNetworkView view = viewFactory.createNetworkView(network);
+			tMonitor.setStatusMessage("View created in " + (System.currentTimeMillis() - start) + " msec.");
 			
 			// Create a default title
 			final Collection<CyNetworkView> netViews = netViewMgr.getNetworkViews(network);
@@ -187,10 +189,14 @@ public class CreateNetworkViewTask extends AbstractNetworkCollectionTask
 			
 			netViewMgr.addNetworkView(view);
 
-			// Apply visual style
+			// Apply visual style.  This has to be done before the layout,
+			// which reads node sizes.
 			if (style != null) {
+				final long styleStart = System.currentTimeMillis();
 				vmMgr.setVisualStyle(style, view);
 				style.apply(view);
+				tMonitor.setStatusMessage("Visual style applied in "
+						+ (System.currentTimeMillis() - styleStart) + " msec.");
 			}
 
 			// If a source view has been provided, use that to set the X/Y positions of the
@@ -201,8 +207,8 @@ public class CreateNetworkViewTask extends AbstractNetworkCollectionTask
 			} else if (layoutMgr != null && layout == true) {
 				final Set<CyNetworkView> views = new HashSet<>();
 				views.add(view);
-				insertTasksAfterCurrentTask(new ApplyPreferredLayoutTask(views, layoutMgr));
-//				executeInParallel(view, style, new ApplyPreferredLayoutTask(views, layoutMgr), tMonitor);
+				insertTasksAfterCurrentTask(new ApplyPreferredLayoutTask(views, layoutMgr),
+						new FinishViewTask(view));
 			}
 			
 			return view;
@@ -217,29 +223,6 @@ public class CreateNetworkViewTask extends AbstractNetworkCollectionTask
 		}
 	}
 
-//	private final void executeInParallel(final CyNetworkView view, final VisualStyle style, final Task task, final TaskMonitor tMonitor) {
-//		final ExecutorService exe = Executors.newCachedThreadPool();
-//		final long startTime = System.currentTimeMillis();
-//
-//		final ApplyVisualStyleTask applyTask = new ApplyVisualStyleTask(view, style);
-//		final LayoutTask layoutTask = new LayoutTask(task, tMonitor);
-//		exe.submit(applyTask);
-//		exe.submit(layoutTask);
-//
-//		try {
-//			exe.shutdown();
-//			exe.awaitTermination(1000000, TimeUnit.SECONDS);
-//
-//			long endTime = System.currentTimeMillis();
-//			double sec = (endTime - startTime) / (1000.0);
-//			logger.info("Create View Finished in " + sec + " sec.");
-//		} catch (Exception ex) {
-//			logger.warn("Create view operation timeout", ex);
-//		} finally {
-//
-//		}
-//	}
-	
 	@Override
 	public Object getResults(Class requestedType) {
 		// Support Collection<CyNetwork> or String
@@ -256,39 +239,28 @@ public class CreateNetworkViewTask extends AbstractNetworkCollectionTask
 			return result;
 	}
 
-//	private static final class ApplyVisualStyleTask implements Runnable {
-//		private final CyNetworkView view;
-//		private final VisualStyle style;
-//		
-//		ApplyVisualStyleTask(final CyNetworkView view, final VisualStyle style) {
-//			this.style = style;
-//			this.view = view;
-//		}
-//
-//		@Override
-//		public void run() {
-//			style.apply(view);
-//		}
-//	}
-//
-//	private static final class LayoutTask implements Runnable {
-//
-//		private final Task task;
-//		private final TaskMonitor tMonitor;
-//		
-//		public LayoutTask(final Task task, final TaskMonitor tMonitor) {
-//			this.task = task;
-//			this.tMonitor = tMonitor;
-//		}
-//		@Override
-//		public void run() {
-//			try {
-//				task.run(tMonitor);
-//			} catch (Exception e) {
-//				throw new RuntimeException("Could not run task", e);
-//			}
-//		}
-//	}
+	/**
+	 * Runs after the layout of a new view and reports how long it took.
+	 */
+	private static final class FinishViewTask extends AbstractTask {
+
+		private final CyNetworkView view;
+		private final long start;
+
+		FinishViewTask(final CyNetworkView view) {
+			this.view = view;
+			this.start = System.currentTimeMillis();
+		}
+
+		@Override
+		public void run(TaskMonitor tm) throws Exception {
+			final String msg = "Layout applied in " + (System.currentTimeMillis() - start) + " msec.";
+
+			view.updateView();
+			tm.setStatusMessage(msg);
+			logger.info(msg);
+		}
+	}
 	
 	public class ChooseViewRendererTask extends AbstractNetworkCollectionTask {
 
@@ -32,6 +32,7 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -49,6 +50,7 @@ import org.cytoscape.model.CyNode;
 import org.cytoscape.model.CyRow;
 import org.cytoscape.model.CyTable;
 import org.cytoscape.model.CyTableManager;
+import org.cytoscape.model.bulk.BulkCyTable;
 import org.cytoscape.model.subnetwork.CyRootNetwork;
 import org.cytoscape.model.subnetwork.CyRootNetworkManager;
 import org.cytoscape.model.subnetwork.CySubNetwork;
@@ -582,6 +584,10 @@ public class ImportTableDataTask extends AbstractTask implements TunableValidato
 			}
 		}
 		
+		// Match the rows first, so the values can then be copied one column at a time
+		final List<CyRow> targetRows = new ArrayList<>();
+		final List<CyRow> sourceRows = new ArrayList<>();
+		
 		for (CyRow targetRow : targetTable.getAllRows()) {
 			Object key = targetRow.get(targetKeyColumn.getName(), targetKeyColumn.getType());
 			
@@ -606,17 +612,42 @@ public class ImportTableDataTask extends AbstractTask implements TunableValidato
 			if (key == null || !sourceTable.rowExists(key))
 				continue;
 				
-			final CyRow sourceRow = sourceTable.getRow(key);
-
-			for (CyColumn col : sourceColumns) {
-				if (col == sourceTable.getPrimaryKey())
-					continue;
+			targetRows.add(targetRow);
+			sourceRows.add(sourceTable.getRow(key));
+		}
+		
+		if (targetRows.isEmpty())
+			return;
+		
+		final CyColumn targetPK = targetTable.getPrimaryKey();
+		final List<Object> targetKeys = new ArrayList<>(targetRows.size());
+		
+		for (CyRow targetRow : targetRows)
+			targetKeys.add(targetRow.get(targetPK.getName(), targetPK.getType()));
+		
+		for (CyColumn col : sourceColumns) {
+			if (col == sourceTable.getPrimaryKey())
+				continue;
 
-				String targetColName = source2targetColumnMap.get(col.getName());
+			final String targetColName = source2targetColumnMap.get(col.getName());
+			
+			if (targetColName == null || targetTable.getColumn(targetColName) == null)
+				continue;
+			
+			// The model's tables fire a single RowsSetEvent for a whole column
+			if (!(targetTable instanceof BulkCyTable)) {
+				for (int i = 0; i < targetRows.size(); i++)
+					targetRows.get(i).set(targetColName, sourceRows.get(i).getRaw(col.getName()));
 				
-				if (targetColName != null)
-					targetRow.set(targetColName, sourceRow.getRaw(col.getName()));
+				continue;
 			}
+			
+			final Map<Object, Object> values = new LinkedHashMap<>(targetRows.size() * 4 / 3 + 1);
+			
+			for (int i = 0; i < targetRows.size(); i++)
+				values.put(targetKeys.get(i), sourceRows.get(i).getRaw(col.getName()));
+			
+			((BulkCyTable) targetTable).setColumnValues(targetColName, values);
 		}
 	}
 
@@ -44,7 +44,6 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
 import org.cytoscape.ding.DArrowShape;
 import org.cytoscape.ding.DVisualLexicon;
@@ -75,35 +74,44 @@ final class DEdgeDetails extends EdgeDetails {
 	private static final float DEFAULT_ARROW_SIZE = 6.0f;
 
 	private final DGraphView dGraphView;
-	private final Object m_deletedEntry = new Object();
 	
 	private final Map<VisualProperty<?>, Object> defaultValues; 
 
-	// Mapped Values
-	// If value found in these map objects, the value will be used by the renderer.
+	// Mapped Values, indexed by the detail index of each DEdgeView.
+	// If a value is set in these columns, the value will be used by the renderer.
 	// Otherwise, default value will be used.
-	Map<CyEdge, Object> m_colorsLowDetail = new ConcurrentHashMap<CyEdge, Object>(16, 0.75f, 2);
-	Map<CyEdge, Object> m_selectedColorsLowDetail = new ConcurrentHashMap<CyEdge, Object>(16, 0.75f, 2);
-	Map<CyEdge, Float> m_segmentThicknesses = new ConcurrentHashMap<CyEdge, Float>(16, 0.75f, 2);
-	Map<CyEdge, Stroke> m_segmentStrokes = new ConcurrentHashMap<CyEdge, Stroke>(16, 0.75f, 2);
-	Map<CyEdge, Byte> m_sourceArrows = new ConcurrentHashMap<CyEdge, Byte>(16, 0.75f, 2);
-	Map<CyEdge, Paint> m_sourceArrowPaints = new ConcurrentHashMap<CyEdge, Paint>(16, 0.75f, 2);
-	Map<CyEdge, Paint> m_sourceArrowSelectedPaints = new ConcurrentHashMap<CyEdge, Paint>(16, 0.75f, 2);
-	Map<CyEdge, Byte> m_targetArrows = new ConcurrentHashMap<CyEdge, Byte>(16, 0.75f, 2);
-	Map<CyEdge, Paint> m_targetArrowPaints = new ConcurrentHashMap<CyEdge, Paint>(16, 0.75f, 2);
-	Map<CyEdge, Paint> m_targetArrowSelectedPaints = new ConcurrentHashMap<CyEdge, Paint>(16, 0.75f, 2);
-	Map<CyEdge, Integer> m_labelCounts = new ConcurrentHashMap<CyEdge, Integer>(16, 0.75f, 2);
-	Map<CyEdge, String> m_labelTexts = new ConcurrentHashMap<CyEdge, String>(16, 0.75f, 2);
-	Map<CyEdge, Font> m_labelFonts = new ConcurrentHashMap<CyEdge, Font>(16, 0.75f, 2);
-	Map<CyEdge, Paint> m_labelPaints = new ConcurrentHashMap<CyEdge, Paint>(16, 0.75f, 2);
-	Map<CyEdge, Double> m_labelWidths = new ConcurrentHashMap<CyEdge, Double>(16, 0.75f, 2);
-	Map<CyEdge, Paint> m_unselectedPaints = new ConcurrentHashMap<CyEdge, Paint>(16, 0.75f, 2);
-	Map<CyEdge, Paint> m_selectedPaints = new ConcurrentHashMap<CyEdge, Paint>(16, 0.75f, 2);
-	Map<CyEdge, Integer> m_lineCurved = new ConcurrentHashMap<CyEdge, Integer>(16, 0.75f, 2);
-	Map<CyEdge, Bend> m_edgeBends = new ConcurrentHashMap<CyEdge, Bend>(16, 0.75f, 2);
-	Map<CyEdge, String> m_edgeTooltips = new ConcurrentHashMap<CyEdge, String>(16, 0.75f, 2);
-	Map<CyEdge, Integer> m_edgeTansparencies = new ConcurrentHashMap<CyEdge, Integer>(16, 0.75f, 2);
-	Map<CyEdge, Integer> m_edgeLabelTansparencies = new ConcurrentHashMap<CyEdge, Integer>(16, 0.75f, 2);
+	final DetailColumn.Objects<Color> m_colorsLowDetail = new DetailColumn.Objects<Color>();
+	final DetailColumn.Objects<Color> m_selectedColorsLowDetail = new DetailColumn.Objects<Color>();
+	final DetailColumn.Floats m_segmentThicknesses = new DetailColumn.Floats();
+	final DetailColumn.Objects<Stroke> m_segmentStrokes = new DetailColumn.Objects<Stroke>();
+	final DetailColumn.Ints m_sourceArrows = new DetailColumn.Ints();
+	final DetailColumn.Objects<Paint> m_sourceArrowPaints = new DetailColumn.Objects<Paint>();
+	final DetailColumn.Objects<Paint> m_sourceArrowSelectedPaints = new DetailColumn.Objects<Paint>();
+	final DetailColumn.Ints m_targetArrows = new DetailColumn.Ints();
+	final DetailColumn.Objects<Paint> m_targetArrowPaints = new DetailColumn.Objects<Paint>();
+	final DetailColumn.Objects<Paint> m_targetArrowSelectedPaints = new DetailColumn.Objects<Paint>();
+	final DetailColumn.Ints m_labelCounts = new DetailColumn.Ints();
+	final DetailColumn.Objects<String> m_labelTexts = new DetailColumn.Objects<String>();
+	final DetailColumn.Objects<Font> m_labelFonts = new DetailColumn.Objects<Font>();
+	final DetailColumn.Objects<Paint> m_labelPaints = new DetailColumn.Objects<Paint>();
+	final DetailColumn.Doubles m_labelWidths = new DetailColumn.Doubles();
+	final DetailColumn.Objects<Paint> m_unselectedPaints = new DetailColumn.Objects<Paint>();
+	final DetailColumn.Objects<Paint> m_selectedPaints = new DetailColumn.Objects<Paint>();
+	final DetailColumn.Ints m_lineCurved = new DetailColumn.Ints();
+	final DetailColumn.Objects<Bend> m_edgeBends = new DetailColumn.Objects<Bend>();
+	final DetailColumn.Objects<String> m_edgeTooltips = new DetailColumn.Objects<String>();
+	final DetailColumn.Ints m_edgeTansparencies = new DetailColumn.Ints();
+	final DetailColumn.Ints m_edgeLabelTansparencies = new DetailColumn.Ints();
+
+	private final DetailColumn[] columns = {
+		m_colorsLowDetail, m_selectedColorsLowDetail, m_segmentThicknesses, m_segmentStrokes,
+		m_sourceArrows, m_sourceArrowPaints, m_sourceArrowSelectedPaints, m_targetArrows,
+		m_targetArrowPaints, m_targetArrowSelectedPaints, m_labelCounts, m_labelTexts, m_labelFonts,
+		m_labelPaints, m_labelWidths, m_unselectedPaints, m_selectedPaints, m_lineCurved, m_edgeBends,
+		m_edgeTooltips, m_edgeTansparencies, m_edgeLabelTansparencies
+	};
+
+	private final DetailIndexPool indices = new DetailIndexPool();
 
 	// Default Values
 	Byte m_sourceArrowDefault;
@@ -139,62 +147,40 @@ final class DEdgeDetails extends EdgeDetails {
 		if (isCleared)
 			return;
 
-		m_segmentThicknesses = new ConcurrentHashMap<CyEdge, Float>();
-		m_segmentStrokes = new ConcurrentHashMap<CyEdge, Stroke>();
-		m_sourceArrows = new ConcurrentHashMap<CyEdge, Byte>();
-		m_sourceArrowPaints = new ConcurrentHashMap<CyEdge, Paint>();
-		m_targetArrows = new ConcurrentHashMap<CyEdge, Byte>();
-		m_targetArrowPaints = new ConcurrentHashMap<CyEdge, Paint>();
-		m_targetArrowSelectedPaints = new ConcurrentHashMap<CyEdge, Paint>();
-		m_labelCounts = new ConcurrentHashMap<CyEdge, Integer>();
-		m_labelTexts = new ConcurrentHashMap<CyEdge, String>();
-		m_labelFonts = new ConcurrentHashMap<CyEdge, Font>();
-		m_labelPaints = new ConcurrentHashMap<CyEdge, Paint>();
-		m_labelWidths = new ConcurrentHashMap<CyEdge, Double>();
-		m_unselectedPaints = new ConcurrentHashMap<CyEdge, Paint>();
-		m_selectedPaints = new ConcurrentHashMap<CyEdge, Paint>();
-		m_colorsLowDetail = new ConcurrentHashMap<CyEdge, Object>();
-		m_selectedColorsLowDetail = new ConcurrentHashMap<CyEdge, Object>();
-		m_lineCurved = new ConcurrentHashMap<CyEdge, Integer>();
-		m_edgeBends = new ConcurrentHashMap<CyEdge, Bend>();
-		m_edgeTooltips = new ConcurrentHashMap<CyEdge, String>();
-		m_edgeTansparencies = new ConcurrentHashMap<CyEdge, Integer>();
-		m_edgeLabelTansparencies = new ConcurrentHashMap<CyEdge, Integer>();
+		for (final DetailColumn column : columns)
+			column.clear();
 
 		isCleared = true;
 	}
 
-	void unregisterEdge(final CyEdge edgeIdx) {
-		final Object colorDetail = m_colorsLowDetail.get(edgeIdx);
-		if ((colorDetail != null) && (colorDetail != m_deletedEntry))
-			m_colorsLowDetail.put(edgeIdx, m_deletedEntry);
-
-		final Object selectedColorDetail = m_selectedColorsLowDetail.get(edgeIdx);
-		if ((selectedColorDetail != null) && (selectedColorDetail != m_deletedEntry))
-			m_selectedColorsLowDetail.put(edgeIdx, m_deletedEntry);
-
-		m_segmentThicknesses.remove(edgeIdx);
-		m_segmentStrokes.remove(edgeIdx);
-		m_sourceArrows.remove(edgeIdx);
-		m_sourceArrowPaints.remove(edgeIdx);
-		m_targetArrows.remove(edgeIdx);
-		m_targetArrowPaints.remove(edgeIdx);
-		m_targetArrowSelectedPaints.remove(edgeIdx);
-		m_labelCounts.remove(edgeIdx);
-		m_labelTexts.remove(edgeIdx);
-		m_labelFonts.remove(edgeIdx);
-		m_labelPaints.remove(edgeIdx);
-		m_labelWidths.remove(edgeIdx);
-		m_selectedPaints.remove(edgeIdx);
-		m_unselectedPaints.remove(edgeIdx);
-		m_lineCurved.remove(edgeIdx);
-		m_edgeBends.remove(edgeIdx);
-		selected.remove(edgeIdx);
-		m_edgeTooltips.remove(edgeIdx);
-		m_edgeTansparencies.remove(edgeIdx);
-		m_edgeLabelTansparencies.remove(edgeIdx);
+	/**
+	 * Returns a detail index for a new edge view.  The index stays with the
+	 * view until {@link #unregisterEdge(DEdgeView)} is called for it.
+	 */
+	int allocateIndex() {
+		return indices.allocate();
 	}
-	
+
+	void unregisterEdge(final DEdgeView edgeView) {
+		final int index = edgeView.detailIndex;
+
+		for (final DetailColumn column : columns)
+			column.remove(index);
+
+		selected.remove(edgeView.getModel());
+		indices.release(index);
+	}
+
+	/**
+	 * Detail index of the view of the given edge, or -1 if the edge has no
+	 * view.  Writes to a column at -1 are ignored.
+	 */
+	int indexOf(final CyEdge edge) {
+		final DEdgeView dev = dGraphView.getDEdgeView(edge);
+
+		return dev != null ? dev.detailIndex : -1;
+	}
+
 	public <V> void setDefaultValue(final VisualProperty<V> vp, V value) {
 		defaultValues.put(vp, value);
 	}
@@ -215,15 +201,15 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_STROKE_UNSELECTED_PAINT))
 			return (Color) dev.getVisualProperty(DVisualLexicon.EDGE_STROKE_UNSELECTED_PAINT);
 
-		final Object o = m_colorsLowDetail.get(edge);
+		final Color o = m_colorsLowDetail.get(dev.detailIndex);
 
-		if ((o == null) || (o == m_deletedEntry))
+		if (o == null)
 			if (m_colorLowDetailDefault == null)
 				return super.getColorLowDetail(edge);
 			else
 				return (Color) m_colorLowDetailDefault;
 
-		return (Color) o;
+		return o;
 	}
 
 	private Color getSelectedColorLowDetail(final CyEdge edge) {
@@ -232,15 +218,15 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_STROKE_SELECTED_PAINT))
 			return (Color) dev.getVisualProperty(DVisualLexicon.EDGE_STROKE_SELECTED_PAINT);
 
-		final Object o = m_selectedColorsLowDetail.get(edge);
+		final Color o = m_selectedColorsLowDetail.get(dev.detailIndex);
 
-		if ((o == null) || (o == m_deletedEntry))
+		if (o == null)
 			if (m_selectedColorLowDetailDefault == null)
 				return super.getColorLowDetail(edge);
 			else
 				return (Color) m_selectedColorLowDetailDefault;
 
-		return (Color) o;
+		return o;
 	}
 
 	void setSelectedColorLowDetailDefault(Color c) {
@@ -265,14 +251,13 @@ final class DEdgeDetails extends EdgeDetails {
 			return DArrowShape.parseArrowText(shapeID).getRendererTypeID();
 		}
 
-		final Byte arrow = m_sourceArrows.get(edge);
-		if (arrow == null)
+		if (!m_sourceArrows.isSet(dev.detailIndex))
 			if (m_sourceArrowDefault == null)
 				return super.getSourceArrowShape(edge);
 			else
 				return m_sourceArrowDefault.byteValue();
 
-		return arrow;
+		return (byte) m_sourceArrows.get(dev.detailIndex);
 	}
 
 	void setSourceArrowDefault(byte arrow) {
@@ -286,9 +271,9 @@ final class DEdgeDetails extends EdgeDetails {
 	 */
 	void overrideSourceArrow(final CyEdge edge, final byte arrowType) {
 		if ((arrowType >= 0) || (arrowType == super.getSourceArrowShape(edge)))
-			m_sourceArrows.remove(edge);
+			m_sourceArrows.remove(indexOf(edge));
 		else {
-			m_sourceArrows.put(edge, arrowType);
+			m_sourceArrows.put(indexOf(edge), arrowType);
 			isCleared = false;
 		}
 	}
@@ -309,7 +294,7 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_SOURCE_ARROW_UNSELECTED_PAINT))
 			return dev.getVisualProperty(DVisualLexicon.EDGE_SOURCE_ARROW_UNSELECTED_PAINT);
 
-		final Paint paint = m_sourceArrowPaints.get(edge);
+		final Paint paint = m_sourceArrowPaints.get(dev.detailIndex);
 		if (paint == null) {
 			if (m_sourceArrowPaintDefault == null)
 				return DVisualLexicon.EDGE_SOURCE_ARROW_UNSELECTED_PAINT.getDefault();
@@ -329,18 +314,18 @@ final class DEdgeDetails extends EdgeDetails {
 	 */
 	void overrideSourceArrowPaint(final CyEdge edge, final Paint paint) {
 		if ((paint == null) || paint.equals(super.getSourceArrowPaint(edge)))
-			m_sourceArrowPaints.remove(edge);
+			m_sourceArrowPaints.remove(indexOf(edge));
 		else {
-			m_sourceArrowPaints.put(edge, paint);
+			m_sourceArrowPaints.put(indexOf(edge), paint);
 			isCleared = false;
 		}
 	}
 
 	void overrideSourceArrowSelectedPaint(final CyEdge edge, final Paint paint) {
 		if ((paint == null) || paint.equals(super.getSourceArrowPaint(edge)))
-			this.m_sourceArrowSelectedPaints.remove(edge);
+			this.m_sourceArrowSelectedPaints.remove(indexOf(edge));
 		else {
-			m_sourceArrowSelectedPaints.put(edge, paint);
+			m_sourceArrowSelectedPaints.put(indexOf(edge), paint);
 			isCleared = false;
 		}
 	}
@@ -355,14 +340,13 @@ final class DEdgeDetails extends EdgeDetails {
 			return DArrowShape.parseArrowText(shapeID).getRendererTypeID();
 		}
 
-		final Byte arrow = m_targetArrows.get(edge);
-		if (arrow == null)
+		if (!m_targetArrows.isSet(dev.detailIndex))
 			if (m_targetArrowDefault == null)
 				return super.getTargetArrowShape(edge);
 			else
 				return m_targetArrowDefault.byteValue();
 
-		return arrow;
+		return (byte) m_targetArrows.get(dev.detailIndex);
 	}
 
 	void setTargetArrowDefault(final byte arrow) {
@@ -376,9 +360,9 @@ final class DEdgeDetails extends EdgeDetails {
 	 */
 	void overrideTargetArrow(final CyEdge edge, final byte arrowType) {
 		if ((arrowType >= 0) || (arrowType == super.getTargetArrowShape(edge)))
-			m_targetArrows.remove(edge);
+			m_targetArrows.remove(indexOf(edge));
 		else {
-			m_targetArrows.put(edge, arrowType);
+			m_targetArrows.put(indexOf(edge), arrowType);
 			isCleared = false;
 		}
 	}
@@ -402,7 +386,7 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_TARGET_ARROW_UNSELECTED_PAINT))
 			return dev.getVisualProperty(DVisualLexicon.EDGE_TARGET_ARROW_UNSELECTED_PAINT);
 
-		final Paint paint = m_targetArrowPaints.get(edge);
+		final Paint paint = m_targetArrowPaints.get(dev.detailIndex);
 
 		if (paint == null) {
 			if (m_targetArrowPaintDefault == null)
@@ -423,9 +407,9 @@ final class DEdgeDetails extends EdgeDetails {
 	 */
 	void overrideTargetArrowPaint(final CyEdge edge, final Paint paint) {
 		if (paint == null)
-			m_targetArrowPaints.remove(edge);
+			m_targetArrowPaints.remove(indexOf(edge));
 		else {
-			m_targetArrowPaints.put(edge, paint);
+			m_targetArrowPaints.put(indexOf(edge), paint);
 			isCleared = false;
 		}
 	}
@@ -435,32 +419,28 @@ final class DEdgeDetails extends EdgeDetails {
 	 */
 	void overrideTargetArrowSelectedPaint(final CyEdge edge, final Paint paint) {
 		if ((paint == null) || paint.equals(super.getTargetArrowPaint(edge)))
-			this.m_targetArrowSelectedPaints.remove(edge);
+			this.m_targetArrowSelectedPaints.remove(indexOf(edge));
 		else {
-			m_targetArrowSelectedPaints.put(edge, paint);
+			m_targetArrowSelectedPaints.put(indexOf(edge), paint);
 			isCleared = false;
 		}
 	}
 
 	@Override
 	public float getWidth(final CyEdge edge) {
-		Float w = null;
 		// Bypass check
 		final DEdgeView edv = dGraphView.getDEdgeView(edge);
 		
-		if (edv.isValueLocked(DVisualLexicon.EDGE_WIDTH)) {
-			w = edv.getVisualProperty(DVisualLexicon.EDGE_WIDTH).floatValue();
-		} else {
-			w = m_segmentThicknesses.get(edge);
-			if (w == null) {
-				if (m_segmentThicknessDefault == null)
-					w = super.getWidth(edge);
-				else
-					w = m_segmentThicknessDefault.floatValue();
-			}
-		}
+		if (edv.isValueLocked(DVisualLexicon.EDGE_WIDTH))
+			return edv.getVisualProperty(DVisualLexicon.EDGE_WIDTH).floatValue();
+
+		if (m_segmentThicknesses.isSet(edv.detailIndex))
+			return m_segmentThicknesses.get(edv.detailIndex);
 
-		return w;
+		if (m_segmentThicknessDefault == null)
+			return super.getWidth(edge);
+		else
+			return m_segmentThicknessDefault.floatValue();
 	}
 
 	void setSegmentThicknessDefault(float thick) {
@@ -474,9 +454,9 @@ final class DEdgeDetails extends EdgeDetails {
 	 */
 	void overrideSegmentThickness(final CyEdge edge, final float thickness) {
 		if ((thickness < 0.0f) || (thickness == super.getWidth(edge)))
-			m_segmentThicknesses.remove(edge);
+			m_segmentThicknesses.remove(indexOf(edge));
 		else {
-			m_segmentThicknesses.put(edge, thickness);
+			m_segmentThicknesses.put(indexOf(edge), thickness);
 			isCleared = false;
 		}
 	}
@@ -495,13 +475,13 @@ final class DEdgeDetails extends EdgeDetails {
 
 			// We need to handle animated edges with some care...
 			if (stroke instanceof AnimatedStroke) {
-				Stroke oldStroke = m_segmentStrokes.get(edge);
+				Stroke oldStroke = m_segmentStrokes.get(dev.detailIndex);
 				if (oldStroke != null && oldStroke.getClass().equals(stroke.getClass())) {
 					stroke = ((WidthStroke)oldStroke).newInstanceForWidth(getWidth(edge));
 				}
 			}
 		} else {
-			stroke = m_segmentStrokes.get(edge);
+			stroke = m_segmentStrokes.get(dev.detailIndex);
 
 			if (stroke == null) {
 				if (m_segmentStrokeDefault == null)
@@ -529,9 +509,9 @@ final class DEdgeDetails extends EdgeDetails {
 	 */
 	void overrideSegmentStroke(final CyEdge edge, final Stroke stroke) {
 		if ((stroke == null) || stroke.equals(super.getStroke(edge))) {
-			m_segmentStrokes.remove(edge);
+			m_segmentStrokes.remove(indexOf(edge));
 		} else {
-			m_segmentStrokes.put(edge, stroke);
+			m_segmentStrokes.put(indexOf(edge), stroke);
 			isCleared = false;
 		}
 	}
@@ -569,7 +549,7 @@ final class DEdgeDetails extends EdgeDetails {
 		} else if (dev.isValueLocked(DVisualLexicon.EDGE_UNSELECTED_PAINT)) {
 			paint = dev.getVisualProperty(DVisualLexicon.EDGE_UNSELECTED_PAINT);
 		} else {
-			paint = m_unselectedPaints.get(edge);
+			paint = m_unselectedPaints.get(dev.detailIndex);
 
 			if (paint == null) {
 				if (m_unselectedPaintDefault == null)
@@ -598,7 +578,7 @@ final class DEdgeDetails extends EdgeDetails {
 		} else if (dev.isValueLocked(DVisualLexicon.EDGE_SELECTED_PAINT)) {
 			paint = dev.getVisualProperty(DVisualLexicon.EDGE_SELECTED_PAINT);
 		} else {
-			paint = m_selectedPaints.get(edge);
+			paint = m_selectedPaints.get(dev.detailIndex);
 
 			if (paint == null) {
 				if (m_selectedPaintDefault == null)
@@ -629,16 +609,18 @@ final class DEdgeDetails extends EdgeDetails {
 	}
 
 	void setUnselectedPaint(final CyEdge edge, final Paint paint) {
-		m_unselectedPaints.put(edge, paint);
+		final int index = indexOf(edge);
+		m_unselectedPaints.put(index, paint);
 		if (paint instanceof Color)
-			m_colorsLowDetail.put(edge, paint);
+			m_colorsLowDetail.put(index, (Color) paint);
 		isCleared = false;
 	}
 
 	void setSelectedPaint(final CyEdge edge, final Paint paint) {
-		m_selectedPaints.put(edge, paint);
+		final int index = indexOf(edge);
+		m_selectedPaints.put(index, paint);
 		if (paint instanceof Color)
-			m_selectedColorsLowDetail.put(edge, paint);
+			m_selectedColorsLowDetail.put(index, (Color) paint);
 
 		isCleared = false;
 	}
@@ -651,18 +633,15 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_LABEL) && !dev.getVisualProperty(DVisualLexicon.EDGE_LABEL).isEmpty())
 			return 1;
 		
-		Integer count = m_labelCounts.get(edge);
-		
-		if (count == null) {
-			try {
-				String defLabel = (String) defaultValues.get(DVisualLexicon.EDGE_LABEL);
-				count = (defLabel == null || defLabel.isEmpty()) ? super.getLabelCount(edge) : 1;
-			} catch (ClassCastException e) {
-				count = 0;
-			}
+		if (m_labelCounts.isSet(dev.detailIndex))
+			return m_labelCounts.get(dev.detailIndex);
+
+		try {
+			String defLabel = (String) defaultValues.get(DVisualLexicon.EDGE_LABEL);
+			return (defLabel == null || defLabel.isEmpty()) ? super.getLabelCount(edge) : 1;
+		} catch (ClassCastException e) {
+			return 0;
 		}
-		
-		return count;
 	}
 
 	/*
@@ -670,9 +649,9 @@ final class DEdgeDetails extends EdgeDetails {
 	 */
 	void overrideLabelCount(final CyEdge edge, final int labelCount) {
 		if ((labelCount < 0) || (labelCount == super.getLabelCount(edge))) {
-			m_labelCounts.remove(edge);
+			m_labelCounts.remove(indexOf(edge));
 		} else {
-			m_labelCounts.put(edge, labelCount);
+			m_labelCounts.put(indexOf(edge), labelCount);
 			isCleared = false;
 		}
 	}
@@ -684,7 +663,7 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_LABEL))
 			return dev.getVisualProperty(DVisualLexicon.EDGE_LABEL);
 
-		final String text = m_labelTexts.get(edge);
+		final String text = m_labelTexts.get(dev.detailIndex);
 		if (text == null)
 			if (m_labelTextDefault == null)
 				return super.getLabelText(edge, labelInx);
@@ -706,9 +685,9 @@ final class DEdgeDetails extends EdgeDetails {
 		// final long key = (((long) edge) << 32) | ((long) labelInx);
 
 		if ((text == null) || text.equals(super.getLabelText(edge, labelInx)))
-			m_labelTexts.remove(edge);
+			m_labelTexts.remove(indexOf(edge));
 		else {
-			m_labelTexts.put(edge, text);
+			m_labelTexts.put(indexOf(edge), text);
 			isCleared = false;
 		}
 	}
@@ -719,7 +698,7 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_TOOLTIP))
 			return dev.getVisualProperty(DVisualLexicon.EDGE_TOOLTIP);
 
-		final String text = m_edgeTooltips.get(edge);
+		final String text = m_edgeTooltips.get(dev.detailIndex);
 		if (text == null)
 			if (m_edgeTooltipDefault == null)
 				return DVisualLexicon.EDGE_TOOLTIP.getDefault();
@@ -736,9 +715,9 @@ final class DEdgeDetails extends EdgeDetails {
 
 	void overrideTooltipText(final CyEdge edge, final String text) {
 		if ((text == null) || text.equals(""))
-			m_edgeTooltips.remove(edge);
+			m_edgeTooltips.remove(indexOf(edge));
 		else {
-			m_edgeTooltips.put(edge, text);
+			m_edgeTooltips.put(indexOf(edge), text);
 			isCleared = false;
 		}
 	}
@@ -749,15 +728,13 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_TRANSPARENCY))
 			return dev.getVisualProperty(DVisualLexicon.EDGE_TRANSPARENCY);
 
-		Integer trans = m_edgeTansparencies.get(edge);
-		if (trans == null) {
-			if (transparencyDefault == null)
-				trans = DVisualLexicon.EDGE_TRANSPARENCY.getDefault();
-			else
-				trans = transparencyDefault;
-		}
-		
-		return trans;
+		if (m_edgeTansparencies.isSet(dev.detailIndex))
+			return m_edgeTansparencies.get(dev.detailIndex);
+
+		if (transparencyDefault == null)
+			return DVisualLexicon.EDGE_TRANSPARENCY.getDefault();
+		else
+			return transparencyDefault;
 	}
 
 	void setTransparencyDefault(Integer transparency) {
@@ -767,9 +744,9 @@ final class DEdgeDetails extends EdgeDetails {
 
 	void overrideTransparency(final CyEdge edge, final Integer transparency) {
 		if (transparency == null)
-			m_edgeTansparencies.remove(edge);
+			m_edgeTansparencies.remove(indexOf(edge));
 		else {
-			m_edgeTansparencies.put(edge, transparency);
+			m_edgeTansparencies.put(indexOf(edge), transparency);
 			isCleared = false;
 		}
 	}
@@ -780,15 +757,13 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_LABEL_TRANSPARENCY))
 			return dev.getVisualProperty(DVisualLexicon.EDGE_LABEL_TRANSPARENCY);
 
-		Integer trans = m_edgeLabelTansparencies.get(edge);
-		if (trans == null) {
-			if (labelTransparencyDefault == null)
-				trans = DVisualLexicon.EDGE_LABEL_TRANSPARENCY.getDefault();
-			else
-				trans = labelTransparencyDefault;
-		}
-		
-		return trans;
+		if (m_edgeLabelTansparencies.isSet(dev.detailIndex))
+			return m_edgeLabelTansparencies.get(dev.detailIndex);
+
+		if (labelTransparencyDefault == null)
+			return DVisualLexicon.EDGE_LABEL_TRANSPARENCY.getDefault();
+		else
+			return labelTransparencyDefault;
 	}
 
 	void setLabelTransparencyDefault(Integer transparency) {
@@ -798,9 +773,9 @@ final class DEdgeDetails extends EdgeDetails {
 
 	void overrideLabelTransparency(final CyEdge edge, final Integer transparency) {
 		if (transparency == null)
-			m_edgeLabelTansparencies.remove(edge);
+			m_edgeLabelTansparencies.remove(indexOf(edge));
 		else {
-			m_edgeLabelTansparencies.put(edge, transparency);
+			m_edgeLabelTansparencies.put(indexOf(edge), transparency);
 			isCleared = false;
 		}
 	}
@@ -818,7 +793,7 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_LABEL_FONT_FACE)) {
 			font = dev.getVisualProperty(DVisualLexicon.EDGE_LABEL_FONT_FACE);
 		} else {
-			font = m_labelFonts.get(edge);
+			font = m_labelFonts.get(dev.detailIndex);
 	
 			if (font == null)
 				font = m_labelFontDefault != null ? m_labelFontDefault : super.getLabelFont(edge, labelInx);
@@ -845,9 +820,9 @@ final class DEdgeDetails extends EdgeDetails {
 		// final long key = (((long) edge) << 32) | ((long) labelInx);
 
 		if ((font == null) || font.equals(super.getLabelFont(edge, labelInx)))
-			m_labelFonts.remove(edge);
+			m_labelFonts.remove(indexOf(edge));
 		else {
-			m_labelFonts.put(edge, font);
+			m_labelFonts.put(indexOf(edge), font);
 			isCleared = false;
 		}
 	}
@@ -866,7 +841,7 @@ final class DEdgeDetails extends EdgeDetails {
 			// Check bypass
 			paint = dev.getVisualProperty(DVisualLexicon.EDGE_LABEL_COLOR);
 		} else {
-			paint = m_labelPaints.get(edge);
+			paint = m_labelPaints.get(dev.detailIndex);
 
 			if (paint == null)
 				paint = m_labelPaintDefault != null ? m_labelPaintDefault : super.getLabelPaint(edge, labelInx);
@@ -889,9 +864,9 @@ final class DEdgeDetails extends EdgeDetails {
 	void overrideLabelPaint(final CyEdge edge, final int labelInx, final Paint paint) {
 
 		if ((paint == null) || paint.equals(super.getLabelPaint(edge, labelInx)))
-			m_labelPaints.remove(edge);
+			m_labelPaints.remove(indexOf(edge));
 		else {
-			m_labelPaints.put(edge, paint);
+			m_labelPaints.put(indexOf(edge), paint);
 			isCleared = false;
 		}
 	}
@@ -904,16 +879,14 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_LABEL_WIDTH))
 			return dev.getVisualProperty(DVisualLexicon.EDGE_LABEL_WIDTH);
 		
-		final Double width = m_labelWidths.get(edge);
-		
-		if (width == null) {
+		if (!m_labelWidths.isSet(dev.detailIndex)) {
 			if (m_labelWidthDefault == null)
 				return super.getLabelWidth(edge);
 			else
 				return m_labelWidthDefault.doubleValue();
 		}
 
-		return width;
+		return m_labelWidths.get(dev.detailIndex);
 	}
 
 	void setLabelWidthDefault(double width) {
@@ -926,9 +899,9 @@ final class DEdgeDetails extends EdgeDetails {
 	 */
 	void overrideLabelWidth(final CyEdge edge, final double width) {
 		if ((width < 0.0) || (width == super.getLabelWidth(edge)))
-			m_labelWidths.remove(edge);
+			m_labelWidths.remove(indexOf(edge));
 		else {
-			m_labelWidths.put(edge, width);
+			m_labelWidths.put(indexOf(edge), width);
 			isCleared = false;
 		}
 	}
@@ -962,10 +935,10 @@ final class DEdgeDetails extends EdgeDetails {
 
 	void overrideLineCurved(final CyEdge edge, final int type) {
 		if (EdgeView.STRAIGHT_LINES == type || EdgeView.CURVED_LINES == type) {
-			m_lineCurved.put(edge, type);
+			m_lineCurved.put(indexOf(edge), type);
 			isCleared = false;
 		} else {
-			m_lineCurved.remove(edge);
+			m_lineCurved.remove(indexOf(edge));
 		}
 	}
 
@@ -981,14 +954,13 @@ final class DEdgeDetails extends EdgeDetails {
 			}
 		}
 
-		final Integer lineType = m_lineCurved.get(edge);
-		if (lineType == null)
+		if (!m_lineCurved.isSet(dev.detailIndex))
 			if (m_lineCurvedDefault == null)
 				return EdgeView.STRAIGHT_LINES;
 			else
 				return m_lineCurvedDefault;
 
-		return lineType;
+		return m_lineCurved.get(dev.detailIndex);
 	}
 
 	void setLineCurvedDefault(int lineType) {
@@ -1011,11 +983,11 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_BEND))
 			return dev.getVisualProperty(DVisualLexicon.EDGE_BEND);
 
-		Bend bend = m_edgeBends.get(edge);
+		Bend bend = m_edgeBends.get(dev.detailIndex);
 
 		if (bend == null && forceCreate) {
 			bend = new BendImpl();
-			m_edgeBends.put(edge, bend);
+			m_edgeBends.put(dev.detailIndex, bend);
 		}
 
 		if (bend == null) {
@@ -64,6 +64,9 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 
 	// Cached visibility information
 	private boolean isVisible = true;
+
+	// Position of this view in the detail columns of DEdgeDetails
+	final int detailIndex;
 	
 	DEdgeView(final DGraphView graphView,
 			  final CyEdge model,
@@ -77,6 +80,7 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 
 		this.handleFacgtory = handleFactory;
 		this.graphView = graphView;
+		this.detailIndex = graphView.m_edgeDetails.allocateIndex();
 		this.selected = false;
 	}
 
@@ -322,7 +326,7 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 	@Override
 	public void setToolTip(String tip) {
 		synchronized (graphView.m_lock) {
-			graphView.m_edgeDetails.m_edgeTooltips.put(model, tip);
+			graphView.m_edgeDetails.m_edgeTooltips.put(detailIndex, tip);
 		}
 	}
 
@@ -605,7 +609,7 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 		if( !isValueLocked(BasicVisualLexicon.EDGE_BEND) )
 		{
 			synchronized (graphView.m_lock) {
-				graphView.m_edgeDetails.m_edgeBends.put(model, bend);
+				graphView.m_edgeDetails.m_edgeBends.put(detailIndex, bend);
 			}
 		}
 		graphView.setContentChanged();
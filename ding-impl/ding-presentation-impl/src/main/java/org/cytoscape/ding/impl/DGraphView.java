@@ -56,7 +56,15 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 
 import javax.imageio.ImageIO;
@@ -162,6 +170,18 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 	
 	// Size of square for moving handle
 	static final float DEFAULT_ANCHOR_SIZE = 12.0f;
+
+	// Fewer node moves than this never trigger a rebuild of the spacial index.
+	private static final int SPACIAL_REBUILD_THRESHOLD = 1000;
+
+	// Networks with at least this many nodes and edges get their views
+	// allocated in parallel, in chunks of VIEW_CHUNK_SIZE.
+	private static final int PARALLEL_VIEW_THRESHOLD = 20000;
+	private static final int VIEW_CHUNK_SIZE = 4096;
+
+	// Allocates the view chunks of all network views; one thread per core at
+	// most, which go away when no view is being created.
+	private static final ThreadPoolExecutor VIEW_EXECUTOR = createViewExecutor();
 	
 	final CyEventHelper cyEventHelper;
 
@@ -216,6 +236,11 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 	 */
 	SpacialIndex2D m_spacial;
 
+	/**
+	 * Number of node moves in m_spacial since it was last bulk loaded.
+	 */
+	private int m_spacialUpdates;
+
 	/**
 	 * RTree used for querying Edge Handle positions. Used by DNodeView,
 	 * DEdgeView, and InnerCanvas.
@@ -471,11 +496,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 		this.title = model.getRow(model).get(CyNetwork.NAME, String.class);
 
 		// Create view model / presentations for the graph
-		for (final CyNode nn : model.getNodeList())
-			addNodeView(nn);
-
-		for (final CyEdge ee : model.getEdgeList())
-			addEdgeView(ee);
+		createViews(model);
 
 		logger.debug("Phase 3: All views created: time = " + (System.currentTimeMillis() - start));
 
@@ -776,6 +797,127 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 		return newView;
 	}
 
+	private static ThreadPoolExecutor createViewExecutor() {
+		final int threads = Runtime.getRuntime().availableProcessors();
+		final ThreadPoolExecutor exe = new ThreadPoolExecutor(threads, threads, 30L, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+					private final AtomicInteger count = new AtomicInteger();
+
+					@Override
+					public Thread newThread(final Runnable r) {
+						final Thread t = new Thread(r, "Ding view creation " + count.incrementAndGet());
+						t.setDaemon(true);
+						return t;
+					}
+				});
+		exe.allowCoreThreadTimeOut(true);
+
+		return exe;
+	}
+
+	/**
+	 * Creates the views of all nodes and edges of the model.  For large
+	 * networks the view objects are allocated in parallel chunks.  They are
+	 * then registered under m_lock on this thread, and all nodes go into the
+	 * spacial index in one go, since they start out with the same default
+	 * extents anyway.
+	 */
+	private void createViews(final CyNetwork model) {
+		final List<CyNode> nodes = model.getNodeList();
+		final List<CyEdge> edges = model.getEdgeList();
+		final DNodeView[] nodeViews = new DNodeView[nodes.size()];
+		final DEdgeView[] edgeViews = new DEdgeView[edges.size()];
+
+		if (nodes.size() + edges.size() < PARALLEL_VIEW_THRESHOLD) {
+			createNodeViews(nodes, nodeViews, 0, nodeViews.length);
+			createEdgeViews(edges, edgeViews, 0, edgeViews.length);
+		} else {
+			final List<Callable<Void>> chunks = new ArrayList<Callable<Void>>();
+
+			for (int i = 0; i < nodeViews.length; i += VIEW_CHUNK_SIZE) {
+				final int from = i;
+				final int to = Math.min(nodeViews.length, i + VIEW_CHUNK_SIZE);
+				chunks.add(new Callable<Void>() {
+					@Override
+					public Void call() {
+						createNodeViews(nodes, nodeViews, from, to);
+						return null;
+					}
+				});
+			}
+
+			for (int i = 0; i < edgeViews.length; i += VIEW_CHUNK_SIZE) {
+				final int from = i;
+				final int to = Math.min(edgeViews.length, i + VIEW_CHUNK_SIZE);
+				chunks.add(new Callable<Void>() {
+					@Override
+					public Void call() {
+						createEdgeViews(edges, edgeViews, from, to);
+						return null;
+					}
+				});
+			}
+
+			try {
+				for (final Future<Void> f : VIEW_EXECUTOR.invokeAll(chunks))
+					f.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while creating the network view", e);
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("Could not create the network view", e.getCause());
+			}
+		}
+
+		synchronized (m_lock) {
+			final long[] nodeKeys = new long[nodeViews.length];
+			final float[] extents = new float[nodeViews.length * 4];
+			final double[] zOrders = new double[nodeViews.length];
+
+			for (int i = 0; i < nodeViews.length; i++) {
+				final CyNode node = nodes.get(i);
+				m_drawPersp.addNode(node);
+				nodeViewMap.put(node, nodeViews[i]);
+
+				nodeKeys[i] = node.getSUID();
+				extents[i * 4] = m_defaultNodeXMin;
+				extents[i * 4 + 1] = m_defaultNodeYMin;
+				extents[i * 4 + 2] = m_defaultNodeXMax;
+				extents[i * 4 + 3] = m_defaultNodeYMax;
+				zOrders[i] = nodeViews[i].getZPosition();
+			}
+
+			m_spacial.bulkLoad(nodeKeys, extents, zOrders, nodeViews.length);
+			m_spacialUpdates = 0;
+
+			for (int i = 0; i < edgeViews.length; i++) {
+				final CyEdge edge = edges.get(i);
+				m_drawPersp.addEdge(edge);
+				edgeViewMap.put(edge, edgeViews[i]);
+			}
+
+			setContentChanged();
+		}
+
+		for (final DNodeView nv : nodeViews)
+			cyEventHelper.addEventPayload((CyNetworkView) this, (View<CyNode>) nv, AddedNodeViewsEvent.class);
+
+		for (final DEdgeView ev : edgeViews)
+			cyEventHelper.addEventPayload((CyNetworkView) this, (View<CyEdge>) ev, AddedEdgeViewsEvent.class);
+	}
+
+	private void createNodeViews(final List<CyNode> nodes, final DNodeView[] nodeViews, final int from,
+	                             final int to) {
+		for (int i = from; i < to; i++)
+			nodeViews[i] = new DNodeView(lexicon, this, nodes.get(i), vmm, netViewMgr, cyEventHelper);
+	}
+
+	private void createEdgeViews(final List<CyEdge> edges, final DEdgeView[] edgeViews, final int from,
+	                             final int to) {
+		for (int i = from; i < to; i++)
+			edgeViews[i] = new DEdgeView(this, edges.get(i), handleFactory, lexicon, cyEventHelper);
+	}
+
 	/**
 	 * Should synchronize around m_lock.
 	 */
@@ -935,7 +1077,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 			// If this node was hidden, it won't be in m_drawPersp.
 			m_drawPersp.removeNodes(Collections.singletonList(nnode));
 			// m_structPersp.removeNode(nodeInx);
-			m_nodeDetails.unregisterNode(nnode);
+			m_nodeDetails.unregisterNode(returnThis);
 
 			// If this node was hidden, it won't be in m_spacial.
 			m_spacial.delete(nodeInx);
@@ -1075,7 +1217,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 		// Now we can remove it
 		edgeViewMap.remove(edge);
 		m_drawPersp.removeEdges(Collections.singletonList(edge)); 
-		m_edgeDetails.unregisterEdge(edge);
+		m_edgeDetails.unregisterEdge(returnThis);
 
 		return returnThis;
 	}
@@ -1170,6 +1312,13 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 	
 	private void updateView(final boolean forceRedraw) {
 		cyEventHelper.flushPayloadEvents();
+
+		// After a layout or a session restore most nodes have been moved
+		// one by one, which leaves the spacial index poorly packed.
+		synchronized (m_lock) {
+			if (m_spacialUpdates >= SPACIAL_REBUILD_THRESHOLD && m_spacialUpdates >= m_spacial.size() / 2)
+				rebuildSpacialIndex();
+		}
 		
 		if (forceRedraw)
 			setContentChanged();
@@ -1187,6 +1336,39 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 		cyEventHelper.fireEvent(new UpdateNetworkPresentationEvent(this));
 	}
 
+	/**
+	 * Moves a node in the spacial index.  Should synchronize around m_lock.
+	 */
+	final void updateNodeExtents(final long nodeInx, final float xMin, final float yMin,
+	                             final float xMax, final float yMax, final double z) {
+		m_spacial.delete(nodeInx);
+		m_spacial.insert(nodeInx, xMin, yMin, xMax, yMax, z);
+		m_spacialUpdates++;
+	}
+
+	/**
+	 * Bulk loads the spacial index with the nodes it holds now, which gives
+	 * a tighter tree than the one left behind by moving the nodes one at a
+	 * time.  Should synchronize around m_lock.
+	 */
+	final void rebuildSpacialIndex() {
+		final SpacialEntry2DEnumerator all = m_spacial.queryOverlap(
+				Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY,
+				Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, null, 0, false);
+		final int count = all.numRemaining();
+		final long[] nodeKeys = new long[count];
+		final float[] extents = new float[count * 4];
+		final double[] zOrders = new double[count];
+
+		for (int i = 0; i < count; i++) {
+			nodeKeys[i] = all.nextExtents(extents, i * 4);
+			zOrders[i] = m_spacial.getZOrder(nodeKeys[i]);
+		}
+
+		m_spacial.bulkLoad(nodeKeys, extents, zOrders, count);
+		m_spacialUpdates = 0;
+	}
+
 	/**
 	 * Returns an iterator of all node views, including those that are currently hidden.
 	 */
@@ -1220,10 +1402,9 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 	@Override
 	public DNodeView getDNodeView(final CyNode node) {
 		// TODO: remove cast!
-		if (node != null && nodeViewMap.containsKey(node))
-			return (DNodeView)nodeViewMap.get(node);
-		else
+		if (node == null)
 			return null;
+		return (DNodeView)nodeViewMap.get(node);
 	}
 	
 	@Override
@@ -1914,6 +2095,102 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 		return lastRenderDetail;
 	}
 
+	/**
+	 * Renders one tile of a frame drawn by the TileRenderer.  Unlike
+	 * renderGraph() this leaves the dirty flags alone; they were reset when
+	 * the frame was requested, see {@link #setRendered()}.
+	 */
+	int renderTile(GraphGraphics graphics, final GraphLOD lod, Paint bgColor,
+	               double xCenter, double yCenter, double scale, LongHash hash,
+	               float[] nodeWindow, float[] edgeWindow) {
+		int lastRenderDetail = 0;
+		try {
+			synchronized (m_lock) {
+				final Set<VisualPropertyDependency<?>> dependencies =
+						vmm.getVisualStyle(this).getAllVisualPropertyDependencies();
+
+				lastRenderDetail = GraphRenderer.renderGraph(this,
+				                                             m_spacial, lod,
+				                                             m_nodeDetails,
+				                                             m_edgeDetails, hash,
+				                                             graphics, bgColor, xCenter,
+				                                             yCenter, scale, haveZOrder,
+				                                             dependencies, nodeWindow, edgeWindow);
+			}
+		} catch (Exception e) {
+			logger.warn("Could not render a tile of the network view", e);
+		}
+
+		return lastRenderDetail;
+	}
+
+	/**
+	 * Returns a level of detail that answers for the whole visible window
+	 * {xMin, yMin, xMax, yMax}, so that all tiles of a frame are drawn at the
+	 * same detail no matter how crowded each tile is.
+	 */
+	TileGraphLOD getWindowLOD(final GraphLOD lod, final float[] window, final LongHash hash) {
+		synchronized (m_lock) {
+			final int[] counts = new int[3];
+			final byte renderEdges = GraphRenderer.countRenderedObjects(getModel(), m_spacial, lod,
+			                                                            m_edgeDetails, hash,
+			                                                            window[0], window[1],
+			                                                            window[2], window[3], counts);
+
+			return new TileGraphLOD(lod, renderEdges, counts[1], counts[2]);
+		}
+	}
+
+	/**
+	 * Returns how far, along either axis in node coordinates, the visible
+	 * edges touching the nodes in window {xMin, yMin, xMax, yMax} reach from
+	 * those nodes.  An edge crossing a tile has an end node no farther than
+	 * this from the tile, so this is how far around itself a tile has to
+	 * look for edges.
+	 */
+	float getEdgeReach(final float[] window) {
+		synchronized (m_lock) {
+			final CyNetwork net = getModel();
+			final float[] extents = new float[4];
+			final float[] otherExtents = new float[4];
+			final SpacialEntry2DEnumerator nodeHits = m_spacial.queryOverlap(window[0], window[1],
+			                                                                 window[2], window[3],
+			                                                                 null, 0, false);
+			float reach = 0.0f;
+
+			while (nodeHits.numRemaining() > 0) {
+				final long node = nodeHits.nextExtents(extents, 0);
+
+				for (final CyEdge edge : net.getAdjacentEdgeIterable(net.getNode(node), CyEdge.Type.ANY)) {
+					if (!m_edgeDetails.isVisible(edge))
+						continue;
+
+					final long otherNode = node ^ edge.getSource().getSUID() ^ edge.getTarget().getSUID();
+
+					if (!m_spacial.exists(otherNode, otherExtents, 0))
+						continue;
+
+					final float dx = 0.5f * Math.abs(otherExtents[0] + otherExtents[2] - extents[0] - extents[2]);
+					final float dy = 0.5f * Math.abs(otherExtents[1] + otherExtents[3] - extents[1] - extents[3]);
+					reach = Math.max(reach, Math.max(dx, dy));
+				}
+			}
+
+			return reach;
+		}
+	}
+
+	/**
+	 * Resets the dirty flags once a new frame has been handed to the
+	 * TileRenderer.  Changes made after this call make the view dirty again
+	 * and supersede the frame.
+	 */
+	void setRendered() {
+		setContentChanged(false);
+		setViewportChanged(false);
+		m_visualChanged = true;
+	}
+
 	public void addContentChangeListener(ContentChangeListener l) {
 		m_cLis[0] = ContentChangeListenerChain.add(m_cLis[0], l);
 	}
@@ -2053,7 +2330,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 		m_networkCanvas.setSize(width, height);
 		fitContent(/* updateView = */ false);
 		setZoom(getZoom() * shrink);
-		m_networkCanvas.paint(g);
+		m_networkCanvas.paintSynchronously(g);
 		// Restore network to original size
 		m_networkCanvas.setSize(originalSize);
 		fitContent(/* updateView = */ false);
@@ -34,7 +34,6 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
 import org.cytoscape.ding.DNodeShape;
 import org.cytoscape.ding.DVisualLexicon;
@@ -59,35 +58,44 @@ public class DNodeDetails extends NodeDetails {
 
 	// Parent Network View
 	protected final DGraphView dGraphView;
-	private final Object m_deletedEntry = new Object();
 	
 	private final Map<VisualProperty<?>, Object> defaultValues;
 
-	// Mapped Values
-	Map<CyNode, Object> m_colorsLowDetail = new ConcurrentHashMap<CyNode, Object>(16, 0.75f, 2);
-	Map<CyNode, Object> m_selectedColorsLowDetail = new ConcurrentHashMap<CyNode, Object>(16, 0.75f, 2);
-	Map<CyNode, NodeShape> m_shapes = new ConcurrentHashMap<CyNode, NodeShape>(16, 0.75f, 2);
-	Map<CyNode, Paint> m_unselectedPaints = new ConcurrentHashMap<CyNode, Paint>(16, 0.75f, 2);
-	Map<CyNode, Paint> m_selectedPaints = new ConcurrentHashMap<CyNode, Paint>(16, 0.75f, 2);
-	Map<CyNode, Float> m_borderWidths = new ConcurrentHashMap<CyNode, Float>(16, 0.75f, 2);
-	Map<CyNode, Stroke> m_borderStrokes = new ConcurrentHashMap<CyNode, Stroke>(16, 0.75f, 2);
-	Map<CyNode, Paint> m_borderPaints = new ConcurrentHashMap<CyNode, Paint>(16, 0.75f, 2);
-	Map<CyNode, Integer> m_labelCounts = new ConcurrentHashMap<CyNode, Integer>(16, 0.75f, 2);
-	Map<CyNode, String> m_labelTexts = new ConcurrentHashMap<CyNode, String>(16, 0.75f, 2);
-	Map<CyNode, String> m_tooltipTexts = new ConcurrentHashMap<CyNode, String>(16, 0.75f, 2);
-	Map<CyNode, Font> m_labelFonts = new ConcurrentHashMap<CyNode, Font>(16, 0.75f, 2);
-	Map<CyNode, Paint> m_labelPaints = new ConcurrentHashMap<CyNode, Paint>(16, 0.75f, 2);
-	Map<CyNode, Double> m_labelWidths = new ConcurrentHashMap<CyNode, Double>(16, 0.75f, 2);
-	Map<CyNode, Integer> m_labelTextAnchors = new ConcurrentHashMap<CyNode, Integer>(16, 0.75f, 2);
-	Map<CyNode, Integer> m_labelNodeAnchors = new ConcurrentHashMap<CyNode, Integer>(16, 0.75f, 2);
-	Map<CyNode, Integer> m_labelJustifys = new ConcurrentHashMap<CyNode, Integer>(16, 0.75f, 2);
-	Map<CyNode, Double> m_labelOffsetXs = new ConcurrentHashMap<CyNode, Double>(16, 0.75f, 2);
-	Map<CyNode, Double> m_labelOffsetYs = new ConcurrentHashMap<CyNode, Double>(16, 0.75f, 2);
-	Map<CyNode, Integer> m_nodeTansparencies = new ConcurrentHashMap<CyNode, Integer>(16, 0.75f, 2);
-	Map<CyNode, Integer> m_nodeBorderTansparencies = new ConcurrentHashMap<CyNode, Integer>(16, 0.75f, 2);
-	Map<CyNode, Integer> m_nodeLabelTansparencies = new ConcurrentHashMap<CyNode, Integer>(16, 0.75f, 2);
-	Map<CyNode, Double> m_nodeZ = new ConcurrentHashMap<CyNode, Double>(16, 0.75f, 2);
-	Map<CyNode, Boolean> m_nestedNetworkImgVisible = new ConcurrentHashMap<CyNode, Boolean>(16, 0.75f, 2);
+	// Mapped Values, indexed by the detail index of each DNodeView
+	final DetailColumn.Objects<Color> m_colorsLowDetail = new DetailColumn.Objects<Color>();
+	final DetailColumn.Objects<Color> m_selectedColorsLowDetail = new DetailColumn.Objects<Color>();
+	final DetailColumn.Objects<NodeShape> m_shapes = new DetailColumn.Objects<NodeShape>();
+	final DetailColumn.Objects<Paint> m_unselectedPaints = new DetailColumn.Objects<Paint>();
+	final DetailColumn.Objects<Paint> m_selectedPaints = new DetailColumn.Objects<Paint>();
+	final DetailColumn.Floats m_borderWidths = new DetailColumn.Floats();
+	final DetailColumn.Objects<Stroke> m_borderStrokes = new DetailColumn.Objects<Stroke>();
+	final DetailColumn.Objects<Paint> m_borderPaints = new DetailColumn.Objects<Paint>();
+	final DetailColumn.Ints m_labelCounts = new DetailColumn.Ints();
+	final DetailColumn.Objects<String> m_labelTexts = new DetailColumn.Objects<String>();
+	final DetailColumn.Objects<String> m_tooltipTexts = new DetailColumn.Objects<String>();
+	final DetailColumn.Objects<Font> m_labelFonts = new DetailColumn.Objects<Font>();
+	final DetailColumn.Objects<Paint> m_labelPaints = new DetailColumn.Objects<Paint>();
+	final DetailColumn.Doubles m_labelWidths = new DetailColumn.Doubles();
+	final DetailColumn.Ints m_labelTextAnchors = new DetailColumn.Ints();
+	final DetailColumn.Ints m_labelNodeAnchors = new DetailColumn.Ints();
+	final DetailColumn.Ints m_labelJustifys = new DetailColumn.Ints();
+	final DetailColumn.Doubles m_labelOffsetXs = new DetailColumn.Doubles();
+	final DetailColumn.Doubles m_labelOffsetYs = new DetailColumn.Doubles();
+	final DetailColumn.Ints m_nodeTansparencies = new DetailColumn.Ints();
+	final DetailColumn.Ints m_nodeBorderTansparencies = new DetailColumn.Ints();
+	final DetailColumn.Ints m_nodeLabelTansparencies = new DetailColumn.Ints();
+	final DetailColumn.Doubles m_nodeZ = new DetailColumn.Doubles();
+	final DetailColumn.Objects<Boolean> m_nestedNetworkImgVisible = new DetailColumn.Objects<Boolean>();
+
+	private final DetailColumn[] columns = {
+		m_colorsLowDetail, m_selectedColorsLowDetail, m_shapes, m_unselectedPaints, m_selectedPaints,
+		m_borderWidths, m_borderStrokes, m_borderPaints, m_labelCounts, m_labelTexts, m_tooltipTexts,
+		m_labelFonts, m_labelPaints, m_labelWidths, m_labelTextAnchors, m_labelNodeAnchors, m_labelJustifys,
+		m_labelOffsetXs, m_labelOffsetYs, m_nodeTansparencies, m_nodeBorderTansparencies,
+		m_nodeLabelTansparencies, m_nodeZ, m_nestedNetworkImgVisible
+	};
+
+	private final DetailIndexPool indices = new DetailIndexPool();
 
 	private final Set<CyNode> selected = new HashSet<CyNode>();
 	
@@ -127,70 +135,41 @@ public class DNodeDetails extends NodeDetails {
 		if (isCleared)
 			return;
 
-		m_colorsLowDetail = new ConcurrentHashMap<CyNode, Object>(16, 0.75f, 2);
-		m_selectedColorsLowDetail = new ConcurrentHashMap<CyNode, Object>(16, 0.75f, 2);
-		m_shapes = new ConcurrentHashMap<CyNode, NodeShape>(16, 0.75f, 2);
-		m_unselectedPaints = new ConcurrentHashMap<CyNode, Paint>(16, 0.75f, 2);
-		m_borderWidths = new ConcurrentHashMap<CyNode, Float>(16, 0.75f, 2);
-		m_borderStrokes = new ConcurrentHashMap<CyNode, Stroke>(16, 0.75f, 2);
-		m_borderPaints = new ConcurrentHashMap<CyNode, Paint>(16, 0.75f, 2);
-		m_labelCounts = new ConcurrentHashMap<CyNode, Integer>(16, 0.75f, 2);
-		m_labelTexts = new ConcurrentHashMap<CyNode, String>(16, 0.75f, 2);
-		m_tooltipTexts = new ConcurrentHashMap<CyNode, String>(16, 0.75f, 2);
-		m_labelFonts = new ConcurrentHashMap<CyNode, Font>(16, 0.75f, 2);
-		m_labelPaints = new ConcurrentHashMap<CyNode, Paint>(16, 0.75f, 2);
-		m_labelWidths = new ConcurrentHashMap<CyNode, Double>(16, 0.75f, 2);
-		m_labelTextAnchors = new ConcurrentHashMap<CyNode, Integer>(16, 0.75f, 2);
-		m_labelNodeAnchors = new ConcurrentHashMap<CyNode, Integer>(16, 0.75f, 2);
-		m_labelJustifys = new ConcurrentHashMap<CyNode, Integer>(16, 0.75f, 2);
-		m_labelOffsetXs = new ConcurrentHashMap<CyNode, Double>(16, 0.75f, 2);
-		m_labelOffsetYs = new ConcurrentHashMap<CyNode, Double>(16, 0.75f, 2);
-		m_selectedPaints = new ConcurrentHashMap<CyNode, Paint>(16, 0.75f, 2);
-		this.m_nodeTansparencies = new ConcurrentHashMap<CyNode, Integer>(16, 0.75f, 2);
-		this.m_nodeBorderTansparencies = new ConcurrentHashMap<CyNode, Integer>(16, 0.75f, 2);
-		this.m_nodeLabelTansparencies = new ConcurrentHashMap<CyNode, Integer>(16, 0.75f, 2);
-		m_nodeZ = new ConcurrentHashMap<CyNode, Double>(16, 0.75f, 2);
-		m_nestedNetworkImgVisible = new ConcurrentHashMap<CyNode, Boolean>(16, 0.75f, 2);
+		for (final DetailColumn column : columns)
+			column.clear();
 
 		isCleared = true;
 	}
 
-	void unregisterNode(final CyNode nodeIdx) {
-		final Object o = m_colorsLowDetail.get(nodeIdx);
-		if ((o != null) && (o != m_deletedEntry))
-			m_colorsLowDetail.put(nodeIdx, m_deletedEntry);
-
-		final Object os = m_selectedColorsLowDetail.get(nodeIdx);
-		if ((os != null) && (os != m_deletedEntry))
-			m_selectedColorsLowDetail.put(nodeIdx, m_deletedEntry);
-
-		m_shapes.remove(nodeIdx);
-		m_unselectedPaints.remove(nodeIdx);
-		m_borderWidths.remove(nodeIdx);
-		m_borderStrokes.remove(nodeIdx);
-		m_borderPaints.remove(nodeIdx);
-		m_labelWidths.remove(nodeIdx);
-		m_labelTextAnchors.remove(nodeIdx);
-		m_labelNodeAnchors.remove(nodeIdx);
-		m_labelJustifys.remove(nodeIdx);
-		m_labelOffsetXs.remove(nodeIdx);
-		m_labelOffsetYs.remove(nodeIdx);
-		m_selectedPaints.remove(nodeIdx);
-		m_tooltipTexts.remove(nodeIdx);
-		
+	/**
+	 * Returns a detail index for a new node view.  The index stays with the
+	 * view until {@link #unregisterNode(DNodeView)} is called for it.
+	 */
+	int allocateIndex() {
+		return indices.allocate();
+	}
+
+	void unregisterNode(final DNodeView nodeView) {
+		final int index = nodeView.detailIndex;
+
+		for (final DetailColumn column : columns)
+			column.remove(index);
+
 		synchronized (lock) {
-			selected.remove(nodeIdx);
+			selected.remove(nodeView.getModel());
 		}
-		
-		m_labelCounts.remove(nodeIdx);
-		m_labelTexts.remove(nodeIdx);
-		m_labelFonts.remove(nodeIdx);
-		m_labelPaints.remove(nodeIdx);
-		m_nodeTansparencies.remove(nodeIdx);
-		m_nodeBorderTansparencies.remove(nodeIdx);
-		m_nodeLabelTansparencies.remove(nodeIdx);
-		m_nodeZ.remove(nodeIdx);
-		m_nestedNetworkImgVisible.remove(nodeIdx);
+
+		indices.release(index);
+	}
+
+	/**
+	 * Detail index of the view of the given node, or -1 if the node has no
+	 * view.  Writes to a column at -1 are ignored.
+	 */
+	private int indexOf(final CyNode node) {
+		final DNodeView dnv = dGraphView.getDNodeView(node);
+
+		return dnv != null ? dnv.detailIndex : -1;
 	}
 
 	public <V> void setDefaultValue(final VisualProperty<V> vp, V value) {
@@ -217,15 +196,15 @@ public class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_FILL_COLOR))
 			return (Color) dnv.getVisualProperty(DVisualLexicon.NODE_FILL_COLOR);
 
-		final Object o = m_colorsLowDetail.get(node);
+		final Color o = m_colorsLowDetail.get(dnv.detailIndex);
 
-		if ((o == null) || (o == m_deletedEntry))
+		if (o == null)
 			if (m_colorLowDetailDefault == null)
 				return super.getColorLowDetail(node);
 			else
 				return m_colorLowDetailDefault;
 
-		return (Color) o;
+		return o;
 	}
 
 	void setColorLowDetailDefault(Color c) {
@@ -240,15 +219,15 @@ public class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_SELECTED_PAINT))
 			return (Color) dnv.getVisualProperty(DVisualLexicon.NODE_SELECTED_PAINT);
 
-		final Object o = m_selectedColorsLowDetail.get(node);
+		final Color o = m_selectedColorsLowDetail.get(dnv.detailIndex);
 
-		if ((o == null) || (o == m_deletedEntry))
+		if (o == null)
 			if (m_selectedColorLowDetailDefault == null)
 				return (Color) DNodeView.DEFAULT_NODE_SELECTED_PAINT;
 			else
 				return m_selectedColorLowDetailDefault;
 
-		return (Color) o;
+		return o;
 	}
 
 	void setSelectedColorLowDetailDefault(Color c) {
@@ -262,7 +241,7 @@ public class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_SELECTED_PAINT))
 			return dnv.getVisualProperty(DVisualLexicon.NODE_SELECTED_PAINT);
 
-		final Paint o = m_selectedPaints.get(node);
+		final Paint o = m_selectedPaints.get(dnv.detailIndex);
 
 		if (o == null)
 			if (m_selectedPaintDefault == null)
@@ -285,7 +264,7 @@ public class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_SHAPE))
 			return DNodeShape.getDShape(dnv.getVisualProperty(DVisualLexicon.NODE_SHAPE)).getNativeShape();
 
-		final NodeShape originaShape = m_shapes.get(node);
+		final NodeShape originaShape = m_shapes.get(dnv.detailIndex);
 
 		if (originaShape == null) {
 			if (m_shapeDefault == null)
@@ -308,9 +287,9 @@ public class DNodeDetails extends NodeDetails {
 	 */
 	void overrideShape(CyNode node, NodeShape shape) {
 		if (shape == null)
-			m_shapes.remove(node);
+			m_shapes.remove(indexOf(node));
 		else {
-			m_shapes.put(node, shape);
+			m_shapes.put(indexOf(node), shape);
 			isCleared = false;
 		}
 	}
@@ -330,7 +309,7 @@ public class DNodeDetails extends NodeDetails {
 		if (dev.isValueLocked(DVisualLexicon.NODE_FILL_COLOR)) {
 			paint = dev.getVisualProperty(DVisualLexicon.NODE_FILL_COLOR);
 		} else {
-			paint = m_unselectedPaints.get(node);
+			paint = m_unselectedPaints.get(dev.detailIndex);
 
 			if (paint == null) {
 				// Mapped Value does not exist; use default
@@ -354,16 +333,18 @@ public class DNodeDetails extends NodeDetails {
 	}
 
 	void setUnselectedPaint(final CyNode node, final Paint paint) {
-		m_unselectedPaints.put(node, paint);
+		final int index = indexOf(node);
+		m_unselectedPaints.put(index, paint);
 		if (paint instanceof Color)
-			m_colorsLowDetail.put(node, paint);
+			m_colorsLowDetail.put(index, (Color) paint);
 		isCleared = false;
 	}
 
 	void setSelectedPaint(final CyNode node, final Paint paint) {
-		m_selectedPaints.put(node, paint);
+		final int index = indexOf(node);
+		m_selectedPaints.put(index, paint);
 		if (paint instanceof Color)
-			m_selectedColorsLowDetail.put(node, paint);
+			m_selectedColorsLowDetail.put(index, (Color) paint);
 
 		isCleared = false;
 	}
@@ -417,15 +398,13 @@ public class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_BORDER_WIDTH))
 			return dnv.getVisualProperty(DVisualLexicon.NODE_BORDER_WIDTH).floatValue();
 
-		final Float o = m_borderWidths.get(node);
-		
-		if (o == null)
+		if (!m_borderWidths.isSet(dnv.detailIndex))
 			if (m_borderWidthDefault == null)
 				return DVisualLexicon.NODE_BORDER_WIDTH.getDefault().floatValue();
 			else
 				return m_borderWidthDefault.floatValue();
 
-		return o;
+		return m_borderWidths.get(dnv.detailIndex);
 	}
 
 	void setBorderWidthDefault(float width) {
@@ -438,9 +417,9 @@ public class DNodeDetails extends NodeDetails {
 	 */
 	void overrideBorderWidth(final CyNode node, final float width) {
 		if ((width < 0.0f) || (width == super.getBorderWidth(node)))
-			m_borderWidths.remove(node);
+			m_borderWidths.remove(indexOf(node));
 		else {
-			m_borderWidths.put(node, width);
+			m_borderWidths.put(indexOf(node), width);
 			isCleared = false;
 		}
 	}
@@ -455,7 +434,7 @@ public class DNodeDetails extends NodeDetails {
 			return DLineType.getDLineType(lockedLineType).getStroke(borderWidth);
 		}
 
-		final Stroke stroke = m_borderStrokes.get(node);
+		final Stroke stroke = m_borderStrokes.get(dnv.detailIndex);
 		
 		if (stroke == null) {
 			if (m_borderStrokeDefault == null) {
@@ -477,9 +456,9 @@ public class DNodeDetails extends NodeDetails {
 	
 	void overrideBorderStroke(final CyNode node, final Stroke stroke) {
 		if (stroke == null)
-			m_borderStrokes.remove(node);
+			m_borderStrokes.remove(indexOf(node));
 		else {
-			m_borderStrokes.put(node, stroke);
+			m_borderStrokes.put(indexOf(node), stroke);
 			isCleared = false;
 		}
 	}
@@ -501,7 +480,7 @@ public class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_BORDER_PAINT)) {
 			paint = dnv.getVisualProperty(DVisualLexicon.NODE_BORDER_PAINT);
 		} else {
-			paint = m_borderPaints.get(node);
+			paint = m_borderPaints.get(dnv.detailIndex);
 
 			if (paint == null)
 				paint = m_borderPaintDefault != null ? m_borderPaintDefault : super.getBorderPaint(node);
@@ -526,9 +505,9 @@ public class DNodeDetails extends NodeDetails {
 	 */
 	void overrideBorderPaint(final CyNode node, final Paint paint) {
 		if ((paint == null) || paint.equals(super.getBorderPaint(node)))
-			m_borderPaints.remove(node);
+			m_borderPaints.remove(indexOf(node));
 		else {
-			m_borderPaints.put(node, paint);
+			m_borderPaints.put(indexOf(node), paint);
 			isCleared = false;
 		}
 	}
@@ -541,18 +520,15 @@ public class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_LABEL) && !dnv.getVisualProperty(DVisualLexicon.NODE_LABEL).isEmpty())
 			return 1;
 		
-		Integer count = m_labelCounts.get(node);
-		
-		if (count == null) {
-			try {
-				String defLabel = (String) defaultValues.get(DVisualLexicon.NODE_LABEL);
-				count = (defLabel == null || defLabel.isEmpty()) ? super.getLabelCount(node) : 1;
-			} catch (ClassCastException e) {
-				count = 0;
-			}
+		if (m_labelCounts.isSet(dnv.detailIndex))
+			return m_labelCounts.get(dnv.detailIndex);
+
+		try {
+			String defLabel = (String) defaultValues.get(DVisualLexicon.NODE_LABEL);
+			return (defLabel == null || defLabel.isEmpty()) ? super.getLabelCount(node) : 1;
+		} catch (ClassCastException e) {
+			return 0;
 		}
-
-		return count;
 	}
 
 	/**
@@ -560,9 +536,9 @@ public class DNodeDetails extends NodeDetails {
 	 */
 	void overrideLabelCount(final CyNode node, final int labelCount) {
 		if ((labelCount < 0) || (labelCount == super.getLabelCount(node)))
-			m_labelCounts.remove(node);
+			m_labelCounts.remove(indexOf(node));
 		else {
-			m_labelCounts.put(node, labelCount);
+			m_labelCounts.put(indexOf(node), labelCount);
 			isCleared = false;
 		}
 	}
@@ -575,7 +551,7 @@ public class DNodeDetails extends NodeDetails {
 			return dnv.getVisualProperty(DVisualLexicon.NODE_LABEL);
 
 		// final long key = (((long) node) << 32) | ((long) labelInx);
-		final String o = m_labelTexts.get(node);
+		final String o = m_labelTexts.get(dnv.detailIndex);
 
 		if (o == null)
 			if (m_labelTextDefault == null)
@@ -598,9 +574,9 @@ public class DNodeDetails extends NodeDetails {
 		// final long key = (((long) node) << 32) | ((long) labelInx);
 
 		if ((text == null) || text.equals(super.getLabelText(node, labelInx)))
-			m_labelTexts.remove(node);
+			m_labelTexts.remove(indexOf(node));
 		else {
-			m_labelTexts.put(node, text);
+			m_labelTexts.put(indexOf(node), text);
 			isCleared = false;
 		}
 	}
@@ -611,7 +587,7 @@ public class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_TOOLTIP))
 			return dnv.getVisualProperty(DVisualLexicon.NODE_TOOLTIP);
 
-		final String o = m_tooltipTexts.get(node);
+		final String o = m_tooltipTexts.get(dnv.detailIndex);
 
 		if (o == null)
 			if (m_tooltipTextDefault == null)
@@ -633,9 +609,9 @@ public class DNodeDetails extends NodeDetails {
 	void overrideTooltipText(final CyNode node, final String text) {
 
 		if ((text == null) || text.equals(""))
-			m_tooltipTexts.remove(node);
+			m_tooltipTexts.remove(indexOf(node));
 		else {
-			m_tooltipTexts.put(node, text);
+			m_tooltipTexts.put(indexOf(node), text);
 			isCleared = false;
 		}
 	}
@@ -653,7 +629,7 @@ public class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_LABEL_FONT_FACE)) {
 			font = dnv.getVisualProperty(DVisualLexicon.NODE_LABEL_FONT_FACE);
 		} else {
-			font = m_labelFonts.get(node);
+			font = m_labelFonts.get(dnv.detailIndex);
 	
 			if (font == null) {
 				font = m_labelFontDefault != null ? 
@@ -680,9 +656,9 @@ public class DNodeDetails extends NodeDetails {
 	 */
 	void overrideLabelFont(final CyNode node, final Font font) {
 		if (font == null) {
-			m_labelFonts.remove(node);
+			m_labelFonts.remove(indexOf(node));
 		} else {
-			m_labelFonts.put(node, font);
+			m_labelFonts.put(indexOf(node), font);
 			isCleared = false;
 		}
 	}
@@ -701,7 +677,7 @@ public class DNodeDetails extends NodeDetails {
 			// Check bypass
 			paint = dnv.getVisualProperty(DVisualLexicon.NODE_LABEL_COLOR);
 		} else {
-			paint = m_labelPaints.get(node);
+			paint = m_labelPaints.get(dnv.detailIndex);
 
 			if (paint == null)
 				paint = m_labelPaintDefault != null ? m_labelPaintDefault : DVisualLexicon.NODE_LABEL_COLOR.getDefault();
@@ -723,9 +699,9 @@ public class DNodeDetails extends NodeDetails {
 	 */
 	void overrideLabelPaint(CyNode node, int labelInx, Paint paint) {
 		if (paint == null)
-			m_labelPaints.remove(node);
+			m_labelPaints.remove(indexOf(node));
 		else {
-			m_labelPaints.put(node, paint);
+			m_labelPaints.put(indexOf(node), paint);
 			isCleared = false;
 		}
 	}
@@ -748,15 +724,13 @@ public class DNodeDetails extends NodeDetails {
 			return convertG2ND(anchor.getConversionConstant());
 		}
 
-		final Integer p = m_labelTextAnchors.get(node);
-
-		if (p == null)
+		if (!m_labelTextAnchors.isSet(dnv.detailIndex))
 			if (m_labelTextAnchorDefault == null)
 				return super.getLabelTextAnchor(node, labelInx);
 			else
 				return m_labelTextAnchorDefault.byteValue();
 
-		return convertG2ND(p);
+		return convertG2ND(m_labelTextAnchors.get(dnv.detailIndex));
 	}
 
 	void setLabelTextAnchorDefault(int anchor) {
@@ -770,12 +744,12 @@ public class DNodeDetails extends NodeDetails {
 		//  3) The anchor is different altogether
 		if (m_labelTextAnchorDefault == null &&
 				convertG2ND(anchor) == super.getLabelTextAnchor(node, inx))
-			m_labelTextAnchors.remove(node);
+			m_labelTextAnchors.remove(indexOf(node));
 		else if (m_labelTextAnchorDefault != null &&
 		         convertG2ND(anchor) == m_labelTextAnchorDefault.byteValue())
-			m_labelTextAnchors.remove(node);
+			m_labelTextAnchors.remove(indexOf(node));
 		else {
-			m_labelTextAnchors.put(node, Integer.valueOf(anchor));
+			m_labelTextAnchors.put(indexOf(node), anchor);
 			isCleared = false;
 		}
 	}
@@ -790,15 +764,13 @@ public class DNodeDetails extends NodeDetails {
 			return convertG2ND(anchor.getConversionConstant());
 		}
 
-		final Integer o = m_labelNodeAnchors.get(node);
-
-		if (o == null)
+		if (!m_labelNodeAnchors.isSet(dnv.detailIndex))
 			if (m_labelNodeAnchorDefault == null)
 				return super.getLabelNodeAnchor(node, labelInx);
 			else
 				return m_labelNodeAnchorDefault.byteValue();
 
-		return convertG2ND(o);
+		return convertG2ND(m_labelNodeAnchors.get(dnv.detailIndex));
 	}
 
 	void setLabelNodeAnchorDefault(int anchor) {
@@ -812,12 +784,12 @@ public class DNodeDetails extends NodeDetails {
 		//  3) The anchor is different altogether
 		if (m_labelNodeAnchorDefault == null &&
 				convertG2ND(anchor) == super.getLabelNodeAnchor(node, inx))
-			m_labelNodeAnchors.remove(node);
+			m_labelNodeAnchors.remove(indexOf(node));
 		else if (m_labelNodeAnchorDefault != null &&
 		         convertG2ND(anchor) == m_labelNodeAnchorDefault.byteValue())
-			m_labelNodeAnchors.remove(node);
+			m_labelNodeAnchors.remove(indexOf(node));
 		else {
-			m_labelNodeAnchors.put(node, Integer.valueOf(anchor));
+			m_labelNodeAnchors.put(indexOf(node), anchor);
 			isCleared = false;
 		}
 	}
@@ -831,15 +803,13 @@ public class DNodeDetails extends NodeDetails {
 			return (float) lp.getOffsetX();
 		}
 
-		final Object o = m_labelOffsetXs.get(node);
-
-		if (o == null)
+		if (!m_labelOffsetXs.isSet(dnv.detailIndex))
 			if (m_labelOffsetVectorXDefault == null)
 				return super.getLabelOffsetVectorX(node, labelInx);
 			else
 				return m_labelOffsetVectorXDefault.floatValue();
 
-		return ((Double) o).floatValue();
+		return (float) m_labelOffsetXs.get(dnv.detailIndex);
 	}
 
 	void setLabelOffsetVectorXDefault(double x) {
@@ -853,12 +823,12 @@ public class DNodeDetails extends NodeDetails {
 		//  3) The offset is different altogether
 		if (m_labelOffsetVectorXDefault == null &&
 		    ((float) x) == super.getLabelOffsetVectorX(node, inx))
-			m_labelOffsetXs.remove(node);
+			m_labelOffsetXs.remove(indexOf(node));
 		else if (m_labelOffsetVectorXDefault != null &&
 		         ((float) x) == m_labelOffsetVectorXDefault.floatValue())
-			m_labelOffsetXs.remove(node);
+			m_labelOffsetXs.remove(indexOf(node));
 		else {
-			m_labelOffsetXs.put(node, new Double(x));
+			m_labelOffsetXs.put(indexOf(node), x);
 			isCleared = false;
 		}
 	}
@@ -872,15 +842,13 @@ public class DNodeDetails extends NodeDetails {
 			return (float) lp.getOffsetY();
 		}
 
-		final Object o = m_labelOffsetYs.get(node);
-
-		if (o == null)
+		if (!m_labelOffsetYs.isSet(dnv.detailIndex))
 			if (m_labelOffsetVectorYDefault == null)
 				return super.getLabelOffsetVectorY(node, labelInx);
 			else
 				return m_labelOffsetVectorYDefault.floatValue();
 
-		return ((Double) o).floatValue();
+		return (float) m_labelOffsetYs.get(dnv.detailIndex);
 	}
 
 	void setLabelOffsetVectorYDefault(double y) {
@@ -894,12 +862,12 @@ public class DNodeDetails extends NodeDetails {
 		//  3) The offset is different altogether
 		if (m_labelOffsetVectorYDefault == null &&
 		    ((float) y) == super.getLabelOffsetVectorY(node, inx))
-			m_labelOffsetXs.remove(node);
+			m_labelOffsetXs.remove(indexOf(node));
 		else if (m_labelOffsetVectorYDefault != null &&
 		         ((float) y) == m_labelOffsetVectorYDefault.floatValue())
-			m_labelOffsetYs.remove(node);
+			m_labelOffsetYs.remove(indexOf(node));
 		else {
-			m_labelOffsetYs.put(node, new Double(y));
+			m_labelOffsetYs.put(indexOf(node), y);
 			isCleared = false;
 		}
 	}
@@ -914,15 +882,13 @@ public class DNodeDetails extends NodeDetails {
 			return convertG2ND(justify.getConversionConstant());
 		}
 
-		Integer o = m_labelJustifys.get(node);
-
-		if (o == null)
+		if (!m_labelJustifys.isSet(dnv.detailIndex))
 			if (m_labelJustifyDefault == null)
 				return super.getLabelJustify(node, labelInx);
 			else
 				return m_labelJustifyDefault.byteValue();
 
-		return convertG2ND(o);
+		return convertG2ND(m_labelJustifys.get(dnv.detailIndex));
 	}
 
 	void setLabelJustifyDefault(int justify) {
@@ -936,12 +902,12 @@ public class DNodeDetails extends NodeDetails {
 		//  3) The offset is different altogether
 		if (m_labelJustifyDefault == null &&
 		    convertG2ND(justify) == super.getLabelJustify(node, inx))
-			m_labelJustifys.remove(node);
+			m_labelJustifys.remove(indexOf(node));
 		else if (m_labelJustifyDefault != null &&
 		    convertG2ND(justify) == m_labelJustifyDefault)
-			m_labelJustifys.remove(node);
+			m_labelJustifys.remove(indexOf(node));
 		else {
-			m_labelJustifys.put(node, Integer.valueOf(justify));
+			m_labelJustifys.put(indexOf(node), justify);
 			isCleared = false;
 		}
 	}
@@ -954,16 +920,14 @@ public class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_LABEL_WIDTH))
 			return dnv.getVisualProperty(DVisualLexicon.NODE_LABEL_WIDTH);
 		
-		final Double o = m_labelWidths.get(node);
-
-		if (o == null) {
+		if (!m_labelWidths.isSet(dnv.detailIndex)) {
 			if (m_labelWidthDefault == null)
 				return super.getLabelWidth(node);
 			else
 				return m_labelWidthDefault.doubleValue();
 		}
 
-		return o;
+		return m_labelWidths.get(dnv.detailIndex);
 	}
 
 	void setLabelWidthDefault(double width) {
@@ -976,9 +940,9 @@ public class DNodeDetails extends NodeDetails {
 	 */
 	void overrideLabelWidth(final CyNode node, final double width) {
 		if ((width < 0.0) || (width == super.getLabelWidth(node)))
-			m_labelWidths.remove(node);
+			m_labelWidths.remove(indexOf(node));
 		else {
-			m_labelWidths.put(node, width);
+			m_labelWidths.put(indexOf(node), width);
 			isCleared = false;
 		}
 	}
@@ -991,12 +955,10 @@ public class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_TRANSPARENCY))
 			return dnv.getVisualProperty(DVisualLexicon.NODE_TRANSPARENCY);
 
-		Integer trans = m_nodeTansparencies.get(node);
-		if (trans == null) {
-			trans = transparencyDefault != null ? transparencyDefault : DVisualLexicon.NODE_TRANSPARENCY.getDefault();
-		}
-		
-		return trans;
+		if (m_nodeTansparencies.isSet(dnv.detailIndex))
+			return m_nodeTansparencies.get(dnv.detailIndex);
+
+		return transparencyDefault != null ? transparencyDefault : DVisualLexicon.NODE_TRANSPARENCY.getDefault();
 	}
 
 	void setTransparencyDefault(Integer transparency) {
@@ -1006,9 +968,9 @@ public class DNodeDetails extends NodeDetails {
 
 	void overrideTransparency(final CyNode node, final Integer transparency) {
 		if (transparency == null)
-			m_nodeTansparencies.remove(node);
+			m_nodeTansparencies.remove(indexOf(node));
 		else {
-			m_nodeTansparencies.put(node, transparency);
+			m_nodeTansparencies.put(indexOf(node), transparency);
 			isCleared = false;
 		}
 	}
@@ -1019,13 +981,11 @@ public class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_LABEL_TRANSPARENCY))
 			return dnv.getVisualProperty(DVisualLexicon.NODE_LABEL_TRANSPARENCY);
 
-		Integer trans = m_nodeLabelTansparencies.get(node);
-		if (trans == null) {
-			trans = transparencyLabelDefault != null ? 
-					transparencyLabelDefault : DVisualLexicon.NODE_LABEL_TRANSPARENCY.getDefault();
-		}
-		
-		return trans;
+		if (m_nodeLabelTansparencies.isSet(dnv.detailIndex))
+			return m_nodeLabelTansparencies.get(dnv.detailIndex);
+
+		return transparencyLabelDefault != null ? 
+				transparencyLabelDefault : DVisualLexicon.NODE_LABEL_TRANSPARENCY.getDefault();
 	}
 
 	void setLabelTransparencyDefault(Integer transparency) {
@@ -1035,9 +995,9 @@ public class DNodeDetails extends NodeDetails {
 
 	void overrideLabelTransparency(final CyNode node, final Integer transparency) {
 		if (transparency == null)
-			m_nodeLabelTansparencies.remove(node);
+			m_nodeLabelTansparencies.remove(indexOf(node));
 		else {
-			m_nodeLabelTansparencies.put(node, transparency);
+			m_nodeLabelTansparencies.put(indexOf(node), transparency);
 			isCleared = false;
 		}
 	}
@@ -1048,13 +1008,11 @@ public class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_BORDER_TRANSPARENCY))
 			return dnv.getVisualProperty(DVisualLexicon.NODE_BORDER_TRANSPARENCY);
 
-		Integer trans = m_nodeBorderTansparencies.get(node);
-		if (trans == null) {
-			trans = transparencyBorderDefault != null ? 
-					transparencyBorderDefault : DVisualLexicon.NODE_BORDER_TRANSPARENCY.getDefault();
-		}
-		
-		return trans;
+		if (m_nodeBorderTansparencies.isSet(dnv.detailIndex))
+			return m_nodeBorderTansparencies.get(dnv.detailIndex);
+
+		return transparencyBorderDefault != null ? 
+				transparencyBorderDefault : DVisualLexicon.NODE_BORDER_TRANSPARENCY.getDefault();
 	}
 
 	void setBorderTransparencyDefault(Integer transparency) {
@@ -1064,9 +1022,9 @@ public class DNodeDetails extends NodeDetails {
 
 	void overrideBorderTransparency(final CyNode node, final Integer transparency) {
 		if (transparency == null)
-			m_nodeBorderTansparencies.remove(node);
+			m_nodeBorderTansparencies.remove(indexOf(node));
 		else {
-			m_nodeBorderTansparencies.put(node, transparency);
+			m_nodeBorderTansparencies.put(indexOf(node), transparency);
 			isCleared = false;
 		}
 	}
@@ -1076,7 +1034,7 @@ public class DNodeDetails extends NodeDetails {
 	}
 	
 	void overrideNestedNetworkImgVisible(final CyNode node, final boolean visible) {
-		m_nestedNetworkImgVisible.put(node, visible);
+		m_nestedNetworkImgVisible.put(indexOf(node), visible);
 		isCleared = false;
 	}
 	
@@ -1086,7 +1044,7 @@ public class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(BasicVisualLexicon.NODE_NESTED_NETWORK_IMAGE_VISIBLE))
 			return dnv.getVisualProperty(BasicVisualLexicon.NODE_NESTED_NETWORK_IMAGE_VISIBLE);
 		
-		Boolean visible = m_nestedNetworkImgVisible.get(node);
+		Boolean visible = m_nestedNetworkImgVisible.get(dnv.detailIndex);
 		
 		if (visible != null)
 			return visible;
@@ -1099,10 +1057,9 @@ public class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_DEPTH))
 			return dnv.getVisualProperty(DVisualLexicon.NODE_DEPTH);
 
-		Double depth = m_nodeZ.get(node);
-		if (depth == null)
+		if (!m_nodeZ.isSet(dnv.detailIndex))
 			return 0.0;
-		return depth;
+		return m_nodeZ.get(dnv.detailIndex);
 	}
 
 
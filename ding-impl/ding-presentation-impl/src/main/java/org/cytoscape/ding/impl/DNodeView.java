@@ -168,6 +168,9 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 
 	// Cached visibility information
 	private boolean isVisible = true;
+
+	// Position of this view in the detail columns of DNodeDetails
+	final int detailIndex;
 	
 	private static final Logger logger = LoggerFactory.getLogger(DNodeView.class);
 	
@@ -191,6 +194,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 		this.modelIdx = model.getSUID();
 
 		this.graphView = graphView;
+		this.detailIndex = graphView.m_nodeDetails.allocateIndex();
 		
 		this.cgInfoMap = new TreeMap<VisualProperty<CyCustomGraphics>, CustomGraphicsInfo>(
 				new Comparator<VisualProperty<CyCustomGraphics>>() {
@@ -366,8 +370,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 			if (!(xMax > xMin))
 				throw new IllegalArgumentException("width is too small");
 
-			graphView.m_spacial.delete(modelIdx);
-			graphView.m_spacial.insert(modelIdx, xMin, graphView.m_extentsBuff[1], xMax,
+			graphView.updateNodeExtents(modelIdx, xMin, graphView.m_extentsBuff[1], xMax,
 					graphView.m_extentsBuff[3], m_zOrder);
 			graphView.setContentChanged();
 
@@ -424,8 +427,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 				throw new IllegalArgumentException("height is too small max:" + yMax + " min:" + yMin + " center:"
 						+ yCenter + " height:" + newHeight);
 
-			graphView.m_spacial.delete(modelIdx);
-			graphView.m_spacial.insert(modelIdx, graphView.m_extentsBuff[0], yMin, graphView.m_extentsBuff[2], yMax, m_zOrder);
+			graphView.updateNodeExtents(modelIdx, graphView.m_extentsBuff[0], yMin, graphView.m_extentsBuff[2], yMax, m_zOrder);
 			graphView.setContentChanged();
 
 			m_xMin = graphView.m_extentsBuff[0];
@@ -472,8 +474,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 			if (!(yMax > yMin))
 				throw new IllegalStateException("height of node has degenerated to zero after " + "rounding");
 
-			graphView.m_spacial.delete(modelIdx);
-			graphView.m_spacial.insert(modelIdx, xMin, yMin, xMax, yMax, m_zOrder);
+			graphView.updateNodeExtents(modelIdx, xMin, yMin, xMax, yMax, m_zOrder);
 			graphView.setContentChanged();
 			setVisualProperty(BasicVisualLexicon.NODE_X_LOCATION,x);
 			setVisualProperty(BasicVisualLexicon.NODE_Y_LOCATION,y);
@@ -518,8 +519,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 
 			// If the node is visible, set the extents.
 			if (isVisible) {
-				graphView.m_spacial.delete(modelIdx);
-				graphView.m_spacial.insert(modelIdx, xMin, graphView.m_extentsBuff[1], xMax, graphView.m_extentsBuff[3], m_zOrder);
+				graphView.updateNodeExtents(modelIdx, xMin, graphView.m_extentsBuff[1], xMax, graphView.m_extentsBuff[3], m_zOrder);
 				graphView.setContentChanged();
 				m_xMin = xMin;
 				m_yMin = graphView.m_extentsBuff[1];
@@ -596,8 +596,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 
 			// If the node is visible, set the extents.
 			if (isVisible) {
-				graphView.m_spacial.delete(modelIdx);
-				graphView.m_spacial.insert(modelIdx, graphView.m_extentsBuff[0], yMin, graphView.m_extentsBuff[2], yMax, m_zOrder);
+				graphView.updateNodeExtents(modelIdx, graphView.m_extentsBuff[0], yMin, graphView.m_extentsBuff[2], yMax, m_zOrder);
 				graphView.setContentChanged();
 
 				m_xMin = graphView.m_extentsBuff[0];
@@ -0,0 +1,285 @@
+package org.cytoscape.ding.impl;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.Arrays;
+
+/**
+ * Dense storage for one visual property of the node or edge views of a
+ * network view.  Values are addressed by the detail index of the view (see
+ * {@link DetailIndexPool}), and one bit per index records whether the view
+ * overrides the default value.  Indices that were never set, or that lie
+ * beyond the end of the column, read as not overridden.
+ * <p>
+ * Writes are synchronized on the column, because the details objects that
+ * own the columns are written both with and without the view lock held.
+ * Reads take no lock: every write ends by storing the override bits again,
+ * so a reader that sees a bit set also sees the value stored before it.
+ * Value arrays only ever grow, and {@link #clear()} drops the override bits
+ * but keeps the arrays, so a reader that checked {@link #isSet(int)} just
+ * before a clear still reads the old value rather than running off the end
+ * of the array.  Negative indices, which stand for views that no longer
+ * exist, are ignored by every write.
+ */
+abstract class DetailColumn {
+
+	private static final long[] NO_BITS = new long[0];
+
+	private volatile long[] overrides = NO_BITS;
+
+	/**
+	 * @return true if the view with the given index overrides the default.
+	 */
+	final boolean isSet(final int index) {
+		final long[] bits = overrides;
+		final int word = index >>> 6;
+
+		return index >= 0 && word < bits.length && (bits[word] & (1L << index)) != 0L;
+	}
+
+	/**
+	 * Drops the override of the view with the given index, so that the
+	 * default value is used again.
+	 */
+	final synchronized void remove(final int index) {
+		final long[] bits = overrides;
+		final int word = index >>> 6;
+
+		if (index < 0 || word >= bits.length)
+			return;
+
+		bits[word] &= ~(1L << index);
+		overrides = bits;
+		release(index);
+	}
+
+	/**
+	 * Drops every override in this column.  The value arrays keep their
+	 * length, see the class comment.
+	 */
+	final synchronized void clear() {
+		overrides = NO_BITS;
+		reset();
+	}
+
+	/**
+	 * Records that the view with the given index overrides the default.  The
+	 * value must already be stored, by a put that holds the column's lock.
+	 */
+	protected final void markSet(final int index) {
+		assert Thread.holdsLock(this);
+
+		long[] bits = overrides;
+		final int word = index >>> 6;
+
+		if (word >= bits.length)
+			bits = Arrays.copyOf(bits, Math.max(word + 1, bits.length * 2));
+
+		bits[word] |= 1L << index;
+		overrides = bits;
+	}
+
+	/**
+	 * Called after the override of index has been dropped.
+	 */
+	protected abstract void release(int index);
+
+	/**
+	 * Called after all overrides have been dropped.  Must not shrink the
+	 * value array, which lock free readers may still be indexing.
+	 */
+	protected abstract void reset();
+
+	static int newLength(final int length, final int index) {
+		return Math.max(Math.max(index + 1, 16), length + (length >> 1));
+	}
+
+	/**
+	 * A column of object values.  An unset index reads as null.
+	 */
+	static final class Objects<V> extends DetailColumn {
+
+		private volatile Object[] values = new Object[0];
+
+		@SuppressWarnings("unchecked")
+		V get(final int index) {
+			final Object[] v = values;
+
+			return index >= 0 && index < v.length ? (V) v[index] : null;
+		}
+
+		/**
+		 * Stores value at index.  A null value drops the override.
+		 */
+		synchronized void put(final int index, final V value) {
+			if (index < 0)
+				return;
+
+			if (value == null) {
+				remove(index);
+				return;
+			}
+
+			Object[] v = values;
+
+			if (index >= v.length) {
+				v = Arrays.copyOf(v, newLength(v.length, index));
+				values = v;
+			}
+
+			v[index] = value;
+			markSet(index);
+		}
+
+		@Override
+		protected void release(final int index) {
+			final Object[] v = values;
+
+			if (index < v.length)
+				v[index] = null;
+		}
+
+		@Override
+		protected void reset() {
+			// Let go of the values, but keep the array for concurrent readers
+			Arrays.fill(values, null);
+		}
+	}
+
+	/**
+	 * A column of float values.  Check {@link #isSet(int)} before reading.
+	 * An index beyond the end of the column reads as 0.
+	 */
+	static final class Floats extends DetailColumn {
+
+		private volatile float[] values = new float[0];
+
+		float get(final int index) {
+			final float[] v = values;
+
+			return index >= 0 && index < v.length ? v[index] : 0.0f;
+		}
+
+		synchronized void put(final int index, final float value) {
+			if (index < 0)
+				return;
+
+			float[] v = values;
+
+			if (index >= v.length) {
+				v = Arrays.copyOf(v, newLength(v.length, index));
+				values = v;
+			}
+
+			v[index] = value;
+			markSet(index);
+		}
+
+		@Override
+		protected void release(final int index) {
+		}
+
+		@Override
+		protected void reset() {
+		}
+	}
+
+	/**
+	 * A column of double values.  Check {@link #isSet(int)} before reading.
+	 * An index beyond the end of the column reads as 0.
+	 */
+	static final class Doubles extends DetailColumn {
+
+		private volatile double[] values = new double[0];
+
+		double get(final int index) {
+			final double[] v = values;
+
+			return index >= 0 && index < v.length ? v[index] : 0.0;
+		}
+
+		synchronized void put(final int index, final double value) {
+			if (index < 0)
+				return;
+
+			double[] v = values;
+
+			if (index >= v.length) {
+				v = Arrays.copyOf(v, newLength(v.length, index));
+				values = v;
+			}
+
+			v[index] = value;
+			markSet(index);
+		}
+
+		@Override
+		protected void release(final int index) {
+		}
+
+		@Override
+		protected void reset() {
+		}
+	}
+
+	/**
+	 * A column of int values.  Check {@link #isSet(int)} before reading.
+	 * An index beyond the end of the column reads as 0.
+	 */
+	static final class Ints extends DetailColumn {
+
+		private volatile int[] values = new int[0];
+
+		int get(final int index) {
+			final int[] v = values;
+
+			return index >= 0 && index < v.length ? v[index] : 0;
+		}
+
+		synchronized void put(final int index, final int value) {
+			if (index < 0)
+				return;
+
+			int[] v = values;
+
+			if (index >= v.length) {
+				v = Arrays.copyOf(v, newLength(v.length, index));
+				values = v;
+			}
+
+			v[index] = value;
+			markSet(index);
+		}
+
+		@Override
+		protected void release(final int index) {
+		}
+
+		@Override
+		protected void reset() {
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package org.cytoscape.ding.impl;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+/**
+ * Hands out the dense detail indices of the node or edge views of one network
+ * view.  Released indices are reused before new ones are issued, so the
+ * detail columns never grow past the largest number of views that were alive
+ * at the same time.
+ */
+final class DetailIndexPool {
+
+	private int[] free = new int[16];
+	private int freeCount;
+	private int next;
+
+	synchronized int allocate() {
+		if (freeCount > 0)
+			return free[--freeCount];
+
+		return next++;
+	}
+
+	synchronized void release(final int index) {
+		if (index < 0)
+			return;
+
+		if (freeCount == free.length) {
+			final int[] grown = new int[free.length * 2];
+			System.arraycopy(free, 0, grown, 0, freeCount);
+			free = grown;
+		}
+
+		free[freeCount++] = index;
+	}
+}
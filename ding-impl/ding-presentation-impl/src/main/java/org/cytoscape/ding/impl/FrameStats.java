@@ -0,0 +1,135 @@
+package org.cytoscape.ding.impl;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+/**
+ * Frame time statistics of a network canvas.  A frame counts as within
+ * budget if its first complete picture, coarse or not, was on screen no
+ * later than the budget after the frame was requested.  Frames that were
+ * superseded before they completed are counted separately.
+ * <p>
+ * The renderer also asks these statistics whether a frame would fit the
+ * budget at full detail, judging by the cost per node and edge of the last
+ * full detail pass.
+ */
+public final class FrameStats {
+
+	private final long budgetNanos;
+
+	private long frames;
+	private long framesWithinBudget;
+	private long coarseFrames;
+	private long supersededFrames;
+	private long lastFirstPassNanos;
+	private long lastFrameNanos;
+
+	// Cost of the last full detail pass per rendered node and edge, or -1
+	// before the first.
+	private double detailNanosPerObject = -1.0d;
+
+	FrameStats(final long budgetNanos) {
+		this.budgetNanos = budgetNanos;
+	}
+
+	synchronized void frameCompleted(final long firstPassNanos, final long frameNanos, final boolean coarse) {
+		frames++;
+
+		if (firstPassNanos <= budgetNanos)
+			framesWithinBudget++;
+
+		if (coarse)
+			coarseFrames++;
+
+		lastFirstPassNanos = firstPassNanos;
+		lastFrameNanos = frameNanos;
+	}
+
+	synchronized void frameSuperseded() {
+		supersededFrames++;
+	}
+
+	synchronized void detailPassCompleted(final long passNanos, final int objectCount) {
+		detailNanosPerObject = passNanos / (double) Math.max(1, objectCount);
+	}
+
+	/**
+	 * @return true if a full detail pass over the given number of nodes and
+	 *         edges is expected to take longer than the budget.  Nothing is
+	 *         expected before the first full detail pass has been timed.
+	 */
+	synchronized boolean exceedsBudget(final int objectCount) {
+		return detailNanosPerObject >= 0.0d && detailNanosPerObject * objectCount > budgetNanos;
+	}
+
+	public long getBudgetNanos() {
+		return budgetNanos;
+	}
+
+	/**
+	 * @return the number of frames rendered to completion.
+	 */
+	public synchronized long getFrameCount() {
+		return frames;
+	}
+
+	public synchronized long getFramesWithinBudget() {
+		return framesWithinBudget;
+	}
+
+	/**
+	 * @return the number of completed frames that were shown at low detail
+	 *         first and refined afterwards.
+	 */
+	public synchronized long getCoarseFrameCount() {
+		return coarseFrames;
+	}
+
+	public synchronized long getSupersededFrameCount() {
+		return supersededFrames;
+	}
+
+	/**
+	 * @return the time from request to first complete picture of the last
+	 *         completed frame.
+	 */
+	public synchronized long getLastFirstPassNanos() {
+		return lastFirstPassNanos;
+	}
+
+	/**
+	 * @return the time from request to final picture of the last completed
+	 *         frame.
+	 */
+	public synchronized long getLastFrameNanos() {
+		return lastFrameNanos;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "frames: " + frames + ", within " + (budgetNanos / 1000000) + " ms: " + framesWithinBudget
+				+ ", coarse: " + coarseFrames + ", superseded: " + supersededFrames
+				+ ", last: " + (lastFirstPassNanos / 1000000) + "/" + (lastFrameNanos / 1000000) + " ms";
+	}
+}
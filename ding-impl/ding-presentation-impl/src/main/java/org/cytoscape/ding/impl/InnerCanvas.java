@@ -143,6 +143,8 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 	private AddEdgeStateMonitor addEdgeMode;
 	private Timer hideEdgesTimer;
 
+	private final TileRenderer m_tileRenderer;
+
 	InnerCanvas(Object lock, DGraphView view, UndoSupport undo) {
 		m_lock = lock;
 		m_view = view;
@@ -154,6 +156,7 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 		m_yCenter = 0.0d;
 		m_scaleFactor = 1.0d;
 		m_hash = new LongHash();
+		m_tileRenderer = new TileRenderer(view, this);
 		
 		addEdgeMode = new AddEdgeStateMonitor(this, m_view);
 		popup = new PopupMenuHelper(m_view, this);
@@ -190,12 +193,11 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 		super.setBounds(x, y, width, height);
 
 		if ((width > 0) && (height > 0)) {
-			final Image img = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-			GraphGraphics grafx = new GraphGraphics(img, false, true);
+			final TileRenderer.Surface surface = m_tileRenderer.resize(width, height);
 
 			synchronized (m_lock) {
-				m_img = img;
-				m_grafx = grafx;
+				m_img = surface.image;
+				m_grafx = surface.grafx;
 				
 				if (m_view != null)
 					m_view.setViewportChanged();
@@ -205,6 +207,19 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 
 	@Override
 	public void update(Graphics g) {
+		paint(g, /* tiled = */ isShowing());
+	}
+
+	/**
+	 * Paints the canvas, rendering the network on the calling thread instead
+	 * of handing it to the tile renderer.  Used where the complete picture is
+	 * needed right away, such as when exporting an image.
+	 */
+	void paintSynchronously(Graphics g) {
+		paint(g, /* tiled = */ false);
+	}
+
+	private void paint(Graphics g, final boolean tiled) {
 		if (m_grafx == null || m_view == null)
 			return;
 
@@ -215,6 +230,7 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 		double xCenter = 0.0d;
 		double yCenter = 0.0d;
 		double scaleFactor = 1.0d;
+		boolean requestFrame = false;
 
 		m_fontMetrics = g.getFontMetrics();
 
@@ -222,17 +238,31 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 			if (m_view.isDirty()) {
 				contentChanged = m_view.isContentChanged();
 				viewportChanged = m_view.isViewportChanged();
-				renderGraph(m_grafx,/* setLastRenderDetail = */ true, m_lod[0]);
 				xCenter = m_xCenter;
 				yCenter = m_yCenter;
 				scaleFactor = m_scaleFactor;
+
+				if (tiled) {
+					// Mouse handling maps through m_grafx, so it has to follow
+					// the viewport before the new frame is on screen.
+					m_grafx.setTransform(xCenter, yCenter, scaleFactor);
+					m_view.setRendered();
+					requestFrame = true;
+				} else {
+					renderGraph(m_grafx,/* setLastRenderDetail = */ true, m_lod[0]);
+				}
 			}
 		}
 
+		// The tile renderer takes the view lock itself, so it must not be
+		// called while holding it.
+		if (requestFrame)
+			m_tileRenderer.requestFrame(xCenter, yCenter, scaleFactor, m_lod[0], getRenderBackground());
+
 		// if canvas is visible, draw it
 		if (isVisible()) {
-			// TODO Should this be on the AWT thread?
-			g.drawImage(m_img, 0, 0, null);
+			if (!tiled || !m_tileRenderer.paint(g))
+				g.drawImage(m_img, 0, 0, null);
 		}
 
 		if ((m_selectionRect != null) && (this.isSelecting())) {
@@ -977,6 +1007,14 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 	}
 
 	public void updateSubgraph(List<CyNode> nodes, List<CyEdge> edges) {
+		// A partial render would race with the tiles of a frame in progress,
+		// so render the whole canvas again instead.
+		if (isShowing()) {
+			m_view.setContentChanged();
+			repaint();
+			return;
+		}
+
 		renderSubgraph(m_grafx, false, m_lod[0], nodes, edges);
 	}
 
@@ -1003,10 +1041,7 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 	 *  @param setLastRenderDetail if true, "m_lastRenderDetail" will be updated, otherwise it will not be updated.
 	 */
 	private void renderGraph(GraphGraphics graphics, final boolean setLastRenderDetail, final GraphLOD lod) {
-		final int alpha = (m_isOpaque) ? 255 : 0;
-
-		final Color backgroundColor = new Color(m_backgroundColor.getRed(), m_backgroundColor.getGreen(),
-							m_backgroundColor.getBlue(), alpha);
+		final Color backgroundColor = getRenderBackground();
 
 		// long timeBegin = System.currentTimeMillis();
 		int lastRenderDetail = m_view.renderGraph(graphics, lod, backgroundColor, m_xCenter, m_yCenter, m_scaleFactor, m_hash);
@@ -1017,6 +1052,32 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 		// repaint();
 	}
 
+	/**
+	 * Frame time statistics of the background renderer.
+	 */
+	public FrameStats getFrameStats() {
+		return m_tileRenderer.getStats();
+	}
+
+	private Color getRenderBackground() {
+		final int alpha = (m_isOpaque) ? 255 : 0;
+
+		return new Color(m_backgroundColor.getRed(), m_backgroundColor.getGreen(),
+		                 m_backgroundColor.getBlue(), alpha);
+	}
+
+	/**
+	 * Called by the tile renderer once a frame is complete, to make its image
+	 * the one the canvas shows and hit-tests against.
+	 */
+	void setFrontImage(final Image img, final GraphGraphics grafx, final int lastRenderDetail) {
+		synchronized (m_lock) {
+			m_img = img;
+			m_grafx = grafx;
+			m_lastRenderDetail = lastRenderDetail;
+		}
+	}
+
 	private void handleEscapeKey() {
 		AddEdgeStateMonitor.reset(m_view);
 		repaint();
@@ -1582,6 +1643,7 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 		removeMouseMotionListener(this);
 		removeMouseWheelListener(this);
 		removeKeyListener(this);
+		m_tileRenderer.dispose();
 		m_view = null;
 		m_undoable_edit = null;
 		addEdgeMode = null;
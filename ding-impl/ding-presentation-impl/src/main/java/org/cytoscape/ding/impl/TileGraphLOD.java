@@ -0,0 +1,155 @@
+package org.cytoscape.ding.impl;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import org.cytoscape.graph.render.stateful.GraphLOD;
+
+/**
+ * Level of detail used for the tiles of one frame.  GraphRenderer asks the
+ * level of detail questions with the node and edge counts of the tile being
+ * rendered; this answers them with the counts of the whole visible window
+ * instead, so that neighbouring tiles never disagree about what to draw.
+ * <p>
+ * A coarse level of detail draws everything at low detail, whatever the
+ * counts; the tile renderer uses it for a quick first pass over frames that
+ * are too expensive to draw in full within the frame budget.
+ */
+class TileGraphLOD extends GraphLOD {
+
+	private final GraphLOD source;
+	private final byte renderEdges;
+	private final int renderNodeCount;
+	private final int renderEdgeCount;
+	private final boolean coarse;
+
+	TileGraphLOD(final GraphLOD source, final byte renderEdges, final int renderNodeCount,
+	             final int renderEdgeCount) {
+		this(source, renderEdges, renderNodeCount, renderEdgeCount, false);
+	}
+
+	private TileGraphLOD(final GraphLOD source, final byte renderEdges, final int renderNodeCount,
+	                     final int renderEdgeCount, final boolean coarse) {
+		this.source = source;
+		this.renderEdges = renderEdges;
+		this.renderNodeCount = renderNodeCount;
+		this.renderEdgeCount = renderEdgeCount;
+		this.coarse = coarse;
+	}
+
+	/**
+	 * The same level of detail, but never drawing at full detail.
+	 */
+	TileGraphLOD coarse() {
+		return new TileGraphLOD(source, renderEdges, renderNodeCount, renderEdgeCount, true);
+	}
+
+	/**
+	 * Whether the frame would be drawn at full detail, which is what makes a
+	 * coarse pass worth it.
+	 */
+	boolean isDetailed() {
+		return !coarse && source.detail(renderNodeCount, renderEdgeCount);
+	}
+
+	/**
+	 * The number of nodes and edges the frame draws.
+	 */
+	int getRenderedObjectCount() {
+		return renderNodeCount + renderEdgeCount;
+	}
+
+	/**
+	 * Whether only the edges touching visible nodes are drawn, in which case
+	 * each tile finds its edges through the nodes around it.
+	 */
+	boolean drawsEdgesOfVisibleNodes() {
+		return renderEdges == 0;
+	}
+
+	@Override
+	public boolean getDrawEdges() {
+		return source.getDrawEdges();
+	}
+
+	@Override
+	public void setDrawEdges(boolean drawEdges) {
+		source.setDrawEdges(drawEdges);
+	}
+
+	@Override
+	public byte renderEdges(final int visibleNodeCount, final int totalNodeCount, final int totalEdgeCount) {
+		return renderEdges;
+	}
+
+	@Override
+	public boolean detail(final int renderNodeCount, final int renderEdgeCount) {
+		return !coarse && source.detail(this.renderNodeCount, this.renderEdgeCount);
+	}
+
+	@Override
+	public boolean nodeBorders(final int renderNodeCount, final int renderEdgeCount) {
+		return source.nodeBorders(this.renderNodeCount, this.renderEdgeCount);
+	}
+
+	@Override
+	public boolean nodeLabels(final int renderNodeCount, final int renderEdgeCount) {
+		return source.nodeLabels(this.renderNodeCount, this.renderEdgeCount);
+	}
+
+	@Override
+	public boolean customGraphics(final int renderNodeCount, final int renderEdgeCount) {
+		return source.customGraphics(this.renderNodeCount, this.renderEdgeCount);
+	}
+
+	@Override
+	public boolean edgeArrows(final int renderNodeCount, final int renderEdgeCount) {
+		return source.edgeArrows(this.renderNodeCount, this.renderEdgeCount);
+	}
+
+	@Override
+	public boolean dashedEdges(final int renderNodeCount, final int renderEdgeCount) {
+		return source.dashedEdges(this.renderNodeCount, this.renderEdgeCount);
+	}
+
+	@Override
+	public boolean edgeAnchors(final int renderNodeCount, final int renderEdgeCount) {
+		return source.edgeAnchors(this.renderNodeCount, this.renderEdgeCount);
+	}
+
+	@Override
+	public boolean edgeLabels(final int renderNodeCount, final int renderEdgeCount) {
+		return source.edgeLabels(this.renderNodeCount, this.renderEdgeCount);
+	}
+
+	@Override
+	public boolean textAsShape(final int renderNodeCount, final int renderEdgeCount) {
+		return source.textAsShape(this.renderNodeCount, this.renderEdgeCount);
+	}
+
+	@Override
+	public double getNestedNetworkImageScaleFactor() {
+		return source.getNestedNetworkImageScaleFactor();
+	}
+}
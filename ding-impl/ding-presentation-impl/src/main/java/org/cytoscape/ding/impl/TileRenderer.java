@@ -0,0 +1,450 @@
+package org.cytoscape.ding.impl;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Area;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.cytoscape.graph.render.immed.GraphGraphics;
+import org.cytoscape.graph.render.stateful.GraphLOD;
+import org.cytoscape.util.intr.LongHash;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Renders the network canvas off the event dispatch thread.
+ * <p>
+ * A frame is cut into square screen-space tiles, which a worker renders one
+ * after the other, from the center out, each through GraphRenderer while
+ * holding the view lock.  The event dispatch thread only composites: it
+ * draws the last complete frame, moved and scaled to the requested
+ * viewport, and on top of it the tiles of the new frame that are done.
+ * Requesting a frame supersedes the one in progress; the worker drops it
+ * before its next tile.
+ * <p>
+ * Frames that would take longer than {@link #FRAME_BUDGET_NANOS} at full
+ * detail are rendered in two passes: all tiles at low detail first, which is
+ * put on screen as soon as it is complete, then all tiles again at the
+ * detail the level of detail asks for.  The cost of a full detail frame is
+ * estimated by {@link FrameStats} from the time per node and edge of the
+ * last one; until one has been timed, frames are rendered at full detail
+ * straight away.
+ * <p>
+ * There is a single worker per canvas because GraphRenderer and the details
+ * objects keep scratch buffers that cannot be shared between threads, and
+ * because every tile needs the view lock anyway.  Taking that lock per tile
+ * instead of per frame is what keeps the user interface responsive.
+ */
+final class TileRenderer {
+
+	static final int TILE_SIZE = 256;
+
+	static final long FRAME_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(16);
+
+	// Nodes this many pixels outside a tile are still rendered into it, so
+	// that their labels are not cut off at the tile border.
+	private static final int TILE_MARGIN = 128;
+
+	private static final Logger logger = LoggerFactory.getLogger(TileRenderer.class);
+
+	private final DGraphView view;
+	private final InnerCanvas canvas;
+	private final ThreadPoolExecutor worker;
+	private final FrameStats stats = new FrameStats(FRAME_BUDGET_NANOS);
+
+	// Only used on the worker thread.
+	private final LongHash hash = new LongHash();
+
+	// The image on screen, and the one the next pass is rendered into.
+	private Surface front;
+	private Surface back;
+
+	// The frame being rendered, or null if front is up to date.
+	private volatile Frame current;
+
+	TileRenderer(final DGraphView view, final InnerCanvas canvas) {
+		this.view = view;
+		this.canvas = canvas;
+
+		// The thread goes away when the canvas is idle.
+		this.worker = new ThreadPoolExecutor(1, 1, 30L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+				new ThreadFactory() {
+					@Override
+					public Thread newThread(final Runnable r) {
+						final Thread t = new Thread(r, "Ding tile renderer");
+						t.setDaemon(true);
+						return t;
+					}
+				});
+		this.worker.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Replaces the images after the canvas changed size, dropping any frame
+	 * in progress.
+	 *
+	 * @return the new front image, which is blank.
+	 */
+	synchronized Surface resize(final int width, final int height) {
+		supersede();
+		front = new Surface(width, height);
+		back = null;
+
+		return front;
+	}
+
+	/**
+	 * Starts rendering a frame with the given viewport.  Called on the event
+	 * dispatch thread, without holding the view lock.
+	 */
+	void requestFrame(final double xCenter, final double yCenter, final double scale,
+	                  final GraphLOD lod, final Color background) {
+		final Frame frame;
+
+		synchronized (this) {
+			if (front == null)
+				return;
+
+			supersede();
+			frame = new Frame(nextSurface(), xCenter, yCenter, scale, lod, background);
+			current = frame;
+		}
+
+		worker.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					render(frame);
+				} catch (RuntimeException e) {
+					logger.warn("Could not render the network view", e);
+				}
+			}
+		});
+	}
+
+	FrameStats getStats() {
+		return stats;
+	}
+
+	/**
+	 * Draws the frame in progress: the previous picture as a stand-in where
+	 * the current pass has not drawn yet, and the tiles that are done.  The
+	 * stand-in is kept out of the done tiles because those need not be
+	 * opaque.
+	 *
+	 * @return false if no frame is in progress; the caller should then draw
+	 *         the canvas image as it is.
+	 */
+	synchronized boolean paint(final Graphics g) {
+		final Frame frame = current;
+
+		if (frame == null)
+			return false;
+
+		final Graphics2D g2 = (Graphics2D) g;
+		final Surface surface = frame.surface;
+
+		if (front.rendered) {
+			final Area stale = new Area(new Rectangle(0, 0, surface.width, surface.height));
+
+			for (int i = 0; i < surface.tiles.length; i++) {
+				if (frame.done.get(i) != 0)
+					stale.subtract(new Area(surface.tiles[i]));
+			}
+
+
+			// Map the old viewport onto the new one.  This is a scaled copy of
+			// the old image, so it looks coarse until the tiles arrive.
+			final double ratio = frame.scale / front.scale;
+			final AffineTransform xform = new AffineTransform();
+			xform.translate(0.5d * front.width + frame.scale * (front.xCenter - frame.xCenter),
+			                0.5d * front.height + frame.scale * (front.yCenter - frame.yCenter));
+			xform.scale(ratio, ratio);
+			xform.translate(-0.5d * front.width, -0.5d * front.height);
+
+			final Shape clip = g2.getClip();
+			g2.clip(stale);
+			g2.drawImage(front.image, xform, null);
+			g2.setClip(clip);
+		}
+
+		for (int i = 0; i < surface.tiles.length; i++) {
+			if (frame.done.get(i) == 0)
+				continue;
+
+			final Rectangle r = surface.tiles[i];
+			g2.drawImage(surface.image, r.x, r.y, r.x + r.width, r.y + r.height,
+			             r.x, r.y, r.x + r.width, r.y + r.height, null);
+		}
+
+		return true;
+	}
+
+	void dispose() {
+		current = null;
+		worker.shutdownNow();
+	}
+
+	// Must hold the monitor.
+	private void supersede() {
+		if (current != null)
+			stats.frameSuperseded();
+
+		current = null;
+	}
+
+	// Must hold the monitor.
+	private Surface nextSurface() {
+		if (back == null)
+			back = new Surface(front.width, front.height);
+
+		return back;
+	}
+
+	private void render(final Frame frame) {
+		if (frame != current)
+			return;
+
+		final float[] window = window(frame, 0, 0, frame.surface.width, frame.surface.height, 0);
+		final TileGraphLOD lod = view.getWindowLOD(frame.lod, window, hash);
+		final int edgeMargin = edgeMargin(frame, lod, window);
+		final boolean coarse = lod.isDetailed() && stats.exceedsBudget(lod.getRenderedObjectCount());
+		long firstPassNanos = 0L;
+
+		if (coarse) {
+			if (!renderPass(frame, lod.coarse(), window, edgeMargin))
+				return;
+
+			firstPassNanos = System.nanoTime() - frame.requested;
+		}
+
+		final long detailStart = System.nanoTime();
+
+		if (!renderPass(frame, lod, window, edgeMargin))
+			return;
+
+		final long now = System.nanoTime();
+
+		if (lod.isDetailed())
+			stats.detailPassCompleted(now - detailStart, lod.getRenderedObjectCount());
+
+		synchronized (this) {
+			if (frame == current)
+				current = null;
+		}
+
+		stats.frameCompleted(coarse ? firstPassNanos : now - frame.requested, now - frame.requested, coarse);
+		canvas.repaint();
+	}
+
+	/**
+	 * How many pixels around a tile its edges are looked up: as far as the
+	 * longest edge touching a visible node reaches, but no farther than the
+	 * whole window.
+	 */
+	private int edgeMargin(final Frame frame, final TileGraphLOD lod, final float[] window) {
+		if (!lod.drawsEdgesOfVisibleNodes())
+			return TILE_MARGIN;
+
+		final double reach = view.getEdgeReach(window) * frame.scale;
+
+		return TILE_MARGIN + (int) Math.ceil(Math.min(reach, Math.max(frame.surface.width, frame.surface.height)));
+	}
+
+	/**
+	 * Renders all tiles of frame into its surface and puts the result on
+	 * screen.  Afterwards frame is set up for another pass into a fresh
+	 * surface.
+	 *
+	 * @return false if the frame was superseded on the way.
+	 */
+	private boolean renderPass(final Frame frame, final GraphLOD lod, final float[] window, final int edgeMargin) {
+		final Surface surface = frame.surface;
+		int lastRenderDetail = 0;
+
+		for (final int i : surface.order) {
+			if (frame != current)
+				return false;
+
+			final Rectangle r = surface.tiles[i];
+			final double xCenter = frame.xCenter + (r.getCenterX() - 0.5d * surface.width) / frame.scale;
+			final double yCenter = frame.yCenter + (r.getCenterY() - 0.5d * surface.height) / frame.scale;
+			final float[] nodeWindow = window(frame, r.x, r.y, r.width, r.height, TILE_MARGIN);
+			final float[] edgeWindow = intersect(window(frame, r.x, r.y, r.width, r.height, edgeMargin), window);
+
+			lastRenderDetail |= view.renderTile(surface.tileGraphics[i], lod, frame.background,
+			                                    xCenter, yCenter, frame.scale, hash, nodeWindow, edgeWindow);
+			frame.done.set(i, 1);
+			canvas.repaint(r.x, r.y, r.width, r.height);
+		}
+
+		synchronized (this) {
+			if (frame != current)
+				return false;
+
+			surface.xCenter = frame.xCenter;
+			surface.yCenter = frame.yCenter;
+			surface.scale = frame.scale;
+			surface.rendered = true;
+			surface.grafx.setTransform(frame.xCenter, frame.yCenter, frame.scale);
+
+			back = front;
+			front = surface;
+			canvas.setFrontImage(surface.image, surface.grafx, lastRenderDetail);
+			frame.nextPass(nextSurface());
+		}
+
+		canvas.repaint();
+
+		return true;
+	}
+
+	/**
+	 * The node coordinates {xMin, yMin, xMax, yMax} covered by the given
+	 * rectangle of the frame, grown by margin pixels on every side.
+	 */
+	private static float[] window(final Frame frame, final int x, final int y, final int width,
+	                              final int height, final int margin) {
+		final Surface s = frame.surface;
+
+		return new float[] {
+			(float) (frame.xCenter + (x - margin - 0.5d * s.width) / frame.scale),
+			(float) (frame.yCenter + (y - margin - 0.5d * s.height) / frame.scale),
+			(float) (frame.xCenter + (x + width + margin - 0.5d * s.width) / frame.scale),
+			(float) (frame.yCenter + (y + height + margin - 0.5d * s.height) / frame.scale)
+		};
+	}
+
+	private static float[] intersect(final float[] a, final float[] b) {
+		return new float[] {
+			Math.max(a[0], b[0]), Math.max(a[1], b[1]), Math.min(a[2], b[2]), Math.min(a[3], b[3])
+		};
+	}
+
+	/**
+	 * A canvas-sized image together with its tiles.
+	 */
+	static final class Surface {
+
+		final int width;
+		final int height;
+		final BufferedImage image;
+		final GraphGraphics grafx;
+		final Rectangle[] tiles;
+		final GraphGraphics[] tileGraphics;
+
+		// Tile indices, nearest to the center first.
+		final Integer[] order;
+
+		// The viewport of the frame in image, once one has been rendered.
+		boolean rendered;
+		double xCenter;
+		double yCenter;
+		double scale = 1.0d;
+
+		Surface(final int width, final int height) {
+			this.width = width;
+			this.height = height;
+			this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+			this.grafx = new GraphGraphics(image, false, true);
+
+			final int cols = (width + TILE_SIZE - 1) / TILE_SIZE;
+			final int rows = (height + TILE_SIZE - 1) / TILE_SIZE;
+			tiles = new Rectangle[cols * rows];
+			tileGraphics = new GraphGraphics[tiles.length];
+			order = new Integer[tiles.length];
+
+			for (int row = 0; row < rows; row++) {
+				for (int col = 0; col < cols; col++) {
+					final int i = row * cols + col;
+					final int x = col * TILE_SIZE;
+					final int y = row * TILE_SIZE;
+					tiles[i] = new Rectangle(x, y, Math.min(TILE_SIZE, width - x), Math.min(TILE_SIZE, height - y));
+					tileGraphics[i] = new GraphGraphics(image.getSubimage(x, y, tiles[i].width, tiles[i].height),
+					                                    false, true);
+					order[i] = i;
+				}
+			}
+
+			Arrays.sort(order, new Comparator<Integer>() {
+				@Override
+				public int compare(final Integer a, final Integer b) {
+					return Double.compare(distanceToCenter(tiles[a]), distanceToCenter(tiles[b]));
+				}
+			});
+		}
+
+		private double distanceToCenter(final Rectangle r) {
+			final double dx = r.getCenterX() - 0.5d * width;
+			final double dy = r.getCenterY() - 0.5d * height;
+
+			return dx * dx + dy * dy;
+		}
+	}
+
+	private static final class Frame {
+
+		final double xCenter;
+		final double yCenter;
+		final double scale;
+		final GraphLOD lod;
+		final Color background;
+		final long requested = System.nanoTime();
+
+		// The surface of the current pass, and for each of its tiles 1 if
+		// the pass is done with it.  Only replaced under the renderer's
+		// monitor, which is also where they are read.
+		Surface surface;
+		AtomicIntegerArray done;
+
+		Frame(final Surface surface, final double xCenter, final double yCenter, final double scale,
+		      final GraphLOD lod, final Color background) {
+			this.xCenter = xCenter;
+			this.yCenter = yCenter;
+			this.scale = scale;
+			this.lod = lod;
+			this.background = background;
+			nextPass(surface);
+		}
+
+		void nextPass(final Surface surface) {
+			this.surface = surface;
+			this.done = new AtomicIntegerArray(surface.tiles.length);
+		}
+	}
+}
@@ -50,6 +50,7 @@ import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.cytoscape.graph.render.immed.arrow.Arrow;
 import org.cytoscape.graph.render.immed.arrow.ArrowheadArrow;
@@ -178,8 +179,9 @@ public final class GraphGraphics {
 	 */
 	private static final double CURVE_ELLIPTICAL = (4.0d * (Math.sqrt(2.0d) - 1.0d)) / 3.0d;
 
-	// Mapping from node to its border stroke object.
-	private static final Map<Float,Stroke> borderStrokes = new HashMap<Float,Stroke>();
+	// Mapping from node to its border stroke object.  Shared by all instances,
+	// which may render on different threads.
+	private static final Map<Float,Stroke> borderStrokes = new ConcurrentHashMap<Float,Stroke>();
 
 	static {		
 		nodeShapes = new HashMap<Byte,NodeShape>();
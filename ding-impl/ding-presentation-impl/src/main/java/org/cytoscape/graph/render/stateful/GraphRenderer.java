@@ -155,6 +155,40 @@ public final class GraphRenderer {
 	                                    final double scaleFactor,
 	                                    final boolean haveZOrder,
 	                                    final Set<VisualPropertyDependency<?>> dependencies) {
+		return renderGraph(netView, nodePositions, lod, nodeDetails, edgeDetails, nodeBuff, grafx,
+		                   bgPaint, xCenter, yCenter, scaleFactor, haveZOrder, dependencies, null, null);
+	}
+
+	/**
+	 * Renders the part of a graph that falls on grafx, where grafx is one
+	 * tile of a larger image.  The parameters are the same as for the
+	 * other renderGraph() method, with two additions.
+	 * @param nodeWindow {xMin, yMin, xMax, yMax} in node coordinates; the
+	 *   nodes overlapping this window are rendered.  This should be larger
+	 *   than the tile so that labels reaching into the tile are drawn.  If
+	 *   null, the window covered by grafx is used.
+	 * @param edgeWindow {xMin, yMin, xMax, yMax} in node coordinates; when
+	 *   only edges touching visible nodes are rendered, these are the nodes
+	 *   overlapping this window.  It must reach as far around the tile as
+	 *   the edges crossing it do, but need not be larger than the visible
+	 *   image.  If null, nodeWindow is used.
+	 * @return bits representing the level of detail that was rendered.
+	 */
+	public final static int renderGraph(final CyNetworkView netView,
+										final SpacialIndex2D nodePositions,
+	                                    final GraphLOD lod,
+	                                    final NodeDetails nodeDetails,
+	                                    final EdgeDetails edgeDetails,
+	                                    final LongHash nodeBuff,
+	                                    final GraphGraphics grafx,
+	                                    final Paint bgPaint,
+	                                    final double xCenter,
+	                                    final double yCenter,
+	                                    final double scaleFactor,
+	                                    final boolean haveZOrder,
+	                                    final Set<VisualPropertyDependency<?>> dependencies,
+	                                    final float[] nodeWindow,
+	                                    final float[] edgeWindow) {
 		nodeBuff.empty(); // Make sure we keep our promise.
 
 		final CyNetwork graph = netView.getModel();
@@ -175,6 +209,16 @@ public final class GraphRenderer {
 		xMax = (float) (xCenter + ((0.5d * grafx.image.getWidth(null)) / scaleFactor));
 		yMax = (float) (yCenter + ((0.5d * grafx.image.getHeight(null)) / scaleFactor));
 
+		// Windows queried for nodes and for edges; wider than the image when
+		// rendering a tile.
+		final float[] nodeQuery = (nodeWindow != null) ? nodeWindow : new float[] { xMin, yMin, xMax, yMax };
+		final float[] edgeQuery = (edgeWindow != null) ? edgeWindow : nodeQuery;
+
+		// Low detail edges are straight lines between node centers, so a tile
+		// can skip those that lie entirely on one side of it.
+		final boolean cullEdges = (nodeWindow != null);
+		final float cullSlack = (float) (1.0d / scaleFactor);
+
 		// Define buffers.  These are of the few objects we're instantiating
 		// directly in this method.
 		final float[] floatBuff1;
@@ -207,74 +251,11 @@ public final class GraphRenderer {
 		path2d = new GeneralPath();
 
 		// Determine the number of nodes and edges that we are about to render.
-		final int renderNodeCount;
-		final int renderEdgeCount;
-		final byte renderEdges;
-		long start = System.currentTimeMillis();
-
-		{
-			final SpacialEntry2DEnumerator nodeHits = nodePositions.queryOverlap(xMin, yMin, xMax,
-			                                                                     yMax, null, 0,
-			                                                                     false);
-			final int visibleNodeCount = nodeHits.numRemaining();
-			final int totalNodeCount = graph.getNodeCount();
-			final int totalEdgeCount = graph.getEdgeCount();
-			renderEdges = lod.renderEdges(visibleNodeCount, totalNodeCount, totalEdgeCount);
-
-			if (renderEdges > 0) {
-				int runningNodeCount = 0;
-
-				for (int i = 0; i < visibleNodeCount; i++) {
-					nodeHits.nextExtents(floatBuff1, 0);
-
-					if ((floatBuff1[0] != floatBuff1[2]) && (floatBuff1[1] != floatBuff1[3]))
-						runningNodeCount++;
-				}
-
-				renderNodeCount = runningNodeCount;
-				renderEdgeCount = totalEdgeCount;
-			} else if (renderEdges < 0) {
-				int runningNodeCount = 0;
-
-				for (int i = 0; i < visibleNodeCount; i++) {
-					nodeHits.nextExtents(floatBuff1, 0);
-
-					if ((floatBuff1[0] != floatBuff1[2]) && (floatBuff1[1] != floatBuff1[3]))
-						runningNodeCount++;
-				}
-
-				renderNodeCount = runningNodeCount;
-				renderEdgeCount = 0;
-			} else {
-				int runningNodeCount = 0;
-				int runningEdgeCount = 0;
-
-				for (int i = 0; i < visibleNodeCount; i++) {
-					final long node = nodeHits.nextExtents(floatBuff1, 0);
-
-					if ((floatBuff1[0] != floatBuff1[2]) && (floatBuff1[1] != floatBuff1[3]))
-						runningNodeCount++;
-
-					final Iterable<CyEdge> touchingEdges = graph.getAdjacentEdgeIterable(graph.getNode(node),CyEdge.Type.ANY);
-
-					for ( CyEdge e : touchingEdges ) {
-						if (!edgeDetails.isVisible(e))
-							continue;
-						final long edge = e.getSUID(); 
-						final long otherNode = node ^ e.getSource().getSUID() ^ e.getTarget().getSUID();
-
-						if (nodeBuff.get(otherNode) < 0)
-							runningEdgeCount++;
-					}
-
-					nodeBuff.put(node);
-				}
-
-				renderNodeCount = runningNodeCount;
-				renderEdgeCount = runningEdgeCount;
-				nodeBuff.empty();
-			}
-		}	
+		final int[] renderCounts = new int[3];
+		final byte renderEdges = countRenderedObjects(graph, nodePositions, lod, edgeDetails, nodeBuff,
+		                                              xMin, yMin, xMax, yMax, renderCounts);
+		final int renderNodeCount = renderCounts[1];
+		final int renderEdgeCount = renderCounts[2];
 		// System.out.println("renderEdgeCount: "+renderEdgeCount);
 		// System.out.println("time: "+(System.currentTimeMillis()-start)+"ms");
 
@@ -339,7 +320,8 @@ public final class GraphRenderer {
 				                                      Float.POSITIVE_INFINITY,
 				                                      Float.POSITIVE_INFINITY, null, 0, false);
 			else
-				nodeHits = nodePositions.queryOverlap(xMin, yMin, xMax, yMax, null, 0, false);
+				nodeHits = nodePositions.queryOverlap(edgeQuery[0], edgeQuery[1], edgeQuery[2], edgeQuery[3],
+				                                      null, 0, false);
 		
 			if ((lodBits & LOD_HIGH_DETAIL) == 0) { // Low detail.
 
@@ -362,11 +344,20 @@ public final class GraphRenderer {
 
 						if (nodeBuff.get(otherNode) < 0) { // Has not yet been rendered.
 							nodePositions.exists(otherNode, floatBuff2, 0);
-							grafx.drawEdgeLow(nodeX, nodeY, 
-							                  // Again, casting issue - tradeoff between
-							                  // accuracy and performance.
-							                  (floatBuff2[0] + floatBuff2[2]) / 2,
-							                  (floatBuff2[1] + floatBuff2[3]) / 2,
+
+							// Again, casting issue - tradeoff between
+							// accuracy and performance.
+							final float otherX = (floatBuff2[0] + floatBuff2[2]) / 2;
+							final float otherY = (floatBuff2[1] + floatBuff2[3]) / 2;
+
+							if (cullEdges
+							    && ((Math.max(nodeX, otherX) < xMin - cullSlack)
+							        || (Math.min(nodeX, otherX) > xMax + cullSlack)
+							        || (Math.max(nodeY, otherY) < yMin - cullSlack)
+							        || (Math.min(nodeY, otherY) > yMax + cullSlack)))
+								continue;
+
+							grafx.drawEdgeLow(nodeX, nodeY, otherX, otherY,
 							                  edgeDetails.getColorLowDetail(edge));
 						}
 					}
@@ -659,9 +650,9 @@ public final class GraphRenderer {
 		// Render nodes and labels.  A label is not necessarily on top of every
 		// node; it is only on top of the node it belongs to.
 		{
-			final SpacialEntry2DEnumerator nodeHits = nodePositions.queryOverlap(xMin, yMin, xMax,
-			                                                                     yMax, null, 0,
-			                                                                     false);
+			final SpacialEntry2DEnumerator nodeHits = nodePositions.queryOverlap(nodeQuery[0], nodeQuery[1],
+			                                                                     nodeQuery[2], nodeQuery[3],
+			                                                                     null, 0, false);
 			// System.out.println("Rendering nodes: high detail = "+(lodBits & LOD_HIGH_DETAIL));
 			// System.out.println("time: "+(System.currentTimeMillis()-start)+"ms");
 
@@ -751,6 +742,101 @@ public final class GraphRenderer {
 		return lodBits;
 	}
 
+	/**
+	 * Counts the nodes and edges that a rendering of the given window would
+	 * draw; these counts are what the level of detail is chosen from.
+	 * @param graph the network whose nodes are in nodePositions.
+	 * @param nodePositions the positions and extents of the nodes.
+	 * @param lod decides whether edges are rendered at all.
+	 * @param edgeDetails used to skip hidden edges.
+	 * @param nodeBuff a computational helper; it is empty when this method
+	 *   returns.
+	 * @param xMin the visible window in node coordinate space.
+	 * @param yMin the visible window in node coordinate space.
+	 * @param xMax the visible window in node coordinate space.
+	 * @param yMax the visible window in node coordinate space.
+	 * @param counts an array of length [at least] three that receives the
+	 *   number of nodes in the window, the number of those nodes that will be
+	 *   rendered and the number of edges that will be rendered.
+	 * @return the value of lod.renderEdges() for the window.
+	 */
+	public final static byte countRenderedObjects(final CyNetwork graph,
+	                                              final SpacialIndex2D nodePositions,
+	                                              final GraphLOD lod,
+	                                              final EdgeDetails edgeDetails,
+	                                              final LongHash nodeBuff,
+	                                              final float xMin,
+	                                              final float yMin,
+	                                              final float xMax,
+	                                              final float yMax,
+	                                              final int[] counts) {
+		final float[] floatBuff1 = new float[4];
+		final SpacialEntry2DEnumerator nodeHits = nodePositions.queryOverlap(xMin, yMin, xMax,
+		                                                                     yMax, null, 0,
+		                                                                     false);
+		final int visibleNodeCount = nodeHits.numRemaining();
+		counts[0] = visibleNodeCount;
+		final int totalNodeCount = graph.getNodeCount();
+		final int totalEdgeCount = graph.getEdgeCount();
+		final byte renderEdges = lod.renderEdges(visibleNodeCount, totalNodeCount, totalEdgeCount);
+
+		if (renderEdges > 0) {
+			int runningNodeCount = 0;
+
+			for (int i = 0; i < visibleNodeCount; i++) {
+				nodeHits.nextExtents(floatBuff1, 0);
+
+				if ((floatBuff1[0] != floatBuff1[2]) && (floatBuff1[1] != floatBuff1[3]))
+					runningNodeCount++;
+			}
+
+			counts[1] = runningNodeCount;
+			counts[2] = totalEdgeCount;
+		} else if (renderEdges < 0) {
+			int runningNodeCount = 0;
+
+			for (int i = 0; i < visibleNodeCount; i++) {
+				nodeHits.nextExtents(floatBuff1, 0);
+
+				if ((floatBuff1[0] != floatBuff1[2]) && (floatBuff1[1] != floatBuff1[3]))
+					runningNodeCount++;
+			}
+
+			counts[1] = runningNodeCount;
+			counts[2] = 0;
+		} else {
+			int runningNodeCount = 0;
+			int runningEdgeCount = 0;
+
+			for (int i = 0; i < visibleNodeCount; i++) {
+				final long node = nodeHits.nextExtents(floatBuff1, 0);
+
+				if ((floatBuff1[0] != floatBuff1[2]) && (floatBuff1[1] != floatBuff1[3]))
+					runningNodeCount++;
+
+				final Iterable<CyEdge> touchingEdges = graph.getAdjacentEdgeIterable(graph.getNode(node),CyEdge.Type.ANY);
+
+				for ( CyEdge e : touchingEdges ) {
+					if (!edgeDetails.isVisible(e))
+						continue;
+					final long edge = e.getSUID(); 
+					final long otherNode = node ^ e.getSource().getSUID() ^ e.getTarget().getSUID();
+
+					if (nodeBuff.get(otherNode) < 0)
+						runningEdgeCount++;
+				}
+
+				nodeBuff.put(node);
+			}
+
+			counts[1] = runningNodeCount;
+			counts[2] = runningEdgeCount;
+			nodeBuff.empty();
+		}
+
+		return renderEdges;
+	}
+
 	private final static void lemma_computeAnchor(final int anchor, final double[] input4x,
 	                                              final double[] rtrn2x) {
 		switch (anchor) {
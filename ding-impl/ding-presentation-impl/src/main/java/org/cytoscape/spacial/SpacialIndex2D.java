@@ -153,6 +153,23 @@ public interface SpacialIndex2D {
 	 */
 	public boolean delete(long objKey);
 
+	/**
+	 * Empties this structure and fills it with the specified entries.  This
+	 * has the same outcome as calling empty() followed by insert() for every
+	 * entry, but implementations may build a better organized structure, and
+	 * build it faster, when they see all entries at once.  Use it when most
+	 * entries are new or have moved, such as when a view is created.
+	 * @param objKeys the entries, which must be non-negative and distinct.
+	 * @param extents the extents of the entries; those of objKeys[i] are
+	 *   { xMin, yMin, xMax, yMax } starting at index 4 * i.
+	 * @param zOrders the z order of the entries; may be null if all are 0.
+	 * @param count the number of entries to load from the arrays.
+	 * @exception IllegalStateException if objKeys contains duplicates.
+	 * @exception IllegalArgumentException if an objKey is negative, or if
+	 *   the extents of an entry are not ordered as for insert().
+	 */
+	public void bulkLoad(long[] objKeys, float[] extents, double[] zOrders, int count);
+
 	/**
 	 * Gets the z-Order associated with this entry.  Note that this is for information
 	 * only -- the underlying spacial indexing will ignore Z-Order.  These getters and
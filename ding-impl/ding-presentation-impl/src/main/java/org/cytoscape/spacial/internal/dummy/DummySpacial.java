@@ -82,6 +82,8 @@ public class DummySpacial implements SpacialIndex2D {
 
 	public boolean delete(long objKey) { return true; }
 
+	public void bulkLoad(long[] objKeys, float[] extents, double[] zOrders, int count) {}
+
 	public void setZOrder(long objKey, double z) {}
 
 	public double getZOrder(long objKey) {
@@ -33,6 +33,7 @@ import org.cytoscape.util.intr.LongEnumerator;
 import org.cytoscape.util.intr.LongObjHash;
 import org.cytoscape.util.intr.LongStack;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
@@ -261,6 +262,237 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 		}
 	}
 
+	/**
+	 * Empties this R-tree and fills it with the specified entries in one go.
+	 * The tree is built bottom-up using Sort-Tile-Recursive packing: entries
+	 * are cut into vertical slices by the X coordinate of their centers, each
+	 * slice is sorted by Y coordinate, and consecutive runs of entries become
+	 * the leaves; the levels above are packed the same way from the MBRs of
+	 * the level below.  This is much faster than inserting the entries one
+	 * at a time, and the resulting nodes hardly overlap, which makes queries
+	 * faster too.  The tree remains a regular R-tree afterwards; entries may
+	 * be inserted and deleted as usual.
+	 * @param objKeys the entries, which must be non-negative and distinct.
+	 * @param extents the extents of the entries; those of objKeys[i] are
+	 *   { xMin, yMin, xMax, yMax } starting at index 4 * i.
+	 * @param zOrders the z order of the entries; may be null if all are 0.
+	 * @param count the number of entries to load from the arrays.
+	 * @exception IllegalStateException if objKeys contains duplicates.
+	 * @exception IllegalArgumentException if an objKey is negative, or if
+	 *   the extents of an entry are not ordered as for insert().
+	 */
+	public final void bulkLoad(final long[] objKeys, final float[] extents, final double[] zOrders,
+	                           final int count) {
+		final LongObjHash entryMap = new LongObjHash();
+		final Map<Long,Double> zOrderMap = new HashMap<Long,Double>();
+		final float[] xMins = new float[count];
+		final float[] yMins = new float[count];
+		final float[] xMaxs = new float[count];
+		final float[] yMaxs = new float[count];
+
+		for (int i = 0; i < count; i++) {
+			final long objKey = objKeys[i];
+
+			if (objKey < 0)
+				throw new IllegalArgumentException("objKey is negative");
+
+			xMins[i] = extents[4 * i];
+			yMins[i] = extents[(4 * i) + 1];
+			xMaxs[i] = extents[(4 * i) + 2];
+			yMaxs[i] = extents[(4 * i) + 3];
+
+			if (!(xMins[i] <= xMaxs[i]))
+				throw new IllegalArgumentException("xMin <= xMax not true: xMin " + xMins[i] + " xMax " + xMaxs[i]);
+
+			if (!(yMins[i] <= yMaxs[i]))
+				throw new IllegalArgumentException("yMin <= yMax not true: yMin " + yMins[i] + " yMax " + yMaxs[i]);
+
+			// Leaves are filled in below; this only claims the key.
+			if (entryMap.put(objKey, m_deletedEntry) != null)
+				throw new IllegalStateException("objkey " + objKey + " is loaded twice");
+
+			if ((zOrders != null) && (zOrders[i] != 0.0))
+				zOrderMap.put(objKey, Double.valueOf(zOrders[i]));
+		}
+
+		final int[] order = new int[count];
+		final long[] sortBuff = new long[count];
+
+		for (int i = 0; i < count; i++)
+			order[i] = i;
+
+		// The leaf level.
+		int[] groups = packGroups(order, count, xMins, yMins, xMaxs, yMaxs, m_maxBranches, sortBuff);
+		int levelCount = groups.length - 1;
+		Node[] level = new Node[levelCount];
+		float[] levelXMins = new float[levelCount];
+		float[] levelYMins = new float[levelCount];
+		float[] levelXMaxs = new float[levelCount];
+		float[] levelYMaxs = new float[levelCount];
+
+		for (int g = 0; g < levelCount; g++) {
+			final Node leaf = new Node(m_maxBranches, true);
+
+			for (int i = groups[g]; i < groups[g + 1]; i++) {
+				final int inx = order[i];
+				final int entry = leaf.entryCount++;
+				leaf.objKeys[entry] = objKeys[inx];
+				leaf.xMins[entry] = xMins[inx];
+				leaf.yMins[entry] = yMins[inx];
+				leaf.xMaxs[entry] = xMaxs[inx];
+				leaf.yMaxs[entry] = yMaxs[inx];
+				entryMap.put(objKeys[inx], leaf);
+			}
+
+			level[g] = leaf;
+			storeMBR(leaf, g, levelXMins, levelYMins, levelXMaxs, levelYMaxs);
+		}
+
+		// The levels above, up to a single root.
+		while (levelCount > 1) {
+			for (int i = 0; i < levelCount; i++)
+				order[i] = i;
+
+			groups = packGroups(order, levelCount, levelXMins, levelYMins, levelXMaxs, levelYMaxs,
+			                    m_maxBranches, sortBuff);
+
+			final int parentCount = groups.length - 1;
+			final Node[] parents = new Node[parentCount];
+			final float[] parentXMins = new float[parentCount];
+			final float[] parentYMins = new float[parentCount];
+			final float[] parentXMaxs = new float[parentCount];
+			final float[] parentYMaxs = new float[parentCount];
+
+			for (int g = 0; g < parentCount; g++) {
+				final Node parent = new Node(m_maxBranches, false);
+
+				for (int i = groups[g]; i < groups[g + 1]; i++) {
+					final int inx = order[i];
+					final Node child = level[inx];
+					final int entry = parent.entryCount++;
+					child.parent = parent;
+					parent.data.children[entry] = child;
+					parent.xMins[entry] = levelXMins[inx];
+					parent.yMins[entry] = levelYMins[inx];
+					parent.xMaxs[entry] = levelXMaxs[inx];
+					parent.yMaxs[entry] = levelYMaxs[inx];
+					parent.data.deepCount += (isLeafNode(child) ? child.entryCount
+					                                            : child.data.deepCount);
+				}
+
+				parents[g] = parent;
+				storeMBR(parent, g, parentXMins, parentYMins, parentXMaxs, parentYMaxs);
+			}
+
+			level = parents;
+			levelCount = parentCount;
+			levelXMins = parentXMins;
+			levelYMins = parentYMins;
+			levelXMaxs = parentXMaxs;
+			levelYMaxs = parentYMaxs;
+		}
+
+		if (levelCount == 0) {
+			m_root = new Node(m_maxBranches, true);
+			m_MBR[0] = Float.POSITIVE_INFINITY;
+			m_MBR[1] = Float.POSITIVE_INFINITY;
+			m_MBR[2] = Float.NEGATIVE_INFINITY;
+			m_MBR[3] = Float.NEGATIVE_INFINITY;
+		} else {
+			m_root = level[0];
+			m_MBR[0] = levelXMins[0];
+			m_MBR[1] = levelYMins[0];
+			m_MBR[2] = levelXMaxs[0];
+			m_MBR[3] = levelYMaxs[0];
+		}
+
+		m_entryMap = entryMap;
+		m_zOrderMap = zOrderMap;
+		m_deletedEntries = 0;
+		m_mapExpansionThreshold = LongObjHash.maxCapacity(m_entryMap.size());
+	}
+
+	/*
+	 * Sort-Tile-Recursive grouping of count items with the given MBRs.
+	 * Reorders order[0, count) and returns the boundaries of the groups in
+	 * it: group g is order[groups[g], groups[g + 1]).  Every group holds at
+	 * most maxBranches items; the items of a slice are spread evenly over its
+	 * groups rather than leaving a nearly empty group at its end.
+	 */
+	private final static int[] packGroups(final int[] order, final int count, final float[] xMins,
+	                                      final float[] yMins, final float[] xMaxs,
+	                                      final float[] yMaxs, final int maxBranches,
+	                                      final long[] sortBuff) {
+		final int nodes = (count + maxBranches - 1) / maxBranches;
+		final int slices = (int) Math.ceil(Math.sqrt((double) nodes));
+		final int[] groups = new int[nodes + slices + 1];
+		int groupCount = 0;
+
+		sortByCenter(order, 0, count, xMins, xMaxs, sortBuff);
+
+		for (int s = 0; s < slices; s++) {
+			final int from = (int) ((((long) count) * s) / slices);
+			final int to = (int) ((((long) count) * (s + 1)) / slices);
+
+			if (from == to)
+				continue;
+
+			sortByCenter(order, from, to, yMins, yMaxs, sortBuff);
+
+			final int sliceNodes = ((to - from) + maxBranches - 1) / maxBranches;
+
+			for (int k = 0; k < sliceNodes; k++)
+				groups[groupCount++] = from + (int) ((((long) (to - from)) * k) / sliceNodes);
+		}
+
+		groups[groupCount] = count;
+
+		return Arrays.copyOf(groups, groupCount + 1);
+	}
+
+	/*
+	 * Sorts order[from, to) by the center of the items along one axis.  The
+	 * keys are packed into longs, with the float center made sortable as an
+	 * int in the high half and the item in the low half, so that this is a
+	 * primitive sort.
+	 */
+	private final static void sortByCenter(final int[] order, final int from, final int to,
+	                                       final float[] mins, final float[] maxs,
+	                                       final long[] sortBuff) {
+		for (int i = from; i < to; i++) {
+			final int inx = order[i];
+			int bits = Float.floatToIntBits((mins[inx] / 2.0f) + (maxs[inx] / 2.0f));
+			bits ^= (bits >> 31) & 0x7fffffff;
+			sortBuff[i] = (((long) bits) << 32) | (inx & 0xffffffffL);
+		}
+
+		Arrays.sort(sortBuff, from, to);
+
+		for (int i = from; i < to; i++)
+			order[i] = (int) sortBuff[i];
+	}
+
+	private final static void storeMBR(final Node n, final int inx, final float[] xMins,
+	                                   final float[] yMins, final float[] xMaxs,
+	                                   final float[] yMaxs) {
+		float xMin = Float.POSITIVE_INFINITY;
+		float yMin = Float.POSITIVE_INFINITY;
+		float xMax = Float.NEGATIVE_INFINITY;
+		float yMax = Float.NEGATIVE_INFINITY;
+
+		for (int i = 0; i < n.entryCount; i++) {
+			xMin = Math.min(xMin, n.xMins[i]);
+			yMin = Math.min(yMin, n.yMins[i]);
+			xMax = Math.max(xMax, n.xMaxs[i]);
+			yMax = Math.max(yMax, n.yMaxs[i]);
+		}
+
+		xMins[inx] = xMin;
+		yMins[inx] = yMin;
+		xMaxs[inx] = xMax;
+		yMaxs[inx] = yMax;
+	}
+
 	public final double getZOrder(long objKey) {
 		Double z = m_zOrderMap.get(objKey);
 		if (z == null) return 0.0;
@@ -0,0 +1,175 @@
+package org.cytoscape.ding.impl;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+
+public class DetailColumnTest {
+
+	private static final int SIZE = 512;
+	private static final int READERS = 4;
+	private static final long RUN_MILLIS = 500;
+
+	@Test
+	public void testUnsetIndexReadsDefault() {
+		final DetailColumn.Floats floats = new DetailColumn.Floats();
+		final DetailColumn.Objects<String> objects = new DetailColumn.Objects<String>();
+
+		assertFalse(floats.isSet(3));
+		assertEquals(0.0f, floats.get(3), 0.0f);
+		assertEquals(0.0f, floats.get(-1), 0.0f);
+		assertNull(objects.get(3));
+
+		floats.put(3, 2.5f);
+		assertTrue(floats.isSet(3));
+		assertEquals(2.5f, floats.get(3), 0.0f);
+		assertFalse(floats.isSet(1000));
+		assertEquals(0.0f, floats.get(1000), 0.0f);
+	}
+
+	@Test
+	public void testClearDropsOverrides() {
+		final DetailColumn.Ints ints = new DetailColumn.Ints();
+		final DetailColumn.Objects<String> objects = new DetailColumn.Objects<String>();
+
+		for (int i = 0; i < SIZE; i++) {
+			ints.put(i, i);
+			objects.put(i, "v" + i);
+		}
+
+		ints.clear();
+		objects.clear();
+
+		for (int i = 0; i < SIZE; i++) {
+			assertFalse(ints.isSet(i));
+			assertFalse(objects.isSet(i));
+			assertNull(objects.get(i));
+		}
+
+		ints.put(7, 42);
+		assertTrue(ints.isSet(7));
+		assertEquals(42, ints.get(7));
+		assertFalse(ints.isSet(8));
+	}
+
+	@Test
+	public void testRemoveDropsOneOverride() {
+		final DetailColumn.Doubles doubles = new DetailColumn.Doubles();
+
+		doubles.put(1, 1.0);
+		doubles.put(2, 2.0);
+		doubles.remove(1);
+
+		assertFalse(doubles.isSet(1));
+		assertTrue(doubles.isSet(2));
+		assertEquals(2.0, doubles.get(2), 0.0);
+	}
+
+	/**
+	 * Readers check isSet and then get, without a lock, while another thread
+	 * keeps filling and clearing the columns, as setViewDefault does.
+	 */
+	@Test
+	public void testConcurrentClearAndGet() throws Exception {
+		final DetailColumn.Floats floats = new DetailColumn.Floats();
+		final DetailColumn.Doubles doubles = new DetailColumn.Doubles();
+		final DetailColumn.Ints ints = new DetailColumn.Ints();
+		final DetailColumn.Objects<Integer> objects = new DetailColumn.Objects<Integer>();
+
+		final AtomicBoolean done = new AtomicBoolean();
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+		final Thread writer = new Thread(new Runnable() {
+			public void run() {
+				try {
+					while (!done.get()) {
+						for (int i = 0; i < SIZE; i++) {
+							floats.put(i, i + 1);
+							doubles.put(i, i + 1);
+							ints.put(i, i + 1);
+							objects.put(i, i + 1);
+						}
+						floats.clear();
+						doubles.clear();
+						ints.clear();
+						objects.clear();
+					}
+				} catch (Throwable t) {
+					failure.compareAndSet(null, t);
+				}
+			}
+		});
+
+		final Thread[] readers = new Thread[READERS];
+		for (int r = 0; r < READERS; r++) {
+			readers[r] = new Thread(new Runnable() {
+				public void run() {
+					try {
+						while (!done.get()) {
+							for (int i = 0; i < SIZE; i++) {
+								// Every value ever stored at i is i + 1
+								if (floats.isSet(i))
+									assertEquals(i + 1, floats.get(i), 0.0f);
+								if (doubles.isSet(i))
+									assertEquals(i + 1, doubles.get(i), 0.0);
+								if (ints.isSet(i))
+									assertEquals(i + 1, ints.get(i));
+								if (objects.isSet(i)) {
+									final Integer value = objects.get(i);
+									assertTrue(value == null || value.intValue() == i + 1);
+								}
+							}
+						}
+					} catch (Throwable t) {
+						failure.compareAndSet(null, t);
+					}
+				}
+			});
+		}
+
+		writer.start();
+		for (Thread reader : readers)
+			reader.start();
+
+		Thread.sleep(RUN_MILLIS);
+		done.set(true);
+
+		writer.join();
+		for (Thread reader : readers)
+			reader.join();
+
+		if (failure.get() != null)
+			throw new AssertionError(failure.get());
+	}
+}
@@ -0,0 +1,165 @@
+package org.cytoscape.spacial.internal.rtree;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.Random;
+
+import org.cytoscape.spacial.SpacialEntry2DEnumerator;
+
+
+/**
+ * Compares building an R-tree by inserting entries one at a time with
+ * building it through bulkLoad(), and the query times of the two trees.
+ * Usage: <code>RTreeBulkLoadPerformance branches N [seed]</code>.
+ * Creates N rectangles whose centers are in the space [0,1] X [0,1], each
+ * no wider or higher than 1/sqrt(N).  Both trees must answer every query
+ * with the same number of hits.
+ */
+public class RTreeBulkLoadPerformance {
+
+	private static final int QUERIES = 1000;
+
+	public static void main(String[] args) throws Exception {
+		final int branches = Integer.parseInt(args[0]);
+		final int N = Integer.parseInt(args[1]);
+		final Random random = new Random(args.length > 2 ? Long.parseLong(args[2]) : 0L);
+		final long[] objKeys = new long[N];
+		final float[] data = new float[N * 4];
+		final double sqrtN = Math.sqrt((double) N);
+
+		for (int i = 0; i < N; i++) {
+			final double centerX = random.nextDouble();
+			final double centerY = random.nextDouble();
+			final double width = random.nextDouble() / sqrtN;
+			final double height = random.nextDouble() / sqrtN;
+			objKeys[i] = i;
+			data[i * 4] = (float) (centerX - (width / 2.0d));
+			data[(i * 4) + 1] = (float) (centerY - (height / 2.0d));
+			data[(i * 4) + 2] = (float) (centerX + (width / 2.0d));
+			data[(i * 4) + 3] = (float) (centerY + (height / 2.0d));
+		}
+
+		// Query windows of 0.1% to 10% of the area.
+		final float[] queries = new float[QUERIES * 4];
+
+		for (int i = 0; i < QUERIES; i++) {
+			final float size = (float) Math.sqrt(0.001d + (random.nextDouble() * 0.099d));
+			final float x = random.nextFloat() * (1.0f - size);
+			final float y = random.nextFloat() * (1.0f - size);
+			queries[i * 4] = x;
+			queries[(i * 4) + 1] = y;
+			queries[(i * 4) + 2] = x + size;
+			queries[(i * 4) + 3] = y + size;
+		}
+
+		final RTree inserted = new RTree(branches);
+		final RTree loaded = new RTree(branches);
+
+		for (int i = 0; i < 2; i++) {
+			System.gc();
+			Thread.sleep(1000);
+		}
+
+		long millisBegin = System.currentTimeMillis();
+		int inx = 0;
+
+		for (int objKey = 0; objKey < N; objKey++)
+			inserted.insert(objKey, data[inx++], data[inx++], data[inx++], data[inx++], 0.0);
+
+		System.err.println("incremental insertions took " + (System.currentTimeMillis() - millisBegin)
+		                   + " milliseconds");
+
+		for (int i = 0; i < 2; i++) {
+			System.gc();
+			Thread.sleep(1000);
+		}
+
+		millisBegin = System.currentTimeMillis();
+		loaded.bulkLoad(objKeys, data, null, N);
+		System.err.println("bulk load took " + (System.currentTimeMillis() - millisBegin)
+		                   + " milliseconds");
+
+		if (loaded.size() != N)
+			throw new IllegalStateException("bulk loaded tree has " + loaded.size() + " entries, not " + N);
+
+		final int[] insertedHits = query(inserted, queries, "incremental tree");
+		final int[] loadedHits = query(loaded, queries, "bulk loaded tree");
+
+		for (int i = 0; i < QUERIES; i++) {
+			if (insertedHits[i] != loadedHits[i])
+				throw new IllegalStateException("query " + i + " found " + insertedHits[i]
+				                                + " entries in the incremental tree but "
+				                                + loadedHits[i] + " in the bulk loaded tree");
+		}
+
+		// The bulk loaded tree has to keep working as a regular tree.
+		for (int objKey = 0; objKey < N; objKey += 2) {
+			if (!loaded.delete(objKey))
+				throw new IllegalStateException("could not delete " + objKey);
+		}
+
+		for (int objKey = 0; objKey < N; objKey += 2) {
+			inx = objKey * 4;
+			loaded.insert(objKey, data[inx++], data[inx++], data[inx++], data[inx++], 0.0);
+		}
+
+		final float[] extents = new float[4];
+
+		for (int objKey = 0; objKey < N; objKey++) {
+			if (!loaded.exists(objKey, extents, 0) || extents[0] != data[objKey * 4]
+			    || extents[3] != data[(objKey * 4) + 3])
+				throw new IllegalStateException("entry " + objKey + " lost after updates");
+		}
+	}
+
+	private static int[] query(final RTree tree, final float[] queries, final String name)
+		throws InterruptedException {
+		for (int i = 0; i < 2; i++) {
+			System.gc();
+			Thread.sleep(1000);
+		}
+
+		final int[] hits = new int[QUERIES];
+		final float[] extents = new float[4];
+		final long millisBegin = System.currentTimeMillis();
+
+		for (int i = 0; i < QUERIES; i++) {
+			final SpacialEntry2DEnumerator iter = tree.queryOverlap(queries[i * 4], queries[(i * 4) + 1],
+			                                                       queries[(i * 4) + 2],
+			                                                       queries[(i * 4) + 3], null, 0, false);
+
+			while (iter.numRemaining() > 0) {
+				iter.nextExtents(extents, 0);
+				hits[i]++;
+			}
+		}
+
+		System.err.println(QUERIES + " area queries on the " + name + " took "
+		                   + (System.currentTimeMillis() - millisBegin) + " milliseconds");
+
+		return hits;
+	}
+}
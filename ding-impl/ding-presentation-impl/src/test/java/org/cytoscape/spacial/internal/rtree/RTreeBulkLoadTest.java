@@ -0,0 +1,258 @@
+package org.cytoscape.spacial.internal.rtree;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.cytoscape.spacial.SpacialEntry2DEnumerator;
+import org.junit.Before;
+import org.junit.Test;
+
+
+/**
+ * Checks that a tree built by bulkLoad() behaves like one built by inserting
+ * the same entries one at a time.
+ */
+public class RTreeBulkLoadTest {
+
+	private static final int BRANCHES = 5;
+	private static final int N = 2000;
+	private static final int QUERIES = 200;
+
+	private long[] objKeys;
+	private float[] extents;
+	private double[] zOrders;
+	private Random random;
+
+	@Before
+	public void setUp() {
+		random = new Random(17L);
+		objKeys = new long[N];
+		extents = new float[N * 4];
+		zOrders = new double[N];
+
+		for (int i = 0; i < N; i++) {
+			final float x = random.nextFloat() * 100.0f;
+			final float y = random.nextFloat() * 100.0f;
+			// Keys in a scrambled order, so that they don't follow the positions
+			objKeys[i] = (i * 7919L) % N;
+			extents[i * 4] = x;
+			extents[(i * 4) + 1] = y;
+			extents[(i * 4) + 2] = x + random.nextFloat() * 5.0f;
+			extents[(i * 4) + 3] = y + random.nextFloat() * 5.0f;
+			zOrders[i] = (i % 3 == 0) ? 0.0 : i;
+		}
+	}
+
+	@Test
+	public void testQueriesMatchIncrementalInsertion() {
+		final RTree inserted = insertAll();
+		final RTree loaded = new RTree(BRANCHES);
+		loaded.bulkLoad(objKeys, extents, zOrders, N);
+
+		assertEquals(inserted.size(), loaded.size());
+		assertSameEntries(inserted, loaded);
+
+		assertEquals(query(inserted, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY,
+		                   Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY),
+		             query(loaded, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY,
+		                   Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY));
+
+		for (int q = 0; q < QUERIES; q++) {
+			final float x = random.nextFloat() * 100.0f;
+			final float y = random.nextFloat() * 100.0f;
+			final float size = random.nextFloat() * 20.0f;
+			assertEquals(query(inserted, x, y, x + size, y + size), query(loaded, x, y, x + size, y + size));
+		}
+
+		// The extents of the whole tree, as reported by an unbounded query
+		assertArrayEquals(queryExtents(inserted), queryExtents(loaded), 0.0f);
+	}
+
+	@Test
+	public void testCountLoadsPrefixOfArrays() {
+		final RTree loaded = new RTree(BRANCHES);
+		loaded.bulkLoad(objKeys, extents, zOrders, N / 2);
+
+		assertEquals(N / 2, loaded.size());
+		final float[] extentsArr = new float[4];
+		for (int i = 0; i < N; i++)
+			assertEquals(i < N / 2, loaded.exists(objKeys[i], extentsArr, 0));
+	}
+
+	@Test
+	public void testEmptyLoad() {
+		final RTree tree = new RTree(BRANCHES);
+		tree.insert(1, 0.0f, 0.0f, 1.0f, 1.0f, 0.0);
+		tree.bulkLoad(new long[0], new float[0], null, 0);
+
+		assertEquals(0, tree.size());
+		assertFalse(tree.exists(1, new float[4], 0));
+
+		final float[] extentsArr = new float[4];
+		final SpacialEntry2DEnumerator iter = tree.queryOverlap(Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY,
+		                                                        Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY,
+		                                                        extentsArr, 0, false);
+		assertEquals(0, iter.numRemaining());
+		assertEquals(Float.POSITIVE_INFINITY, extentsArr[0], 0.0f);
+		assertEquals(Float.NEGATIVE_INFINITY, extentsArr[2], 0.0f);
+
+		// An empty tree still takes inserts
+		tree.insert(2, 0.0f, 0.0f, 1.0f, 1.0f, 0.0);
+		assertEquals(1, tree.size());
+	}
+
+	@Test
+	public void testDuplicateKeysAreRejected() {
+		final RTree tree = new RTree(BRANCHES);
+		tree.insert(100000, 0.0f, 0.0f, 1.0f, 1.0f, 0.0);
+		objKeys[N - 1] = objKeys[0];
+
+		try {
+			tree.bulkLoad(objKeys, extents, zOrders, N);
+			fail("expected an IllegalStateException");
+		} catch (IllegalStateException e) {
+		}
+
+		// A rejected load leaves the tree as it was
+		assertEquals(1, tree.size());
+		assertTrue(tree.exists(100000, new float[4], 0));
+	}
+
+	@Test
+	public void testNegativeKeysAreRejected() {
+		final RTree tree = new RTree(BRANCHES);
+		objKeys[N / 2] = -1;
+
+		try {
+			tree.bulkLoad(objKeys, extents, zOrders, N);
+			fail("expected an IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+		}
+
+		assertEquals(0, tree.size());
+	}
+
+	@Test
+	public void testInvertedExtentsAreRejected() {
+		final RTree tree = new RTree(BRANCHES);
+		extents[4] = extents[6] + 1.0f;
+
+		try {
+			tree.bulkLoad(objKeys, extents, zOrders, N);
+			fail("expected an IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	@Test
+	public void testInsertAndDeleteAfterLoad() {
+		final RTree inserted = insertAll();
+		final RTree loaded = new RTree(BRANCHES);
+		loaded.bulkLoad(objKeys, extents, zOrders, N);
+
+		// Delete every other entry, move some and add new ones, on both trees
+		for (int i = 0; i < N; i += 2) {
+			assertTrue(inserted.delete(objKeys[i]));
+			assertTrue(loaded.delete(objKeys[i]));
+		}
+		assertFalse(loaded.delete(objKeys[0]));
+
+		for (int i = 1; i < N; i += 10) {
+			inserted.delete(objKeys[i]);
+			loaded.delete(objKeys[i]);
+			inserted.insert(objKeys[i], 50.0f, 50.0f, 51.0f, 51.0f, 1.0);
+			loaded.insert(objKeys[i], 50.0f, 50.0f, 51.0f, 51.0f, 1.0);
+		}
+
+		for (int i = 0; i < 500; i++) {
+			final float x = random.nextFloat() * 100.0f;
+			final float y = random.nextFloat() * 100.0f;
+			inserted.insert(N + i, x, y, x + 1.0f, y + 1.0f, 0.0);
+			loaded.insert(N + i, x, y, x + 1.0f, y + 1.0f, 0.0);
+		}
+
+		assertEquals(inserted.size(), loaded.size());
+		assertEquals(N / 2 + 500, loaded.size());
+
+		for (int q = 0; q < QUERIES; q++) {
+			final float x = random.nextFloat() * 100.0f;
+			final float y = random.nextFloat() * 100.0f;
+			final float size = random.nextFloat() * 20.0f;
+			assertEquals(query(inserted, x, y, x + size, y + size), query(loaded, x, y, x + size, y + size));
+		}
+
+		assertEquals(query(inserted, 50.0f, 50.0f, 51.0f, 51.0f), query(loaded, 50.0f, 50.0f, 51.0f, 51.0f));
+		assertEquals(1.0, loaded.getZOrder(objKeys[1]), 0.0);
+	}
+
+	private RTree insertAll() {
+		final RTree tree = new RTree(BRANCHES);
+		for (int i = 0; i < N; i++)
+			tree.insert(objKeys[i], extents[i * 4], extents[(i * 4) + 1], extents[(i * 4) + 2],
+			            extents[(i * 4) + 3], zOrders[i]);
+		return tree;
+	}
+
+	private void assertSameEntries(final RTree expected, final RTree actual) {
+		final float[] expectedExtents = new float[4];
+		final float[] actualExtents = new float[4];
+
+		for (int i = 0; i < N; i++) {
+			assertTrue(expected.exists(objKeys[i], expectedExtents, 0));
+			assertTrue(actual.exists(objKeys[i], actualExtents, 0));
+			assertArrayEquals(expectedExtents, actualExtents, 0.0f);
+			assertEquals(expected.getZOrder(objKeys[i]), actual.getZOrder(objKeys[i]), 0.0);
+		}
+
+		assertFalse(actual.exists(N, actualExtents, 0));
+	}
+
+	private static Set<Long> query(final RTree tree, final float xMin, final float yMin,
+	                               final float xMax, final float yMax) {
+		final Set<Long> hits = new HashSet<Long>();
+		final SpacialEntry2DEnumerator iter = tree.queryOverlap(xMin, yMin, xMax, yMax, null, 0, false);
+
+		while (iter.numRemaining() > 0)
+			assertTrue(hits.add(iter.nextLong()));
+
+		return hits;
+	}
+
+	private static float[] queryExtents(final RTree tree) {
+		final float[] extentsArr = new float[4];
+		tree.queryOverlap(Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.POSITIVE_INFINITY,
+		                  Float.POSITIVE_INFINITY, extentsArr, 0, false);
+		return extentsArr;
+	}
+}
@@ -32,7 +32,10 @@ import static org.mockito.Mockito.when;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
+import java.util.Random;
 
 import javax.swing.JFrame;
 import javax.swing.JPanel;
@@ -48,6 +51,7 @@ import org.cytoscape.io.internal.util.StreamUtilImpl;
 import org.cytoscape.model.CyNetwork;
 import org.cytoscape.model.CyNetworkFactory;
 import org.cytoscape.model.CyNetworkManager;
+import org.cytoscape.model.CyNode;
 import org.cytoscape.model.NetworkTestSupport;
 import org.cytoscape.model.subnetwork.CyRootNetworkManager;
 import org.cytoscape.property.CyProperty;
@@ -59,6 +63,8 @@ import org.cytoscape.view.layout.internal.CyLayoutAlgorithmManagerImpl;
 import org.cytoscape.view.layout.internal.algorithms.GridNodeLayout;
 import org.cytoscape.view.model.CyNetworkView;
 import org.cytoscape.view.model.CyNetworkViewFactory;
+import org.cytoscape.view.model.View;
+import org.cytoscape.view.presentation.property.BasicVisualLexicon;
 import org.cytoscape.work.TaskIterator;
 import org.cytoscape.work.TaskMonitor;
 import org.mockito.Mock;
@@ -143,6 +149,7 @@ public class PerfTest {
 			networkAndViewPerf("A200-200.sif");
 			networkAndViewPerf("A50-100.sif");
 			networkAndViewPerf("A50-50.sif");
+			frameTimePerf(20000, 200000, 10);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -164,6 +171,39 @@ public class PerfTest {
 		System.out.println("LOADING SIF file (" + name + ") with view duration: " + (end - start));
 	}
 
+	/**
+	 * Renders a randomly wired network off screen and reports the average
+	 * time per frame, most of which goes to reading node and edge details.
+	 */
+	private void frameTimePerf(int nodeCount, int edgeCount, int frames) throws Exception {
+		final Random random = new Random(42);
+		final CyNetwork network = netFactory.createNetwork();
+		final List<CyNode> nodes = new ArrayList<CyNode>(nodeCount);
+		for (int i = 0; i < nodeCount; i++)
+			nodes.add(network.addNode());
+		for (int i = 0; i < edgeCount; i++)
+			network.addEdge(nodes.get(random.nextInt(nodeCount)), nodes.get(random.nextInt(nodeCount)), true);
+
+		long start = System.currentTimeMillis();
+		final DGraphView view = (DGraphView) viewFactory.createNetworkView(network);
+		for (View<CyNode> nv : view.getNodeViews()) {
+			nv.setVisualProperty(BasicVisualLexicon.NODE_X_LOCATION, random.nextDouble() * 10000.0);
+			nv.setVisualProperty(BasicVisualLexicon.NODE_Y_LOCATION, random.nextDouble() * 10000.0);
+		}
+		view.updateView();
+		long end = System.currentTimeMillis();
+		System.out.println("CREATING view (" + edgeCount + " edges) duration: " + (end - start));
+
+		// The first frame pays for class loading and JIT warm-up.
+		view.createImage(800, 800);
+
+		start = System.nanoTime();
+		for (int i = 0; i < frames; i++)
+			view.createImage(800, 800);
+		end = System.nanoTime();
+		System.out.println("RENDERING view (" + edgeCount + " edges) frame time ms: " + ((end - start) / 1000000.0 / frames));
+	}
+
 	private void visualizeNetworks() {
 		try {
 		CyNetworkView[] views = getViews("A50-50.sif");
@@ -24,49 +24,69 @@ package org.cytoscape.edge.bundler.internal;
  * #L%
  */
 
-public final class EdgeBundlerRunner implements Runnable {
+import java.util.concurrent.RecursiveAction;
 
-	private final int ni;
+/**
+ * Adds the electrostatic forces between the nubs of compatible edges to the
+ * forces of a range of edges. Each edge collects the forces from its own
+ * list of compatible edges, so ranges of edges can be handled by different
+ * workers without sharing any writes.
+ */
+public final class EdgeBundlerRunner extends RecursiveAction {
+
+	private static final long serialVersionUID = 1L;
+
+	// Ranges of at most this many edges are not split further
+	private static final int BLOCK_SIZE = 256;
+
+	private final int from;
+	private final int to;
 	private final int numNubs;
-	private final boolean[][] edgeAlign;
 	private final double[][][] nubs;
 	private final double[][][] forces;
-	private final double[][] edgeCompatability;
-	private final int[][] edgeMatcher;
+	private final int[] edgeMatcherStart;
+	private final int[] edgeMatcher;
+	private final double[] edgeCompatability;
+	private final boolean[] edgeAlign;
 
-	public EdgeBundlerRunner(final int ni, final int numNubs, final boolean[][] edgeAlign, final double[][][] nubs, final double[][][] forces,
-			final double[][] edgeCompatability, final int[][] edgeMatcher) {
-		this.ni = ni;
+	public EdgeBundlerRunner(final int from, final int to, final int numNubs, final double[][][] nubs,
+			final double[][][] forces, final int[] edgeMatcherStart, final int[] edgeMatcher,
+			final double[] edgeCompatability, final boolean[] edgeAlign) {
+		this.from = from;
+		this.to = to;
 		this.numNubs = numNubs;
-		this.edgeAlign = edgeAlign;
 		this.nubs = nubs;
 		this.forces = forces;
-		this.edgeCompatability = edgeCompatability;
+		this.edgeMatcherStart = edgeMatcherStart;
 		this.edgeMatcher = edgeMatcher;
+		this.edgeCompatability = edgeCompatability;
+		this.edgeAlign = edgeAlign;
 	}
 
 	@Override
-	public void run() {
-		final int size = edgeAlign.length;
-		for (int ei = 0; ei < size; ei++)
-			for (int em = 0; em < edgeMatcher[ei].length; em++) {
-				final int ej = edgeMatcher[ei][em];
-				final int nj = (edgeAlign[ei][ej]) ? ni : numNubs - ni - 1;
+	protected void compute() {
+		if (to - from > BLOCK_SIZE) {
+			final int mid = (from + to) >>> 1;
+			invokeAll(new EdgeBundlerRunner(from, mid, numNubs, nubs, forces, edgeMatcherStart, edgeMatcher,
+					edgeCompatability, edgeAlign), new EdgeBundlerRunner(mid, to, numNubs, nubs, forces,
+					edgeMatcherStart, edgeMatcher, edgeCompatability, edgeAlign));
+			return;
+		}
 
-				final double diffx = (nubs[ni][0][ei] - nubs[nj][0][ej]);
-				final double diffy = (nubs[ni][1][ei] - nubs[nj][1][ej]);
+		for (int ei = from; ei < to; ei++)
+			for (int ni = 0; ni < numNubs; ni++)
+				for (int em = edgeMatcherStart[ei]; em < edgeMatcherStart[ei + 1]; em++) {
+					final int ej = edgeMatcher[em];
+					final int nj = (edgeAlign[em]) ? ni : numNubs - ni - 1;
 
-				if (Math.abs(diffx) > 1) {
-					final double fx = edgeCompatability[ei][ej] / diffx;
-					forces[ni][0][ei] -= fx;
-					forces[nj][0][ej] += fx;
-				}
+					final double diffx = (nubs[ni][0][ei] - nubs[nj][0][ej]);
+					final double diffy = (nubs[ni][1][ei] - nubs[nj][1][ej]);
+
+					if (Math.abs(diffx) > 1)
+						forces[ni][0][ei] -= edgeCompatability[em] / diffx;
 
-				if (Math.abs(diffy) > 1) {
-					final double fy = edgeCompatability[ei][ej] / diffy;
-					forces[ni][1][ei] -= fy;
-					forces[nj][1][ej] += fy;
+					if (Math.abs(diffy) > 1)
+						forces[ni][1][ei] -= edgeCompatability[em] / diffy;
 				}
-			}
 	}
 }
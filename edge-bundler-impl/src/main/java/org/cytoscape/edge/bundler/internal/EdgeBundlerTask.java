@@ -31,13 +31,13 @@ import static org.cytoscape.view.presentation.property.BasicVisualLexicon.NODE_X
 import static org.cytoscape.view.presentation.property.BasicVisualLexicon.NODE_Y_LOCATION;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import org.cytoscape.model.CyColumn;
 import org.cytoscape.model.CyEdge;
@@ -74,6 +74,15 @@ public class EdgeBundlerTask extends AbstractNetworkViewTask {
 	
 	private static final String BEND_MAP_COLUMN = "BEND_MAP_ID";
 
+	// Time between view updates while animating, in nanoseconds
+	private static final double ANIMATION_INTERVAL = 1e9;
+
+	// Edges whose compatible edges are computed by one worker
+	private static final int COMPATABILITY_BLOCK_SIZE = 64;
+
+	// Shared by all bundling tasks, one worker per processor
+	private static final ForkJoinPool POOL = new ForkJoinPool();
+
 	@Tunable(description = "Number of handles:")
 	public int numNubs = 3;
 
@@ -85,16 +94,21 @@ public class EdgeBundlerTask extends AbstractNetworkViewTask {
 
 	@Tunable(description = "Maximum iterations:")
 	public int maxIterations = 500;
-	
 
-	private boolean animate = false;
+	@Tunable(description = "Update view while bundling:")
+	public boolean animate = false;
 
 	private double[][][] edgePos; // source/target, X/Y, edgeIndex
 	private double[][][] nubs; // nubLocation, X/Y, edgeIndex
-	private double[][] edgeCompatability;
-	private boolean[][] edgeAlign;
 	private double[] edgeLength;
-	private int[][] edgeMatcher;
+
+	// Compatible edges of each edge: those of edge ei are edgeMatcher[k] for
+	// k from edgeMatcherStart[ei] up to edgeMatcherStart[ei + 1] - 1, with
+	// their compatibility and alignment at the same index k
+	private int[] edgeMatcherStart;
+	private int[] edgeMatcher;
+	private double[] edgeCompatability;
+	private boolean[] edgeAlign;
 
 	private final HandleFactory hf;
 	private final BendFactory bf;
@@ -243,8 +257,9 @@ public class EdgeBundlerTask extends AbstractNetworkViewTask {
 				break;
 			}
 
-			if (animate && System.nanoTime() - time > 3) {
+			if (animate && System.nanoTime() - time > ANIMATION_INTERVAL) {
 				render(edges);
+				view.updateView();
 				time = System.nanoTime();
 			}
 		}
@@ -330,28 +345,103 @@ public class EdgeBundlerTask extends AbstractNetworkViewTask {
 	}
 
 	private void computeEdgeCompatability() {
-		edgeCompatability = new double[edgeLength.length][];
-		edgeAlign = new boolean[edgeLength.length][];
-		edgeMatcher = new int[edgeLength.length][];
+		final int numEdges = edgeLength.length;
+		final EdgeMidpointIndex index = new EdgeMidpointIndex(edgePos, edgeLength, COMPATABILITY_THRESHOLD);
+
+		final int[][] compatibleEdges = new int[numEdges][];
+		final double[][] compatabilities = new double[numEdges][];
+		final boolean[][] alignments = new boolean[numEdges][];
+
+		POOL.invoke(new CompatabilityAction(0, numEdges, index, compatibleEdges, compatabilities, alignments));
+
+		// Each pair was found from one of its edges, but both edges need it
+		// in their rows
+		edgeMatcherStart = new int[numEdges + 1];
+		for (int ei = 0; ei < numEdges; ei++) {
+			edgeMatcherStart[ei + 1] += compatibleEdges[ei].length;
+			for (final int ej : compatibleEdges[ei])
+				edgeMatcherStart[ej + 1]++;
+		}
+
+		for (int ei = 0; ei < numEdges; ei++)
+			edgeMatcherStart[ei + 1] += edgeMatcherStart[ei];
 
-		edgeMatcher[0] = new int[0];
+		final int numPairs = edgeMatcherStart[numEdges];
+		edgeMatcher = new int[numPairs];
+		edgeCompatability = new double[numPairs];
+		edgeAlign = new boolean[numPairs];
 
-		for (int ei = 1; ei < edgeLength.length; ei++) {
-			edgeCompatability[ei] = new double[ei];
-			edgeAlign[ei] = new boolean[ei];
+		final int[] next = Arrays.copyOf(edgeMatcherStart, numEdges);
+		for (int ei = 0; ei < numEdges; ei++) {
+			for (int i = 0; i < compatibleEdges[ei].length; i++) {
+				final int ej = compatibleEdges[ei][i];
 
-			List<Integer> compatibleEdges = new ArrayList<Integer>(1000);
-			for (int ej = 0; ej < ei; ej++) {
-				edgeCompatability[ei][ej] = cangle(ei, ej) * cscale(ei, ej) * cpos(ei, ej) * cvis(ei, ej);
-				edgeAlign[ei][ej] = cangleSign(ei, ej) > 0;
+				edgeMatcher[next[ei]] = ej;
+				edgeCompatability[next[ei]] = compatabilities[ei][i];
+				edgeAlign[next[ei]++] = alignments[ei][i];
 
-				if (edgeCompatability[ei][ej] > COMPATABILITY_THRESHOLD)
-					compatibleEdges.add(ej);
+				edgeMatcher[next[ej]] = ei;
+				edgeCompatability[next[ej]] = compatabilities[ei][i];
+				edgeAlign[next[ej]++] = alignments[ei][i];
 			}
+		}
+	}
 
-			edgeMatcher[ei] = new int[compatibleEdges.size()];
-			for (int i = 0; i < compatibleEdges.size(); i++)
-				edgeMatcher[ei][i] = compatibleEdges.get(i);
+	/**
+	 * Finds the compatible edges of a range of edges, among the candidates
+	 * of each edge.
+	 */
+	private final class CompatabilityAction extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int from;
+		private final int to;
+		private final EdgeMidpointIndex index;
+		private final int[][] compatibleEdges;
+		private final double[][] compatabilities;
+		private final boolean[][] alignments;
+
+		CompatabilityAction(final int from, final int to, final EdgeMidpointIndex index,
+				final int[][] compatibleEdges, final double[][] compatabilities, final boolean[][] alignments) {
+			this.from = from;
+			this.to = to;
+			this.index = index;
+			this.compatibleEdges = compatibleEdges;
+			this.compatabilities = compatabilities;
+			this.alignments = alignments;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > COMPATABILITY_BLOCK_SIZE) {
+				final int mid = (from + to) >>> 1;
+				invokeAll(new CompatabilityAction(from, mid, index, compatibleEdges, compatabilities, alignments),
+						new CompatabilityAction(mid, to, index, compatibleEdges, compatabilities, alignments));
+				return;
+			}
+
+			for (int ei = from; ei < to; ei++) {
+				final int[] candidates = index.getCandidates(ei);
+				final int[] edges = new int[candidates.length];
+				final double[] compatability = new double[candidates.length];
+				final boolean[] align = new boolean[candidates.length];
+
+				int count = 0;
+				for (final int ej : candidates) {
+					final double c = cangle(ei, ej) * cscale(ei, ej) * cpos(ei, ej) * cvis(ei, ej);
+					if (c > COMPATABILITY_THRESHOLD) {
+						edges[count] = ej;
+						compatability[count] = c;
+						align[count] = cangleSign(ei, ej) > 0;
+						count++;
+					}
+				}
+
+				compatibleEdges[ei] = Arrays.copyOf(edges, count);
+				compatabilities[ei] = Arrays.copyOf(compatability, count);
+				alignments[ei] = Arrays.copyOf(align, count);
+			}
 		}
 	}
 
@@ -504,18 +594,8 @@ public class EdgeBundlerTask extends AbstractNetworkViewTask {
 
 		// Electrostatic forces
 		// For parallel processing
-		final ExecutorService exec = Executors.newCachedThreadPool();
-		for (int ni = 0; ni < numNubs; ni++)
-			exec.execute(new EdgeBundlerRunner(ni, numNubs, edgeAlign, nubs, forces, edgeCompatability, edgeMatcher));
-
-		exec.shutdown();
-
-		try {
-			exec.awaitTermination(30, TimeUnit.DAYS);
-		} catch (InterruptedException e) {
-			e.printStackTrace();
-			exec.shutdownNow();
-		}
+		POOL.invoke(new EdgeBundlerRunner(0, edgeLength.length, numNubs, nubs, forces, edgeMatcherStart, edgeMatcher,
+				edgeCompatability, edgeAlign));
 	}
 
 	private void updateNubs(double[][][] forces) {
@@ -0,0 +1,233 @@
+package org.cytoscape.edge.bundler.internal;
+
+/*
+ * #%L
+ * Cytoscape Edge Bundler Impl (edge-bundler-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.Arrays;
+
+/**
+ * Finds the edges that can be compatible with a given edge without
+ * comparing it to every other edge. Edges are bucketed by the location of
+ * their midpoint and by their direction.
+ *
+ * The compatibility of two edges is the product of angle, scale, position
+ * and visibility factors that are at most 1, so each of the first three has
+ * to exceed the threshold by itself. That bounds how differently directed,
+ * how differently long and how far apart two compatible edges can be. The
+ * distance bound is tightest from the longer edge of a pair, so candidates
+ * are only looked up among the edges that are not longer than the given one.
+ */
+final class EdgeMidpointIndex {
+
+	private static final int ANGLE_BUCKETS = 16;
+
+	// The bounds are widened a little so that rounding never drops an edge.
+	// Candidates are checked against the threshold afterwards anyway.
+	private static final double SLACK = 1e-9;
+
+	private final int numEdges;
+	private final double[] midX;
+	private final double[] midY;
+	private final double[] length;
+	private final int[] angleBucket;
+
+	// Every edge is a candidate when the threshold doesn't bound anything
+	private final boolean unbounded;
+	private final double maxLengthRatio;
+	private final double distanceFactor;
+	private final int angleSpan;
+
+	private final double minX;
+	private final double minY;
+	private final double cellSize;
+	private final int columns;
+	private final int rows;
+
+	// The edges of cell c are cellEdges[cellStart[c]] up to cellEdges[cellStart[c + 1] - 1],
+	// where c = (row * columns + column) * ANGLE_BUCKETS + angleBucket
+	private final int[] cellStart;
+	private final int[] cellEdges;
+
+	EdgeMidpointIndex(final double[][][] edgePos, final double[] edgeLength, final double threshold) {
+		numEdges = edgeLength.length;
+		midX = new double[numEdges];
+		midY = new double[numEdges];
+		length = edgeLength;
+		angleBucket = new int[numEdges];
+
+		double minX = Double.MAX_VALUE;
+		double minY = Double.MAX_VALUE;
+		double maxX = -Double.MAX_VALUE;
+		double maxY = -Double.MAX_VALUE;
+
+		for (int ei = 0; ei < numEdges; ei++) {
+			final double dx = edgePos[1][0][ei] - edgePos[0][0][ei];
+			final double dy = edgePos[1][1][ei] - edgePos[0][1][ei];
+			midX[ei] = (edgePos[1][0][ei] + edgePos[0][0][ei]) / 2.0;
+			midY[ei] = (edgePos[1][1][ei] + edgePos[0][1][ei]) / 2.0;
+
+			// Direction without orientation, in [0, PI)
+			double angle = Math.atan2(dy, dx);
+			if (angle < 0)
+				angle += Math.PI;
+			angleBucket[ei] = Math.min((int) (angle / Math.PI * ANGLE_BUCKETS), ANGLE_BUCKETS - 1);
+
+			minX = Math.min(minX, midX[ei]);
+			minY = Math.min(minY, midY[ei]);
+			maxX = Math.max(maxX, midX[ei]);
+			maxY = Math.max(maxY, midY[ei]);
+		}
+
+		unbounded = threshold <= 0;
+
+		// Scale compatibility is 2 / ((lavg / lmin) + (lmax / lavg)), which
+		// is above the threshold as long as (lmax / lmin) is below the
+		// positive root r of the quadratic in s = 1 + r below.
+		final double b = 4.0 / threshold - 4.0;
+		final double s = (b + Math.sqrt(b * b + 16.0)) / 2.0;
+		maxLengthRatio = (s - 1.0) * (1 + SLACK);
+
+		// Position compatibility is lavg / (lavg + d), which is above the
+		// threshold as long as d < lavg * (1 / threshold - 1), and lavg is
+		// at most the length of the longer edge.
+		distanceFactor = (1.0 / threshold - 1.0) * (1 + SLACK);
+
+		// Angle compatibility is |cos(alpha)|
+		final double maxAngle = Math.acos(Math.min(Math.max(threshold, 0), 1)) * (1 + SLACK);
+		angleSpan = Math.min((int) (maxAngle / (Math.PI / ANGLE_BUCKETS)) + 1, ANGLE_BUCKETS);
+
+		this.minX = minX;
+		this.minY = minY;
+		double cellSize = Math.max(maxX - minX, maxY - minY) / Math.ceil(Math.sqrt(numEdges));
+		if (!(cellSize > 0) || Double.isInfinite(cellSize))
+			cellSize = 1.0;
+		this.cellSize = cellSize;
+		columns = (int) ((maxX - minX) / cellSize) + 1;
+		rows = (int) ((maxY - minY) / cellSize) + 1;
+
+		final int numCells = columns * rows * ANGLE_BUCKETS;
+		final int[] edgeCell = new int[numEdges];
+		cellStart = new int[numCells + 1];
+		for (int ei = 0; ei < numEdges; ei++) {
+			edgeCell[ei] = cellOf(column(midX[ei]), row(midY[ei]), angleBucket[ei]);
+			cellStart[edgeCell[ei] + 1]++;
+		}
+
+		for (int c = 0; c < numCells; c++)
+			cellStart[c + 1] += cellStart[c];
+
+		cellEdges = new int[numEdges];
+		final int[] next = Arrays.copyOf(cellStart, numCells);
+		for (int ei = 0; ei < numEdges; ei++)
+			cellEdges[next[edgeCell[ei]]++] = ei;
+	}
+
+	/**
+	 * @return the edges that are shorter than ei, or as long with a lower
+	 *         index, and whose compatibility with ei may be above the
+	 *         threshold, in no particular order. Together these cover every
+	 *         compatible pair exactly once.
+	 */
+	int[] getCandidates(final int ei) {
+		int[] candidates = new int[16];
+		int count = 0;
+
+		if (unbounded) {
+			candidates = new int[numEdges];
+			for (int ej = 0; ej < numEdges; ej++)
+				if (isShorter(ej, ei))
+					candidates[count++] = ej;
+			return Arrays.copyOf(candidates, count);
+		}
+
+		final double radius = length[ei] * distanceFactor;
+		if (!(radius > 0))
+			return new int[0];
+
+		final int firstColumn = column(midX[ei] - radius);
+		final int lastColumn = column(midX[ei] + radius);
+		final int firstRow = row(midY[ei] - radius);
+		final int lastRow = row(midY[ei] + radius);
+
+		// Directions wrap around, so the buckets next to the last one are
+		// the first ones again
+		final int firstBucket;
+		final int lastBucket;
+		if (2 * angleSpan + 1 >= ANGLE_BUCKETS) {
+			firstBucket = 0;
+			lastBucket = ANGLE_BUCKETS - 1;
+		} else {
+			firstBucket = angleBucket[ei] - angleSpan;
+			lastBucket = angleBucket[ei] + angleSpan;
+		}
+
+		final double minLength = length[ei] / maxLengthRatio;
+
+		for (int row = firstRow; row <= lastRow; row++) {
+			for (int column = firstColumn; column <= lastColumn; column++) {
+				for (int bucket = firstBucket; bucket <= lastBucket; bucket++) {
+					final int cell = cellOf(column, row, (bucket + ANGLE_BUCKETS) % ANGLE_BUCKETS);
+					for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+						final int ej = cellEdges[i];
+						if (length[ej] < minLength || !isShorter(ej, ei))
+							continue;
+
+						final double dx = midX[ej] - midX[ei];
+						final double dy = midY[ej] - midY[ei];
+						if (dx * dx + dy * dy >= radius * radius)
+							continue;
+
+						if (count == candidates.length)
+							candidates = Arrays.copyOf(candidates, count * 2);
+						candidates[count++] = ej;
+					}
+				}
+			}
+		}
+
+		return Arrays.copyOf(candidates, count);
+	}
+
+	private boolean isShorter(final int ej, final int ei) {
+		return length[ej] < length[ei] || (length[ej] == length[ei] && ej < ei);
+	}
+
+	private int column(final double x) {
+		return clamp((x - minX) / cellSize, columns);
+	}
+
+	private int row(final double y) {
+		return clamp((y - minY) / cellSize, rows);
+	}
+
+	private static int clamp(final double cell, final int cells) {
+		if (!(cell > 0))
+			return 0;
+		return (int) Math.min(cell, cells - 1);
+	}
+
+	private int cellOf(final int column, final int row, final int bucket) {
+		return (row * columns + column) * ANGLE_BUCKETS + bucket;
+	}
+}
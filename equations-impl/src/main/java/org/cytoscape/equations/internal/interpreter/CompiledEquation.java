@@ -0,0 +1,537 @@
+package org.cytoscape.equations.internal.interpreter;
+
+/*
+ * #%L
+ * Cytoscape Equations Impl (equations-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2010 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+
+import org.cytoscape.equations.Function;
+import org.cytoscape.equations.FunctionError;
+import org.cytoscape.equations.IdentDescriptor;
+import org.cytoscape.equations.internal.BooleanList;
+import org.cytoscape.equations.internal.DoubleList;
+import org.cytoscape.equations.internal.LongList;
+import org.cytoscape.equations.internal.StringList;
+
+
+/**
+ *  The code of an equation turned back into a tree of nodes that is evaluated directly.
+ *  Arithmetic and comparisons on floating point numbers are done on primitive doubles, so only
+ *  the final result and function arguments are boxed, and no argument stack is needed.
+ *  The results and errors are the same as those of the stack-based {@link InterpreterImpl}.
+ *  Instances are immutable and may be evaluated by several threads at once.
+ */
+final class CompiledEquation {
+	private final Node root;
+
+	private CompiledEquation(final Node root) {
+		this.root = root;
+	}
+
+	/** @return the compiled code, or null if the code contains a construct that can only be interpreted. */
+	static CompiledEquation compile(final Object[] code) {
+		final Deque<Node> nodes = new ArrayDeque<Node>();
+
+		try {
+			for (final Object instrOrArg : code) {
+				if (instrOrArg instanceof Instruction)
+					nodes.push(compile((Instruction)instrOrArg, nodes));
+				else
+					nodes.push(new ConstantNode(instrOrArg));
+			}
+		} catch (final RuntimeException e) {
+			// Inconsistent code; let the interpreter report the problem at runtime.
+			return null;
+		}
+
+		return nodes.size() == 1 ? new CompiledEquation(nodes.pop()) : null;
+	}
+
+	private static Node compile(final Instruction instruction, final Deque<Node> nodes) {
+		switch (instruction) {
+		case FADD: case FSUB: case FMUL: case FDIV: case FPOW:
+			return new FloatOpNode(instruction, nodes.pop(), nodes.pop());
+		case BEQLF: case BNEQLF: case BGTF: case BLTF: case BGTEF: case BLTEF:
+			return new FloatCompareNode(instruction, nodes.pop(), nodes.pop());
+		case BEQLS: case BNEQLS: case BGTS: case BLTS: case BGTES: case BLTES:
+			return new StringCompareNode(instruction, nodes.pop(), nodes.pop());
+		case BGTB: case BLTB: case BGTEB: case BLTEB: case BEQLB: case BNEQLB:
+			return new BooleanCompareNode(instruction, nodes.pop(), nodes.pop());
+		case SCONCAT:
+			return new ConcatNode(nodes.pop(), nodes.pop());
+		case FUMINUS: case FUPLUS:
+			return new UnaryNode(instruction, nodes.pop());
+		case FCONVI: case FCONVB: case FCONVS:
+			return new FloatConversionNode(instruction, nodes.pop());
+		case SCONVF: case SCONVI: case SCONVB:
+			return new StringConversionNode(instruction, nodes.pop());
+		case AREF:
+			return new ReferenceNode(getConstant(nodes.pop(), String.class), null);
+		case AREF2:
+			return new ReferenceNode(getConstant(nodes.pop(), String.class), nodes.pop());
+		case CALL:
+			final Function func = getConstant(nodes.pop(), Function.class);
+			final int argCount = getConstant(nodes.pop(), Integer.class);
+			if (argCount < 0 || argCount > 100)
+				throw new IllegalStateException("invalid argument count.");
+			final Node[] args = new Node[argCount];
+			for (int argNo = 0; argNo < argCount; ++argNo)
+				args[argNo] = nodes.pop();
+			return new CallNode(func, args);
+		default:
+			throw new IllegalStateException("unknown opcode: " + instruction + ".");
+		}
+	}
+
+	private static <T> T getConstant(final Node node, final Class<T> type) {
+		if (!(node instanceof ConstantNode) || !type.isInstance(((ConstantNode)node).value))
+			throw new IllegalStateException("expected a " + type.getSimpleName() + " constant.");
+
+		return type.cast(((ConstantNode)node).value);
+	}
+
+	/** @see InterpreterImpl#execute */
+	Object execute(final Map<String, IdentDescriptor> variableNameToDescriptorMap) {
+		final Object retVal;
+		try {
+			retVal = root.eval(variableNameToDescriptorMap);
+		} catch (final FunctionError e) {
+			throw new IllegalStateException(e.getMessage());
+		}
+
+		final Class retValClass = retVal.getClass();
+		if (retValClass == Double.class || retValClass == String.class || retValClass == Boolean.class || retValClass == Long.class
+		    || retValClass == DoubleList.class || retValClass == BooleanList.class || retValClass == LongList.class
+		    || retValClass == StringList.class)
+			return retVal;
+
+		throw new IllegalStateException("illegal result type at end of interpretation: " + retValClass + ".");
+	}
+
+	/**
+	 *  Operands are evaluated in the order in which their code was emitted, i.e. right hand side
+	 *  first, just like the interpreter pushes them.  The interpreter checks the operand types only
+	 *  once both have been evaluated, so operands are evaluated as primitives only when their type is
+	 *  known at compile time; otherwise both are evaluated first and converted afterwards.
+	 */
+	private static abstract class Node {
+		abstract Object eval(final Map<String, IdentDescriptor> vars) throws FunctionError;
+
+		/** @return the class of every value this node evaluates to, or null if that is only known at runtime. */
+		Class<?> getType() {
+			return null;
+		}
+
+		double evalFloat(final Map<String, IdentDescriptor> vars) throws FunctionError {
+			return InterpreterImpl.getFloat(eval(vars));
+		}
+
+		boolean evalBoolean(final Map<String, IdentDescriptor> vars) throws FunctionError {
+			return InterpreterImpl.getBoolean(eval(vars));
+		}
+
+		String evalString(final Map<String, IdentDescriptor> vars) throws FunctionError {
+			return InterpreterImpl.getString(eval(vars));
+		}
+	}
+
+	private static abstract class FloatNode extends Node {
+		@Override
+		final Class<?> getType() {
+			return Double.class;
+		}
+
+		@Override
+		final Object eval(final Map<String, IdentDescriptor> vars) throws FunctionError {
+			return evalFloat(vars);
+		}
+
+		@Override
+		abstract double evalFloat(final Map<String, IdentDescriptor> vars) throws FunctionError;
+	}
+
+	private static abstract class BooleanNode extends Node {
+		@Override
+		final Class<?> getType() {
+			return Boolean.class;
+		}
+
+		@Override
+		final Object eval(final Map<String, IdentDescriptor> vars) throws FunctionError {
+			return evalBoolean(vars);
+		}
+
+		@Override
+		abstract boolean evalBoolean(final Map<String, IdentDescriptor> vars) throws FunctionError;
+	}
+
+	private static final class ConstantNode extends Node {
+		private final Object value;
+		private final boolean isFloat;
+		private final double floatValue;
+
+		ConstantNode(final Object value) {
+			this.value = value;
+			this.isFloat = value instanceof Double;
+			this.floatValue = isFloat ? (Double)value : 0.0;
+		}
+
+		@Override
+		Class<?> getType() {
+			return value.getClass();
+		}
+
+		@Override
+		Object eval(final Map<String, IdentDescriptor> vars) {
+			return value;
+		}
+
+		@Override
+		double evalFloat(final Map<String, IdentDescriptor> vars) {
+			return isFloat ? floatValue : InterpreterImpl.getFloat(value);
+		}
+	}
+
+	private static final class FloatOpNode extends FloatNode {
+		private final Instruction op;
+		private final Node lhs;
+		private final Node rhs;
+		private final boolean typed;
+
+		FloatOpNode(final Instruction op, final Node lhs, final Node rhs) {
+			this.op = op;
+			this.lhs = lhs;
+			this.rhs = rhs;
+			this.typed = lhs.getType() == Double.class && rhs.getType() == Double.class;
+		}
+
+		@Override
+		double evalFloat(final Map<String, IdentDescriptor> vars) throws FunctionError {
+			final double float1, float2;
+			if (typed) {
+				float2 = rhs.evalFloat(vars);
+				float1 = lhs.evalFloat(vars);
+			} else {
+				final Object o2 = rhs.eval(vars);
+				final Object o1 = lhs.eval(vars);
+				float1 = InterpreterImpl.getFloat(o1);
+				float2 = InterpreterImpl.getFloat(o2);
+			}
+
+			switch (op) {
+			case FADD:
+				return float1 + float2;
+			case FSUB:
+				return float1 - float2;
+			case FMUL:
+				return float1 * float2;
+			case FDIV:
+				if (float2 == 0.0)
+					throw new ArithmeticException("illegal division by zero.");
+				return float1 / float2;
+			default:
+				return Math.pow(float1, float2);
+			}
+		}
+	}
+
+	private static final class FloatCompareNode extends BooleanNode {
+		private final Instruction op;
+		private final Node lhs;
+		private final Node rhs;
+		private final boolean typed;
+
+		FloatCompareNode(final Instruction op, final Node lhs, final Node rhs) {
+			this.op = op;
+			this.lhs = lhs;
+			this.rhs = rhs;
+			this.typed = lhs.getType() == Double.class && rhs.getType() == Double.class;
+		}
+
+		@Override
+		boolean evalBoolean(final Map<String, IdentDescriptor> vars) throws FunctionError {
+			final double float1, float2;
+			if (typed) {
+				float2 = rhs.evalFloat(vars);
+				float1 = lhs.evalFloat(vars);
+			} else {
+				final Object o2 = rhs.eval(vars);
+				final Object o1 = lhs.eval(vars);
+				float1 = InterpreterImpl.getFloat(o1);
+				float2 = InterpreterImpl.getFloat(o2);
+			}
+
+			switch (op) {
+			case BEQLF:
+				return float1 == float2;
+			case BNEQLF:
+				return float1 != float2;
+			case BGTF:
+				return float1 > float2;
+			case BLTF:
+				return float1 < float2;
+			case BGTEF:
+				return float1 >= float2;
+			default:
+				return float1 <= float2;
+			}
+		}
+	}
+
+	private static final class StringCompareNode extends BooleanNode {
+		private final Instruction op;
+		private final Node lhs;
+		private final Node rhs;
+		private final boolean typed;
+
+		StringCompareNode(final Instruction op, final Node lhs, final Node rhs) {
+			this.op = op;
+			this.lhs = lhs;
+			this.rhs = rhs;
+			this.typed = lhs.getType() == String.class && rhs.getType() == String.class;
+		}
+
+		@Override
+		boolean evalBoolean(final Map<String, IdentDescriptor> vars) throws FunctionError {
+			final String string1, string2;
+			if (typed) {
+				string2 = rhs.evalString(vars);
+				string1 = lhs.evalString(vars);
+			} else {
+				final Object o2 = rhs.eval(vars);
+				final Object o1 = lhs.eval(vars);
+				string1 = InterpreterImpl.getString(o1);
+				string2 = InterpreterImpl.getString(o2);
+			}
+
+			switch (op) {
+			case BEQLS:
+				return string1.equals(string2);
+			case BNEQLS:
+				return !string1.equals(string2);
+			case BGTS:
+				return string1.compareTo(string2) > 0;
+			case BLTS:
+				return string1.compareTo(string2) < 0;
+			case BGTES:
+				return string1.compareTo(string2) >= 0;
+			default:
+				return string1.compareTo(string2) <= 0;
+			}
+		}
+	}
+
+	private static final class BooleanCompareNode extends BooleanNode {
+		private final Instruction op;
+		private final Node lhs;
+		private final Node rhs;
+		private final boolean typed;
+
+		BooleanCompareNode(final Instruction op, final Node lhs, final Node rhs) {
+			this.op = op;
+			this.lhs = lhs;
+			this.rhs = rhs;
+			this.typed = lhs.getType() == Boolean.class && rhs.getType() == Boolean.class;
+		}
+
+		@Override
+		boolean evalBoolean(final Map<String, IdentDescriptor> vars) throws FunctionError {
+			final boolean bool1, bool2;
+			if (typed) {
+				bool2 = rhs.evalBoolean(vars);
+				bool1 = lhs.evalBoolean(vars);
+			} else {
+				final Object o2 = rhs.eval(vars);
+				final Object o1 = lhs.eval(vars);
+				bool1 = InterpreterImpl.getBoolean(o1);
+				bool2 = InterpreterImpl.getBoolean(o2);
+			}
+
+			switch (op) {
+			case BGTB:
+				return bool1 && !bool2;
+			case BLTB:
+				return !bool1 && bool2;
+			case BGTEB:
+				return (bool1 && !bool2) || (bool1 == bool2);
+			case BLTEB:
+				return (!bool1 && bool2) || (bool1 == bool2);
+			case BEQLB:
+				return bool1 == bool2;
+			default:
+				return bool1 != bool2;
+			}
+		}
+	}
+
+	private static final class ConcatNode extends Node {
+		private final Node lhs;
+		private final Node rhs;
+		private final boolean typed;
+
+		ConcatNode(final Node lhs, final Node rhs) {
+			this.lhs = lhs;
+			this.rhs = rhs;
+			this.typed = lhs.getType() == String.class && rhs.getType() == String.class;
+		}
+
+		@Override
+		Class<?> getType() {
+			return String.class;
+		}
+
+		@Override
+		Object eval(final Map<String, IdentDescriptor> vars) throws FunctionError {
+			final String string1, string2;
+			if (typed) {
+				string2 = rhs.evalString(vars);
+				string1 = lhs.evalString(vars);
+			} else {
+				final Object o2 = rhs.eval(vars);
+				final Object o1 = lhs.eval(vars);
+				string1 = InterpreterImpl.getString(o1);
+				string2 = InterpreterImpl.getString(o2);
+			}
+			return string1 + string2;
+		}
+	}
+
+	private static final class UnaryNode extends FloatNode {
+		private final boolean minus;
+		private final Node operand;
+
+		UnaryNode(final Instruction op, final Node operand) {
+			this.minus = op == Instruction.FUMINUS;
+			this.operand = operand;
+		}
+
+		@Override
+		double evalFloat(final Map<String, IdentDescriptor> vars) throws FunctionError {
+			final double float1 = operand.evalFloat(vars);
+			return minus ? -float1 : +float1;
+		}
+	}
+
+	private static final class FloatConversionNode extends FloatNode {
+		private final Instruction op;
+		private final Node convertee;
+
+		FloatConversionNode(final Instruction op, final Node convertee) {
+			this.op = op;
+			this.convertee = convertee;
+		}
+
+		@Override
+		double evalFloat(final Map<String, IdentDescriptor> vars) throws FunctionError {
+			switch (op) {
+			case FCONVI:
+				return (double)InterpreterImpl.getLong(convertee.eval(vars));
+			case FCONVB:
+				return convertee.evalBoolean(vars) ? 1.0 : 0.0;
+			default:
+				final String s = convertee.evalString(vars);
+				try {
+					return Double.parseDouble(s);
+				} catch(final NumberFormatException e) {
+					throw new IllegalStateException("can't convert \"" + s + "\" to a number.");
+				}
+			}
+		}
+	}
+
+	private static final class StringConversionNode extends Node {
+		private final boolean fromBoolean;
+		private final Node convertee;
+
+		StringConversionNode(final Instruction op, final Node convertee) {
+			this.fromBoolean = op == Instruction.SCONVB;
+			this.convertee = convertee;
+		}
+
+		@Override
+		Class<?> getType() {
+			return String.class;
+		}
+
+		@Override
+		Object eval(final Map<String, IdentDescriptor> vars) throws FunctionError {
+			final Object value = convertee.eval(vars);
+
+			// See InterpreterImpl.sconvb() for why both truth values become this string.
+			return fromBoolean ? "\uFFFF\uFFFF\uFFFF" : value.toString();
+		}
+	}
+
+	private static final class ReferenceNode extends Node {
+		private final String attribName;
+		private final Node defaultValue;
+
+		ReferenceNode(final String attribName, final Node defaultValue) {
+			this.attribName = attribName;
+			this.defaultValue = defaultValue;
+		}
+
+		@Override
+		Object eval(final Map<String, IdentDescriptor> vars) throws FunctionError {
+			if (defaultValue == null) {
+				final IdentDescriptor identDescriptor = vars.get(attribName);
+				if (identDescriptor == null)
+					throw new IllegalStateException("unknown column reference: \"" + attribName + "\" (1).");
+				final Object value = identDescriptor.getValue();
+				if (value == null)
+					throw new IllegalStateException("undefined column reference: \"" + attribName + "\".");
+				return value;
+			}
+
+			final Object defaultVal = defaultValue.eval(vars);
+			final IdentDescriptor identDescriptor = vars.get(attribName);
+			if (identDescriptor == null)
+				throw new IllegalStateException("unknown column reference: \"" + attribName + "\" (2).");
+			final Object value = identDescriptor.getValue();
+			return value != null ? value : defaultVal;
+		}
+	}
+
+	private static final class CallNode extends Node {
+		private final Function func;
+		private final Node[] args;
+
+		CallNode(final Function func, final Node[] args) {
+			this.func = func;
+			this.args = args;
+		}
+
+		@Override
+		Object eval(final Map<String, IdentDescriptor> vars) throws FunctionError {
+			final Object[] argValues = new Object[args.length];
+			for (int argNo = args.length - 1; argNo >= 0; --argNo)
+				argValues[argNo] = args[argNo].eval(vars);
+
+			return func.evaluateFunction(argValues);
+		}
+	}
+}
@@ -25,9 +25,12 @@ package org.cytoscape.equations.internal.interpreter;
  */
 
 
+import java.util.Collections;
 import java.util.EmptyStackException;
 import java.util.Map;
+import java.util.Set;
 import java.util.Stack;
+import java.util.WeakHashMap;
 
 import org.cytoscape.equations.Equation;
 import org.cytoscape.equations.Function;
@@ -44,6 +47,12 @@ public class InterpreterImpl implements Interpreter {
 	private Stack<Object> argumentStack;
 	private Map<String, IdentDescriptor> variableNameToDescriptorMap;
 
+	/** Keyed by the code array, which is compared by identity, so different Equations that share code share this too. */
+	private final Map<Object[], CompiledEquation> compiledEquations =
+		Collections.synchronizedMap(new WeakHashMap<Object[], CompiledEquation>());
+	private final Set<Object[]> uncompilableCode =
+		Collections.newSetFromMap(Collections.synchronizedMap(new WeakHashMap<Object[], Boolean>()));
+
 	public InterpreterImpl() { }
 
 	/** Executes the code that is passed in and returns the result of an equation's evaluation.
@@ -58,6 +67,34 @@ public class InterpreterImpl implements Interpreter {
 		if (equation == null || variableNameToDescriptorMap == null)
 			throw new NullPointerException("null equation or variableNameToDescriptorMap.");
 
+		final CompiledEquation compiled = getCompiledEquation(equation.getCode());
+		if (compiled != null)
+			return compiled.execute(variableNameToDescriptorMap);
+
+		return interpret(equation, variableNameToDescriptorMap);
+	}
+
+	/** @return the compiled form of the code, or null if it can only be interpreted. */
+	private CompiledEquation getCompiledEquation(final Object[] code) {
+		CompiledEquation compiled = compiledEquations.get(code);
+		if (compiled != null || uncompilableCode.contains(code))
+			return compiled;
+
+		compiled = CompiledEquation.compile(code);
+		if (compiled != null)
+			compiledEquations.put(code, compiled);
+		else
+			uncompilableCode.add(code);
+
+		return compiled;
+	}
+
+	/** Executes the code on the argument stack. This is the fallback for code that could not be compiled.
+	 *  @see #execute
+	 */
+	synchronized Object interpret(final Equation equation, final Map<String, IdentDescriptor> variableNameToDescriptorMap)
+		throws ArithmeticException, IllegalArgumentException, IllegalStateException
+	{
 		this.argumentStack               = new Stack<Object>();
 		this.variableNameToDescriptorMap = variableNameToDescriptorMap;
 
@@ -441,28 +478,28 @@ public class InterpreterImpl implements Interpreter {
 		argumentStack.push("\uFFFF\uFFFF\uFFFF");
 	}
 
-	private double getFloat(final Object o) throws IllegalStateException {
+	static double getFloat(final Object o) throws IllegalStateException {
 		if (o instanceof Double)
 			return (Double)o;
 
 		throw new IllegalStateException("can't convert a " + o.getClass() + " (" + o + ") to a floating point number.");
 	}
 
-	private long getLong(final Object o) throws IllegalStateException {
+	static long getLong(final Object o) throws IllegalStateException {
 		if (o instanceof Long)
 			return (Long)o;
 
 		throw new IllegalStateException("can't convert a " + o.getClass() + " (" + o + ") to an integer number.");
 	}
 
-	private String getString(final Object o) throws IllegalStateException {
+	static String getString(final Object o) throws IllegalStateException {
 		if (o instanceof String)
 			return (String)o;
 
 		throw new IllegalStateException("can't convert a " + o.getClass() + " to a string.");
 	}
 
-	private boolean getBoolean(final Object o) throws IllegalStateException {
+	static boolean getBoolean(final Object o) throws IllegalStateException {
 		if (o instanceof Boolean)
 			return (Boolean)o;
 
@@ -0,0 +1,138 @@
+package org.cytoscape.equations.internal.interpreter;
+
+/*
+ * #%L
+ * Cytoscape Equations Impl (equations-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2010 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.*;
+
+import org.cytoscape.equations.Equation;
+import org.cytoscape.equations.EquationCompiler;
+import org.cytoscape.equations.IdentDescriptor;
+
+import org.cytoscape.equations.internal.EquationCompilerImpl;
+import org.cytoscape.equations.internal.EquationParserImpl;
+
+
+public class CompiledEquationTest extends TestCase {
+	private static final String[] EQUATIONS = {
+		"=42 - 12 + 3 * (4 - 2) + ${x:12}",
+		"=-${x} / 4 ^ 2 + ${n}",
+		"=ABS(${x}) + SQRT(${x} * ${x}) - LN(2) + LOG(100) + LOG(8, 2)",
+		"=SIN(${x}) * COS(${x}) + TAN(0.5) + EXP(1)",
+		"=ROUND(${x} / 3, 2) + MOD(${x}, 3)",
+		"=MAX(${x}, ${n}, 7) - MIN(1, 2) + AVERAGE(1, 2, ${x})",
+		"=IF(${x} > 1, \"big\", \"small\")",
+		"=CONCATENATE(${s}, \"-\", UPPER(${s}), LOWER(${s}))",
+		"=LEN(${s}) + ${n}",
+		"=\"Fred\" & ${s} & ${x}",
+		"=AND(${b}, NOT(${b})) <> OR(${b}, FALSE)",
+		"=${x} ^ 2 >= ${n}",
+		"=${s} < TRUE",
+		"=TRUE + TRUE",
+	};
+
+	private final EquationCompiler compiler = new EquationCompilerImpl(new EquationParserImpl());
+	private final InterpreterImpl interpreter = new InterpreterImpl();
+
+	private final Map<String, Class<?>> attribNameToTypeMap = new HashMap<String, Class<?>>();
+	private final Map<String, IdentDescriptor> nameToDescriptorMap = new HashMap<String, IdentDescriptor>();
+
+	@Override
+	protected void setUp() {
+		attribNameToTypeMap.put("x", Double.class);
+		attribNameToTypeMap.put("n", Long.class);
+		attribNameToTypeMap.put("s", String.class);
+		attribNameToTypeMap.put("b", Boolean.class);
+		nameToDescriptorMap.put("x", new IdentDescriptor(7.25));
+		nameToDescriptorMap.put("n", new IdentDescriptor(3L));
+		nameToDescriptorMap.put("s", new IdentDescriptor("Bob"));
+		nameToDescriptorMap.put("b", new IdentDescriptor(true));
+	}
+
+	public void testCompiledMatchesInterpreted() throws Exception {
+		for (final String eqn : EQUATIONS) {
+			assertTrue(eqn, compiler.compile(eqn, attribNameToTypeMap));
+			final Equation equation = compiler.getEquation();
+			assertNotNull(eqn, CompiledEquation.compile(equation.getCode()));
+			assertEquals(eqn, interpreter.interpret(equation, nameToDescriptorMap),
+			             interpreter.execute(equation, nameToDescriptorMap));
+		}
+	}
+
+	public void testCompiledErrorsMatchInterpreted() throws Exception {
+		assertTrue(compiler.compile("=1 / (${x} - ${x})", attribNameToTypeMap));
+		try {
+			interpreter.execute(compiler.getEquation(), nameToDescriptorMap);
+			fail("division by zero expected");
+		} catch (final ArithmeticException e) {
+		}
+
+		assertTrue(compiler.compile("=${undefined} + 1", attribNameToTypeMap));
+		try {
+			interpreter.execute(compiler.getEquation(), nameToDescriptorMap);
+			fail("unknown column reference expected");
+		} catch (final IllegalStateException e) {
+		}
+	}
+
+	public void testEvaluationPerformance() throws Exception {
+		final int ROUNDS = 20000;
+		final Equation[] equations = new Equation[EQUATIONS.length];
+		for (int i = 0; i < equations.length; ++i) {
+			assertTrue(compiler.compile(EQUATIONS[i], attribNameToTypeMap));
+			equations[i] = compiler.getEquation();
+		}
+
+		// Warm up both
+		for (int round = 0; round < ROUNDS; ++round) {
+			for (final Equation equation : equations) {
+				interpreter.interpret(equation, nameToDescriptorMap);
+				interpreter.execute(equation, nameToDescriptorMap);
+			}
+		}
+
+		long start = System.nanoTime();
+		for (int round = 0; round < ROUNDS; ++round) {
+			for (final Equation equation : equations)
+				interpreter.interpret(equation, nameToDescriptorMap);
+		}
+		final long interpreted = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		for (int round = 0; round < ROUNDS; ++round) {
+			for (final Equation equation : equations)
+				interpreter.execute(equation, nameToDescriptorMap);
+		}
+		final long compiled = System.nanoTime() - start;
+
+		final long evaluations = (long)ROUNDS * equations.length;
+		System.out.println("* Interpreted equation takes: " + interpreted / evaluations + " nsec.");
+		System.out.println("* Compiled equation takes: " + compiled / evaluations + " nsec.");
+	}
+}
@@ -29,15 +29,19 @@ import org.cytoscape.event.CyPayloadEvent;
 import org.cytoscape.event.CyEventHelper;
 
 import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.LinkedHashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -48,31 +52,123 @@ public class CyEventHelperImpl implements CyEventHelper {
 
 	private static final Object DUMMY = new Object();
 
+	// Pending payloads of one source and event type that trigger a flush before the timer does.
+	static final int DEFAULT_FLUSH_THRESHOLD = 100000;
+
+	// The timer never backs off further than this multiple of the normal interval.
+	private static final int MAX_BACKOFF_FACTOR = 16;
+
 	private final CyListenerAdapter normal;
-	private final Map<Object,Map<Class<?>,PayloadAccumulator<?,?,?>>> sourceAccMap;
+	private final ConcurrentMap<Object,SourceAccumulator> sourceAccMap;
+	private final AtomicLong sourceSequence;
 	private final ScheduledExecutorService payloadEventMonitor;
 	private final Map<Object, Object> silencedSources;
-	private boolean havePayload;
+	private volatile boolean haveSilencedSources;
+	private volatile boolean havePayload;
+
+	private final int flushThreshold;
+	private final long baseIntervalMillis;
+	private final long maxIntervalMillis;
+	private final AtomicBoolean earlyFlushRequested;
+	private final AtomicInteger deliveringFlushes;
+	private final PayloadFlushStatistics flushStatistics;
+	private volatile long lastDeliveryMillis;
 	
+	// Only guards silencedSources, payloads are accumulated per source.
 	private final Object lock = new Object();
 	
 	public CyEventHelperImpl(final CyListenerAdapter normal) {
 		this.normal = normal;
-		sourceAccMap = new LinkedHashMap<Object,Map<Class<?>,PayloadAccumulator<?,?,?>>>();
+		sourceAccMap = new ConcurrentHashMap<Object,SourceAccumulator>(16, 0.75f, Runtime.getRuntime().availableProcessors());
+		sourceSequence = new AtomicLong();
 		payloadEventMonitor = Executors.newSingleThreadScheduledExecutor();
 		silencedSources = new WeakHashMap<Object, Object>();
+		haveSilencedSources = false;
 		havePayload = false;
 
+		flushThreshold = Integer.getInteger("payloadFlushThreshold", DEFAULT_FLUSH_THRESHOLD);
+		baseIntervalMillis = CyEventHelper.DEFAULT_PAYLOAD_INTERVAL_MILLIS;
+		maxIntervalMillis = baseIntervalMillis * MAX_BACKOFF_FACTOR;
+		earlyFlushRequested = new AtomicBoolean(false);
+		deliveringFlushes = new AtomicInteger(0);
+		flushStatistics = new PayloadFlushStatistics();
+		lastDeliveryMillis = 0;
+
 		// This thread just flushes any accumulated payload events.
-		// It is scheduled to run repeatedly at a fixed interval.
-        final Runnable payloadChecker = new Runnable() {
-            public void run() {
-                flushPayloadEvents();
-            }
-        };
-        payloadEventMonitor.scheduleAtFixedRate(payloadChecker, CyEventHelper.DEFAULT_PAYLOAD_INTERVAL_MILLIS, CyEventHelper.DEFAULT_PAYLOAD_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+		// It reschedules itself after every run, waiting longer while
+		// listeners are slow to handle the previous flush.
+		schedulePayloadCheck(baseIntervalMillis);
 	}	
 
+	private void schedulePayloadCheck(final long delayMillis) {
+		final Runnable payloadChecker = new Runnable() {
+			public void run() {
+				long nextDelayMillis = maxIntervalMillis;
+				try {
+					nextDelayMillis = scheduledFlush();
+				} finally {
+					// Reschedule even if a listener threw an Error,
+					// otherwise payload events would stop for good.
+					schedulePayloadCheck(nextDelayMillis);
+				}
+			}
+		};
+		try {
+			payloadEventMonitor.schedule(payloadChecker, delayMillis, TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException ree) {
+			// cleanup() was called
+		}
+	}
+
+	/**
+	 * Flushes unless another flush is still being delivered.
+	 * @return the delay until the next scheduled flush.
+	 */
+	private long scheduledFlush() {
+		if ( deliveringFlushes.get() > 0 ) {
+			// Listeners haven't finished with the previous flush, so wait
+			// and let more payloads accumulate into one larger event.
+			flushStatistics.recordDeferredFlush();
+			return maxIntervalMillis;
+		}
+
+		try {
+			flushPayloadEvents();
+		} catch (RuntimeException re) {
+			logger.warn("Unexpected exception while flushing payload events", re);
+		} catch (Error e) {
+			logger.error("Unexpected error while flushing payload events", e);
+			throw e;
+		}
+
+		// Back off in proportion to how long listeners took with the last flush.
+		return Math.max(baseIntervalMillis, Math.min(maxIntervalMillis, lastDeliveryMillis));
+	}
+
+	private void requestEarlyFlush() {
+		if ( earlyFlushRequested.get() || !earlyFlushRequested.compareAndSet(false, true) )
+			return;
+
+		try {
+			payloadEventMonitor.execute(new Runnable() {
+				public void run() {
+					earlyFlushRequested.set(false);
+					flushStatistics.recordEarlyFlush();
+					flushPayloadEvents();
+				}
+			});
+		} catch (RejectedExecutionException ree) {
+			earlyFlushRequested.set(false);
+		}
+	}
+
+	/**
+	 * Returns queue depth, flush latency and coalescing counters of the payload flushes.
+	 */
+	public PayloadFlushStatistics getFlushStatistics() {
+		return flushStatistics;
+	}
+
 	@Override 
 	public <E extends CyEvent<?>> void fireEvent(final E event) {
 		// Before any external event is fired, flush any accumulated
@@ -92,6 +188,7 @@ public class CyEventHelperImpl implements CyEventHelper {
 		normal.silenceEventSource(eventSource);
 		synchronized (lock) {
 			silencedSources.put(eventSource, DUMMY);
+			haveSilencedSources = true;
 		}
 	}
 
@@ -103,6 +200,7 @@ public class CyEventHelperImpl implements CyEventHelper {
 		normal.unsilenceEventSource(eventSource);
 		synchronized (lock) {
 			silencedSources.remove(eventSource);
+			haveSilencedSources = !silencedSources.isEmpty();
 		}
 	}
 
@@ -115,67 +213,92 @@ public class CyEventHelperImpl implements CyEventHelper {
 			return;
 		}
 		
-		synchronized (lock) {
-			if ( silencedSources.containsKey(source))
-				return;
+		if ( haveSilencedSources ) {
+			synchronized (lock) {
+				if ( silencedSources.containsKey(source) )
+					return;
+			}
+		}
 
-			Map<Class<?>,PayloadAccumulator<?,?,?>> cmap = sourceAccMap.get(source);
-			if ( cmap == null ) { 
-				cmap = new LinkedHashMap<Class<?>,PayloadAccumulator<?,?,?>>();
-				sourceAccMap.put(source,cmap);
+		// Retry if the accumulator we found is flushed before we get to use it.
+		while ( true ) {
+			SourceAccumulator sourceAcc = sourceAccMap.get(source);
+			if ( sourceAcc == null ) {
+				final SourceAccumulator newAcc = new SourceAccumulator(source, sourceSequence.getAndIncrement());
+				sourceAcc = sourceAccMap.putIfAbsent(source, newAcc);
+				if ( sourceAcc == null )
+					sourceAcc = newAcc;
 			}
-	
-			PayloadAccumulator<S,P,E> acc = (PayloadAccumulator<S,P,E>) cmap.get(eventType);
-	
-			if ( acc == null ) {
-				try {
-					acc = new PayloadAccumulator<S,P,E>(source, eventType);
-					cmap.put(eventType,acc);
-				} catch (NoSuchMethodException nsme) {
-					logger.warn("Unable to add payload to event, because of missing event constructor.", nsme);
+
+			try {
+				final int pending = sourceAcc.addPayload(payload, eventType);
+				if ( pending >= 0 ) {
+					havePayload = true;
+					if ( pending >= flushThreshold )
+						requestEarlyFlush();
 					return;
 				}
+			} catch (NoSuchMethodException nsme) {
+				logger.warn("Unable to add payload to event, because of missing event constructor.", nsme);
+				return;
 			}
-			
-			acc.addPayload(payload);
-			havePayload = true;
-		}		
+		}
 	}
 
 	public void flushPayloadEvents() {
-		List<CyPayloadEvent<?,?>> flushList;
-		
-		synchronized (lock) {
+		if ( !havePayload )
+			return;
 
-			if ( !havePayload )
-				return;
-			
-			flushList = new ArrayList<CyPayloadEvent<?,?>>();
-			havePayload = false;
-			
-			Iterator<Entry<Object, Map<Class<?>, PayloadAccumulator<?, ?, ?>>>> iterator = sourceAccMap.entrySet().iterator();
-			while (iterator.hasNext()) {
-				Entry<Object, Map<Class<?>, PayloadAccumulator<?, ?, ?>>> entry = iterator.next();
-				Object source = entry.getKey();
-				for ( PayloadAccumulator<?,?,?> acc : entry.getValue().values() ) {
-					try {
-						CyPayloadEvent<?,?> event = acc.newEventInstance( source );
-						if ( event != null ) {
-							flushList.add(event);
-						}
-					} catch (Exception ie) {
-						logger.warn("Couldn't instantiate event for source: " + source, ie);
+		// Cleared before draining, so a payload added while we're
+		// working is either part of this flush or triggers the next one.
+		havePayload = false;
+
+		final long begin = System.nanoTime();
+		long queueDepth = 0;
+		long delivered = 0;
+
+		final List<SourceAccumulator> sources = new ArrayList<SourceAccumulator>(sourceAccMap.values());
+		Collections.sort(sources, SourceAccumulator.SEQUENCE_ORDER);
+
+		final List<CyPayloadEvent<?,?>> flushList = new ArrayList<CyPayloadEvent<?,?>>();
+
+		for ( SourceAccumulator sourceAcc : sources ) {
+			// Another thread may be flushing at the same time.
+			if ( !sourceAccMap.remove(sourceAcc.getSource(), sourceAcc) )
+				continue;
+
+			final Object source = sourceAcc.getSource();
+			for ( PayloadAccumulator<?,?,?> acc : sourceAcc.retire() ) {
+				try {
+					CyPayloadEvent<?,?> event = acc.newEventInstance( source );
+					if ( event != null ) {
+						flushList.add(event);
+						queueDepth += acc.getDrainedCount();
+						delivered += acc.getDeliveredCount();
 					}
+				} catch (Exception ie) {
+					logger.warn("Couldn't instantiate event for source: " + source, ie);
 				}
-				iterator.remove();
 			}
-			
 		}
 		
-		// Actually fire the events outside of the synchronized block.
-		for (CyPayloadEvent<?,?> event : flushList) {
-			normal.fireEvent(event);
-		}	
+		if ( flushList.isEmpty() )
+			return;
+
+		// Actually fire the events once all accumulators are drained.
+		final long deliveryBegin = System.nanoTime();
+		deliveringFlushes.incrementAndGet();
+		try {
+			for (CyPayloadEvent<?,?> event : flushList) {
+				normal.fireEvent(event);
+			}	
+		} finally {
+			deliveringFlushes.decrementAndGet();
+		}
+		final long end = System.nanoTime();
+
+		lastDeliveryMillis = (end - deliveryBegin) / 1000000L;
+		flushStatistics.recordFlush(queueDepth, delivered, end - begin);
 	}
 	
 	// Used only for unit testing to prevent the confusion of multiple 
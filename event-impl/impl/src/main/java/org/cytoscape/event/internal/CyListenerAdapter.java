@@ -25,11 +25,17 @@ package org.cytoscape.event.internal;
  */
 
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Map;
 import java.util.Arrays;
 import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.cytoscape.event.CyEvent;
 import org.osgi.framework.BundleContext;
@@ -46,13 +52,16 @@ public class CyListenerAdapter {
 	private static final ServiceComparator serviceComparator = new ServiceComparator(); 
 
 	private static final Object DUMMY = new Object();
+	private static final Object[] NO_LISTENERS = new Object[0];
+	private static final MethodType HANDLER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
 	
 	private final Map<Class<?>,ServiceTracker> serviceTrackers; 
+	private final ConcurrentMap<Class<?>,Dispatcher> dispatchers;
+	private final ConcurrentMap<Class<?>,ListenerStatistics> statistics;
 	private final BundleContext bc;
 	private final Map<Object, Object> silencedSources;
-	private final StringBuilder traceString; 
-	private final boolean printEventTrace;
-	private int fireCount;
+	private volatile boolean haveSilencedSources;
+	private final boolean collectStatistics;
 
 	private final Object lock = new Object();
 	
@@ -64,12 +73,14 @@ public class CyListenerAdapter {
 	public CyListenerAdapter(BundleContext bc) {
 		this.bc = bc;
 		serviceTrackers = new ConcurrentHashMap<Class<?>,ServiceTracker>(16, 0.75f, 2);
+		dispatchers = new ConcurrentHashMap<Class<?>,Dispatcher>(16, 0.75f, 2);
+		statistics = new ConcurrentHashMap<Class<?>,ListenerStatistics>(16, 0.75f, 2);
 		silencedSources = new WeakHashMap<Object, Object>();
+		haveSilencedSources = false;
 
-		// used only for printing a coherent event trace
-		fireCount = 0;
-		traceString = new StringBuilder();
-		printEventTrace = Boolean.parseBoolean( (String)(System.getProperty("printEventTrace","false")) );
+		// "printEventTrace" is accepted as an alias of the old debugging switch
+		collectStatistics = Boolean.parseBoolean( System.getProperty("collectEventStatistics","false") ) || 
+		                    Boolean.parseBoolean( System.getProperty("printEventTrace","false") );
 	}
 
 	/**
@@ -83,96 +94,181 @@ public class CyListenerAdapter {
 		if ( event == null )
 			return;
 
-		synchronized (lock) {
-			if ( silencedSources.containsKey( event.getSource() ) )
-				return;
+		if ( haveSilencedSources ) {
+			synchronized (lock) {
+				if ( silencedSources.containsKey( event.getSource() ) )
+					return;
+			}
 		}
 		
-		final Class<?> listenerClass = event.getListenerClass();
-		
-		final Object[] listeners = getListeners(listenerClass);
-		if ( listeners == null ) 
+		final Dispatcher dispatcher = getDispatcher(event);
+		if ( dispatcher == null || dispatcher.handler == null )
 			return;
-	
-	
-		Object lastListener = null;
-		long begin = 0;
 
-		if ( printEventTrace ) {
-			fireCount++;
-			printTrace(fireCount,"EVENT START: " + event.getClass().getName());
-		}
-		
-		try {
-			final Method method = listenerClass.getMethod("handleEvent", event.getClass());
+		final Object[] listeners = dispatcher.getListeners();
 
-			for (final Object listener : listeners) {
-				try {
-					lastListener = listener;
-	
-					// This call is VERY memory intensive - only use it for debugging!!!!
-					// logger.debug("event: " + event.getClass().getName() + "  listener: " + listener.getClass().getName());
-					if ( printEventTrace ) {
-						printTrace(fireCount,"listener: " + listener.getClass().getName());
-						begin = System.currentTimeMillis();
-					}
-	
-					method.invoke(listenerClass.cast(listener), event);
-	
-					if ( printEventTrace ) {
-						final long end = System.currentTimeMillis();
-						printTrace(fireCount,"listener: " + listener.getClass().getName() + " duration: " + (end - begin));
-					}
-				} catch (Exception e) {
-					logger.error("Unexpected exception while handling listener: " + listenerClass.getName(), e);
-				}
+		for (final Object listener : listeners) {
+			final long begin = collectStatistics ? System.nanoTime() : 0L;
+			try {
+				dispatcher.handler.invokeExact(listener, (Object) event);
+			} catch (VirtualMachineError e) {
+				throw e;
+			} catch (Throwable t) {
+				// Errors such as a NoClassDefFoundError from a broken app
+				// bundle must not keep the other listeners from the event
+				logger.error("Unexpected exception while handling listener: " + dispatcher.listenerClass.getName(), t);
 			}
-		} catch (NoSuchMethodException e) {
-			logger.error("Listener doesn't implement \"handleEvent\" method: "
-				     + listenerClass.getName(), e);
+			if ( collectStatistics )
+				getStatistics(listener.getClass()).record(System.nanoTime() - begin);
+		}
+	}
+
+	/**
+	 * Returns the time spent in each listener implementation so far. Timings are
+	 * only collected when the "collectEventStatistics" system property is set.
+	 */
+	public Collection<ListenerStatistics> getListenerStatistics() {
+		return new ArrayList<ListenerStatistics>(statistics.values());
+	}
+
+	private ListenerStatistics getStatistics(Class<?> listenerImplClass) {
+		ListenerStatistics stats = statistics.get(listenerImplClass);
+		if ( stats == null ) {
+			final ListenerStatistics newStats = new ListenerStatistics(listenerImplClass.getName());
+			stats = statistics.putIfAbsent(listenerImplClass, newStats);
+			if ( stats == null )
+				stats = newStats;
 		}
+		return stats;
+	}
 
-		if ( printEventTrace ) {
-			printTrace(fireCount,"EVENT END  : " + event.getClass().getName());
-			fireCount--;
+	private Dispatcher getDispatcher(final CyEvent<?> event) {
+		final Class<?> eventClass = event.getClass();
+		Dispatcher dispatcher = dispatchers.get(eventClass);
+		if ( dispatcher == null ) {
+			final Class<?> listenerClass = event.getListenerClass();
+			final Dispatcher newDispatcher = new Dispatcher(listenerClass, getTracker(listenerClass),
+			                                                resolveHandler(listenerClass, eventClass));
+			dispatcher = dispatchers.putIfAbsent(eventClass, newDispatcher);
+			if ( dispatcher == null )
+				dispatcher = newDispatcher;
 		}
+		return dispatcher;
 	}
 
-	private Object[] getListeners(Class<?> listenerClass) {
+	private ServiceTracker getTracker(Class<?> listenerClass) {
 		ServiceTracker tracker = serviceTrackers.get(listenerClass);
 		if ( tracker == null ) {
 			//logger.debug("added new service tracker for " + listenerClass);
-			tracker = new ServiceTracker(bc, listenerClass.getName(), null);
-			tracker.open();
-			serviceTrackers.put( listenerClass, tracker );
+			synchronized (serviceTrackers) {
+				tracker = serviceTrackers.get(listenerClass);
+				if ( tracker == null ) {
+					tracker = openTracker(listenerClass);
+					serviceTrackers.put( listenerClass, tracker );
+				}
+			}
 		}
+		return tracker;
+	}
 
-		Object[] services = tracker.getServices();
-
-		if ( services == null )
-			return null;
+	/**
+	 * Opens the tracker of the services registered as the listener class.
+	 */
+	ServiceTracker openTracker(Class<?> listenerClass) {
+		final ServiceTracker tracker = new ServiceTracker(bc, listenerClass.getName(), null);
+		tracker.open();
+		return tracker;
+	}
 
-		Arrays.sort(services, serviceComparator);
-		return services; 
+	private static MethodHandle resolveHandler(Class<?> listenerClass, Class<?> eventClass) {
+		try {
+			final Method method = listenerClass.getMethod("handleEvent", eventClass);
+			return MethodHandles.publicLookup().unreflect(method).asType(HANDLER_TYPE);
+		} catch (NoSuchMethodException e) {
+			logger.error("Listener doesn't implement \"handleEvent\" method: "
+				     + listenerClass.getName(), e);
+		} catch (IllegalAccessException e) {
+			logger.error("Listener \"handleEvent\" method is not accessible: "
+				     + listenerClass.getName(), e);
+		}
+		return null;
 	}
 
 	void silenceEventSource(Object eventSource) {
 		synchronized (lock) {
 			silencedSources.put(eventSource, DUMMY);
+			haveSilencedSources = true;
 		}
     }
 							    
 	void unsilenceEventSource(Object eventSource) {
 		synchronized (lock) {
 			silencedSources.remove(eventSource);
+			haveSilencedSources = !silencedSources.isEmpty();
+		}
+	}
+
+	/**
+	 * Everything needed to deliver one event class: the resolved handleEvent
+	 * handle and a sorted snapshot of the listeners, which is only rebuilt when
+	 * the tracking count of the ServiceTracker says the services have changed.
+	 */
+	private static final class Dispatcher {
+		final Class<?> listenerClass;
+		final MethodHandle handler;
+		private final ServiceTracker tracker;
+		private volatile Snapshot snapshot;
+
+		Dispatcher(Class<?> listenerClass, ServiceTracker tracker, MethodHandle handler) {
+			this.listenerClass = listenerClass;
+			this.tracker = tracker;
+			this.handler = handler;
+			this.snapshot = new Snapshot(-1, NO_LISTENERS);
+		}
+
+		Object[] getListeners() {
+			Snapshot current = snapshot;
+			final int trackingCount = tracker.getTrackingCount();
+
+			if ( current.trackingCount != trackingCount ) {
+				Object[] services = tracker.getServices();
+				if ( services == null ) {
+					services = NO_LISTENERS;
+				} else {
+					Arrays.sort(services, serviceComparator);
+					for ( int i = 0; i < services.length; i++ ) {
+						if ( !listenerClass.isInstance(services[i]) ) {
+							services = filterListeners(services);
+							break;
+						}
+					}
+				}
+				current = new Snapshot(trackingCount, services);
+				snapshot = current;
+			}
+
+			return current.listeners;
+		}
+
+		private Object[] filterListeners(Object[] services) {
+			final ArrayList<Object> listeners = new ArrayList<Object>(services.length);
+			for ( Object service : services ) {
+				if ( listenerClass.isInstance(service) )
+					listeners.add(service);
+				else
+					logger.warn("Service registered as " + listenerClass.getName() + " doesn't implement it: " + service);
+			}
+			return listeners.toArray();
 		}
 	}
 
-	private void printTrace(int indent, String message) {
-		traceString.delete(0,traceString.length());
-		for (int i = 0; i < indent; i++ )
-			traceString.append("    ");
-		traceString.append(message);
-		System.out.println( traceString.toString() );
+	private static final class Snapshot {
+		final int trackingCount;
+		final Object[] listeners;
+
+		Snapshot(int trackingCount, Object[] listeners) {
+			this.trackingCount = trackingCount;
+			this.listeners = listeners;
+		}
 	}
 }
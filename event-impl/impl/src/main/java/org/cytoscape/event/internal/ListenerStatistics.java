@@ -0,0 +1,74 @@
+package org.cytoscape.event.internal;
+
+/*
+ * #%L
+ * Cytoscape Event Impl (event-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2016 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Number of events handled by one listener implementation and the time it spent
+ * handling them.
+ */
+public final class ListenerStatistics {
+
+	private final String listenerName;
+	private final AtomicLong invocations = new AtomicLong();
+	private final AtomicLong totalNanos = new AtomicLong();
+	private final AtomicLong maxNanos = new AtomicLong();
+
+	ListenerStatistics(String listenerName) {
+		this.listenerName = listenerName;
+	}
+
+	void record(long nanos) {
+		invocations.incrementAndGet();
+		totalNanos.addAndGet(nanos);
+
+		long max = maxNanos.get();
+		while ( nanos > max && !maxNanos.compareAndSet(max, nanos) )
+			max = maxNanos.get();
+	}
+
+	public String getListenerName() {
+		return listenerName;
+	}
+
+	public long getInvocationCount() {
+		return invocations.get();
+	}
+
+	public long getTotalNanos() {
+		return totalNanos.get();
+	}
+
+	public long getMaxNanos() {
+		return maxNanos.get();
+	}
+
+	@Override
+	public String toString() {
+		return listenerName + " invocations: " + getInvocationCount() + " total ms: " + (getTotalNanos() / 1000000L)
+		       + " max ms: " + (getMaxNanos() / 1000000L);
+	}
+}
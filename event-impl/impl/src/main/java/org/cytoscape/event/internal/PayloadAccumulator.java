@@ -26,63 +26,89 @@ package org.cytoscape.event.internal;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Collection;
-import java.lang.reflect.Constructor;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.lang.reflect.InvocationTargetException;
 import org.cytoscape.event.CyPayloadEvent;
 
+/**
+ * Collects the payloads of one event type for one source.  Payloads may be
+ * added concurrently from any number of threads without blocking.
+ */
 class PayloadAccumulator<S,P,E extends CyPayloadEvent<S,P>> {
 
-	private List<P> payloadList; 
-	private final Constructor<E> constructor;
-	private Class<?> sourceClass;
-
-	private final Object lock = new Object();
-	
-	PayloadAccumulator(S source, Class<E> eventType) throws NoSuchMethodException {
-		//System.out.println(" payload accumulator: source.getClass():  " + source + "   " + source.getClass());
-
-		for ( Constructor<?> cons : eventType.getConstructors() ) {
-			Class<?>[] params = cons.getParameterTypes();
-			if ( params.length == 2 && params[1] == Collection.class ) {
-				sourceClass = params[0];
-			}
-		}
-
-		if ( sourceClass == null )
-			throw new IllegalArgumentException("no valid source class found.");
-			
-		constructor = eventType.getConstructor(sourceClass, Collection.class);
-		payloadList = new ArrayList<P>();
+	private final Queue<P> payloads;
+	private final AtomicInteger pending;
+	private final PayloadEventFactory<E> factory;
+	private final PayloadCoalescer coalescer;
+	private final int sequence;
+	private int drainedCount;
+	private int deliveredCount;
+
+	PayloadAccumulator(Class<E> eventType, int sequence) throws NoSuchMethodException {
+		this.factory = PayloadEventFactory.forEventType(eventType);
+		this.coalescer = PayloadCoalescer.forEventType(eventType);
+		this.sequence = sequence;
+		this.payloads = new ConcurrentLinkedQueue<P>();
+		this.pending = new AtomicInteger();
 	}
 
-	E newEventInstance(Object source) throws InstantiationException, IllegalAccessException, InvocationTargetException, ClassCastException {
-		if ( source == null ) 
+	E newEventInstance(Object source) throws InvocationTargetException, ClassCastException {
+		if ( source == null )
 			return null;
 
-		final Collection<P> coll = getPayloadCollection();
+		List<P> coll = drainPayloads();
 
-		if ( coll == null ) 
+		if ( coll == null )
 			return null;
 
-		return constructor.newInstance( sourceClass.cast(source), coll );			
+		drainedCount = coll.size();
+		if ( coalescer != null )
+			coll = coalescer.coalesce(coll);
+		deliveredCount = coll.size();
+
+		return factory.newInstance(source, coll);
 	}
 
-	void addPayload(P t) {
-		synchronized (lock) {
-			if ( t != null ) 
-				payloadList.add(t);
-		}
+	/**
+	 * @return the number of payloads waiting to be flushed, including this one.
+	 */
+	int addPayload(P t) {
+		if ( t == null )
+			return pending.get();
+
+		payloads.add(t);
+		return pending.incrementAndGet();
 	}
 
-	private Collection<P> getPayloadCollection() {
-		synchronized (lock) {
-			if ( payloadList.isEmpty() )
-				return null;
-	
-			List<P> ret = payloadList;
-			payloadList = new ArrayList<P>();
-			return ret;
-		}
+	/** Number of payloads taken by the last call to newEventInstance. */
+	int getDrainedCount() {
+		return drainedCount;
+	}
+
+	/** Number of payloads passed to the event after coalescing. */
+	int getDeliveredCount() {
+		return deliveredCount;
+	}
+
+	/**
+	 * The order in which this accumulator was created relative to the other
+	 * accumulators of the same source. Events are fired in this order.
+	 */
+	int getSequence() {
+		return sequence;
+	}
+
+	private List<P> drainPayloads() {
+		if ( payloads.isEmpty() )
+			return null;
+
+		final List<P> ret = new ArrayList<P>(payloads.size());
+		P p;
+		while ( (p = payloads.poll()) != null )
+			ret.add(p);
+
+		return ret.isEmpty() ? null : ret;
 	}
 }
@@ -0,0 +1,147 @@
+package org.cytoscape.event.internal;
+
+/*
+ * #%L
+ * Cytoscape Event Impl (event-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2016 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collapses payloads that describe the same change target, so that listeners
+ * only see the latest one.  For example, setting the same row and column of a
+ * table a hundred times between two flushes results in a single RowSetRecord
+ * holding the last value.  Only event types listed in COALESCED_EVENT_TYPES
+ * are coalesced; all others are delivered exactly as they were added.
+ */
+final class PayloadCoalescer {
+
+	private static final MethodType ACCESSOR_TYPE = MethodType.methodType(Object.class, Object.class);
+
+	// Event type name -> accessors of the payload that identify what it changes.
+	// Names are used so that event-impl doesn't have to depend on model-api.
+	private static final Map<String,String[]> COALESCED_EVENT_TYPES;
+	static {
+		final Map<String,String[]> types = new LinkedHashMap<String,String[]>();
+		types.put("org.cytoscape.model.events.RowsSetEvent", new String[] { "getRow", "getColumn" });
+		COALESCED_EVENT_TYPES = Collections.unmodifiableMap(types);
+	}
+
+	private static final boolean enabled = 
+		Boolean.parseBoolean( System.getProperty("coalescePayloadEvents","true") );
+
+	private final String[] accessorNames;
+	private volatile Accessors accessors;
+
+	private PayloadCoalescer(String[] accessorNames) {
+		this.accessorNames = accessorNames;
+		this.accessors = new Accessors(null, null);
+	}
+
+	/**
+	 * @return the coalescer for the event type, or null if its payloads must not be coalesced.
+	 */
+	static PayloadCoalescer forEventType(Class<?> eventType) {
+		if ( !enabled )
+			return null;
+
+		final String[] names = COALESCED_EVENT_TYPES.get(eventType.getName());
+		return names == null ? null : new PayloadCoalescer(names);
+	}
+
+	/**
+	 * Returns the payloads with duplicates removed.  Each remaining payload
+	 * is the last one added for its key and keeps the position of the first.
+	 */
+	<P> List<P> coalesce(List<P> payloads) {
+		if ( payloads.size() < 2 )
+			return payloads;
+
+		final Map<Object,P> latest = new LinkedHashMap<Object,P>(payloads.size() * 4 / 3 + 1);
+		for ( P payload : payloads )
+			latest.put(getKey(payload), payload);
+
+		if ( latest.size() == payloads.size() )
+			return payloads;
+
+		return new ArrayList<P>(latest.values());
+	}
+
+	private Object getKey(Object payload) {
+		final Class<?> payloadClass = payload.getClass();
+		Accessors acc = accessors;
+
+		if ( acc.payloadClass != payloadClass ) {
+			acc = new Accessors(payloadClass, resolve(payloadClass, accessorNames));
+			accessors = acc;
+		}
+
+		// Payload classes without the accessors are only collapsed if they're equal.
+		if ( acc.handles == null )
+			return payload;
+
+		final Object[] key = new Object[acc.handles.length];
+		try {
+			for ( int i = 0; i < key.length; i++ )
+				key[i] = (Object) acc.handles[i].invokeExact(payload);
+		} catch (Error e) {
+			throw e;
+		} catch (Throwable t) {
+			return payload;
+		}
+
+		return Arrays.asList(key);
+	}
+
+	private static MethodHandle[] resolve(Class<?> payloadClass, String[] names) {
+		final MethodHandle[] handles = new MethodHandle[names.length];
+		try {
+			for ( int i = 0; i < names.length; i++ )
+				handles[i] = MethodHandles.publicLookup()
+				                          .unreflect(payloadClass.getMethod(names[i]))
+				                          .asType(ACCESSOR_TYPE);
+		} catch (NoSuchMethodException e) {
+			return null;
+		} catch (IllegalAccessException e) {
+			return null;
+		}
+		return handles;
+	}
+
+	private static final class Accessors {
+		final Class<?> payloadClass;
+		final MethodHandle[] handles;
+
+		Accessors(Class<?> payloadClass, MethodHandle[] handles) {
+			this.payloadClass = payloadClass;
+			this.handles = handles;
+		}
+	}
+}
@@ -0,0 +1,113 @@
+package org.cytoscape.event.internal;
+
+/*
+ * #%L
+ * Cytoscape Event Impl (event-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2016 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Collection;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates payload events through a constructor handle that is resolved only
+ * once per event type, rather than looking up and reflectively invoking the
+ * (Source, Collection) constructor every time payloads are flushed.
+ */
+final class PayloadEventFactory<E> {
+
+	private static final Logger logger = LoggerFactory.getLogger(PayloadEventFactory.class);
+
+	private static final MethodType GENERIC_TYPE = MethodType.methodType(Object.class, Object.class, Collection.class);
+
+	// ClassValue doesn't keep the event classes of uninstalled bundles alive.
+	private static final ClassValue<PayloadEventFactory<?>> factories = new ClassValue<PayloadEventFactory<?>>() {
+		@Override
+		protected PayloadEventFactory<?> computeValue(Class<?> eventType) {
+			return resolve(eventType);
+		}
+	};
+
+	private final Class<E> eventType;
+	private final MethodHandle constructor;
+
+	private PayloadEventFactory(Class<E> eventType, MethodHandle constructor) {
+		this.eventType = eventType;
+		this.constructor = constructor;
+	}
+
+	@SuppressWarnings("unchecked")
+	static <E> PayloadEventFactory<E> forEventType(Class<E> eventType) throws NoSuchMethodException {
+		final PayloadEventFactory<E> factory = (PayloadEventFactory<E>) factories.get(eventType);
+
+		if ( factory == null ) {
+			// Don't remember the failure, the class may be fixed by a bundle update.
+			factories.remove(eventType);
+			throw new NoSuchMethodException("no (Source, Collection) constructor found for " + eventType.getName());
+		}
+
+		return factory;
+	}
+
+	E newInstance(Object source, Collection<?> payloads) throws InvocationTargetException, ClassCastException {
+		try {
+			return eventType.cast((Object) constructor.invokeExact(source, payloads));
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Error e) {
+			throw e;
+		} catch (Throwable t) {
+			throw new InvocationTargetException(t);
+		}
+	}
+
+	private static <E> PayloadEventFactory<E> resolve(Class<E> eventType) {
+		Class<?> sourceClass = null;
+
+		for ( Constructor<?> cons : eventType.getConstructors() ) {
+			Class<?>[] params = cons.getParameterTypes();
+			if ( params.length == 2 && params[1] == Collection.class ) {
+				sourceClass = params[0];
+			}
+		}
+
+		if ( sourceClass == null )
+			return null;
+
+		try {
+			final Constructor<E> cons = eventType.getConstructor(sourceClass, Collection.class);
+			final MethodHandle handle = MethodHandles.publicLookup().unreflectConstructor(cons).asType(GENERIC_TYPE);
+			return new PayloadEventFactory<E>(eventType, handle);
+		} catch (NoSuchMethodException e) {
+			return null;
+		} catch (IllegalAccessException e) {
+			logger.warn("Event constructor is not accessible: " + eventType.getName(), e);
+			return null;
+		}
+	}
+}
@@ -0,0 +1,123 @@
+package org.cytoscape.event.internal;
+
+/*
+ * #%L
+ * Cytoscape Event Impl (event-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2016 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters describing how the payload flush scheduler is keeping up: how many
+ * payloads are pending when a flush starts, how long flushes take and how
+ * many payloads were removed by coalescing.
+ */
+public final class PayloadFlushStatistics {
+
+	private final AtomicLong flushes = new AtomicLong();
+	private final AtomicLong earlyFlushes = new AtomicLong();
+	private final AtomicLong deferredFlushes = new AtomicLong();
+	private final AtomicLong payloadsAdded = new AtomicLong();
+	private final AtomicLong payloadsDelivered = new AtomicLong();
+	private final AtomicLong lastQueueDepth = new AtomicLong();
+	private final AtomicLong maxQueueDepth = new AtomicLong();
+	private final AtomicLong lastFlushNanos = new AtomicLong();
+	private final AtomicLong totalFlushNanos = new AtomicLong();
+	private final AtomicLong maxFlushNanos = new AtomicLong();
+
+	void recordFlush(long queueDepth, long delivered, long nanos) {
+		flushes.incrementAndGet();
+		payloadsAdded.addAndGet(queueDepth);
+		payloadsDelivered.addAndGet(delivered);
+		lastQueueDepth.set(queueDepth);
+		updateMax(maxQueueDepth, queueDepth);
+		lastFlushNanos.set(nanos);
+		totalFlushNanos.addAndGet(nanos);
+		updateMax(maxFlushNanos, nanos);
+	}
+
+	void recordEarlyFlush() {
+		earlyFlushes.incrementAndGet();
+	}
+
+	void recordDeferredFlush() {
+		deferredFlushes.incrementAndGet();
+	}
+
+	private static void updateMax(AtomicLong max, long value) {
+		long current = max.get();
+		while ( value > current && !max.compareAndSet(current, value) )
+			current = max.get();
+	}
+
+	/** Number of flushes that delivered at least one payload event. */
+	public long getFlushCount() {
+		return flushes.get();
+	}
+
+	/** Number of flushes triggered because the pending payload threshold was crossed. */
+	public long getEarlyFlushCount() {
+		return earlyFlushes.get();
+	}
+
+	/** Number of scheduled flushes postponed because listeners were still busy. */
+	public long getDeferredFlushCount() {
+		return deferredFlushes.get();
+	}
+
+	/** Number of payloads pending at the start of the last flush. */
+	public long getLastQueueDepth() {
+		return lastQueueDepth.get();
+	}
+
+	public long getMaxQueueDepth() {
+		return maxQueueDepth.get();
+	}
+
+	/** Time spent draining and delivering the last flush, in nanoseconds. */
+	public long getLastFlushNanos() {
+		return lastFlushNanos.get();
+	}
+
+	public long getMaxFlushNanos() {
+		return maxFlushNanos.get();
+	}
+
+	public double getMeanFlushNanos() {
+		final long n = flushes.get();
+		return n == 0 ? 0.0 : (double) totalFlushNanos.get() / n;
+	}
+
+	/** Fraction of added payloads that were dropped as duplicates, between 0 and 1. */
+	public double getCoalescingRatio() {
+		final long added = payloadsAdded.get();
+		return added == 0 ? 0.0 : 1.0 - ((double) payloadsDelivered.get() / added);
+	}
+
+	@Override
+	public String toString() {
+		return "flushes: " + getFlushCount() + " early: " + getEarlyFlushCount() + " deferred: " + getDeferredFlushCount()
+		       + " last depth: " + getLastQueueDepth() + " max depth: " + getMaxQueueDepth()
+		       + " mean ms: " + (getMeanFlushNanos() / 1.0e6) + " max ms: " + (getMaxFlushNanos() / 1.0e6)
+		       + " coalescing: " + getCoalescingRatio();
+	}
+}
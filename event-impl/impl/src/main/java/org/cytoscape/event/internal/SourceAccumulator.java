@@ -0,0 +1,127 @@
+package org.cytoscape.event.internal;
+
+/*
+ * #%L
+ * Cytoscape Event Impl (event-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2016 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.cytoscape.event.CyPayloadEvent;
+
+/**
+ * Holds the payload accumulators of a single event source.  Each source has
+ * its own lock, so payloads for different sources never contend, and payloads
+ * for the same source only share the read side of the lock.  The write side
+ * is taken once per flush to retire the accumulators, after which any late
+ * payloads go to a fresh SourceAccumulator.
+ */
+class SourceAccumulator {
+
+	static final Comparator<SourceAccumulator> SEQUENCE_ORDER = new Comparator<SourceAccumulator>() {
+		public int compare(SourceAccumulator a, SourceAccumulator b) {
+			return a.sequence < b.sequence ? -1 : (a.sequence > b.sequence ? 1 : 0);
+		}
+	};
+
+	private static final Comparator<PayloadAccumulator<?,?,?>> ACC_ORDER = new Comparator<PayloadAccumulator<?,?,?>>() {
+		public int compare(PayloadAccumulator<?,?,?> a, PayloadAccumulator<?,?,?> b) {
+			return a.getSequence() - b.getSequence();
+		}
+	};
+
+	private final Object source;
+	private final long sequence;
+	private final ConcurrentMap<Class<?>,PayloadAccumulator<?,?,?>> typeAccMap;
+	private final AtomicInteger typeSequence;
+	private final ReadWriteLock rwLock;
+	private boolean retired;
+
+	SourceAccumulator(Object source, long sequence) {
+		this.source = source;
+		this.sequence = sequence;
+		this.typeAccMap = new ConcurrentHashMap<Class<?>,PayloadAccumulator<?,?,?>>(4, 0.75f, 4);
+		this.typeSequence = new AtomicInteger();
+		this.rwLock = new ReentrantReadWriteLock();
+		this.retired = false;
+	}
+
+	Object getSource() {
+		return source;
+	}
+
+	/**
+	 * @return the number of payloads of this event type waiting to be flushed, or
+	 * -1 if this accumulator has already been flushed, in which case the caller
+	 * has to add the payload to a new SourceAccumulator.
+	 */
+	@SuppressWarnings("unchecked")
+	<S,P,E extends CyPayloadEvent<S,P>> int addPayload(P payload, Class<E> eventType) throws NoSuchMethodException {
+		rwLock.readLock().lock();
+		try {
+			if ( retired )
+				return -1;
+
+			PayloadAccumulator<S,P,E> acc = (PayloadAccumulator<S,P,E>) typeAccMap.get(eventType);
+
+			if ( acc == null ) {
+				final PayloadAccumulator<S,P,E> newAcc =
+					new PayloadAccumulator<S,P,E>(eventType, typeSequence.getAndIncrement());
+				acc = (PayloadAccumulator<S,P,E>) typeAccMap.putIfAbsent(eventType, newAcc);
+				if ( acc == null )
+					acc = newAcc;
+			}
+
+			return acc.addPayload(payload);
+		} finally {
+			rwLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Stops accepting payloads and returns the accumulators in the order their
+	 * event types were first seen.  Once this returns no other thread can touch
+	 * the accumulators, so they can be drained without locking.
+	 */
+	List<PayloadAccumulator<?,?,?>> retire() {
+		rwLock.writeLock().lock();
+		try {
+			retired = true;
+		} finally {
+			rwLock.writeLock().unlock();
+		}
+
+		final List<PayloadAccumulator<?,?,?>> accs = new ArrayList<PayloadAccumulator<?,?,?>>(typeAccMap.values());
+		if ( accs.size() > 1 )
+			Collections.sort(accs, ACC_ORDER);
+
+		return accs;
+	}
+}
@@ -0,0 +1,194 @@
+package org.cytoscape.event.internal;
+
+/*
+ * #%L
+ * Cytoscape Event Impl (event-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collection;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.cytoscape.event.AbstractCyPayloadEvent;
+import org.cytoscape.event.CyEvent;
+import org.cytoscape.event.CyListener;
+import org.cytoscape.event.CyPayloadEvent;
+import org.junit.After;
+import org.junit.Test;
+
+
+/**
+ * Tests the timer that flushes payload events.
+ */
+public class CyEventHelperImplTest {
+
+	private static final long TIMEOUT_MILLIS = 10000;
+
+	private final Object source = new Object();
+	private CyEventHelperImpl helper;
+
+	@After
+	public void cleanup() {
+		if ( helper != null )
+			helper.cleanup();
+	}
+
+	@Test
+	public void testFlushIsDeferredWhileListenersAreBusy() throws Exception {
+		final CountDownLatch delivering = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final Thread[] flusher = new Thread[1];
+		final RecordingListenerAdapter adapter = new RecordingListenerAdapter() {
+			@Override
+			void deliver(CyPayloadEvent<?,?> event) throws InterruptedException {
+				if ( Thread.currentThread() == flusher[0] && delivering.getCount() > 0 ) {
+					delivering.countDown();
+					release.await();
+				}
+			}
+		};
+		helper = new CyEventHelperImpl(adapter);
+
+		// Keep a flush busy in its listeners on a thread other than the
+		// timer.  The timer may flush a payload first, so keep adding
+		// until this thread gets to deliver one.
+		flusher[0] = new Thread(new Runnable() {
+			public void run() {
+				int i = 0;
+				while ( delivering.getCount() > 0 ) {
+					helper.addEventPayload(source, Integer.valueOf(i++), TestPayloadEvent.class);
+					helper.flushPayloadEvents();
+				}
+			}
+		});
+		flusher[0].start();
+		assertTrue(delivering.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+
+		final int delivered = adapter.getPayloadCount();
+		helper.addEventPayload(source, Integer.valueOf(-1), TestPayloadEvent.class);
+		waitFor(new Condition() {
+			public boolean isMet() {
+				return helper.getFlushStatistics().getDeferredFlushCount() > 0;
+			}
+		});
+		assertEquals(delivered, adapter.getPayloadCount());
+
+		// The deferred payload is delivered once the listeners are done
+		release.countDown();
+		flusher[0].join(TIMEOUT_MILLIS);
+		waitFor(new Condition() {
+			public boolean isMet() {
+				return adapter.getPayloadCount() == delivered + 1;
+			}
+		});
+	}
+
+	@Test
+	public void testFlushIsRescheduledAfterListenerError() throws Exception {
+		final RecordingListenerAdapter adapter = new RecordingListenerAdapter() {
+			@Override
+			void deliver(CyPayloadEvent<?,?> event) {
+				if ( getEventCount() == 1 )
+					throw new InternalError("listener failure");
+			}
+		};
+		helper = new CyEventHelperImpl(adapter);
+
+		helper.addEventPayload(source, Integer.valueOf(1), TestPayloadEvent.class);
+		waitFor(new Condition() {
+			public boolean isMet() {
+				return adapter.getEventCount() == 1;
+			}
+		});
+
+		helper.addEventPayload(source, Integer.valueOf(2), TestPayloadEvent.class);
+		waitFor(new Condition() {
+			public boolean isMet() {
+				return adapter.getEventCount() == 2;
+			}
+		});
+	}
+
+	private static void waitFor(Condition condition) throws InterruptedException {
+		final long end = System.currentTimeMillis() + TIMEOUT_MILLIS;
+		while ( !condition.isMet() ) {
+			assertTrue("timed out", System.currentTimeMillis() < end);
+			Thread.sleep(10);
+		}
+	}
+
+	private interface Condition {
+		boolean isMet();
+	}
+
+	public interface TestListener extends CyListener {
+		void handleEvent(TestPayloadEvent e);
+	}
+
+	public static final class TestPayloadEvent extends AbstractCyPayloadEvent<Object,Integer> {
+		public TestPayloadEvent(Object source, Collection<Integer> payload) {
+			super(source, TestListener.class, payload);
+		}
+	}
+
+	/**
+	 * Records the delivered payload events instead of looking up listeners.
+	 */
+	private static class RecordingListenerAdapter extends CyListenerAdapter {
+		private final AtomicInteger events = new AtomicInteger();
+		private final AtomicInteger payloads = new AtomicInteger();
+
+		RecordingListenerAdapter() {
+			super(null);
+		}
+
+		@Override
+		public <E extends CyEvent<?>> void fireEvent(final E event) {
+			if ( !(event instanceof CyPayloadEvent) )
+				return;
+
+			final CyPayloadEvent<?,?> payloadEvent = (CyPayloadEvent<?,?>) event;
+			events.incrementAndGet();
+			payloads.addAndGet(payloadEvent.getPayloadCollection().size());
+			try {
+				deliver(payloadEvent);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		void deliver(CyPayloadEvent<?,?> event) throws InterruptedException {
+		}
+
+		int getEventCount() {
+			return events.get();
+		}
+
+		int getPayloadCount() {
+			return payloads.get();
+		}
+	}
+}
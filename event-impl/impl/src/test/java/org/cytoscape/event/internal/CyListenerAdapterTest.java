@@ -0,0 +1,283 @@
+package org.cytoscape.event.internal;
+
+/*
+ * #%L
+ * Cytoscape Event Impl (event-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cytoscape.event.AbstractCyEvent;
+import org.cytoscape.event.CyListener;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.util.tracker.ServiceTracker;
+import org.springframework.osgi.mock.MockBundleContext;
+
+
+/**
+ * Tests how events are dispatched to the snapshot of tracked listeners.
+ */
+public class CyListenerAdapterTest {
+
+	private static final String STATISTICS_PROPERTY = "collectEventStatistics";
+
+	private final Object source = new Object();
+	private final List<Integer> delivered = new ArrayList<Integer>();
+	private TestTracker tracker;
+	private CyListenerAdapter adapter;
+
+	@Before
+	public void setUp() {
+		tracker = new TestTracker();
+		adapter = createAdapter();
+	}
+
+	@After
+	public void cleanup() {
+		System.clearProperty(STATISTICS_PROPERTY);
+	}
+
+	@Test
+	public void testListenersAreCalledInServiceOrder() {
+		tracker.add(new RecordingListener(3));
+		tracker.add(new RecordingListener(1));
+		tracker.add(new RecordingListener(2));
+
+		adapter.fireEvent(new TestEvent(source));
+
+		assertEquals(Arrays.asList(1, 2, 3), delivered);
+	}
+
+	@Test
+	public void testSnapshotIsReusedWhileServicesAreUnchanged() {
+		tracker.add(new RecordingListener(1));
+
+		adapter.fireEvent(new TestEvent(source));
+		adapter.fireEvent(new TestEvent(source));
+		adapter.fireEvent(new TestEvent(source));
+
+		assertEquals(Arrays.asList(1, 1, 1), delivered);
+		assertEquals(1, tracker.getLookupCount());
+	}
+
+	@Test
+	public void testSnapshotIsRefreshedWhenListenerIsAdded() {
+		tracker.add(new RecordingListener(1));
+		adapter.fireEvent(new TestEvent(source));
+
+		tracker.add(new RecordingListener(2));
+		adapter.fireEvent(new TestEvent(source));
+
+		assertEquals(Arrays.asList(1, 1, 2), delivered);
+		assertEquals(2, tracker.getLookupCount());
+	}
+
+	@Test
+	public void testSnapshotIsRefreshedWhenListenerIsRemoved() {
+		final RecordingListener first = new RecordingListener(1);
+		final RecordingListener second = new RecordingListener(2);
+		tracker.add(first);
+		tracker.add(second);
+		adapter.fireEvent(new TestEvent(source));
+
+		tracker.remove(first);
+		adapter.fireEvent(new TestEvent(source));
+
+		tracker.remove(second);
+		adapter.fireEvent(new TestEvent(source));
+
+		assertEquals(Arrays.asList(1, 2, 2), delivered);
+	}
+
+	@Test
+	public void testFailingListenersDoNotStopTheOthers() {
+		tracker.add(new RecordingListener(1));
+		tracker.add(new RecordingListener(2, new IllegalStateException("listener failure")));
+		tracker.add(new RecordingListener(3, new NoClassDefFoundError("listener failure")));
+		tracker.add(new RecordingListener(4));
+
+		adapter.fireEvent(new TestEvent(source));
+		adapter.fireEvent(new TestEvent(source));
+
+		assertEquals(Arrays.asList(1, 2, 3, 4, 1, 2, 3, 4), delivered);
+	}
+
+	@Test(expected = InternalError.class)
+	public void testVirtualMachineErrorIsRethrown() {
+		tracker.add(new RecordingListener(1, new InternalError("listener failure")));
+
+		adapter.fireEvent(new TestEvent(source));
+	}
+
+	@Test
+	public void testSilencedSourceIsNotDelivered() {
+		tracker.add(new RecordingListener(1));
+
+		adapter.silenceEventSource(source);
+		adapter.fireEvent(new TestEvent(source));
+		adapter.unsilenceEventSource(source);
+		adapter.fireEvent(new TestEvent(source));
+
+		assertEquals(Arrays.asList(1), delivered);
+	}
+
+	@Test
+	public void testStatisticsAreOnlyCollectedWhenEnabled() {
+		tracker.add(new RecordingListener(1));
+		adapter.fireEvent(new TestEvent(source));
+
+		assertTrue(adapter.getListenerStatistics().isEmpty());
+	}
+
+	@Test
+	public void testStatisticsCountEachListenerImplementation() {
+		System.setProperty(STATISTICS_PROPERTY, "true");
+		adapter = createAdapter();
+
+		tracker.add(new RecordingListener(1));
+		tracker.add(new RecordingListener(2));
+		tracker.add(new OtherListener());
+
+		adapter.fireEvent(new TestEvent(source));
+		adapter.fireEvent(new TestEvent(source));
+		adapter.fireEvent(new TestEvent(source));
+
+		final Map<String,ListenerStatistics> stats = new HashMap<String,ListenerStatistics>();
+		for ( ListenerStatistics s : adapter.getListenerStatistics() )
+			stats.put(s.getListenerName(), s);
+
+		assertEquals(2, stats.size());
+
+		final ListenerStatistics recording = stats.get(RecordingListener.class.getName());
+		assertEquals(6, recording.getInvocationCount());
+		assertTrue(recording.getTotalNanos() >= recording.getMaxNanos());
+		assertTrue(recording.getMaxNanos() >= 0);
+
+		final ListenerStatistics other = stats.get(OtherListener.class.getName());
+		assertEquals(3, other.getInvocationCount());
+		assertTrue(other.getTotalNanos() >= other.getMaxNanos());
+	}
+
+	private CyListenerAdapter createAdapter() {
+		return new CyListenerAdapter(null) {
+			@Override
+			ServiceTracker openTracker(Class<?> listenerClass) {
+				return tracker;
+			}
+		};
+	}
+
+	public interface TestListener extends CyListener {
+		void handleEvent(TestEvent e);
+	}
+
+	public static final class TestEvent extends AbstractCyEvent<Object> {
+		public TestEvent(Object source) {
+			super(source, TestListener.class);
+		}
+	}
+
+	/**
+	 * Records its id when it handles an event and then throws the failure, if
+	 * any.  Listeners of the same class are ordered by hash code, so the id
+	 * doubles as the position in the snapshot.
+	 */
+	private class RecordingListener implements TestListener {
+		final int id;
+		final Throwable failure;
+
+		RecordingListener(int id) {
+			this(id, null);
+		}
+
+		RecordingListener(int id, Throwable failure) {
+			this.id = id;
+			this.failure = failure;
+		}
+
+		public void handleEvent(TestEvent e) {
+			delivered.add(id);
+			if ( failure instanceof Error )
+				throw (Error) failure;
+			if ( failure != null )
+				throw (RuntimeException) failure;
+		}
+
+		@Override
+		public int hashCode() {
+			return id;
+		}
+	}
+
+	private class OtherListener implements TestListener {
+		public void handleEvent(TestEvent e) {
+		}
+	}
+
+	/**
+	 * A tracker whose services are added and removed by the test.  Every change
+	 * bumps the tracking count, as the real tracker does.
+	 */
+	private static final class TestTracker extends ServiceTracker {
+		private final List<Object> services = new ArrayList<Object>();
+		private int trackingCount;
+		private int lookups;
+
+		TestTracker() {
+			super(new MockBundleContext(), TestListener.class.getName(), null);
+		}
+
+		void add(Object service) {
+			services.add(service);
+			trackingCount++;
+		}
+
+		void remove(Object service) {
+			services.remove(service);
+			trackingCount++;
+		}
+
+		int getLookupCount() {
+			return lookups;
+		}
+
+		@Override
+		public Object[] getServices() {
+			lookups++;
+			return services.isEmpty() ? null : services.toArray();
+		}
+
+		@Override
+		public int getTrackingCount() {
+			return trackingCount;
+		}
+	}
+}
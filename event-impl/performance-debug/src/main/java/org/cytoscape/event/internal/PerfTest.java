@@ -0,0 +1,216 @@
+package org.cytoscape.event.internal;
+
+/*
+ * #%L
+ * Cytoscape Event Impl Performance Debug (event-impl-performance-debug)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2016 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.cytoscape.event.AbstractCyPayloadEvent;
+import org.cytoscape.event.CyEvent;
+import org.cytoscape.event.CyEventHelper;
+import org.cytoscape.event.CyListener;
+import org.cytoscape.event.CyPayloadEvent;
+
+
+/**
+ * Measures how many payloads per second can be accumulated when several
+ * threads call addEventPayload() at once, comparing CyEventHelperImpl with
+ * the single global lock implementation it replaced.
+ */
+public class PerfTest {
+
+	private static final int[] THREAD_COUNTS = new int[] { 1, 2, 4, 8, 16 };
+	private static final int PAYLOADS_PER_THREAD = 2000000;
+	private static final int NUM_SOURCES = 4;
+	private static final int ROUNDS = 5;
+
+	public static void main(String[] args) {
+		new PerfTest().runTestLoop();
+	}
+
+	private void runTestLoop() {
+		System.out.println("threads\tsources\tglobal-lock (payloads/s)\tstriped (payloads/s)");
+		for ( int threads : THREAD_COUNTS ) {
+			for ( int sources : new int[] { 1, NUM_SOURCES } ) {
+				double before = 0.0;
+				double after = 0.0;
+				// first round is warm up
+				for ( int r = 0; r <= ROUNDS; r++ ) {
+					final CountingListenerAdapter baselineAdapter = new CountingListenerAdapter();
+					final GlobalLockEventHelper baseline = new GlobalLockEventHelper(baselineAdapter);
+					final double b = measure(baseline, threads, sources, baselineAdapter);
+
+					final CountingListenerAdapter adapter = new CountingListenerAdapter();
+					final CyEventHelperImpl helper = new CyEventHelperImpl(adapter);
+					final double a = measure(helper, threads, sources, adapter);
+					helper.cleanup();
+
+					if ( r > 0 ) {
+						before += b;
+						after += a;
+					}
+				}
+				System.out.println(threads + "\t" + sources + "\t" + (long)(before/ROUNDS) + "\t" + (long)(after/ROUNDS));
+			}
+		}
+	}
+
+	private double measure(final CyEventHelper helper, final int numThreads, final int numSources,
+	                       final CountingListenerAdapter adapter) {
+		final Object[] sources = new Object[numSources];
+		for ( int i = 0; i < numSources; i++ )
+			sources[i] = new Object();
+
+		final CountDownLatch start = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(numThreads);
+
+		for ( int t = 0; t < numThreads; t++ ) {
+			final Object source = sources[t % numSources];
+			new Thread(new Runnable() {
+				public void run() {
+					try {
+						start.await();
+						for ( int i = 0; i < PAYLOADS_PER_THREAD; i++ )
+							helper.addEventPayload(source, Integer.valueOf(i), PerfPayloadEvent.class);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					} finally {
+						done.countDown();
+					}
+				}
+			}).start();
+		}
+
+		final long begin = System.nanoTime();
+		start.countDown();
+		try {
+			done.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		helper.flushPayloadEvents();
+		final long end = System.nanoTime();
+
+		final long expected = (long)numThreads * PAYLOADS_PER_THREAD;
+		if ( adapter.payloads.get() != expected )
+			System.out.println("  lost payloads: expected " + expected + " but got " + adapter.payloads.get());
+
+		return expected / ((end - begin) / 1.0e9);
+	}
+
+	public interface PerfListener extends CyListener {
+		void handleEvent(PerfPayloadEvent e);
+	}
+
+	public static final class PerfPayloadEvent extends AbstractCyPayloadEvent<Object,Integer> {
+		public PerfPayloadEvent(Object source, Collection<Integer> payload) {
+			super(source, PerfListener.class, payload);
+		}
+	}
+
+	/**
+	 * Counts delivered payloads instead of looking up listeners.
+	 */
+	private static final class CountingListenerAdapter extends CyListenerAdapter {
+		final AtomicLong payloads = new AtomicLong();
+
+		CountingListenerAdapter() {
+			super(null);
+		}
+
+		@Override
+		public <E extends CyEvent<?>> void fireEvent(final E event) {
+			if ( event instanceof CyPayloadEvent )
+				payloads.addAndGet( ((CyPayloadEvent<?,?>)event).getPayloadCollection().size() );
+		}
+	}
+
+	/**
+	 * The previous accumulation strategy: one lock for every source and event type
+	 * and a reflective constructor call per flushed event.
+	 */
+	private static final class GlobalLockEventHelper implements CyEventHelper {
+		private final CyListenerAdapter normal;
+		private final Map<Object,Map<Class<?>,List<Object>>> sourceAccMap = new LinkedHashMap<Object,Map<Class<?>,List<Object>>>();
+		private final Object lock = new Object();
+
+		GlobalLockEventHelper(CyListenerAdapter normal) {
+			this.normal = normal;
+		}
+
+		public <E extends CyEvent<?>> void fireEvent(E event) {
+			flushPayloadEvents();
+			normal.fireEvent(event);
+		}
+
+		public <S,P,E extends CyPayloadEvent<S,P>> void addEventPayload(S source, P payload, Class<E> eventType) {
+			synchronized (lock) {
+				Map<Class<?>,List<Object>> cmap = sourceAccMap.get(source);
+				if ( cmap == null ) {
+					cmap = new LinkedHashMap<Class<?>,List<Object>>();
+					sourceAccMap.put(source, cmap);
+				}
+				List<Object> acc = cmap.get(eventType);
+				if ( acc == null ) {
+					acc = new ArrayList<Object>();
+					cmap.put(eventType, acc);
+				}
+				synchronized (acc) {
+					acc.add(payload);
+				}
+			}
+		}
+
+		public void flushPayloadEvents() {
+			final List<CyEvent<?>> flushList = new ArrayList<CyEvent<?>>();
+			synchronized (lock) {
+				for ( Map.Entry<Object,Map<Class<?>,List<Object>>> e : sourceAccMap.entrySet() ) {
+					for ( Map.Entry<Class<?>,List<Object>> acc : e.getValue().entrySet() ) {
+						try {
+							Constructor<?> cons = acc.getKey().getConstructor(Object.class, Collection.class);
+							flushList.add((CyEvent<?>) cons.newInstance(e.getKey(), acc.getValue()));
+						} catch (Exception ex) {
+							throw new RuntimeException(ex);
+						}
+					}
+				}
+				sourceAccMap.clear();
+			}
+			for ( CyEvent<?> event : flushList )
+				normal.fireEvent(event);
+		}
+
+		public void silenceEventSource(Object eventSource) { }
+
+		public void unsilenceEventSource(Object eventSource) { }
+	}
+}
@@ -43,6 +43,7 @@ import org.cytoscape.io.read.CyTableReader;
 import org.cytoscape.model.CyRow;
 import org.cytoscape.model.CyTable;
 import org.cytoscape.model.CyTableFactory;
+import org.cytoscape.model.bulk.BulkCyTable;
 import org.cytoscape.work.TaskMonitor;
 
 import au.com.bytecode.opencsv.CSVReader;
@@ -57,6 +58,8 @@ public class CSVCyReader implements CyTableReader {
 	private final CyTableFactory tableFactory;
 	private final EquationCompiler compiler;
 	private final String encoding;
+	/** valueOf(String) methods, looked up once per type instead of once per cell. */
+	private final Map<Class<?>, Method> valueOfMethods = new HashMap<Class<?>, Method>();
 
 	private boolean isCanceled;
 	private CyTable table;
@@ -109,6 +112,14 @@ public class CSVCyReader implements CyTableReader {
 				table.createColumn(column.getName(), type, !column.isMutable());
 			}
 		}
+
+		// The model's tables take a whole column at once, so the values are
+		// collected per column and stored after the last line has been read.
+		final BulkCyTable bulkTable = table instanceof BulkCyTable ? (BulkCyTable) table : null;
+		final List<Map<Object, Object>> columnValues = new ArrayList<Map<Object, Object>>(columns.length);
+		for (int i = 0; i < columns.length; i++)
+			columnValues.add(i == 0 || bulkTable == null ? null : new HashMap<Object, Object>());
+
 		String[] values = reader.readNext();
 		while (values != null) {
 			if (isCanceled)
@@ -121,6 +132,7 @@ public class CSVCyReader implements CyTableReader {
 				String name = column.getName();
 				final Class<?> columnType = column.getType();
 				final Class<?> columnListElementType = column.getListElementType();
+				final Object value;
 				if (handleEquations && values[i].startsWith("=")) {
 					final Class<?> expectedType = variableNameToTypeMap.remove(name);
 					try {
@@ -139,19 +151,29 @@ public class CSVCyReader implements CyTableReader {
 						} else {
 							equation = compiler.getErrorEquation(values[i], expectedType, compiler.getLastErrorMsg());
 						}
-						row.set(name, equation);
+						value = equation;
 					} catch (final Exception e) {
 						throw new IOException(e.getMessage(), e.getCause());
 					}
 					variableNameToTypeMap.put(name, expectedType);
 				} else {
-					Object value = parseValue(columnType, columnListElementType, values[i]);
-					if (value != null)
-						row.set(name, value);
+					value = parseValue(columnType, columnListElementType, values[i]);
 				}
+
+				if (value == null)
+					continue;
+				if (bulkTable != null)
+					columnValues.get(i).put(key, value);
+				else
+					row.set(name, value);
 			}
 			values = reader.readNext();
 		}
+
+		if (bulkTable != null) {
+			for (int i = 1; i < columns.length; i++)
+				bulkTable.setColumnValues(columns[i].getName(), columnValues.get(i));
+		}
 		return table;
 	}
 
@@ -171,14 +193,22 @@ public class CSVCyReader implements CyTableReader {
 			return value;
 		else {
 			try {
-				Method method = type.getMethod("valueOf", String.class);
-				return method.invoke(null, value);
+				return getValueOfMethod(type).invoke(null, value);
 			} catch (Exception e) {
 				return null;
 			}
 		}
 	}
 
+	private Method getValueOfMethod(Class<?> type) throws NoSuchMethodException {
+		Method method = valueOfMethods.get(type);
+		if (method == null) {
+			method = type.getMethod("valueOf", String.class);
+			valueOfMethods.put(type, method);
+		}
+		return method;
+	}
+
 	TableInfo readHeader(CSVReader reader) throws IOException, ClassNotFoundException {
 		String[] values = reader.readNext();
 		int schemaVersion;
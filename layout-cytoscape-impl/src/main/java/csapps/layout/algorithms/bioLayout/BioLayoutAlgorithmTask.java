@@ -35,15 +35,15 @@ package csapps.layout.algorithms.bioLayout;
 
 import java.util.Set;
 
+import org.cytoscape.layout.internal.util.AbstractConcurrentPartitionLayoutTask;
 import org.cytoscape.model.CyNode;
-import org.cytoscape.view.layout.AbstractPartitionLayoutTask;
 import org.cytoscape.view.layout.LayoutPartition;
 import org.cytoscape.view.model.CyNetworkView;
 import org.cytoscape.view.model.View;
 import org.cytoscape.work.undo.UndoSupport;
 
 
-public abstract class BioLayoutAlgorithmTask extends AbstractPartitionLayoutTask {
+public abstract class BioLayoutAlgorithmTask extends AbstractConcurrentPartitionLayoutTask {
 
 	/**
 	 * A small value used to avoid division by zero
@@ -27,6 +27,8 @@ package csapps.layout.algorithms.bioLayout;
 
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Set;
 
 import org.cytoscape.model.CyNode;
@@ -44,6 +46,12 @@ public class BioLayoutFRAlgorithmTask extends BioLayoutAlgorithmTask {
 	private double repulsion_constant;
 	private double gravity_constant;
 
+	/**
+	 * The ideal distance between nodes, from which the attraction and
+	 * repulsion constants are derived.
+	 */
+	private double optimal_distance;
+
 	/**
 	 * maxDistance is the actual calculated distance
 	 * beyond which repulsive forces will not operate.
@@ -81,6 +89,49 @@ public class BioLayoutFRAlgorithmTask extends BioLayoutAlgorithmTask {
 
 	private BioLayoutFRContext context;
 
+	/**
+	 * Positions and displacements of the nodes of the partition, indexed
+	 * by LayoutNode.getIndex().  The iterations only work on these arrays,
+	 * the nodes are updated when the view is.
+	 */
+	private LayoutNode[] nodes;
+	private double[] xPos;
+	private double[] yPos;
+	private double[] zPos;
+	private double[] xDisp;
+	private double[] yDisp;
+	private double[] zDisp;
+	private double[] nodeWidth;
+	private int[] nodeDegree;
+	private boolean[] nodeLocked;
+
+	/**
+	 * End points and weights of the edges of the partition
+	 */
+	private int[] edgeSource;
+	private int[] edgeTarget;
+	private double[] edgeWeight;
+
+	/**
+	 * For large partitions, the distance beyond which nodes don't
+	 * repel each other.  0 if every pair of nodes is considered.
+	 */
+	private double repulsionCutoff;
+
+	/**
+	 * The grid used to find the nodes within repulsionCutoff of a node.
+	 * The nodes in cell c are cellNodes[cellStart[c]] up to (but not
+	 * including) cellNodes[cellStart[c+1]].
+	 */
+	private double gridMinX;
+	private double gridMinY;
+	private double gridCellSize;
+	private int gridColumns;
+	private int gridRows;
+	private int[] cellStart;
+	private int[] cellNodes;
+	private int[] nodeCell;
+
 	/**
 	 * Profile data -- not used, for now
 	Profile initProfile;
@@ -99,6 +150,12 @@ public class BioLayoutFRAlgorithmTask extends BioLayoutAlgorithmTask {
 		this.edgeWeighter.setWeightAttribute(layoutAttribute);
 		
 		displacementArray = new ArrayList<Double>(100);
+	}
+
+	@Override
+	protected BioLayoutFRAlgorithmTask createPartitionTask() {
+		return new BioLayoutFRAlgorithmTask(displayName, networkView, nodesToLayOut, context, supportWeights,
+				layoutAttribute, undoSupport);
 	}
 
 	/**
@@ -181,6 +238,8 @@ public class BioLayoutFRAlgorithmTask extends BioLayoutAlgorithmTask {
 
 		// Calculate our edge weights
 		partition.calculateEdgeWeights();
+
+		initializeArrays();
 		// initProfile.done("Initialization completed in ");
 		taskMonitor.setStatusMessage("Calculating new node positions");
 		taskMonitor.setProgress(0.01);
@@ -195,6 +254,8 @@ public class BioLayoutFRAlgorithmTask extends BioLayoutAlgorithmTask {
 
 			if (debug || ((context.update_iterations > 0) && ((iteration % context.update_iterations) == 0))) {
 				if (iteration > 0) {
+					storePositions();
+
 					// Actually move the pieces around
 					for (LayoutNode v: partition.getNodeList()) {
 						// if this is locked, the move just resets X and Y
@@ -226,6 +287,8 @@ public class BioLayoutFRAlgorithmTask extends BioLayoutAlgorithmTask {
 		// System.out.println("Update portion of iterations took "+updateProfile.getTotalTime()+"ms");
 		taskMonitor.setStatusMessage("Updating display");
 
+		storePositions();
+
 		// Actually move the pieces around
 		// Note that we reset our min/max values before we start this
 		// so we can get an accurate min/max for paritioning
@@ -270,72 +333,78 @@ public class BioLayoutFRAlgorithmTask extends BioLayoutAlgorithmTask {
 	 * @param temp The current temperature factor.
 	 * @return an updated temperature factor.
 	 */
-	public double doOneIteration(int iteration, double temp) {
+	public double doOneIteration(int iteration, final double temp) {
+		final int nodeCount = nodes.length;
 		double xAverage = 0;
 		double yAverage = 0;
 		double zAverage = 0;
 
 		// repulseProfile.start();
 		// Calculate repulsive forces
-		for (LayoutNode v: partition.getNodeList()) {
-			if (!v.isLocked()) {
-				xAverage += v.getX()/partition.nodeCount();
-				yAverage += v.getY()/partition.nodeCount();
-				zAverage += v.getZ()/partition.nodeCount();
+		for (int v = 0; v < nodeCount; v++) {
+			if (!nodeLocked[v]) {
+				xAverage += xPos[v]/nodeCount;
+				yAverage += yPos[v]/nodeCount;
+				zAverage += zPos[v]/nodeCount;
 			}
 		}
 
-		for (LayoutNode v: partition.getNodeList()) {
-			if (!v.isLocked()) {
-				calculateRepulsion(v);
-				if (gravity_constant != 0)
-					calculateGravity(v,xAverage,yAverage,zAverage);
+		if (repulsionCutoff > 0)
+			buildGrid();
+
+		// Each node only updates its own displacement, so the
+		// nodes can be handled in parallel
+		final double xCenter = xAverage;
+		final double yCenter = yAverage;
+		final double zCenter = zAverage;
+		NodeBlocks.forEach(nodeCount, new NodeBlocks.Body() {
+			public void apply(final int from, final int to) {
+				for (int v = from; v < to; v++) {
+					if (!nodeLocked[v]) {
+						calculateRepulsion(v);
+						if (gravity_constant != 0)
+							calculateGravity(v, xCenter, yCenter, zCenter);
+					}
+				}
 			}
-		}
+		});
 
 		// repulseProfile.checkpoint();
 
-		// Dump the current displacements
-		// print_disp();
-
 		// attractProfile.start();
 		// Calculate attractive forces
 
 /// for e in E do begin
-		for (LayoutEdge e: partition.getEdgeList()) {
+		for (int e = 0; e < edgeSource.length; e++) {
 			calculateAttraction(e);
 		}
 /// end
 
 		// attractProfile.checkpoint();
 
-		// Dump the current displacements
-		// print_disp();
-
 		// Dampen & update
 		double xDispTotal = 0;
 		double yDispTotal = 0;
 		// updateProfile.start();
 
 /// for v in V do begin
-		for (LayoutNode v: partition.getNodeList()) {
-			if (v.isLocked())
-				continue;
+		NodeBlocks.forEach(nodeCount, new NodeBlocks.Body() {
+			public void apply(final int from, final int to) {
+				for (int v = from; v < to; v++) {
+					if (!nodeLocked[v])
+						calculatePosition(v, temp);
+				}
+			}
+		});
+/// end
 
-			calculatePosition(v, temp);
+		for (int v = 0; v < nodeCount; v++) {
+			if (nodeLocked[v])
+				continue;
 
-			xDispTotal += Math.abs(v.getXDisp());
-			yDispTotal += Math.abs(v.getYDisp());
+			xDispTotal += Math.abs(xDisp[v]);
+			yDispTotal += Math.abs(yDisp[v]);
 		}
-/// end
-
-		// Translate back to the middle (or to the starting point,
-		// if we're dealing with a selected group
-//		if (!selectedOnly) {
-//			for (LayoutNode v: partition.getNodeList()) {
-//				v.decrement(xAverage - (width / 2), yAverage - (height / 2));
-//			}
-//		}
 
 		// updateProfile.checkpoint();
 
@@ -389,70 +458,86 @@ public class BioLayoutFRAlgorithmTask extends BioLayoutAlgorithmTask {
 	 * calculate the repulsive forces and offsets for
 	 * each vertex.
 	 *
-	 * @param v LayoutNode we're calculating repulsive forces for
+	 * @param v index of the node we're calculating repulsive forces for
 	 */
-	private void calculateRepulsion(LayoutNode v) {
+	private void calculateRepulsion(int v) {
 /// v.disp := 0;
-		v.setDisp(0, 0, 0);
-
-		double radius = v.getWidth() / 2;
+		xDisp[v] = 0;
+		yDisp[v] = 0;
+		zDisp[v] = 0;
 
+		if (repulsionCutoff == 0) {
 /// for u in V do
-		for (LayoutNode u: partition.getNodeList()) {
-			double dx = v.getX() - u.getX();
-			double dy = v.getY() - u.getY();
-			double dz = v.getZ() - u.getZ();
+			for (int u = 0; u < nodes.length; u++)
+				repulse(v, u);
+			return;
+		}
+
+		// Only the nodes in the surrounding cells are close enough
+		int row = nodeCell[v] / gridColumns;
+		int column = nodeCell[v] % gridColumns;
+		for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, gridRows - 1); r++) {
+			for (int c = Math.max(column - 1, 0); c <= Math.min(column + 1, gridColumns - 1); c++) {
+				int cell = r * gridColumns + c;
+				for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++)
+					repulse(v, cellNodes[i]);
+			}
+		}
+	}
 
+	/**
+	 * Add the repulsive force of one node to the displacement of another.
+	 *
+	 * @param v index of the node being pushed
+	 * @param u index of the node pushing it
+	 */
+	private void repulse(int v, int u) {
 /// if (u # v) then begin
-			if (v == u)
-				continue;
+		if (v == u)
+			return;
 
-			// Get the 
-			// double xSign = Math.signum(v.getX() - u.getX());
-			// double ySign = Math.signum(v.getY() - u.getY());
+		double dx = xPos[v] - xPos[u];
+		double dy = yPos[v] - yPos[u];
+		double dz = zPos[v] - zPos[u];
 
 /// delta := v.pos - u.pos
-			// Get our euclidean distance
-			double deltaDistance = context.layout3D ? v.distance3D(u) : v.distance(u);
+		// Get our euclidean distance
+		double deltaDistance = context.layout3D
+		                       ? Math.sqrt((dx * dx) + (dy * dy) + (dz * dz))
+		                       : Math.sqrt((dx * dx) + (dy * dy));
 
-			if (deltaDistance == 0.0)
-				deltaDistance = EPSILON;
+		if (repulsionCutoff > 0 && deltaDistance > repulsionCutoff)
+			return;
 
-			double fr = forceR(repulsion_constant, deltaDistance);
+		if (deltaDistance == 0.0)
+			deltaDistance = EPSILON;
 
-			// If its too close, increase the force by a constant
-			if (deltaDistance < (radius + (u.getWidth() / 2))) {
-				// System.out.println("Applying conflict_avoidance force: "+conflict_avoidance);
-				fr += context.conflict_avoidance;
-			}
+		double fr = forceR(repulsion_constant, deltaDistance);
 
-			if (Double.isNaN(fr)) {
-				fr = 500;
-			}
+		// If its too close, increase the force by a constant
+		if (deltaDistance < ((nodeWidth[v] / 2) + (nodeWidth[u] / 2)))
+			fr += context.conflict_avoidance;
 
-			/*
-			            System.out.println("Repulsive force between "+v.getIdentifier()
-			                             +" and "+u.getIdentifier()+" is "+fr);
-			            System.out.println("   distance = "+deltaDistance);
-			            System.out.println("   incrementing "+v.getIdentifier()+" by ("+
-		                                     fr+", "+fr+")");
-			*/
-
-			// Adjust the displacement.  In the case of doing selectedOnly,
-			// we increase the force to enhance the discrimination power.
-			// Also note that we only update the displacement of the movable
-			// node since the other node won't move anyways.
+		if (Double.isNaN(fr)) {
+			fr = 500;
+		}
+
+		// Adjust the displacement.  In the case of doing selectedOnly,
+		// we increase the force to enhance the discrimination power.
+		// Also note that we only update the displacement of the movable
+		// node since the other node won't move anyways.
 /// v.disp := v.disp + (delta/abs(delta)) * fr(abs(delta))
-			double xVector = dx*fr/deltaDistance;
-			double yVector = dy*fr/deltaDistance;
-			double zVector = context.layout3D ? dz*fr/deltaDistance : 0;
-			if (v.isLocked()) {
-				return; // shouldn't happen
-			} else if (u.isLocked()) {
-				v.incrementDisp(xVector * 2, yVector * 2, zVector * 2);
-			} else {
-				v.incrementDisp(xVector, yVector, zVector);
-			}
+		double xVector = dx*fr/deltaDistance;
+		double yVector = dy*fr/deltaDistance;
+		double zVector = context.layout3D ? dz*fr/deltaDistance : 0;
+		if (nodeLocked[u]) {
+			xDisp[v] += xVector * 2;
+			yDisp[v] += yVector * 2;
+			zDisp[v] += zVector * 2;
+		} else {
+			xDisp[v] += xVector;
+			yDisp[v] += yVector;
+			zDisp[v] += zVector;
 		}
 	}
 
@@ -461,19 +546,21 @@ public class BioLayoutFRAlgorithmTask extends BioLayoutAlgorithmTask {
 	 * each vertex based on their connecting edges and the
 	 * corresponding edge weights.
 	 *
-	 * @param e Edge we're calculating attractive forces for
+	 * @param e index of the edge we're calculating attractive forces for
 	 */
-	private void calculateAttraction(LayoutEdge e) {
-		LayoutNode v = e.getSource();
-		LayoutNode u = e.getTarget();
-		double dx = v.getX() - u.getX();
-		double dy = v.getY() - u.getY();
-		double dz = v.getZ() - u.getZ();
+	private void calculateAttraction(int e) {
+		int v = edgeSource[e];
+		int u = edgeTarget[e];
+		double dx = xPos[v] - xPos[u];
+		double dy = yPos[v] - yPos[u];
+		double dz = zPos[v] - zPos[u];
 
 /// delta := e.v.pos - e.u.pos
-		double deltaDistance = context.layout3D ? v.distance3D(u) : v.distance(u);
+		double deltaDistance = context.layout3D
+		                       ? Math.sqrt((dx * dx) + (dy * dy) + (dz * dz))
+		                       : Math.sqrt((dx * dx) + (dy * dy));
 
-		double fa = forceA(attraction_constant, deltaDistance, e.getWeight());
+		double fa = forceA(attraction_constant, deltaDistance, edgeWeight[e]);
 
 		if (Double.isNaN(fa)) {
 			fa = EPSILON;
@@ -489,52 +576,59 @@ public class BioLayoutFRAlgorithmTask extends BioLayoutAlgorithmTask {
 		double xVector = dx*fa;
 		double yVector = dy*fa;
 		double zVector = context.layout3D ? dz*fa : 0;
-		if (u.isLocked() && v.isLocked()) {
+		if (nodeLocked[u] && nodeLocked[v]) {
 			return; // shouldn't happen
-		} else if (u.isLocked()) {
-			v.decrementDisp(xVector * 2, yVector * 2, zVector * 2);
-		} else if (v.isLocked()) {
-			u.incrementDisp(xVector * 2, yVector * 2, zVector * 2);
+		} else if (nodeLocked[u]) {
+			xDisp[v] -= xVector * 2;
+			yDisp[v] -= yVector * 2;
+			zDisp[v] -= zVector * 2;
+		} else if (nodeLocked[v]) {
+			xDisp[u] += xVector * 2;
+			yDisp[u] += yVector * 2;
+			zDisp[u] += zVector * 2;
 		} else {
-			v.decrementDisp(xVector, yVector, zVector);
-			u.incrementDisp(xVector, yVector, zVector);
+			xDisp[v] -= xVector;
+			yDisp[v] -= yVector;
+			zDisp[v] -= zVector;
+			xDisp[u] += xVector;
+			yDisp[u] += yVector;
+			zDisp[u] += zVector;
 		}
 	}
 
 	/**
 	 * Calculate the gravity (pull towards the center) force.
 	 *
-	 * @param v the node we're pulling
+	 * @param v index of the node we're pulling
 	 * @param xAverage the X portion of the location that's pulling us
 	 * @param yAverage the Y portion of the location that's pulling us
 	 * @param zAverage the Z portion of the location that's pulling us
 	 */
-	private void calculateGravity(LayoutNode v,double xAverage, double yAverage, double zAverage)
+	private void calculateGravity(int v, double xAverage, double yAverage, double zAverage)
 	{
-		double dx = v.getX() - xAverage;
-		double dy = v.getY() - yAverage;
-		double dz = v.getZ() - zAverage;
+		double dx = xPos[v] - xAverage;
+		double dy = yPos[v] - yAverage;
+		double dz = zPos[v] - zAverage;
 		
 		double distance = context.layout3D
 				          ? Math.sqrt(Math.pow(dx,2) + Math.pow(dy,2) + Math.pow(dz,2))
 				          : Math.sqrt(Math.pow(dx,2) + Math.pow(dy,2));
 		
-		//double theta = Math.atan(dy/dx);
-		//double xSign = Math.signum(dx);
-		//double ySign = Math.signum(dy);
 		if(distance == 0) distance = EPSILON;
 		
-		double phi = (1 +v.getDegree())/3;
+		double phi = (1 + nodeDegree[v])/3;
 		double force = gravity_constant*distance*phi;
 		double xVector = dx*force;
 		double yVector = dy*force;
 		double zVector = context.layout3D ? dz*force : 0;
-		if (v.isLocked()) {
+		if (nodeLocked[v]) {
 			return; 
 		}// shouldn't happen
 		
 		else {
-			v.decrementDisp(xVector, yVector, zVector);
+			xDisp[v] -= xVector;
+			yDisp[v] -= yVector;
+			zDisp[v] -= zVector;
 		}
 	}
 
@@ -544,23 +638,27 @@ public class BioLayoutFRAlgorithmTask extends BioLayoutAlgorithmTask {
 	 * doing the bounds checking to keep the vertices within
 	 * the graphics area.
 	 *
-	 * @param v LayoutNode we're moving
+	 * @param v index of the node we're moving
 	 * @param temp double representing the current temperature
 	 */
 /// v.pos := v.pos + (v.disp/|v.disp|) * min (v.disp, t);
-	private void calculatePosition(LayoutNode v, double temp) {
-		
+	private void calculatePosition(int v, double temp) {
+		// Measured like LayoutNode.distance(xDisp, yDisp), i.e. from
+		// the position of the node to the displacement
+		double dx = xPos[v] - xDisp[v];
+		double dy = yPos[v] - yDisp[v];
+		double dz = zPos[v] - zDisp[v];
 		double deltaDistance = context.layout3D 
-				               ? v.distance3D(v.getXDisp(), v.getYDisp(), v.getZDisp())
-				               : v.distance(v.getXDisp(), v.getYDisp());
+				               ? Math.sqrt((dx * dx) + (dy * dy) + (dz * dz))
+				               : Math.sqrt((dx * dx) + (dy * dy));
 
-		double newXDisp = v.getXDisp() / deltaDistance * Math.min(deltaDistance, temp);
+		double newXDisp = xDisp[v] / deltaDistance * Math.min(deltaDistance, temp);
 
 		if (Double.isNaN(newXDisp)) {
 			newXDisp = 0;
 		}
 
-		double newYDisp = v.getYDisp() / deltaDistance * Math.min(deltaDistance, temp);
+		double newYDisp = yDisp[v] / deltaDistance * Math.min(deltaDistance, temp);
 
 		if (Double.isNaN(newYDisp)) {
 			newYDisp = 0;
@@ -568,10 +666,12 @@ public class BioLayoutFRAlgorithmTask extends BioLayoutAlgorithmTask {
 		
 		double newZDisp = 0;
 		if(context.layout3D) {
-			newZDisp = v.getZDisp() / deltaDistance * Math.min(deltaDistance, temp);
+			newZDisp = zDisp[v] / deltaDistance * Math.min(deltaDistance, temp);
 		}
 		
-		v.increment(newXDisp, newYDisp, newZDisp);
+		xPos[v] += newXDisp;
+		yPos[v] += newYDisp;
+		zPos[v] += newZDisp;
 
 /// v.pos.x := min(W/2, max(-W/2, v.pos.x));
 /// v.pos.y := min(L/2, max(-L/2, v.pos.y));
@@ -642,6 +742,7 @@ public class BioLayoutFRAlgorithmTask extends BioLayoutAlgorithmTask {
 				       ? Math.pow((this.height * this.width * this.depth) / partition.nodeCount(), 1.0/3.0)
 				       : Math.sqrt((this.height * this.width) / partition.nodeCount());
 		
+		optimal_distance = force;
 		attraction_constant = force * context.attraction_multiplier;
 		repulsion_constant = force * context.repulsion_multiplier;
 		gravity_constant = context.gravity_multiplier;
@@ -653,6 +754,128 @@ public class BioLayoutFRAlgorithmTask extends BioLayoutAlgorithmTask {
 */
 	}
 
+	/**
+	 * Copy the nodes and edges of the partition into the arrays used
+	 * by the iterations, and decide whether repulsion is limited to
+	 * nearby nodes.
+	 */
+	private void initializeArrays() {
+		int nodeCount = partition.nodeCount();
+		nodes = new LayoutNode[nodeCount];
+		xPos = new double[nodeCount];
+		yPos = new double[nodeCount];
+		zPos = new double[nodeCount];
+		xDisp = new double[nodeCount];
+		yDisp = new double[nodeCount];
+		zDisp = new double[nodeCount];
+		nodeWidth = new double[nodeCount];
+		nodeDegree = new int[nodeCount];
+		nodeLocked = new boolean[nodeCount];
+
+		double maxWidth = 0;
+		for (LayoutNode v: partition.getNodeList()) {
+			int i = v.getIndex();
+			nodes[i] = v;
+			xPos[i] = v.getX();
+			yPos[i] = v.getY();
+			zPos[i] = v.getZ();
+			nodeWidth[i] = v.getWidth();
+			nodeDegree[i] = v.getDegree();
+			nodeLocked[i] = v.isLocked();
+			maxWidth = Math.max(maxWidth, nodeWidth[i]);
+		}
+
+		List<LayoutEdge> edgeList = partition.getEdgeList();
+		edgeSource = new int[edgeList.size()];
+		edgeTarget = new int[edgeList.size()];
+		edgeWeight = new double[edgeList.size()];
+
+		int e = 0;
+		for (LayoutEdge edge: edgeList) {
+			edgeSource[e] = edge.getSource().getIndex();
+			edgeTarget[e] = edge.getTarget().getIndex();
+			edgeWeight[e] = edge.getWeight();
+			e++;
+		}
+
+		// Comparing every pair of nodes gets too slow for large
+		// partitions.  Like the grid variant of the original algorithm,
+		// only let nodes within twice the optimal distance repel each
+		// other, but always include overlapping nodes.
+		if ((context.grid_threshold > 0) && (nodeCount > context.grid_threshold)) {
+			repulsionCutoff = Math.max(Math.min(2 * optimal_distance, maxDistance), maxWidth);
+			cellNodes = new int[nodeCount];
+			nodeCell = new int[nodeCount];
+		} else {
+			repulsionCutoff = 0;
+			cellNodes = null;
+			nodeCell = null;
+		}
+		cellStart = null;
+	}
+
+	/**
+	 * Copy the positions calculated by the iterations back to the nodes.
+	 */
+	private void storePositions() {
+		for (int i = 0; i < nodes.length; i++) {
+			LayoutNode v = nodes[i];
+			if (!nodeLocked[i])
+				v.increment(xPos[i] - v.getX(), yPos[i] - v.getY(), zPos[i] - v.getZ());
+		}
+	}
+
+	/**
+	 * Sort the nodes into square cells at least repulsionCutoff wide, so
+	 * that every node within the cutoff of a node is in the same cell or
+	 * in one of the eight cells around it.
+	 */
+	private void buildGrid() {
+		int nodeCount = nodes.length;
+		double minX = Double.MAX_VALUE;
+		double minY = Double.MAX_VALUE;
+		double maxX = -Double.MAX_VALUE;
+		double maxY = -Double.MAX_VALUE;
+		for (int i = 0; i < nodeCount; i++) {
+			minX = Math.min(minX, xPos[i]);
+			minY = Math.min(minY, yPos[i]);
+			maxX = Math.max(maxX, xPos[i]);
+			maxY = Math.max(maxY, yPos[i]);
+		}
+
+		// Use bigger cells if the nodes are spread out so far that
+		// there would be many more cells than nodes
+		gridCellSize = repulsionCutoff;
+		double cells = (((maxX - minX) / gridCellSize) + 1) * (((maxY - minY) / gridCellSize) + 1);
+		if (cells > 4.0 * nodeCount)
+			gridCellSize *= Math.sqrt(cells / (4.0 * nodeCount));
+
+		gridMinX = minX;
+		gridMinY = minY;
+		gridColumns = (int)((maxX - minX) / gridCellSize) + 1;
+		gridRows = (int)((maxY - minY) / gridCellSize) + 1;
+
+		int cellCount = gridColumns * gridRows;
+		if ((cellStart == null) || (cellStart.length < cellCount + 1))
+			cellStart = new int[cellCount + 1];
+		else
+			Arrays.fill(cellStart, 0);
+
+		for (int i = 0; i < nodeCount; i++) {
+			int column = Math.min((int)((xPos[i] - gridMinX) / gridCellSize), gridColumns - 1);
+			int row = Math.min((int)((yPos[i] - gridMinY) / gridCellSize), gridRows - 1);
+			nodeCell[i] = row * gridColumns + column;
+			cellStart[nodeCell[i] + 1]++;
+		}
+
+		for (int c = 0; c < cellCount; c++)
+			cellStart[c + 1] += cellStart[c];
+
+		int[] next = Arrays.copyOf(cellStart, cellCount);
+		for (int i = 0; i < nodeCount; i++)
+			cellNodes[next[nodeCell[i]]++] = i;
+	}
+
 	/**
 	 * Calculate the repulsive force
 	 *
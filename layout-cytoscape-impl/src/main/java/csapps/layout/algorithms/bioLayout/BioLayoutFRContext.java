@@ -60,6 +60,14 @@ public class BioLayoutFRContext extends BioLayoutContext implements TunableValid
 	@Tunable(description="Percent of graph used for node repulsion calculations:")
 	public double max_distance_factor = 20;
 
+	/**
+	 * Above this many nodes, only nodes close to each other
+	 * repel, found through a grid instead of comparing every
+	 * pair of nodes.
+	 */
+	@Tunable(description="Only repel nearby nodes above this many nodes (0: never):")
+	public int grid_threshold = 1000;
+
 	/**
 	 * The spread factor -- used to give extra space to expand
 	 */
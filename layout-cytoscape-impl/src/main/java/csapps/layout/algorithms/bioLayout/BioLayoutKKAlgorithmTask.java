@@ -29,7 +29,6 @@ package csapps.layout.algorithms.bioLayout;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 
@@ -92,10 +91,20 @@ public class BioLayoutKKAlgorithmTask extends BioLayoutAlgorithmTask {
 	private double[] m_anticollisionSpringScalars;
 
 	/**
-	 * Data arrays
+	 * Springs along the edges, grouped by node in compressed rows.  Every
+	 * other pair of nodes is joined by a 'disconnected' spring.
 	 */
-	private double[][] m_nodeDistanceSpringRestLengths;
-	private double[][] m_nodeDistanceSpringStrengths;
+	private int[] m_edgeSpringStart;
+	private int[] m_edgeSpringNode;
+	private double[] m_edgeSpringRestLengths;
+	private double[] m_edgeSpringStrengths;
+
+	/**
+	 * Rest lengths and strengths of the springs from the node whose partials
+	 * are being calculated to every other node
+	 */
+	private double[] m_nodeDistanceSpringRestLengths;
+	private double[] m_nodeDistanceSpringStrengths;
 
 	/**
 	 * Current layout pass
@@ -139,6 +148,12 @@ public class BioLayoutKKAlgorithmTask extends BioLayoutAlgorithmTask {
 		this.m_disconnectedNodeDistanceSpringRestLength=context.m_disconnectedNodeDistanceSpringRestLength;
 		this.m_anticollisionSpringStrength = context.m_anticollisionSpringStrength;
 		this.m_layoutPass = 2;
+	}
+
+	@Override
+	protected BioLayoutKKAlgorithmTask createPartitionTask() {
+		return new BioLayoutKKAlgorithmTask(displayName, networkView, nodesToLayOut, context, supportWeights,
+				layoutAttribute, undoSupport);
 	}
 
 	/**
@@ -348,9 +363,6 @@ public class BioLayoutKKAlgorithmTask extends BioLayoutAlgorithmTask {
 		PartialDerivatives partials;
 		PartialDerivatives furthestNodePartials = null;
 
-		m_nodeDistanceSpringRestLengths = new double[m_nodeCount][m_nodeCount];
-		m_nodeDistanceSpringStrengths = new double[m_nodeCount][m_nodeCount];
-
 		// Figure out our starting point
 		initialLocation = partition.getAverageLocation();
 
@@ -362,22 +374,20 @@ public class BioLayoutKKAlgorithmTask extends BioLayoutAlgorithmTask {
 		// Calculate our edge weights
 		partition.calculateEdgeWeights();
 
-		// Compute our distances
 		if (cancelled)
 			return;
 
-		taskMonitor.setProgress(0.02);
-		taskMonitor.setStatusMessage("Calculating node distances");
-
-		int[][] nodeDistances = calculateNodeDistances();
-
-		if (cancelled)
+		// Dense springs between every pair of nodes don't scale, so large
+		// partitions get the sparse stress model
+		if ((context.m_sparseStressThreshold > 0) && (m_nodeCount > context.m_sparseStressThreshold)) {
+			layoutPartitionSparse(initialLocation);
 			return;
+		}
 
 		taskMonitor.setProgress(0.04);
 		taskMonitor.setStatusMessage("Calculating spring constants");
 
-		calculateSpringData(nodeDistances);
+		calculateSpringData();
 
 		final double percentCompletedBeforePasses = 5.0d;
 		final double percentCompletedAfterPass1 = 60.0d;
@@ -462,6 +472,52 @@ public class BioLayoutKKAlgorithmTask extends BioLayoutAlgorithmTask {
 		taskMonitor.setProgress(percentCompletedAfterFinalPass/100.0);
 		taskMonitor.setStatusMessage("Updating display");
 
+		moveToInitialLocation(initialLocation);
+	}
+
+	/**
+	 * Lays out a large partition with the sparse stress model, which only
+	 * keeps springs to the neighbors of each node and to a set of pivots.
+	 */
+	private void layoutPartitionSparse(final LayoutPoint initialLocation) {
+		taskMonitor.setProgress(0.02);
+		taskMonitor.setStatusMessage("Calculating pivot distances");
+
+		final double defaultEdgeWeight = edgeWeighter.defaultEdgeWeight;
+		final SparseStressLayout layout = new SparseStressLayout(partition, m_nodeDistanceRestLengthConstant,
+				m_disconnectedNodeDistanceSpringRestLength, context.unweighted, defaultEdgeWeight);
+		layout.computePivots(context.m_sparseStressPivots);
+
+		if (cancelled)
+			return;
+
+		if (context.randomize)
+			layout.placeByPivots();
+
+		// A sweep moves every node once, but only part of the way toward
+		// its final position, so allow several for each iteration per node
+		final int sweeps = Math.max(1, (int) (m_averageIterationsPerNode * 5));
+		final double tolerance = m_nodeDistanceRestLengthConstant / 100.0;
+
+		for (int sweep = 0; sweep < sweeps; sweep++) {
+			if (cancelled)
+				return;
+
+			taskMonitor.setStatusMessage("Minimizing stress -- sweep " + (sweep + 1) + " of " + sweeps);
+			taskMonitor.setProgress(0.05 + ((0.90 * sweep) / sweeps));
+
+			if (layout.sweep() < tolerance)
+				break;
+		}
+
+		taskMonitor.setProgress(0.95);
+		taskMonitor.setStatusMessage("Updating display");
+
+		layout.apply();
+		moveToInitialLocation(initialLocation);
+	}
+
+	private void moveToInitialLocation(final LayoutPoint initialLocation) {
 		// Actually move the pieces around
 		// Note that we reset our min/max values before we start this
 		// so we can get an accurate min/max for paritioning
@@ -486,114 +542,73 @@ public class BioLayoutKKAlgorithmTask extends BioLayoutAlgorithmTask {
 		}
 	}
 
-	private int[][] calculateNodeDistances() {
-		int[][] distances = new int[m_nodeCount][];
-		LinkedList<Integer> queue = new LinkedList<Integer>();
-		boolean[] completedNodes = new boolean[m_nodeCount];
-		int toNode;
-		int fromNode;
-		int neighbor;
-		int toNodeDistance;
-		int neighborDistance;
-
-		for (LayoutNode v: partition.getNodeList()) {
-			fromNode = v.getIndex();
-
-			if (distances[fromNode] == null)
-				distances[fromNode] = new int[m_nodeCount];
-
-			Arrays.fill(distances[fromNode], Integer.MAX_VALUE);
-			distances[fromNode][fromNode] = 0;
-			Arrays.fill(completedNodes, false);
-			queue.add(Integer.valueOf(fromNode));
-
-			while (!(queue.isEmpty())) {
-				int index = ((Integer) queue.removeFirst()).intValue();
-
-				if (completedNodes[index])
-					continue;
-
-				completedNodes[index] = true;
-				toNode = index;
-				toNodeDistance = distances[fromNode][index];
-
-				if (index < fromNode) {
-					// Oh boy.  We've already got every distance from/to this node.
-					int distanceThroughToNode;
-
-					for (int i = 0; i < m_nodeCount; i++) {
-						if (distances[index][i] == Integer.MAX_VALUE)
-							continue;
-
-						distanceThroughToNode = toNodeDistance + distances[index][i];
-
-						if (distanceThroughToNode <= distances[fromNode][i]) {
-							// Any immediate neighbor of a node that's already been
-							// calculated for that does not already have a shorter path
-							// calculated from fromNode never will, and is thus complete.
-							if (distances[index][i] == 1)
-								completedNodes[i] = true;
-
-							distances[fromNode][i] = distanceThroughToNode;
-						}
-					}
-
-					// End for every node, update the distance using the distance
-					// from toNode.  So now we don't need to put any neighbors on the
-					// queue or anything, since they've already been taken care of by
-					// the previous calculation.
-					continue;
-				} // End if toNode has already had all of its distances calculated.
-
-				List<LayoutNode> neighborList = v.getNeighbors();
-				for (LayoutNode neighbor_v: neighborList) {
-					neighbor = neighbor_v.getIndex();
-
-					// We've already done everything we can here.
-					if (completedNodes[neighbor])
-						continue;
+	/**
+	 * Calculates the springs along the edges.  The ends of an edge are one
+	 * hop apart, so its spring only depends on the edge weight.  Where there
+	 * are several edges between two nodes the last one wins.
+	 */
+	private void calculateSpringData() {
+		final List<LayoutEdge> edges = partition.getEdgeList();
+		m_edgeSpringStart = new int[m_nodeCount + 1];
 
-					neighborDistance = distances[fromNode][neighbor];
+		for (LayoutEdge edge: edges) {
+			int node_i = edge.getSource().getIndex();
+			int node_j = edge.getTarget().getIndex();
 
-					if ((toNodeDistance != Integer.MAX_VALUE)
-					    && (neighborDistance > (toNodeDistance + 1))) {
-						distances[fromNode][neighbor] = toNodeDistance + 1;
-						queue.addLast(Integer.valueOf(neighbor));
-					}
-				}
+			// a node never pulls on itself
+			if (node_i != node_j) {
+				m_edgeSpringStart[node_i + 1]++;
+				m_edgeSpringStart[node_j + 1]++;
 			}
 		}
 
-		return distances;
-	}
+		for (int node_i = 0; node_i < m_nodeCount; node_i++)
+			m_edgeSpringStart[node_i + 1] += m_edgeSpringStart[node_i];
 
-	private void calculateSpringData(int[][] nodeDistances) {
-		// Set all springs to the default
-		for (int node_i = 0; node_i < m_nodeCount; node_i++) {
-			Arrays.fill(m_nodeDistanceSpringRestLengths[node_i],
-			            m_disconnectedNodeDistanceSpringRestLength);
-			Arrays.fill(m_nodeDistanceSpringStrengths[node_i],
-			            m_disconnectedNodeDistanceSpringStrength);
-		}
+		final int springCount = m_edgeSpringStart[m_nodeCount];
+		final int[] fill = Arrays.copyOf(m_edgeSpringStart, m_nodeCount);
+		m_edgeSpringNode = new int[springCount];
+		m_edgeSpringRestLengths = new double[springCount];
+		m_edgeSpringStrengths = new double[springCount];
 
 		// Calculate rest lengths and strengths based on node distance data.
-		for (LayoutEdge edge: partition.getEdgeList()) {
+		for (LayoutEdge edge: edges) {
 			int node_i = edge.getSource().getIndex();
 			int node_j = edge.getTarget().getIndex();
+
+			if (node_i == node_j)
+				continue;
+
 			double weight = context.unweighted ? edgeWeighter.defaultEdgeWeight : edge.getWeight();
-			
-			// System.out.println(edge);
-			if (nodeDistances[node_i][node_j] != Integer.MAX_VALUE) {
-				// Compute spring rest lengths.
-				m_nodeDistanceSpringRestLengths[node_i][node_j] = (m_nodeDistanceRestLengthConstant * nodeDistances[node_i][node_j]) / (weight);
-				m_nodeDistanceSpringRestLengths[node_j][node_i] = m_nodeDistanceSpringRestLengths[node_i][node_j];
-				// System.out.println("Setting spring ("+node_i+","+node_j+") ["+weight+"] length to "+m_nodeDistanceSpringRestLengths[node_j][node_i]);
-				// Compute spring strengths.
-				m_nodeDistanceSpringStrengths[node_i][node_j] = m_nodeDistanceStrengthConstant / (nodeDistances[node_i][node_j] * nodeDistances[node_i][node_j]);
-				m_nodeDistanceSpringStrengths[node_j][node_i] = m_nodeDistanceSpringStrengths[node_i][node_j];
-
-				// System.out.println("Setting spring ("+node_i+","+node_j+") strength to "+m_nodeDistanceSpringStrengths[node_j][node_i]);
-			}
+			double restLength = m_nodeDistanceRestLengthConstant / weight;
+			double strength = m_nodeDistanceStrengthConstant;
+
+			m_edgeSpringNode[fill[node_i]] = node_j;
+			m_edgeSpringRestLengths[fill[node_i]] = restLength;
+			m_edgeSpringStrengths[fill[node_i]++] = strength;
+			m_edgeSpringNode[fill[node_j]] = node_i;
+			m_edgeSpringRestLengths[fill[node_j]] = restLength;
+			m_edgeSpringStrengths[fill[node_j]++] = strength;
+		}
+
+		// Set all springs to the default
+		m_nodeDistanceSpringRestLengths = new double[m_nodeCount];
+		m_nodeDistanceSpringStrengths = new double[m_nodeCount];
+		Arrays.fill(m_nodeDistanceSpringRestLengths, m_disconnectedNodeDistanceSpringRestLength);
+		Arrays.fill(m_nodeDistanceSpringStrengths, m_disconnectedNodeDistanceSpringStrength);
+	}
+
+	/**
+	 * Puts the edge springs of the given node into the spring rows, or takes
+	 * them out again.
+	 */
+	private void loadSprings(int nodeIndex, boolean load) {
+		for (int s = m_edgeSpringStart[nodeIndex]; s < m_edgeSpringStart[nodeIndex + 1]; s++) {
+			int otherNodeIndex = m_edgeSpringNode[s];
+			m_nodeDistanceSpringRestLengths[otherNodeIndex] =
+				load ? m_edgeSpringRestLengths[s] : m_disconnectedNodeDistanceSpringRestLength;
+			m_nodeDistanceSpringStrengths[otherNodeIndex] =
+				load ? m_edgeSpringStrengths[s] : m_disconnectedNodeDistanceSpringStrength;
 		}
 	}
 
@@ -608,11 +623,11 @@ public class BioLayoutKKAlgorithmTask extends BioLayoutAlgorithmTask {
 	 */
 
 	// used to calculate the x and y portions of the partial
-	private double calculateSpringPartial(int pass, double distToTouch, int nodeIndex,
-	                                      int otherNodeIndex, double eucDist, double value,
+	private double calculateSpringPartial(int pass, double distToTouch, double springStrength,
+	                                      double springRestLength, double eucDist, double value,
 	                                      double radius) {
-		double incrementalChange = (m_nodeDistanceSpringScalars[pass] * (m_nodeDistanceSpringStrengths[nodeIndex][otherNodeIndex] * (value
-		                                                                                                                            - ((m_nodeDistanceSpringRestLengths[nodeIndex][otherNodeIndex] * value) / eucDist))));
+		double incrementalChange = (m_nodeDistanceSpringScalars[pass] * (springStrength * (value
+		                                                                                  - ((springRestLength * value) / eucDist))));
 
 		if (distToTouch < 0.0) {
 			incrementalChange += (m_anticollisionSpringScalars[pass] * (m_anticollisionSpringStrength * (value
@@ -623,11 +638,11 @@ public class BioLayoutKKAlgorithmTask extends BioLayoutAlgorithmTask {
 	}
 
 	// used to calculate the xx and yy portions of the partial
-	private double calculateSpringPartial3(int pass, double distToTouch, int nodeIndex,
-	                                       int otherNodeIndex, double eucDist3, double value,
+	private double calculateSpringPartial3(int pass, double distToTouch, double springStrength,
+	                                       double springRestLength, double eucDist3, double value,
 	                                       double radius) {
-		double incrementalChange = (m_nodeDistanceSpringScalars[pass] * (m_nodeDistanceSpringStrengths[nodeIndex][otherNodeIndex] * (1.0
-		                                                                                                                            - ((m_nodeDistanceSpringRestLengths[nodeIndex][otherNodeIndex] * value) / eucDist3))));
+		double incrementalChange = (m_nodeDistanceSpringScalars[pass] * (springStrength * (1.0
+		                                                                                  - ((springRestLength * value) / eucDist3))));
 
 		if (distToTouch < 0.0) {
 			incrementalChange += (m_anticollisionSpringScalars[m_layoutPass] * (m_anticollisionSpringStrength * (1.0
@@ -638,10 +653,10 @@ public class BioLayoutKKAlgorithmTask extends BioLayoutAlgorithmTask {
 	}
 
 	// used to calculate the xy portion of the partial
-	private double calculateSpringPartialCross(int pass, double distToTouch, int nodeIndex,
-	                                           int otherNodeIndex, double eucDist3, double value,
+	private double calculateSpringPartialCross(int pass, double distToTouch, double springStrength,
+	                                           double springRestLength, double eucDist3, double value,
 	                                           double radius) {
-		double incrementalChange = (m_nodeDistanceSpringScalars[pass] * (m_nodeDistanceSpringStrengths[nodeIndex][otherNodeIndex] * ((m_nodeDistanceSpringRestLengths[nodeIndex][otherNodeIndex] * value) / eucDist3)));
+		double incrementalChange = (m_nodeDistanceSpringScalars[pass] * (springStrength * ((springRestLength * value) / eucDist3)));
 
 		if (distToTouch < 0.0) {
 			incrementalChange += ((m_anticollisionSpringScalars[m_layoutPass] * (m_anticollisionSpringStrength * radius * value)) / eucDist3);
@@ -651,9 +666,8 @@ public class BioLayoutKKAlgorithmTask extends BioLayoutAlgorithmTask {
 	}
 
 	// Calculate the potential energy
-	private double calculatePE(int pass, double distToRest, double distToTouch, int nodeIndex,
-	                           int otherNodeIndex) {
-		double incrementalChange = (m_nodeDistanceSpringScalars[pass] * ((m_nodeDistanceSpringStrengths[nodeIndex][otherNodeIndex] * (distToRest * distToRest)) / 2));
+	private double calculatePE(int pass, double distToRest, double distToTouch, double springStrength) {
+		double incrementalChange = (m_nodeDistanceSpringScalars[pass] * ((springStrength * (distToRest * distToRest)) / 2));
 
 		if (distToTouch < 0.0) {
 			incrementalChange += (m_anticollisionSpringScalars[pass] * ((m_anticollisionSpringStrength * (distToTouch * distToTouch)) / 2));
@@ -698,6 +712,8 @@ public class BioLayoutKKAlgorithmTask extends BioLayoutAlgorithmTask {
 		int offsetTable = 0;
 		int nodeIndex = node.getIndex();
 
+		loadSprings(nodeIndex, true);
+
 		while (iterator.hasNext()) {
 			if (partialsList == null) {
 				otherNode = (LayoutNode) iterator.next();
@@ -742,80 +758,79 @@ public class BioLayoutKKAlgorithmTask extends BioLayoutAlgorithmTask {
 
 			euclideanDistanceCubed = euclideanDistance * euclideanDistance * euclideanDistance;
 			distanceFromTouching = euclideanDistance - (nodeRadius + otherNodeRadius);
-			distanceFromRest = (euclideanDistance
-			                   - m_nodeDistanceSpringRestLengths[nodeIndex][otherNodeIndex]);
+			double springRestLength = m_nodeDistanceSpringRestLengths[otherNodeIndex];
+			double springStrength = m_nodeDistanceSpringStrengths[otherNodeIndex];
+			distanceFromRest = (euclideanDistance - springRestLength);
 
 			// calculationProfile.start();
 			if (!reversed) {
-				partials.x += calculateSpringPartial(m_layoutPass, distanceFromTouching, nodeIndex,
-				                                     otherNodeIndex, euclideanDistance, deltaX,
+				partials.x += calculateSpringPartial(m_layoutPass, distanceFromTouching, springStrength,
+				                                     springRestLength, euclideanDistance, deltaX,
 				                                     radius);
-				partials.y += calculateSpringPartial(m_layoutPass, distanceFromTouching, nodeIndex,
-				                                     otherNodeIndex, euclideanDistance, deltaY,
+				partials.y += calculateSpringPartial(m_layoutPass, distanceFromTouching, springStrength,
+				                                     springRestLength, euclideanDistance, deltaY,
 				                                     radius);
 				partials.xx += calculateSpringPartial3(m_layoutPass, distanceFromTouching,
-				                                       nodeIndex, otherNodeIndex,
+				                                       springStrength, springRestLength,
 				                                       euclideanDistanceCubed, deltaY * deltaY,
 				                                       radius);
 				partials.yy += calculateSpringPartial3(m_layoutPass, distanceFromTouching,
-				                                       nodeIndex, otherNodeIndex,
+				                                       springStrength, springRestLength,
 				                                       euclideanDistanceCubed, deltaX * deltaX,
 				                                       radius);
 				partials.xy += calculateSpringPartialCross(m_layoutPass, distanceFromTouching,
-				                                           nodeIndex, otherNodeIndex,
+				                                           springStrength, springRestLength,
 				                                           euclideanDistanceCubed, deltaX * deltaY,
 				                                           radius);
 				potentialEnergy[0] += calculatePE(m_layoutPass, distanceFromRest,
-				                                  distanceFromTouching, nodeIndex, otherNodeIndex);
+				                                  distanceFromTouching, springStrength);
 			}
 
 			if (otherPartials != null) {
 				if (!reversed) {
 					otherPartials.x += calculateSpringPartial(m_layoutPass, distanceFromTouching,
-					                                          otherNodeIndex, nodeIndex,
+					                                          springStrength, springRestLength,
 					                                          euclideanDistance, -deltaX, radius);
 					otherPartials.y += calculateSpringPartial(m_layoutPass, distanceFromTouching,
-					                                          otherNodeIndex, nodeIndex,
+					                                          springStrength, springRestLength,
 					                                          euclideanDistance, -deltaY, radius);
 					otherPartials.xx += calculateSpringPartial3(m_layoutPass, distanceFromTouching,
-					                                            otherNodeIndex, nodeIndex,
+					                                            springStrength, springRestLength,
 					                                            euclideanDistanceCubed,
 					                                            deltaY * deltaY, radius);
 					otherPartials.yy += calculateSpringPartial3(m_layoutPass, distanceFromTouching,
-					                                            otherNodeIndex, nodeIndex,
+					                                            springStrength, springRestLength,
 					                                            euclideanDistanceCubed,
 					                                            deltaX * deltaX, radius);
 					otherPartials.xy += calculateSpringPartialCross(m_layoutPass,
 					                                                distanceFromTouching,
-					                                                nodeIndex, otherNodeIndex,
+					                                                springStrength, springRestLength,
 					                                                euclideanDistanceCubed,
 					                                                deltaX * deltaY, radius);
 					potentialEnergy[0] += calculatePE(m_layoutPass, distanceFromRest,
-					                                  distanceFromTouching, nodeIndex,
-					                                  otherNodeIndex);
+					                                  distanceFromTouching, springStrength);
 				} else {
 					otherPartials.x -= calculateSpringPartial(m_layoutPass, distanceFromTouching,
-					                                          otherNodeIndex, nodeIndex,
+					                                          springStrength, springRestLength,
 					                                          euclideanDistance, -deltaX, radius);
 					otherPartials.y -= calculateSpringPartial(m_layoutPass, distanceFromTouching,
-					                                          otherNodeIndex, nodeIndex,
+					                                          springStrength, springRestLength,
 					                                          euclideanDistance, -deltaY, radius);
 					otherPartials.xx -= calculateSpringPartial3(m_layoutPass, distanceFromTouching,
-					                                            nodeIndex, otherNodeIndex,
+					                                            springStrength, springRestLength,
 					                                            euclideanDistanceCubed,
 					                                            deltaY * deltaY, radius);
 					otherPartials.yy -= calculateSpringPartial3(m_layoutPass, distanceFromTouching,
-					                                            nodeIndex, otherNodeIndex,
+					                                            springStrength, springRestLength,
 					                                            euclideanDistanceCubed,
 					                                            deltaX * deltaX, radius);
 					otherPartials.xy -= calculateSpringPartialCross(m_layoutPass,
 					                                                distanceFromTouching,
-					                                                nodeIndex, otherNodeIndex,
+					                                                springStrength, springRestLength,
 					                                                euclideanDistanceCubed,
 					                                                deltaX * deltaY, radius);
 					potentialEnergy[0] -= calculatePE(m_layoutPass, distanceFromRest,
-					                                  distanceFromTouching, nodeIndex,
-					                                  otherNodeIndex);
+					                                  distanceFromTouching, springStrength);
 				}
 
 				// Update the euclidean distance
@@ -830,6 +845,8 @@ public class BioLayoutKKAlgorithmTask extends BioLayoutAlgorithmTask {
 			// calculationProfile.checkpoint();
 		} // end of while loop
 
+		loadSprings(nodeIndex, false);
+
 		if (!reversed)
 			partials.euclideanDistance = Math.sqrt((partials.x * partials.x)
 			                                       + (partials.y * partials.y));
@@ -45,6 +45,10 @@ public class BioLayoutKKContext extends BioLayoutContext implements TunableValid
 	public double m_anticollisionSpringStrength;
 	@Tunable(description="Number of layout passes:")
 	public int m_layoutPass = 2;
+	@Tunable(description="Use sparse stress model above this many nodes (0: never):")
+	public int m_sparseStressThreshold = 5000;
+	@Tunable(description="Number of pivots for the sparse stress model:")
+	public int m_sparseStressPivots = 50;
 	@Tunable(description="Don't partition graph before layout:", groups="Standard Settings")
 	public boolean singlePartition;
 	@Tunable(description="Use unweighted edges:", groups="Standard Settings")
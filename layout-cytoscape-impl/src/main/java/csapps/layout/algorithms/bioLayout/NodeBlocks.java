@@ -0,0 +1,95 @@
+package csapps.layout.algorithms.bioLayout;
+
+/*
+ * #%L
+ * Cytoscape Layout Algorithms Impl (layout-cytoscape-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs per-node computations over blocks of node indices on the common
+ * fork/join pool.  The layouts use this for the force or position updates
+ * of an iteration, where every node is handled independently.  When the
+ * partitions of a network are laid out concurrently, the blocks are forked
+ * within the same pool rather than handed to another one.
+ */
+final class NodeBlocks {
+
+	/**
+	 * Ranges up to this size are processed without further splitting.
+	 */
+	static final int BLOCK_SIZE = 256;
+
+	private static final ForkJoinPool POOL = ForkJoinPool.commonPool();
+
+	/**
+	 * The computation applied to each block of nodes.  It must only write
+	 * to the entries of the nodes in its own block.
+	 */
+	interface Body {
+		void apply(int from, int to);
+	}
+
+	private NodeBlocks() {
+	}
+
+	/**
+	 * Applies the body to the node indices in [0, count), returning once all
+	 * blocks are done.
+	 */
+	static void forEach(final int count, final Body body) {
+		if (count <= BLOCK_SIZE || POOL.getParallelism() < 2)
+			body.apply(0, count);
+		else if (ForkJoinTask.inForkJoinPool())
+			new BlockAction(body, 0, count).invoke();
+		else
+			POOL.invoke(new BlockAction(body, 0, count));
+	}
+
+	private static final class BlockAction extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final Body body;
+		private final int from;
+		private final int to;
+
+		BlockAction(final Body body, final int from, final int to) {
+			this.body = body;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= BLOCK_SIZE) {
+				body.apply(from, to);
+			} else {
+				final int mid = (from + to) >>> 1;
+				invokeAll(new BlockAction(body, from, mid), new BlockAction(body, mid, to));
+			}
+		}
+	}
+}
@@ -0,0 +1,669 @@
+package csapps.layout.algorithms.bioLayout;
+
+/*
+ * #%L
+ * Cytoscape Layout Algorithms Impl (layout-cytoscape-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cytoscape.view.layout.LayoutEdge;
+import org.cytoscape.view.layout.LayoutNode;
+import org.cytoscape.view.layout.LayoutPartition;
+
+/**
+ * Sparse stress model used by the Kamada-Kawai layout for large partitions.
+ * Instead of a spring between every pair of nodes, each node is attached to
+ * its neighbors and to a small set of pivot nodes whose shortest path
+ * distances are found by breadth first search.  Pivot springs are weighted
+ * by how many nodes they stand in for, nodes that come too close push each
+ * other apart, and the positions are improved by stress majorization.
+ * Memory grows with the number of nodes times the number of pivots rather
+ * than with the square of the number of nodes.
+ *
+ * @see "Mark Ortmann, Mirza Klimenta and Ulrik Brandes: A Sparse Stress Model. Graph Drawing 2016"
+ * @see "Ulrik Brandes and Christian Pich: Eigensolver Methods for Progressive Multidimensional Scaling of Large Data. Graph Drawing 2006"
+ */
+final class SparseStressLayout {
+
+	private static final int UNREACHABLE = Integer.MAX_VALUE;
+	private static final double EPSILON = 0.0000001D;
+	private static final double GOLDEN_ANGLE = Math.PI * (3.0 - Math.sqrt(5.0));
+
+	/**
+	 * The number of close nodes a node is pushed away from in one sweep.
+	 */
+	private static final int MAX_COLLISIONS = 16;
+
+	/**
+	 * The fraction of the way to its best position a node moves in a sweep.
+	 */
+	private static final double DAMPING = 0.75;
+
+	private final int nodeCount;
+	private final LayoutNode[] nodes;
+	private final boolean[] locked;
+	private double[] x;
+	private double[] y;
+	private double[] nextX;
+	private double[] nextY;
+	private final double[] moved;
+
+	// adjacency lists in compressed rows, both directions of every edge
+	private final int[] adjStart;
+	private final int[] adjNode;
+	private final double[] adjLength;
+
+	private int[] pivots = new int[0];
+	private int[][] pivotHops; // [pivot][node]
+	private int[][] regionCounts; // [pivot][h] = region nodes within h hops
+
+	// nodes sorted into square cells to find the ones that are too close
+	private double gridX;
+	private double gridY;
+	private double cellSize;
+	private int gridColumns;
+	private int gridRows;
+	private int[] cellStart;
+	private int[] cellNodes;
+
+	private final double restLength;
+	private final double disconnectedRestLength;
+	private final double hopLength;
+
+	/**
+	 * @param partition the partition to lay out, with its edge weights calculated
+	 * @param restLength the rest length of an edge of weight 1, and the
+	 *                   distance below which nodes push each other apart
+	 * @param disconnectedRestLength the rest length of a spring between nodes
+	 *                               that are not connected
+	 * @param unweighted whether to ignore the edge weights
+	 * @param defaultEdgeWeight the weight used for every edge if unweighted
+	 */
+	SparseStressLayout(final LayoutPartition partition, final double restLength,
+	                   final double disconnectedRestLength, final boolean unweighted,
+	                   final double defaultEdgeWeight) {
+		this.restLength = restLength;
+		this.disconnectedRestLength = disconnectedRestLength;
+
+		final List<LayoutNode> nodeList = partition.getNodeList();
+		nodeCount = nodeList.size();
+		nodes = new LayoutNode[nodeCount];
+		locked = new boolean[nodeCount];
+		x = new double[nodeCount];
+		y = new double[nodeCount];
+		nextX = new double[nodeCount];
+		nextY = new double[nodeCount];
+		moved = new double[nodeCount];
+
+		for (LayoutNode v: nodeList) {
+			final int i = v.getIndex();
+			nodes[i] = v;
+			locked[i] = v.isLocked();
+			x[i] = v.getX();
+			y[i] = v.getY();
+		}
+
+		final List<LayoutEdge> edgeList = partition.getEdgeList();
+		adjStart = new int[nodeCount + 1];
+
+		for (LayoutEdge edge: edgeList) {
+			final int i = edge.getSource().getIndex();
+			final int j = edge.getTarget().getIndex();
+
+			if (i != j) {
+				adjStart[i + 1]++;
+				adjStart[j + 1]++;
+			}
+		}
+
+		for (int i = 0; i < nodeCount; i++)
+			adjStart[i + 1] += adjStart[i];
+
+		adjNode = new int[adjStart[nodeCount]];
+		adjLength = new double[adjStart[nodeCount]];
+		final int[] fill = Arrays.copyOf(adjStart, nodeCount);
+
+		for (LayoutEdge edge: edgeList) {
+			final int i = edge.getSource().getIndex();
+			final int j = edge.getTarget().getIndex();
+
+			if (i == j)
+				continue;
+
+			final double weight = unweighted ? defaultEdgeWeight : edge.getWeight();
+			final double length = weight > 0.0 ? restLength / weight : restLength;
+			adjNode[fill[i]] = j;
+			adjLength[fill[i]++] = length;
+			adjNode[fill[j]] = i;
+			adjLength[fill[j]++] = length;
+		}
+
+		// pivot distances are counted in hops, so give a hop the length of
+		// an average edge to keep them in scale with the edge springs
+		double totalLength = 0.0;
+
+		for (double length: adjLength)
+			totalLength += length;
+
+		hopLength = adjLength.length > 0 ? totalLength / adjLength.length : restLength;
+	}
+
+	/**
+	 * Chooses up to the given number of pivots, each as far as possible from
+	 * the ones before it, and records every node's hop distance to them.
+	 * Nodes that cannot reach any pivot yet are picked first, so every
+	 * connected component gets a pivot while there are pivots left.
+	 */
+	void computePivots(final int pivotCount) {
+		final int count = Math.min(pivotCount, nodeCount);
+		final int[] chosen = new int[count];
+		final int[][] hops = new int[count][];
+		final int[] minHops = new int[nodeCount];
+		Arrays.fill(minHops, UNREACHABLE);
+
+		// start from the best connected node
+		int next = 0;
+
+		for (int i = 1; i < nodeCount; i++) {
+			if (degree(i) > degree(next))
+				next = i;
+		}
+
+		int found = 0;
+
+		while (found < count) {
+			chosen[found] = next;
+			hops[found] = breadthFirstHops(next);
+
+			for (int i = 0; i < nodeCount; i++)
+				minHops[i] = Math.min(minHops[i], hops[found][i]);
+
+			found++;
+			next = 0;
+
+			for (int i = 1; i < nodeCount; i++) {
+				if (minHops[i] > minHops[next])
+					next = i;
+			}
+
+			if (minHops[next] == 0)
+				break; // every node is a pivot
+		}
+
+		pivots = Arrays.copyOf(chosen, found);
+		pivotHops = Arrays.copyOf(hops, found);
+		computeRegions();
+	}
+
+	private int degree(final int i) {
+		return adjStart[i + 1] - adjStart[i];
+	}
+
+	private int[] breadthFirstHops(final int source) {
+		final int[] hops = new int[nodeCount];
+		final int[] queue = new int[nodeCount];
+		Arrays.fill(hops, UNREACHABLE);
+		hops[source] = 0;
+		queue[0] = source;
+		int head = 0;
+		int tail = 1;
+
+		while (head < tail) {
+			final int v = queue[head++];
+			final int h = hops[v] + 1;
+
+			for (int a = adjStart[v]; a < adjStart[v + 1]; a++) {
+				final int w = adjNode[a];
+
+				if (hops[w] == UNREACHABLE) {
+					hops[w] = h;
+					queue[tail++] = w;
+				}
+			}
+		}
+
+		return hops;
+	}
+
+	/**
+	 * Assigns every node to its closest pivot and counts, for each pivot,
+	 * how many of its nodes lie within each hop distance.  A pivot spring
+	 * for a node h hops away stands in for the pivot's nodes within h/2 hops.
+	 */
+	private void computeRegions() {
+		final int k = pivots.length;
+		final int[] region = new int[nodeCount];
+		final int[] maxHops = new int[k];
+		Arrays.fill(region, -1);
+
+		for (int i = 0; i < nodeCount; i++) {
+			int best = UNREACHABLE;
+
+			for (int q = 0; q < k; q++) {
+				if (pivotHops[q][i] < best) {
+					best = pivotHops[q][i];
+					region[i] = q;
+				}
+			}
+
+			if (region[i] >= 0)
+				maxHops[region[i]] = Math.max(maxHops[region[i]], best);
+		}
+
+		regionCounts = new int[k][];
+
+		for (int q = 0; q < k; q++)
+			regionCounts[q] = new int[maxHops[q] + 1];
+
+		for (int i = 0; i < nodeCount; i++) {
+			if (region[i] >= 0)
+				regionCounts[region[i]][pivotHops[region[i]][i]]++;
+		}
+
+		for (int q = 0; q < k; q++) {
+			for (int h = 1; h < regionCounts[q].length; h++)
+				regionCounts[q][h] += regionCounts[q][h - 1];
+		}
+	}
+
+	/**
+	 * Places the unlocked nodes by classical scaling of their distances to
+	 * the pivots, which gives the majorization a start close to its result.
+	 */
+	void placeByPivots() {
+		final int k = pivots.length;
+
+		if (k < 3)
+			return;
+
+		int maxHop = 0;
+
+		for (int q = 0; q < k; q++) {
+			for (int i = 0; i < nodeCount; i++) {
+				if (pivotHops[q][i] != UNREACHABLE)
+					maxHop = Math.max(maxHop, pivotHops[q][i]);
+			}
+		}
+
+		// double center the squared distances without keeping the n by k matrix
+		final double[] colMean = new double[k];
+		double grandMean = 0.0;
+
+		for (int q = 0; q < k; q++) {
+			for (int i = 0; i < nodeCount; i++)
+				colMean[q] += squaredDistance(q, i, maxHop);
+
+			colMean[q] /= nodeCount;
+			grandMean += colMean[q] / k;
+		}
+
+		final double[] row = new double[k];
+		final double[][] product = new double[k][k];
+
+		for (int i = 0; i < nodeCount; i++) {
+			centeredRow(i, maxHop, colMean, grandMean, row);
+
+			for (int q = 0; q < k; q++) {
+				for (int r = q; r < k; r++)
+					product[q][r] += row[q] * row[r];
+			}
+		}
+
+		for (int q = 0; q < k; q++) {
+			for (int r = 0; r < q; r++)
+				product[q][r] = product[r][q];
+		}
+
+		final double[] first = dominantEigenvector(product, null);
+		final double[] second = dominantEigenvector(product, first);
+		final double[] placedX = new double[nodeCount];
+		final double[] placedY = new double[nodeCount];
+
+		for (int i = 0; i < nodeCount; i++) {
+			centeredRow(i, maxHop, colMean, grandMean, row);
+
+			for (int q = 0; q < k; q++) {
+				placedX[i] += row[q] * first[q];
+				placedY[i] += row[q] * second[q];
+			}
+		}
+
+		// scale so that edges have their rest lengths on average
+		double placed = 0.0;
+		double wanted = 0.0;
+
+		for (int i = 0; i < nodeCount; i++) {
+			for (int a = adjStart[i]; a < adjStart[i + 1]; a++) {
+				final int j = adjNode[a];
+				placed += Math.hypot(placedX[i] - placedX[j], placedY[i] - placedY[j]);
+				wanted += adjLength[a];
+			}
+		}
+
+		final double scale = placed > EPSILON ? wanted / placed : 1.0;
+
+		// Nodes with the same distances to all pivots, like the leaves of a
+		// star, land on the same spot.  Lay each such group out as a
+		// sunflower around that spot, so they start roughly a rest length apart.
+		final double cell = restLength / 2.0;
+		final Map<Long, Integer> placedAt = new HashMap<Long, Integer>();
+
+		for (int i = 0; i < nodeCount; i++) {
+			if (locked[i])
+				continue;
+
+			final double px = placedX[i] * scale;
+			final double py = placedY[i] * scale;
+			final Long key = (Math.round(px / cell) << 32) ^ (Math.round(py / cell) & 0xffffffffL);
+			final Integer before = placedAt.get(key);
+			final int rank = before == null ? 0 : before.intValue();
+			placedAt.put(key, rank + 1);
+
+			final double radius = cell * Math.sqrt(rank);
+			x[i] = px + (radius * Math.cos(rank * GOLDEN_ANGLE));
+			y[i] = py + (radius * Math.sin(rank * GOLDEN_ANGLE));
+		}
+	}
+
+	private double squaredDistance(final int q, final int i, final int maxHop) {
+		final int h = pivotHops[q][i];
+		final double d = (h == UNREACHABLE ? maxHop + 1 : h) * hopLength;
+
+		return d * d;
+	}
+
+	private void centeredRow(final int i, final int maxHop, final double[] colMean,
+	                         final double grandMean, final double[] row) {
+		final int k = row.length;
+		double rowMean = 0.0;
+
+		for (int q = 0; q < k; q++) {
+			row[q] = squaredDistance(q, i, maxHop);
+			rowMean += row[q] / k;
+		}
+
+		for (int q = 0; q < k; q++)
+			row[q] = -0.5 * (row[q] - rowMean - colMean[q] + grandMean);
+	}
+
+	/**
+	 * Power iteration on a symmetric matrix, keeping the vector orthogonal
+	 * to the given one if there is one.
+	 */
+	private static double[] dominantEigenvector(final double[][] matrix, final double[] orthogonalTo) {
+		final int k = matrix.length;
+		double[] v = new double[k];
+
+		for (int q = 0; q < k; q++)
+			v[q] = (q % 2 == 0 ? 1.0 : -1.0) / (q + 1);
+
+		for (int iteration = 0; iteration < 100; iteration++) {
+			if (orthogonalTo != null) {
+				double dot = 0.0;
+
+				for (int q = 0; q < k; q++)
+					dot += v[q] * orthogonalTo[q];
+
+				for (int q = 0; q < k; q++)
+					v[q] -= dot * orthogonalTo[q];
+			}
+
+			final double[] next = new double[k];
+			double norm = 0.0;
+
+			for (int q = 0; q < k; q++) {
+				for (int r = 0; r < k; r++)
+					next[q] += matrix[q][r] * v[r];
+
+				norm += next[q] * next[q];
+			}
+
+			norm = Math.sqrt(norm);
+
+			if (norm < EPSILON)
+				break;
+
+			double change = 0.0;
+
+			for (int q = 0; q < k; q++) {
+				next[q] /= norm;
+				change += Math.abs(next[q] - v[q]);
+			}
+
+			v = next;
+
+			if (change < 1e-9)
+				break;
+		}
+
+		return v;
+	}
+
+	/**
+	 * Moves every unlocked node once to the position that minimizes its
+	 * stress with the others held fixed.
+	 *
+	 * @return the largest distance a node moved
+	 */
+	double sweep() {
+		buildGrid();
+
+		NodeBlocks.forEach(nodeCount, new NodeBlocks.Body() {
+			public void apply(final int from, final int to) {
+				for (int i = from; i < to; i++)
+					update(i);
+			}
+		});
+
+		double[] swap = x;
+		x = nextX;
+		nextX = swap;
+		swap = y;
+		y = nextY;
+		nextY = swap;
+
+		double maxMoved = 0.0;
+
+		for (int i = 0; i < nodeCount; i++)
+			maxMoved = Math.max(maxMoved, moved[i]);
+
+		return maxMoved;
+	}
+
+	private void update(final int i) {
+		if (locked[i]) {
+			nextX[i] = x[i];
+			nextY[i] = y[i];
+			moved[i] = 0.0;
+
+			return;
+		}
+
+		final double[] sum = new double[3];
+
+		for (int a = adjStart[i]; a < adjStart[i + 1]; a++)
+			addTerm(i, adjNode[a], adjLength[a], 1.0, sum);
+
+		for (int q = 0; q < pivots.length; q++) {
+			final int p = pivots[q];
+			final int h = pivotHops[q][i];
+
+			if (h == UNREACHABLE) {
+				addTerm(i, p, disconnectedRestLength, 1.0, sum);
+			} else if (h > 1) {
+				// pivots at 0 or 1 hops are the node itself or a neighbor
+				final int[] counts = regionCounts[q];
+				addTerm(i, p, h * hopLength, counts[Math.min(h / 2, counts.length - 1)], sum);
+			}
+		}
+
+		addCollisionTerms(i, sum);
+
+		if (sum[2] > 0.0) {
+			// all nodes move at once, so only go part of the way to keep
+			// nodes that push each other from swapping places every sweep
+			nextX[i] = x[i] + (DAMPING * ((sum[0] / sum[2]) - x[i]));
+			nextY[i] = y[i] + (DAMPING * ((sum[1] / sum[2]) - y[i]));
+		} else {
+			nextX[i] = x[i];
+			nextY[i] = y[i];
+		}
+
+		moved[i] = Math.hypot(nextX[i] - x[i], nextY[i] - y[i]);
+	}
+
+	/**
+	 * Adds the position node j would like node i to take, d away from it,
+	 * with weight s/d^2.  The totals are kept in sum as x, y and weight.
+	 */
+	private void addTerm(final int i, final int j, final double d, final double s,
+	                     final double[] sum) {
+		final double w = s / (d * d);
+		final double dx = x[i] - x[j];
+		final double dy = y[i] - y[j];
+		final double dist = Math.sqrt((dx * dx) + (dy * dy));
+		double ux;
+		double uy;
+
+		if (dist < EPSILON) {
+			// pick a direction that differs per pair and is opposite for j
+			final double angle = GOLDEN_ANGLE * (i < j ? (31.0 * i) + j : (31.0 * j) + i);
+			final double sign = i < j ? 1.0 : -1.0;
+			ux = sign * Math.cos(angle);
+			uy = sign * Math.sin(angle);
+		} else {
+			ux = dx / dist;
+			uy = dy / dist;
+		}
+
+		sum[0] += w * (x[j] + (d * ux));
+		sum[1] += w * (y[j] + (d * uy));
+		sum[2] += w;
+	}
+
+	/**
+	 * Pushes node i away from nodes that are closer than the rest length.
+	 * Without this, nodes that relate to the pivots in the same way, like
+	 * the leaves of a star, would be drawn on top of each other.
+	 */
+	private void addCollisionTerms(final int i, final double[] sum) {
+		final int column = column(x[i]);
+		final int row = row(y[i]);
+		int found = 0;
+
+		for (int r = Math.max(0, row - 1); r <= Math.min(gridRows - 1, row + 1); r++) {
+			for (int c = Math.max(0, column - 1); c <= Math.min(gridColumns - 1, column + 1); c++) {
+				final int cell = (r * gridColumns) + c;
+				final int start = cellStart[cell];
+				final int size = cellStart[cell + 1] - start;
+
+				// each node starts at a different place in a crowded cell so
+				// the pushes are spread over all of its nodes
+				for (int e = 0; e < size; e++) {
+					final int j = cellNodes[start + (int) ((e + (i * 7919L)) % size)];
+
+					if (j == i)
+						continue;
+
+					final double dx = x[i] - x[j];
+					final double dy = y[i] - y[j];
+
+					final double squared = (dx * dx) + (dy * dy);
+
+					if (squared >= (restLength * restLength))
+						continue;
+
+					// the closer they are the harder they push, so that
+					// crowded nodes cannot pile up however many there are
+					final double closest = restLength / 10.0;
+					addTerm(i, j, restLength, (restLength * restLength) / Math.max(squared, closest * closest), sum);
+
+					if (++found == MAX_COLLISIONS)
+						return;
+				}
+			}
+		}
+	}
+
+	private void buildGrid() {
+		double minX = Double.MAX_VALUE;
+		double minY = Double.MAX_VALUE;
+		double maxX = -Double.MAX_VALUE;
+		double maxY = -Double.MAX_VALUE;
+
+		for (int i = 0; i < nodeCount; i++) {
+			minX = Math.min(minX, x[i]);
+			minY = Math.min(minY, y[i]);
+			maxX = Math.max(maxX, x[i]);
+			maxY = Math.max(maxY, y[i]);
+		}
+
+		// cells of at least the rest length, and not many more than nodes
+		final double extent = Math.max(maxX - minX, maxY - minY);
+		cellSize = Math.max(restLength, extent / Math.sqrt(4.0 * nodeCount));
+		gridX = minX;
+		gridY = minY;
+		gridColumns = (int) ((maxX - minX) / cellSize) + 1;
+		gridRows = (int) ((maxY - minY) / cellSize) + 1;
+
+		final int cells = gridColumns * gridRows;
+		cellStart = new int[cells + 1];
+		cellNodes = new int[nodeCount];
+		final int[] cellOf = new int[nodeCount];
+
+		for (int i = 0; i < nodeCount; i++) {
+			cellOf[i] = (row(y[i]) * gridColumns) + column(x[i]);
+			cellStart[cellOf[i] + 1]++;
+		}
+
+		for (int c = 0; c < cells; c++)
+			cellStart[c + 1] += cellStart[c];
+
+		final int[] fill = Arrays.copyOf(cellStart, cells);
+
+		for (int i = 0; i < nodeCount; i++)
+			cellNodes[fill[cellOf[i]]++] = i;
+	}
+
+	private int column(final double px) {
+		return Math.min(gridColumns - 1, (int) ((px - gridX) / cellSize));
+	}
+
+	private int row(final double py) {
+		return Math.min(gridRows - 1, (int) ((py - gridY) / cellSize));
+	}
+
+	/**
+	 * Copies the computed positions to the unlocked layout nodes.
+	 */
+	void apply() {
+		for (int i = 0; i < nodeCount; i++) {
+			if (!locked[i])
+				nodes[i].setLocation(x[i], y[i]);
+		}
+	}
+}
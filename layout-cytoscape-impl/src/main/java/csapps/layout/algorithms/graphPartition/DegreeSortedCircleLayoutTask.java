@@ -28,25 +28,31 @@ package csapps.layout.algorithms.graphPartition;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+import org.cytoscape.layout.internal.util.AbstractConcurrentPartitionLayoutTask;
 import org.cytoscape.model.CyEdge;
 import org.cytoscape.model.CyNetwork;
 import org.cytoscape.model.CyNode;
 import org.cytoscape.model.CyTable;
-import org.cytoscape.view.layout.AbstractPartitionLayoutTask;
+import org.cytoscape.model.bulk.BulkCyNetwork;
+import org.cytoscape.model.bulk.NetworkSnapshot;
 import org.cytoscape.view.layout.LayoutNode;
 import org.cytoscape.view.layout.LayoutPartition;
 import org.cytoscape.view.model.CyNetworkView;
 import org.cytoscape.view.model.View;
+import org.cytoscape.work.TaskMonitor;
 import org.cytoscape.work.undo.UndoSupport;
 
-public class DegreeSortedCircleLayoutTask extends AbstractPartitionLayoutTask {
+public class DegreeSortedCircleLayoutTask extends AbstractConcurrentPartitionLayoutTask {
 	
 	private static final String DEGREE_ATTR_NAME = "degree.layout";
 	
 	private final CyNetwork network;
+	private final DegreeSortedCircleContext context;
 
 	/**
 	 * Creates a new GridNodeLayout object.
@@ -56,15 +62,27 @@ public class DegreeSortedCircleLayoutTask extends AbstractPartitionLayoutTask {
 		super(displayName, context.singlePartition, networkView, nodesToLayOut, attrName, undo);
 
 		this.network = networkView.getModel();
+		this.context = context;
 	}
 
 	@Override
-	public void layoutPartition(LayoutPartition partition) {
-		// Create attribute
+	protected DegreeSortedCircleLayoutTask createPartitionTask() {
+		return new DegreeSortedCircleLayoutTask(displayName, networkView, nodesToLayOut, context, layoutAttribute,
+				undoSupport);
+	}
+
+	@Override
+	public void doLayout(final TaskMonitor taskMonitor) {
+		// Create attribute before the partitions get laid out concurrently
 		final CyTable table = network.getDefaultNodeTable();
 		if (table.getColumn(DEGREE_ATTR_NAME) == null)
 			table.createColumn(DEGREE_ATTR_NAME, Integer.class, false);
 
+		super.doLayout(taskMonitor);
+	}
+
+	@Override
+	public void layoutPartition(LayoutPartition partition) {
 		// just add the unlocked nodes
 		final List<LayoutNode> nodes = new ArrayList<LayoutNode>();
 		for (final LayoutNode ln : partition.getNodeList()) {
@@ -72,24 +90,29 @@ public class DegreeSortedCircleLayoutTask extends AbstractPartitionLayoutTask {
 				nodes.add(ln);
 		}
 
+		if (cancelled)
+			return;
+
+		// Count the degrees once, from the adjacency snapshot of the model's
+		// networks, instead of building adjacent edge lists for every comparison
+		final NetworkSnapshot snapshot = network instanceof BulkCyNetwork
+				? ((BulkCyNetwork) network).getAdjacencySnapshot() : null;
+		final Map<LayoutNode, Integer> degrees = new HashMap<LayoutNode, Integer>(nodes.size() * 4 / 3 + 1);
+		for (final LayoutNode ln : nodes) {
+			final int degree = getDegree(snapshot, ln.getNode());
+			degrees.put(ln, degree);
+
+			// Create Degree Attribute
+			ln.getRow().set(DEGREE_ATTR_NAME, degree);
+		}
+
 		if (cancelled)
 			return;
 
 		// sort the Nodes based on the degree
 		Collections.sort(nodes, new Comparator<LayoutNode>() {
 			public int compare(LayoutNode o1, LayoutNode o2) {
-				final CyNode node1 = o1.getNode();
-				final CyNode node2 = o2.getNode();
-				// FIXME: should allow parametrization of edge type? (expose as
-				// tunable)
-				final int d1 = network.getAdjacentEdgeList(node1, CyEdge.Type.ANY).size();
-				final int d2 = network.getAdjacentEdgeList(node2, CyEdge.Type.ANY).size();
-
-				// Create Degree Attribute
-				o1.getRow().set(DEGREE_ATTR_NAME, d1);
-				o2.getRow().set(DEGREE_ATTR_NAME, d2);
-
-				return (d2 - d1);
+				return degrees.get(o2) - degrees.get(o1);
 			}
 
 			public boolean equals(Object o) {
@@ -112,4 +135,22 @@ public class DegreeSortedCircleLayoutTask extends AbstractPartitionLayoutTask {
 			partition.moveNodeToLocation(node);
 		}
 	}
+
+	// FIXME: should allow parametrization of edge type? (expose as tunable)
+	private int getDegree(final NetworkSnapshot snapshot, final CyNode node) {
+		if (snapshot == null)
+			return network.getAdjacentEdgeList(node, CyEdge.Type.ANY).size();
+
+		final int index = snapshot.getNodeIndex(node);
+		if (index < 0)
+			return 0;
+
+		int degree = 0;
+		final int end = snapshot.getAdjacencyEnd(index);
+		for (int slot = snapshot.getAdjacencyStart(index); slot < end; slot++) {
+			if (snapshot.matches(slot, CyEdge.Type.ANY))
+				degree++;
+		}
+		return degree;
+	}
 }
@@ -29,10 +29,10 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 
+import org.cytoscape.layout.internal.util.AbstractConcurrentPartitionLayoutTask;
 import org.cytoscape.model.CyEdge;
 import org.cytoscape.model.CyNetwork;
 import org.cytoscape.model.CyNode;
-import org.cytoscape.view.layout.AbstractPartitionLayoutTask;
 import org.cytoscape.view.layout.LayoutNode;
 import org.cytoscape.view.layout.LayoutPartition;
 import org.cytoscape.view.model.CyNetworkView;
@@ -46,7 +46,7 @@ import cern.colt.map.tlong.OpenLongIntHashMap;
 import cern.colt.matrix.tdouble.DoubleMatrix1D;
 import cern.colt.matrix.tdouble.impl.DenseDoubleMatrix1D;
 
-public class ISOMLayoutTask  extends AbstractPartitionLayoutTask {
+public class ISOMLayoutTask  extends AbstractConcurrentPartitionLayoutTask {
 
 	private int epoch;
 	private double adaption;
@@ -69,6 +69,11 @@ public class ISOMLayoutTask  extends AbstractPartitionLayoutTask {
 		network = networkView.getModel();
 		q = new LongArrayList();
 	}
+
+	@Override
+	protected ISOMLayoutTask createPartitionTask() {
+		return new ISOMLayoutTask(displayName, networkView, nodesToLayOut, context, layoutAttribute, undoSupport);
+	}
 	
 	public void layoutPartition(LayoutPartition partition) {
 		this.partition = partition;
@@ -50,6 +50,15 @@ public class CyActivator extends AbstractCyActivator {
         forceDirectedLayoutProps.setProperty(TITLE,forceDirectedLayout.toString());
         forceDirectedLayoutProps.setProperty(MENU_GRAVITY,"10.5");
 		registerService(bc,forceDirectedLayout,CyLayoutAlgorithm.class, forceDirectedLayoutProps);
+
+		MultilevelLayout multilevelLayout = new MultilevelLayout(undo);
+
+		Properties multilevelLayoutProps = new Properties();
+		multilevelLayoutProps.setProperty(PREFERRED_MENU,"Layout.Cytoscape Layouts");
+		multilevelLayoutProps.setProperty("preferredTaskManager","menu");
+		multilevelLayoutProps.setProperty(TITLE,multilevelLayout.toString());
+		multilevelLayoutProps.setProperty(MENU_GRAVITY,"10.6");
+		registerService(bc,multilevelLayout,CyLayoutAlgorithm.class, multilevelLayoutProps);
 	}
 }
 
@@ -31,8 +31,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.cytoscape.layout.internal.util.AbstractConcurrentPartitionLayoutTask;
 import org.cytoscape.model.CyNode;
-import org.cytoscape.view.layout.AbstractPartitionLayoutTask;
 import org.cytoscape.view.layout.LayoutEdge;
 import org.cytoscape.view.layout.LayoutNode;
 import org.cytoscape.view.layout.LayoutPartition;
@@ -53,7 +53,7 @@ import prefuse.util.force.SpringForce;
  * 
  * @see <a href="http://prefuse.org">Prefuse web site</a>
  */
-public class ForceDirectedLayoutTask extends AbstractPartitionLayoutTask {
+public class ForceDirectedLayoutTask extends AbstractConcurrentPartitionLayoutTask {
 
 	private ForceSimulator m_fsim;
 	private ForceDirectedLayout.Integrators integrator;
@@ -81,6 +81,18 @@ public class ForceDirectedLayoutTask extends AbstractPartitionLayoutTask {
 
 		forceItems = new HashMap<LayoutNode, ForceItem>();
 	}
+
+	@Override
+	protected ForceDirectedLayoutTask createPartitionTask() {
+		return new ForceDirectedLayoutTask(displayName, networkView, nodesToLayOut, context, integrator,
+				layoutAttribute, undoSupport);
+	}
+
+	@Override
+	protected boolean isLayoutParallel(LayoutPartition part) {
+		// The simulator splits the forces of big partitions over its own threads
+		return part.size() >= ForceSimulator.PARALLEL_THRESHOLD;
+	}
 	
 	
 	@Override
@@ -0,0 +1,83 @@
+package org.cytoscape.prefuse.layouts.internal;
+
+/*
+ * #%L
+ * Cytoscape Prefuse Layout Impl (layout-prefuse-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import prefuse.util.force.DragForce;
+import prefuse.util.force.ForceItem;
+import prefuse.util.force.ForceSimulator;
+import prefuse.util.force.NBodyForce;
+import prefuse.util.force.SpringForce;
+
+/**
+ * Refines a level with the same forces and cooling schedule as the
+ * force-directed layout.
+ */
+final class ForceSimulatorRefiner implements MultilevelRefiner {
+
+	@Override
+	public void refine(final MultilevelGraph graph, final float[] x, final float[] y, final int iterations,
+			final MultilevelLayoutTask task) {
+		final MultilevelLayoutContext context = task.getContext();
+
+		final ForceSimulator fsim = new ForceSimulator();
+		fsim.addForce(new NBodyForce());
+		fsim.addForce(new SpringForce());
+		fsim.addForce(new DragForce());
+
+		final ForceItem[] items = new ForceItem[graph.nodeCount];
+		for (int u = 0; u < graph.nodeCount; u++) {
+			final ForceItem fitem = new ForceItem();
+			// Heavier nodes push harder, so that groups keep about their own
+			// radius away from each other
+			fitem.mass = (float) (context.defaultNodeMass * Math.sqrt(graph.nodeSize[u]));
+			fitem.location[0] = x[u];
+			fitem.location[1] = y[u];
+			items[u] = fitem;
+			fsim.addItem(fitem);
+		}
+
+		for (int u = 0; u < graph.nodeCount; u++) {
+			for (int i = graph.edgeStart[u]; i < graph.edgeStart[u + 1]; i++) {
+				final int v = graph.edgeTarget[i];
+				if (u < v)
+					fsim.addSpring(items[u], items[v], (float) context.defaultSpringCoefficient,
+							graph.edgeLength[i]);
+			}
+		}
+
+		long timestep = 1000L;
+		for (int i = 0; i < iterations && !task.wasCancelled(); i++) {
+			timestep *= (1.0 - i / (double) iterations);
+			long step = timestep + 50;
+			fsim.runSimulator(step);
+			task.iterationDone();
+		}
+
+		for (int u = 0; u < graph.nodeCount; u++) {
+			x[u] = items[u].location[0];
+			y[u] = items[u].location[1];
+		}
+	}
+}
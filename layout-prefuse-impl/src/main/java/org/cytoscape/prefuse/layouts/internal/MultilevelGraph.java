@@ -0,0 +1,279 @@
+package org.cytoscape.prefuse.layouts.internal;
+
+/*
+ * #%L
+ * Cytoscape Prefuse Layout Impl (layout-prefuse-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * One level of a multilevel layout: a graph whose nodes each stand for one
+ * or more nodes of the level below it.  The edges are kept in compressed
+ * rows, and every edge is in the rows of both of its nodes.
+ */
+final class MultilevelGraph {
+
+	/**
+	 * Number of nodes of this level
+	 */
+	final int nodeCount;
+
+	/**
+	 * Number of nodes of the finest level that each node stands for
+	 */
+	final int[] nodeSize;
+
+	// The neighbours of node u are edgeTarget[edgeStart[u]] up to
+	// edgeTarget[edgeStart[u + 1] - 1]
+	final int[] edgeStart;
+	final int[] edgeTarget;
+	final float[] edgeWeight;
+	final float[] edgeLength;
+
+	/**
+	 * The node of the next coarser level that each node was collapsed into,
+	 * or null if this is the coarsest level
+	 */
+	int[] coarseNode;
+
+	private MultilevelGraph(final int nodeCount, final int[] nodeSize, final int[] edgeStart,
+			final int[] edgeTarget, final float[] edgeWeight, final float[] edgeLength) {
+		this.nodeCount = nodeCount;
+		this.nodeSize = nodeSize;
+		this.edgeStart = edgeStart;
+		this.edgeTarget = edgeTarget;
+		this.edgeWeight = edgeWeight;
+		this.edgeLength = edgeLength;
+	}
+
+	/**
+	 * Creates a level from a list of undirected edges.  Self loops are
+	 * dropped, and parallel edges are merged into one edge with the sum of
+	 * their weights and the shortest of their lengths.
+	 */
+	static MultilevelGraph create(final int nodeCount, final int[] nodeSize, final int edgeCount,
+			final int[] source, final int[] target, final float[] weight, final float[] length) {
+		final int[] start = new int[nodeCount + 1];
+		for (int e = 0; e < edgeCount; e++) {
+			if (source[e] != target[e]) {
+				start[source[e] + 1]++;
+				start[target[e] + 1]++;
+			}
+		}
+
+		for (int u = 0; u < nodeCount; u++)
+			start[u + 1] += start[u];
+
+		int[] edgeTarget = new int[start[nodeCount]];
+		float[] edgeWeight = new float[start[nodeCount]];
+		float[] edgeLength = new float[start[nodeCount]];
+		final int[] next = Arrays.copyOf(start, nodeCount);
+		for (int e = 0; e < edgeCount; e++) {
+			final int s = source[e];
+			final int t = target[e];
+			if (s == t)
+				continue;
+
+			edgeTarget[next[s]] = t;
+			edgeWeight[next[s]] = weight[e];
+			edgeLength[next[s]++] = length[e];
+			edgeTarget[next[t]] = s;
+			edgeWeight[next[t]] = weight[e];
+			edgeLength[next[t]++] = length[e];
+		}
+
+		// Merge parallel edges row by row.  Rows only get shorter, so they
+		// can be compacted in place.  position[v] is where v was last put,
+		// which is in the current row only if v was seen in this row.
+		final int[] position = new int[nodeCount];
+		Arrays.fill(position, -1);
+		int count = 0;
+		for (int u = 0; u < nodeCount; u++) {
+			final int rowStart = count;
+			for (int i = start[u]; i < start[u + 1]; i++) {
+				final int v = edgeTarget[i];
+				final int p = position[v];
+				if (p >= rowStart) {
+					edgeWeight[p] += edgeWeight[i];
+					edgeLength[p] = Math.min(edgeLength[p], edgeLength[i]);
+				} else {
+					position[v] = count;
+					edgeTarget[count] = v;
+					edgeWeight[count] = edgeWeight[i];
+					edgeLength[count] = edgeLength[i];
+					count++;
+				}
+			}
+			start[u] = rowStart;
+		}
+		start[nodeCount] = count;
+
+		if (count < edgeTarget.length) {
+			edgeTarget = Arrays.copyOf(edgeTarget, count);
+			edgeWeight = Arrays.copyOf(edgeWeight, count);
+			edgeLength = Arrays.copyOf(edgeLength, count);
+		}
+
+		return new MultilevelGraph(nodeCount, nodeSize, start, edgeTarget, edgeWeight, edgeLength);
+	}
+
+	/**
+	 * @return the number of undirected edges of this level
+	 */
+	int getEdgeCount() {
+		return edgeTarget.length / 2;
+	}
+
+	/**
+	 * Creates the next coarser level.  Nodes are first matched in pairs
+	 * along their strongest edges, and the nodes that are left without an
+	 * unmatched neighbour then join the pair of their strongest neighbour.
+	 * Matching alone would shrink a star by a single node per level, while
+	 * this way every node that has a neighbour ends up in a group of at
+	 * least two, so each level is at most about half the size of this one.
+	 *
+	 * @param springLength the length of an edge between two single nodes;
+	 *        coarse edges get longer with the size of their nodes
+	 */
+	MultilevelGraph coarsen(final double springLength) {
+		final int[] cluster = new int[nodeCount];
+		Arrays.fill(cluster, -1);
+		int clusterCount = 0;
+
+		// Nodes with few neighbours choose first, so that hubs don't take
+		// away the only partner of their leaves
+		for (final int u: orderByDegree()) {
+			if (cluster[u] >= 0)
+				continue;
+
+			final int v = strongestNeighbour(u, cluster, true);
+			if (v >= 0) {
+				cluster[u] = clusterCount;
+				cluster[v] = clusterCount++;
+			}
+		}
+
+		// All the neighbours of the nodes that are left have been matched
+		for (int u = 0; u < nodeCount; u++) {
+			if (cluster[u] >= 0)
+				continue;
+
+			final int v = strongestNeighbour(u, cluster, false);
+			cluster[u] = v >= 0 ? cluster[v] : clusterCount++;
+		}
+
+		final int[] clusterSize = new int[clusterCount];
+		for (int u = 0; u < nodeCount; u++)
+			clusterSize[cluster[u]] += nodeSize[u];
+
+		final int edgeCount = getEdgeCount();
+		final int[] source = new int[edgeCount];
+		final int[] target = new int[edgeCount];
+		final float[] weight = new float[edgeCount];
+		final float[] length = new float[edgeCount];
+		int count = 0;
+		for (int u = 0; u < nodeCount; u++) {
+			for (int i = edgeStart[u]; i < edgeStart[u + 1]; i++) {
+				final int v = edgeTarget[i];
+				if (u > v || cluster[u] == cluster[v])
+					continue;
+
+				source[count] = cluster[u];
+				target[count] = cluster[v];
+				weight[count] = edgeWeight[i];
+				length[count] = (float) (springLength
+						* (Math.sqrt(clusterSize[cluster[u]]) + Math.sqrt(clusterSize[cluster[v]])) / 2.0);
+				count++;
+			}
+		}
+
+		coarseNode = cluster;
+		return create(clusterCount, clusterSize, count, source, target, weight, length);
+	}
+
+	/**
+	 * Places the nodes of this level around the node of the coarser level
+	 * they were collapsed into, within the area that node stands for.
+	 *
+	 * @param coarser the next coarser level
+	 * @param coarseX the x positions of the nodes of the coarser level
+	 * @param coarseY the y positions of the nodes of the coarser level
+	 * @param x receives the x positions of the nodes of this level
+	 * @param y receives the y positions of the nodes of this level
+	 * @param springLength the length of an edge between two single nodes
+	 */
+	void interpolate(final MultilevelGraph coarser, final float[] coarseX, final float[] coarseY, final float[] x,
+			final float[] y, final double springLength, final Random random) {
+		for (int u = 0; u < nodeCount; u++) {
+			final int c = coarseNode[u];
+			final double radius = springLength * Math.sqrt(coarser.nodeSize[c]) / 2.0
+					* Math.sqrt(random.nextDouble());
+			final double angle = 2.0 * Math.PI * random.nextDouble();
+			x[u] = (float) (coarseX[c] + radius * Math.cos(angle));
+			y[u] = (float) (coarseY[c] + radius * Math.sin(angle));
+		}
+	}
+
+	/**
+	 * @return the neighbour of u with the strongest edge, relative to the
+	 *         size of the nodes, or -1 if there is none
+	 */
+	private int strongestNeighbour(final int u, final int[] cluster, final boolean unmatchedOnly) {
+		int best = -1;
+		double bestScore = -1;
+		for (int i = edgeStart[u]; i < edgeStart[u + 1]; i++) {
+			final int v = edgeTarget[i];
+			if (unmatchedOnly && cluster[v] >= 0)
+				continue;
+
+			// Short springs and small nodes are collapsed first
+			final double score = edgeWeight[i] / (edgeLength[i] * (double) nodeSize[u] * nodeSize[v]);
+			if (score > bestScore) {
+				best = v;
+				bestScore = score;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * @return the nodes in order of increasing degree
+	 */
+	private int[] orderByDegree() {
+		int maxDegree = 0;
+		for (int u = 0; u < nodeCount; u++)
+			maxDegree = Math.max(maxDegree, edgeStart[u + 1] - edgeStart[u]);
+
+		final int[] start = new int[maxDegree + 2];
+		for (int u = 0; u < nodeCount; u++)
+			start[edgeStart[u + 1] - edgeStart[u] + 1]++;
+		for (int d = 0; d <= maxDegree; d++)
+			start[d + 1] += start[d];
+
+		final int[] order = new int[nodeCount];
+		for (int u = 0; u < nodeCount; u++)
+			order[start[edgeStart[u + 1] - edgeStart[u]]++] = u;
+		return order;
+	}
+}
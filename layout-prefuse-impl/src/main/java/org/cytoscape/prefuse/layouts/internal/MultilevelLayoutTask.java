@@ -0,0 +1,274 @@
+package org.cytoscape.prefuse.layouts.internal;
+
+/*
+ * #%L
+ * Cytoscape Prefuse Layout Impl (layout-prefuse-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.cytoscape.layout.internal.util.AbstractConcurrentPartitionLayoutTask;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.view.layout.LayoutEdge;
+import org.cytoscape.view.layout.LayoutNode;
+import org.cytoscape.view.layout.LayoutPartition;
+import org.cytoscape.view.model.CyNetworkView;
+import org.cytoscape.view.model.View;
+import org.cytoscape.work.TaskMonitor;
+import org.cytoscape.work.undo.UndoSupport;
+
+import prefuse.util.force.ForceSimulator;
+
+
+/**
+ * Lays out each partition by coarsening it into a hierarchy of ever smaller
+ * graphs, laying out the smallest one and then refining the layout level by
+ * level back to the original nodes.  Every level is at most about half the
+ * size of the one below it, so the finer levels dominate the running time,
+ * and those only need a few iterations to settle.
+ */
+public class MultilevelLayoutTask extends AbstractConcurrentPartitionLayoutTask {
+
+	/**
+	 * A level that doesn't shrink by at least this ratio ends the coarsening
+	 */
+	private static final double MAX_LEVEL_RATIO = 0.9;
+
+	private static final long RANDOM_SEED = 42L;
+
+	private final MultilevelLayoutContext context;
+	private final MultilevelRefiner refiner;
+
+	// Progress of the current partition, counted in node iterations
+	private long workDone;
+	private long workTotal;
+	private long levelWork;
+
+	/**
+	 * Creates a new MultilevelLayoutTask object.
+	 */
+	public MultilevelLayoutTask(final String displayName, CyNetworkView networkView, Set<View<CyNode>> nodesToLayOut,
+			final MultilevelLayoutContext context, final MultilevelRefiner refiner, String attrName,
+			UndoSupport undo) {
+		super(displayName, context.singlePartition, networkView, nodesToLayOut, attrName, undo);
+
+		this.context = context;
+		this.refiner = refiner;
+
+		edgeWeighter = context.edgeWeighter;
+		edgeWeighter.setWeightAttribute(layoutAttribute);
+	}
+
+	@Override
+	protected MultilevelLayoutTask createPartitionTask() {
+		return new MultilevelLayoutTask(displayName, networkView, nodesToLayOut, context, refiner,
+				layoutAttribute, undoSupport);
+	}
+
+	@Override
+	protected boolean isLayoutParallel(LayoutPartition part) {
+		// The finest level has as many nodes as the partition, and the
+		// simulator refines it on its own threads once it is big enough
+		return part.size() >= ForceSimulator.PARALLEL_THRESHOLD;
+	}
+
+	@Override
+	public String toString() {
+		return MultilevelLayout.ALGORITHM_DISPLAY_NAME;
+	}
+
+	public void layoutPartition(LayoutPartition part) {
+		// Calculate our edge weights
+		part.calculateEdgeWeights();
+
+		final List<LayoutNode> nodeList = part.getNodeList();
+		final List<LayoutEdge> edgeList = part.getEdgeList();
+		if (nodeList.isEmpty())
+			return;
+
+		if (taskMonitor != null)
+			taskMonitor.setStatusMessage("Coarsening partition "+part.getPartitionNumber());
+
+		long start = System.currentTimeMillis();
+		final List<MultilevelGraph> levels = coarsen(nodeList, edgeList);
+		if (cancelled)
+			return;
+
+		final int levelCount = levels.size();
+		if (levelCount > 1)
+			reportTime("Partition "+part.getPartitionNumber()+": coarsened "+nodeList.size()+" nodes into "
+					+levelCount+" levels", start);
+
+		workDone = 0;
+		workTotal = 0;
+		for (int level = 0; level < levelCount; level++)
+			workTotal += (long) levels.get(level).nodeCount * getIterations(level, levelCount);
+
+		// Lay out the coarsest level from random positions, spread over
+		// about the area the whole partition will take
+		final Random random = new Random(RANDOM_SEED);
+		MultilevelGraph graph = levels.get(levelCount - 1);
+		final double side = context.defaultSpringLength * Math.sqrt(nodeList.size());
+		float[] x = new float[graph.nodeCount];
+		float[] y = new float[graph.nodeCount];
+		for (int u = 0; u < graph.nodeCount; u++) {
+			x[u] = (float) (side * (random.nextDouble() - 0.5));
+			y[u] = (float) (side * (random.nextDouble() - 0.5));
+		}
+
+		for (int level = levelCount - 1; level >= 0 && !cancelled; level--) {
+			if (level < levelCount - 1) {
+				final MultilevelGraph coarser = graph;
+				graph = levels.get(level);
+				final float[] fineX = new float[graph.nodeCount];
+				final float[] fineY = new float[graph.nodeCount];
+				graph.interpolate(coarser, x, y, fineX, fineY, context.defaultSpringLength, random);
+				x = fineX;
+				y = fineY;
+			}
+
+			final String levelName = "level "+(levelCount - level)+" of "+levelCount+" ("+graph.nodeCount
+					+" nodes, "+graph.getEdgeCount()+" edges)";
+			if (taskMonitor != null)
+				taskMonitor.setStatusMessage("Laying out partition "+part.getPartitionNumber()+", "+levelName);
+
+			start = System.currentTimeMillis();
+			levelWork = graph.nodeCount;
+			refiner.refine(graph, x, y, getIterations(level, levelCount), this);
+
+			if (levelCount > 1)
+				reportTime("Partition "+part.getPartitionNumber()+", "+levelName+" laid out", start);
+		}
+
+		if (cancelled)
+			return;
+
+		// update positions
+		part.resetNodes(); // reset the nodes so we get the new average location
+		for (int i = 0; i < nodeList.size(); i++) {
+			final LayoutNode ln = nodeList.get(i);
+			if (!ln.isLocked()) {
+				ln.setX(x[i]);
+				ln.setY(y[i]);
+				part.moveNodeToLocation(ln);
+			}
+		}
+	}
+
+	/**
+	 * @return the levels of the partition, from the partition itself to the
+	 *         coarsest level
+	 */
+	private List<MultilevelGraph> coarsen(final List<LayoutNode> nodeList, final List<LayoutEdge> edgeList) {
+		final int nodeCount = nodeList.size();
+		final Map<LayoutNode,Integer> nodeIndex = new HashMap<LayoutNode,Integer>(nodeCount * 2);
+		for (int i = 0; i < nodeCount; i++)
+			nodeIndex.put(nodeList.get(i), i);
+
+		final int[] nodeSize = new int[nodeCount];
+		for (int i = 0; i < nodeCount; i++)
+			nodeSize[i] = 1;
+
+		final int[] source = new int[edgeList.size()];
+		final int[] target = new int[edgeList.size()];
+		final float[] weight = new float[edgeList.size()];
+		final float[] length = new float[edgeList.size()];
+		int edgeCount = 0;
+		for (LayoutEdge e: edgeList) {
+			final Integer s = nodeIndex.get(e.getSource());
+			final Integer t = nodeIndex.get(e.getTarget());
+			if (s == null || t == null)
+				continue;
+
+			source[edgeCount] = s;
+			target[edgeCount] = t;
+			weight[edgeCount] = 1.0f;
+			length[edgeCount] = getSpringLength(e);
+			edgeCount++;
+		}
+
+		final List<MultilevelGraph> levels = new ArrayList<MultilevelGraph>();
+		MultilevelGraph graph = MultilevelGraph.create(nodeCount, nodeSize, edgeCount, source, target, weight,
+				length);
+		levels.add(graph);
+
+		while (graph.nodeCount > context.coarsestSize && levels.size() < context.maxLevels && !cancelled) {
+			final MultilevelGraph coarser = graph.coarsen(context.defaultSpringLength);
+			if (coarser.nodeCount > graph.nodeCount * MAX_LEVEL_RATIO) {
+				graph.coarseNode = null;
+				break;
+			}
+
+			levels.add(coarser);
+			graph = coarser;
+		}
+
+		return levels;
+	}
+
+	private int getIterations(final int level, final int levelCount) {
+		return level == levelCount - 1 ? context.coarsestIterations : context.refinementIterations;
+	}
+
+	private void reportTime(final String message, final long start) {
+		if (taskMonitor != null)
+			taskMonitor.showMessage(TaskMonitor.Level.INFO,
+					message+" in "+(System.currentTimeMillis() - start)+" ms");
+	}
+
+	/**
+	 * Get the spring length for the given edge, the same way as the
+	 * force-directed layout does.
+	 * @param e the edge for which to compute the spring length
+	 * @return the spring length for the edge
+	 */
+	protected float getSpringLength(LayoutEdge e) {
+		double weight = e.getWeight();
+		if (weight == 0.0)
+			return (float)(context.defaultSpringLength);
+
+		return (float)(context.defaultSpringLength/weight);
+	}
+
+	MultilevelLayoutContext getContext() {
+		return context;
+	}
+
+	boolean wasCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Called by the refiner after each iteration on the current level.
+	 */
+	void iterationDone() {
+		workDone += levelWork;
+		if (workTotal > 0)
+			setTaskStatus((int)(((double)workDone/(double)workTotal)*90.+5));
+	}
+}
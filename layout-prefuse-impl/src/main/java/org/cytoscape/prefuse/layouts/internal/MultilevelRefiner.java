@@ -0,0 +1,46 @@
+package org.cytoscape.prefuse.layouts.internal;
+
+/*
+ * #%L
+ * Cytoscape Prefuse Layout Impl (layout-prefuse-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+/**
+ * The step of a multilevel layout that improves the positions of the nodes
+ * of one level.  It is used on the coarsest level too, where it starts from
+ * random positions, and on every finer level, where it starts from the
+ * positions interpolated from the level above.
+ */
+interface MultilevelRefiner {
+
+	/**
+	 * Improves the positions of the nodes of a level in place.
+	 *
+	 * @param graph the level to lay out
+	 * @param x the x positions of the nodes of the level
+	 * @param y the y positions of the nodes of the level
+	 * @param iterations the number of iterations to run
+	 * @param task the running task, which tells whether the layout was
+	 *        cancelled and needs to hear about every finished iteration
+	 */
+	void refine(MultilevelGraph graph, float[] x, float[] y, int iterations, MultilevelLayoutTask task);
+}
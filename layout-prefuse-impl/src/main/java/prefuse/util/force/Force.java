@@ -117,7 +117,9 @@ public interface Force {
     public boolean isItemForce();
     
     /**
-     * Updates the force calculation on the given ForceItem
+     * Updates the force calculation on the given ForceItem. The
+     * {@link ForceSimulator} may call this concurrently for different
+     * items, so implementations should only modify the given item.
      * @param item the ForceItem on which to compute updated forces
      */
     public void getForce(ForceItem item);
@@ -0,0 +1,144 @@
+package prefuse.util.force;
+
+/*
+ * #%L
+ * Cytoscape Prefuse Layout Impl (layout-prefuse-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared pool used to spread force computations over the available
+ * processors. Callers block until all of their tasks are done, so the
+ * simulation remains a sequence of well defined steps.
+ */
+final class ForceExecutor {
+
+    /** Number of worker threads, one per available processor. */
+    static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+    // quadtree recursion goes as deep as the number of items sharing
+    // a location, so workers get more stack than the default
+    private static final long STACK_SIZE = 16L * 1024L * 1024L;
+
+    // idle workers exit, so the pool holds no threads between layouts
+    private static final long KEEP_ALIVE_SECONDS = 30L;
+
+    private static final ThreadPoolExecutor EXECUTOR;
+
+    static {
+        EXECUTOR = new ThreadPoolExecutor(PARALLELISM, PARALLELISM,
+            KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(null, r,
+                        "prefuse-force-" + count.incrementAndGet(), STACK_SIZE);
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
+    // cleared by tests to run the serial code on the same items
+    static volatile boolean enabled = true;
+
+    private ForceExecutor() {
+    }
+
+    /**
+     * Returns true if work on the given number of elements should be
+     * split across threads.
+     * @param size the number of elements to process
+     * @param threshold the minimum number of elements worth splitting
+     */
+    static boolean isParallel(int size, int threshold) {
+        return enabled && PARALLELISM > 1 && size >= threshold;
+    }
+
+    /**
+     * Runs the tasks on the shared pool and waits for all of them.
+     * @param tasks the tasks to run
+     * @return the task results, in task order
+     * @throws RuntimeException the first task failure, wrapped if checked
+     */
+    static <T> List<T> invokeAll(List<Callable<T>> tasks) {
+        List<Future<T>> futures = new ArrayList<Future<T>>(tasks.size());
+        for ( Callable<T> task : tasks )
+            futures.add(EXECUTOR.submit(task));
+
+        List<T> results = new ArrayList<T>(futures.size());
+        boolean interrupted = false;
+        Throwable failure = null;
+        for ( Future<T> f : futures ) {
+            while ( true ) {
+                try {
+                    results.add(f.get());
+                    break;
+                } catch ( InterruptedException e ) {
+                    // the items are shared with the tasks, so never
+                    // return while any of them is still running
+                    interrupted = true;
+                } catch ( ExecutionException e ) {
+                    if ( failure == null )
+                        failure = e.getCause();
+                    results.add(null);
+                    break;
+                }
+            }
+        }
+        if ( interrupted )
+            Thread.currentThread().interrupt();
+        if ( failure instanceof Error )
+            throw (Error)failure;
+        if ( failure instanceof RuntimeException )
+            throw (RuntimeException)failure;
+        if ( failure != null )
+            throw new RuntimeException(failure);
+        return results;
+    }
+
+    /**
+     * Splits the range [0, size) into contiguous chunks, a few per thread
+     * so that uneven chunks balance out.
+     * @return the chunk boundaries, starting with 0 and ending with size
+     */
+    static int[] chunks(int size) {
+        int count = Math.max(1, Math.min(size, PARALLELISM * 4));
+        int[] bounds = new int[count + 1];
+        for ( int i = 0; i <= count; i++ )
+            bounds[i] = (int)((long)size * i / count);
+        return bounds;
+    }
+
+} // end of class ForceExecutor
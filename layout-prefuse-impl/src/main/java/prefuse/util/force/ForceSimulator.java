@@ -27,6 +27,8 @@ package prefuse.util.force;
 
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
 
 /**
  * Manages a simulation of physical forces acting on bodies. To create a
@@ -37,6 +39,12 @@ import java.util.Iterator;
  */
 public class ForceSimulator {
 
+    /**
+     * Item forces are computed on several threads once a simulation has at
+     * least this many items. Below it the hand-off costs more than it saves.
+     */
+    public static final int PARALLEL_THRESHOLD = 1000;
+
     private ArrayList items;
     private ArrayList springs;
     private Force[] iforces;
@@ -236,12 +244,24 @@ public class ForceSimulator {
             iforces[i].init(this);
         for ( int i = 0; i < sflen; i++ )
             sforces[i].init(this);
-        Iterator itemIter = items.iterator();
-        while ( itemIter.hasNext() ) {
-            ForceItem item = (ForceItem)itemIter.next();
-            item.force[0] = 0.0f; item.force[1] = 0.0f;
-            for ( int i = 0; i < iflen; i++ )
-                iforces[i].getForce(item);
+        int size = items.size();
+        if ( ForceExecutor.isParallel(size, PARALLEL_THRESHOLD) ) {
+            // item forces only touch the item they are computed for, so
+            // disjoint ranges of items can be handled concurrently
+            int[] bounds = ForceExecutor.chunks(size);
+            List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+            for ( int c = 0; c < bounds.length-1; c++ ) {
+                final int from = bounds[c], to = bounds[c+1];
+                tasks.add(new Callable<Void>() {
+                    public Void call() {
+                        accumulateItems(from, to);
+                        return null;
+                    }
+                });
+            }
+            ForceExecutor.invokeAll(tasks);
+        } else {
+            accumulateItems(0, size);
         }
         Iterator springIter = springs.iterator();
         while ( springIter.hasNext() ) {
@@ -251,5 +271,14 @@ public class ForceSimulator {
             }
         }
     }
+
+    private void accumulateItems(int from, int to) {
+        for ( int j = from; j < to; j++ ) {
+            ForceItem item = (ForceItem)items.get(j);
+            item.force[0] = 0.0f; item.force[1] = 0.0f;
+            for ( int i = 0; i < iflen; i++ )
+                iforces[i].getForce(item);
+        }
+    }
     
 } // end of class ForceSimulator
@@ -27,8 +27,12 @@ package prefuse.util.force;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.Callable;
 
 /**
  * <p>Force function which computes an n-body force such as gravity,
@@ -46,6 +50,15 @@ import java.util.Random;
  *   <li><a href="http://www.physics.gmu.edu/~large/lr_forces/desc/bh/bhdesc.html">Description of the Barnes-Hut algorithm</a>
  *   <li><a href="http://www.ifa.hawaii.edu/~barnes/treecode/treeguide.html">Joshua Barnes' recent implementation</a>
  * </ul></p>
+ *
+ * <p>The quadtree is kept in flat arrays indexed by node number rather than
+ * as one object per node. For large simulations the tree is split into
+ * subtrees a few levels below the root, which are built concurrently and
+ * then grafted together. The resulting tree is identical to the one built
+ * by inserting the items one at a time, so the forces are too, apart from
+ * the random noise used to separate items sharing the exact same location.
+ * Once built the tree is only read, so {@link #getForce(ForceItem)} may be
+ * called concurrently for different items.</p>
  * 
  * @author <a href="http://jheer.org">jeffrey heer</a>
  */
@@ -77,10 +90,19 @@ public class NBodyForce extends AbstractForce {
     public static final int MIN_DISTANCE = 1;
     public static final int BARNES_HUT_THETA = 2;
     
+    // number of levels below the root at which the tree is split into
+    // subtrees that are built concurrently, giving at most 4^3 subtrees
+    private static final int PARTITION_DEPTH = 3;
+    private static final long SEED = 12345678L;
+
     private float xMin, xMax, yMin, yMax;
-    private QuadTreeNodeFactory factory = new QuadTreeNodeFactory();
-    private QuadTreeNode root;
-    
+    private final QuadTree tree = new QuadTree(64);
+
+    private ForceItem[] items = new ForceItem[0];
+    private int itemCount;
+    private Map<ForceItem,Integer> indices = new IdentityHashMap<ForceItem,Integer>();
+    private long[] jitter = new long[0]; // per item state for the noise
+
     private Random rand = null; // deterministic randomness
 
     /**
@@ -89,7 +111,7 @@ public class NBodyForce extends AbstractForce {
     public NBodyForce() {
         this(DEFAULT_GRAV_CONSTANT, DEFAULT_DISTANCE, DEFAULT_THETA);
     }
-    
+
     /**
      * Create a new NBodyForce.
      * @param gravConstant the gravitational constant to use. Nodes will
@@ -107,8 +129,8 @@ public class NBodyForce extends AbstractForce {
             DEFAULT_MIN_DISTANCE, DEFAULT_MIN_THETA };
         maxValues = new float[] { DEFAULT_MAX_GRAV_CONSTANT,
             DEFAULT_MAX_DISTANCE, DEFAULT_MAX_THETA };
-        root = factory.getQuadTreeNode();
-    		rand = new Random(12345678L); // deterministic randomness
+        tree.reset();
+    		rand = new Random(SEED); // deterministic randomness
     }
 
     /**
@@ -118,14 +140,14 @@ public class NBodyForce extends AbstractForce {
     public boolean isItemForce() {
         return true;
     }
-    
+
     /**
      * @see prefuse.util.force.AbstractForce#getParameterNames()
      */
     protected String[] getParameterNames() {
         return pnames;
-    } 
-    
+    }
+
     /**
      * Set the bounds of the region for which to compute the n-body simulation
      * @param xMin the minimum x-coordinate
@@ -144,28 +166,20 @@ public class NBodyForce extends AbstractForce {
      * Clears the quadtree of all entries.
      */
     public void clear() {
-        clearHelper(root);
-        root = factory.getQuadTreeNode();
-    }
-    
-    private void clearHelper(QuadTreeNode n) {
-        for ( int i = 0; i < n.children.length; i++ ) {
-            if ( n.children[i] != null )
-                clearHelper(n.children[i]);
-        }
-        factory.reclaim(n);
+        tree.reset();
     }
 
     /**
      * Initialize the simulation with the provided enclosing simulation. After
-     * this call has been made, the simulation can be queried for the 
+     * this call has been made, the simulation can be queried for the
      * n-body force acting on a given item.
      * @param fsim the enclosing ForceSimulator
      */
     public void init(ForceSimulator fsim) {
         clear(); // clear internal state
-        
+
         // compute and squarify bounds of quadtree
+        List<ForceItem> current = new ArrayList<ForceItem>(Math.max(itemCount, 16));
         float x1 = Float.MAX_VALUE, y1 = Float.MAX_VALUE;
         float x2 = Float.MIN_VALUE, y2 = Float.MIN_VALUE;
         Iterator itemIter = fsim.getItems();
@@ -177,20 +191,22 @@ public class NBodyForce extends AbstractForce {
             if ( y < y1 ) y1 = y;
             if ( x > x2 ) x2 = x;
             if ( y > y2 ) y2 = y;
+            current.add(item);
         }
         float dx = x2-x1, dy = y2-y1;
         if ( dx > dy ) { y2 = y1 + dx; } else { x2 = x1 + dy; }
         setBounds(x1,y1,x2,y2);
-        
-        // insert items into quadtree
-        itemIter = fsim.getItems();
-        while ( itemIter.hasNext() ) {
-            ForceItem item = (ForceItem)itemIter.next();
-            insert(item);
+        setItems(current);
+
+        // insert items into quadtree and calculate magnitudes and
+        // centers of mass
+        if ( ForceExecutor.isParallel(itemCount, ForceSimulator.PARALLEL_THRESHOLD) ) {
+            buildParallel();
+        } else {
+            for ( int i = 0; i < itemCount; i++ )
+                tree.insert(items, i, 0, xMin, yMin, xMax, yMax);
+            tree.calcMass(items, 0);
         }
-        
-        // calculate magnitudes and centers of mass
-        calcMass(root);
     }
 
     /**
@@ -201,77 +217,132 @@ public class NBodyForce extends AbstractForce {
      */
     public void insert(ForceItem item) {
         // insert item into the quadtrees
-        insert(item, root, xMin, yMin, xMax, yMax);
+        int p = indexOf(item, true);
+        tree.insert(items, p, 0, xMin, yMin, xMax, yMax);
     }
 
-    private void insert(ForceItem p, QuadTreeNode n, 
-                        float x1, float y1, float x2, float y2)
-    {
-        // try to insert particle p at node n in the quadtree
-        // by construction, each leaf will contain either 1 or 0 particles
-        if ( n.hasChildren ) {
-            // n contains more than 1 particle
-            insertHelper(p,n,x1,y1,x2,y2);
-        } else if ( n.value != null ) {
-            // n contains 1 particle
-            if ( isSameLocation(n.value, p) ) {
-                insertHelper(p,n,x1,y1,x2,y2);
-            } else {
-                ForceItem v = n.value; n.value = null;
-                insertHelper(v,n,x1,y1,x2,y2);
-                insertHelper(p,n,x1,y1,x2,y2);
-            }
-        } else { 
-            // n is empty, so is a leaf
-            n.value = p;
+    private void setItems(List<ForceItem> current) {
+        boolean unchanged = current.size() == itemCount;
+        for ( int i = 0; unchanged && i < itemCount; i++ )
+            unchanged = items[i] == current.get(i);
+        if ( unchanged )
+            return;
+
+        itemCount = current.size();
+        items = current.toArray(new ForceItem[itemCount]);
+        indices = new IdentityHashMap<ForceItem,Integer>(itemCount);
+        jitter = new long[itemCount];
+        for ( int i = 0; i < itemCount; i++ ) {
+            indices.put(items[i], i);
+            jitter[i] = seed(i);
         }
     }
-    
-    private static boolean isSameLocation(ForceItem f1, ForceItem f2) {
-        float dx = Math.abs(f1.location[0]-f2.location[0]);
-        float dy = Math.abs(f1.location[1]-f2.location[1]);
-        return ( dx < 0.01 && dy < 0.01 );
-    }
-    
-    private void insertHelper(ForceItem p, QuadTreeNode n, 
-                              float x1, float y1, float x2, float y2)
-    {   
-        float x = p.location[0], y = p.location[1];
-        float splitx = (x1+x2)/2;
-        float splity = (y1+y2)/2;
-        int i = (x>=splitx ? 1 : 0) + (y>=splity ? 2 : 0);
-        // create new child node, if necessary
-        if ( n.children[i] == null ) {
-            n.children[i] = factory.getQuadTreeNode();
-            n.hasChildren = true;
+
+    private int indexOf(ForceItem item, boolean add) {
+        Integer i = indices.get(item);
+        if ( i != null )
+            return i;
+        if ( !add )
+            return -1;
+        if ( itemCount == items.length ) {
+            int len = Math.max(16, 2*itemCount);
+            items = Arrays.copyOf(items, len);
+            jitter = Arrays.copyOf(jitter, len);
         }
-        // update bounds
-        if ( i==1 || i==3 ) x1 = splitx; else x2 = splitx;
-        if ( i > 1 )        y1 = splity; else y2 = splity;
-        // recurse 
-        insert(p,n.children[i],x1,y1,x2,y2);        
+        items[itemCount] = item;
+        jitter[itemCount] = seed(itemCount);
+        indices.put(item, itemCount);
+        return itemCount++;
     }
 
-    private void calcMass(QuadTreeNode n) {
-        float xcom = 0, ycom = 0;
-        n.mass = 0;
-        if ( n.hasChildren ) {
-            for ( int i=0; i < n.children.length; i++ ) {
-                if ( n.children[i] != null ) {
-                    calcMass(n.children[i]);
-                    n.mass += n.children[i].mass;
-                    xcom += n.children[i].mass * n.children[i].com[0];
-                    ycom += n.children[i].mass * n.children[i].com[1];
+    private static long seed(int index) {
+        long s = SEED ^ (index * 0x9E3779B97F4A7C15L);
+        return s == 0 ? SEED : s;
+    }
+
+    /**
+     * Builds the quadtree by splitting the items into the subtrees
+     * PARTITION_DEPTH levels below the root, building those concurrently
+     * and grafting them onto the top of the tree. A node is only split here
+     * if inserting the items one by one would leave it without an item of
+     * its own, which is what keeps the two trees the same.
+     */
+    private void buildParallel() {
+        final ForceItem[] all = items;
+        int[] order = new int[itemCount];
+        for ( int i = 0; i < itemCount; i++ )
+            order[i] = i;
+
+        List<Callable<QuadTree>> tasks = new ArrayList<Callable<QuadTree>>();
+        List<Integer> targets = new ArrayList<Integer>();
+        partition(all, 0, order, xMin, yMin, xMax, yMax, 0, tasks, targets);
+        int top = tree.count;
+
+        List<QuadTree> subtrees = ForceExecutor.invokeAll(tasks);
+        for ( int i = 0; i < subtrees.size(); i++ )
+            tree.graft(subtrees.get(i), targets.get(i));
+
+        // the top nodes precede the grafted subtrees, whose masses are
+        // already known
+        tree.calcMass(all, 0, top);
+    }
+
+    private void partition(final ForceItem[] all, int n, final int[] members,
+                           final float x1, final float y1,
+                           final float x2, final float y2, int depth,
+                           List<Callable<QuadTree>> tasks, List<Integer> targets)
+    {
+        if ( members.length == 1 ) {
+            tree.value[n] = members[0];
+            return;
+        }
+        if ( depth == PARTITION_DEPTH ||
+             isSameLocation(all[members[0]], all[members[1]]) )
+        {
+            // items inserted one by one would not pass this node untouched
+            tasks.add(new Callable<QuadTree>() {
+                public QuadTree call() {
+                    QuadTree sub = new QuadTree(2*members.length);
+                    sub.reset();
+                    for ( int p : members )
+                        sub.insert(all, p, 0, x1, y1, x2, y2);
+                    sub.calcMass(all, 0);
+                    return sub;
                 }
-            }
+            });
+            targets.add(n);
+            return;
         }
-        if ( n.value != null ) {
-            n.mass += n.value.mass;
-            xcom += n.value.mass * n.value.location[0];
-            ycom += n.value.mass * n.value.location[1];
+
+        float splitx = (x1+x2)/2;
+        float splity = (y1+y2)/2;
+        int[] quadrant = new int[members.length];
+        int[] counts = new int[4];
+        for ( int j = 0; j < members.length; j++ ) {
+            float[] loc = all[members[j]].location;
+            quadrant[j] = (loc[0]>=splitx ? 1 : 0) + (loc[1]>=splity ? 2 : 0);
+            counts[quadrant[j]]++;
+        }
+        for ( int i = 0; i < 4; i++ ) {
+            if ( counts[i] == 0 )
+                continue;
+            int[] sub = new int[counts[i]];
+            for ( int j = 0, k = 0; j < members.length; j++ ) {
+                if ( quadrant[j] == i )
+                    sub[k++] = members[j];
+            }
+            int c = tree.newChild(n, i);
+            partition(all, c, sub,
+                (i==1||i==3?splitx:x1), (i>1?splity:y1),
+                (i==1||i==3?x2:splitx), (i>1?y2:splity),
+                depth+1, tasks, targets);
         }
-        n.com[0] = xcom / n.mass;
-        n.com[1] = ycom / n.mass;
+    }
+
+    private static boolean isSameLocation(ForceItem f1, ForceItem f2) {
+        float dx = Math.abs(f1.location[0]-f2.location[0]);
+        float dy = Math.abs(f1.location[1]-f2.location[1]);
+        return ( dx < 0.01 && dy < 0.01 );
     }
 
     /**
@@ -279,52 +350,59 @@ public class NBodyForce extends AbstractForce {
      * @param item the ForceItem for which to compute the force
      */
     public void getForce(ForceItem item) {
-        forceHelper(item,root,xMin,yMin,xMax,yMax);
+        forceHelper(item,indexOf(item,false),0,xMin,yMin,xMax,yMax);
     }
-    
-    private void forceHelper(ForceItem item, QuadTreeNode n, 
+
+    private void forceHelper(ForceItem item, int p, int n,
                              float x1, float y1, float x2, float y2)
     {
-        float dx = n.com[0] - item.location[0];
-        float dy = n.com[1] - item.location[1];
+        final QuadTree t = tree;
+        boolean hasChildren = t.hasChildren[n];
+        int value = t.value[n];
+        if ( !hasChildren && value == p && p >= 0 )
+            return; // the item's own leaf exerts no force on it
+
+        float dx = t.comX[n] - item.location[0];
+        float dy = t.comY[n] - item.location[1];
         float r  = (float)Math.sqrt(dx*dx+dy*dy);
         boolean same = false;
         if ( r == 0.0f ) {
             // if items are in the exact same place, add some noise
-            dx = (rand.nextFloat()-0.5f) / 50.0f;
-            dy = (rand.nextFloat()-0.5f) / 50.0f;
+            dx = (nextFloat(p)-0.5f) / 50.0f;
+            dy = (nextFloat(p)-0.5f) / 50.0f;
             r  = (float)Math.sqrt(dx*dx+dy*dy);
             same = true;
         }
         boolean minDist = params[MIN_DISTANCE]>0f && r>params[MIN_DISTANCE];
-        
+
         // the Barnes-Hut approximation criteria is if the ratio of the
         // size of the quadtree box to the distance between the point and
         // the box's center of mass is beneath some threshold theta.
-        if ( (!n.hasChildren && n.value != item) || 
-             (!same && (x2-x1)/r < params[BARNES_HUT_THETA]) ) 
+        if ( (!hasChildren && value != p) ||
+             (!same && (x2-x1)/r < params[BARNES_HUT_THETA]) )
         {
             if ( minDist ) return;
             // either only 1 particle or we meet criteria
             // for Barnes-Hut approximation, so calc force
-            float v = params[GRAVITATIONAL_CONST]*item.mass*n.mass 
+            float v = params[GRAVITATIONAL_CONST]*item.mass*t.mass[n]
                         / (r*r*r);
             item.force[0] += v*dx;
             item.force[1] += v*dy;
-        } else if ( n.hasChildren ) {
+        } else if ( hasChildren ) {
             // recurse for more accurate calculation
             float splitx = (x1+x2)/2;
             float splity = (y1+y2)/2;
-            for ( int i=0; i<n.children.length; i++ ) {
-                if ( n.children[i] != null ) {
-                    forceHelper(item, n.children[i],
+            for ( int i=0; i<4; i++ ) {
+                int c = t.children[4*n+i];
+                if ( c >= 0 ) {
+                    forceHelper(item, p, c,
                         (i==1||i==3?splitx:x1), (i>1?splity:y1),
                         (i==1||i==3?x2:splitx), (i>1?y2:splity));
                 }
             }
             if ( minDist ) return;
-            if ( n.value != null && n.value != item ) {
-                float v = params[GRAVITATIONAL_CONST]*item.mass*n.value.mass
+            if ( value >= 0 && value != p ) {
+                float v = params[GRAVITATIONAL_CONST]*item.mass*items[value].mass
                             / (r*r*r);
                 item.force[0] += v*dx;
                 item.force[1] += v*dy;
@@ -333,44 +411,176 @@ public class NBodyForce extends AbstractForce {
     }
 
     /**
-     * Represents a node in the quadtree.
+     * Returns the next value of the item's own random sequence, so that the
+     * noise does not depend on the order in which threads reach the items.
      */
-    public static final class QuadTreeNode {
-        public QuadTreeNode() {
-            com = new float[] {0.0f, 0.0f};
-            children = new QuadTreeNode[4];
-        } //
-        boolean hasChildren = false;
-        float mass; // total mass held by this node
-        float[] com; // center of mass of this node 
-        ForceItem value; // ForceItem in this node, null if node has children
-        QuadTreeNode[] children; // children nodes
-    } // end of inner class QuadTreeNode
+    private float nextFloat(int p) {
+        if ( p < 0 )
+            return rand.nextFloat();
+        long x = jitter[p];
+        x ^= x >>> 12;
+        x ^= x << 25;
+        x ^= x >>> 27;
+        jitter[p] = x;
+        return ((x * 0x2545F4914F6CDD1DL) >>> 40) / (float)(1 << 24);
+    }
 
     /**
-     * Helper class to minimize number of object creations across multiple
-     * uses of the quadtree.
+     * Quadtree stored as parallel arrays indexed by node number. Node 0 is
+     * the root and every node is numbered after its parent.
      */
-    public static final class QuadTreeNodeFactory {
-        private int maxNodes = 50000;
-        private ArrayList nodes = new ArrayList();
-        
-        public QuadTreeNode getQuadTreeNode() {
-            if ( nodes.size() > 0 ) {
-                return (QuadTreeNode)nodes.remove(nodes.size()-1);
-            } else {
-                return new QuadTreeNode();
+    private static final class QuadTree {
+        int count;
+        int[] children; // 4 per node, -1 where there is no child
+        int[] value; // index of the item in this node, -1 if none
+        boolean[] hasChildren;
+        float[] mass; // total mass held by each node
+        float[] comX, comY; // center of mass of each node
+
+        QuadTree(int capacity) {
+            capacity = Math.max(capacity, 1);
+            children = new int[4*capacity];
+            value = new int[capacity];
+            hasChildren = new boolean[capacity];
+            mass = new float[capacity];
+            comX = new float[capacity];
+            comY = new float[capacity];
+        }
+
+        /** Removes all nodes but an empty root. */
+        void reset() {
+            count = 0;
+            newNode();
+        }
+
+        private void ensureCapacity(int size) {
+            if ( size <= value.length )
+                return;
+            int len = Math.max(size, 2*value.length);
+            children = Arrays.copyOf(children, 4*len);
+            value = Arrays.copyOf(value, len);
+            hasChildren = Arrays.copyOf(hasChildren, len);
+            mass = Arrays.copyOf(mass, len);
+            comX = Arrays.copyOf(comX, len);
+            comY = Arrays.copyOf(comY, len);
+        }
+
+        private int newNode() {
+            ensureCapacity(count+1);
+            int n = count++;
+            Arrays.fill(children, 4*n, 4*n+4, -1);
+            value[n] = -1;
+            hasChildren[n] = false;
+            mass[n] = 0;
+            comX[n] = 0.0f; comY[n] = 0.0f;
+            return n;
+        }
+
+        int newChild(int n, int i) {
+            int c = newNode();
+            children[4*n+i] = c;
+            hasChildren[n] = true;
+            return c;
+        }
+
+        /**
+         * Inserts item p below node n, whose bounds are given. By
+         * construction each leaf contains either 1 or 0 items, except that
+         * items at the same location as a node's item are pushed below it.
+         */
+        void insert(ForceItem[] items, int p, int n,
+                    float x1, float y1, float x2, float y2)
+        {
+            float x = items[p].location[0], y = items[p].location[1];
+            while ( true ) {
+                if ( !hasChildren[n] ) {
+                    int v = value[n];
+                    if ( v < 0 ) {
+                        // n is empty, so is a leaf
+                        value[n] = p;
+                        return;
+                    }
+                    if ( !isSameLocation(items[v], items[p]) ) {
+                        // n has no children yet, so v gets a leaf of its own
+                        value[n] = -1;
+                        float vx = items[v].location[0];
+                        float vy = items[v].location[1];
+                        int i = (vx>=(x1+x2)/2 ? 1 : 0) + (vy>=(y1+y2)/2 ? 2 : 0);
+                        int c = newChild(n, i);
+                        value[c] = v;
+                    }
+                }
+                float splitx = (x1+x2)/2;
+                float splity = (y1+y2)/2;
+                int i = (x>=splitx ? 1 : 0) + (y>=splity ? 2 : 0);
+                int c = children[4*n+i];
+                if ( c < 0 )
+                    c = newChild(n, i);
+                // update bounds
+                if ( i==1 || i==3 ) x1 = splitx; else x2 = splitx;
+                if ( i > 1 )        y1 = splity; else y2 = splity;
+                n = c;
             }
         }
-        public void reclaim(QuadTreeNode n) {
-            n.mass = 0;
-            n.com[0] = 0.0f; n.com[1] = 0.0f;
-            n.value = null;
-            n.hasChildren = false;
-            Arrays.fill(n.children, null);          
-            if ( nodes.size() < maxNodes )
-                nodes.add(n);
+
+        /** Computes the mass and center of mass of nodes from onwards. */
+        void calcMass(ForceItem[] items, int from) {
+            calcMass(items, from, count);
+        }
+
+        /**
+         * Computes the mass and center of mass of the nodes in [from, to).
+         * Nodes are visited in reverse so children come before parents.
+         */
+        void calcMass(ForceItem[] items, int from, int to) {
+            for ( int n = to-1; n >= from; n-- ) {
+                float xcom = 0, ycom = 0, m = 0;
+                if ( hasChildren[n] ) {
+                    for ( int i = 0; i < 4; i++ ) {
+                        int c = children[4*n+i];
+                        if ( c >= 0 ) {
+                            m += mass[c];
+                            xcom += mass[c] * comX[c];
+                            ycom += mass[c] * comY[c];
+                        }
+                    }
+                }
+                if ( value[n] >= 0 ) {
+                    ForceItem v = items[value[n]];
+                    m += v.mass;
+                    xcom += v.mass * v.location[0];
+                    ycom += v.mass * v.location[1];
+                }
+                mass[n] = m;
+                comX[n] = xcom / m;
+                comY[n] = ycom / m;
+            }
+        }
+
+        /**
+         * Replaces node n with the root of the given tree and appends the
+         * rest of its nodes.
+         */
+        void graft(QuadTree sub, int n) {
+            int offset = count - 1;
+            ensureCapacity(count + sub.count - 1);
+            copyNode(sub, 0, n, offset);
+            for ( int j = 1; j < sub.count; j++ )
+                copyNode(sub, j, offset+j, offset);
+            count += sub.count - 1;
+        }
+
+        private void copyNode(QuadTree sub, int from, int to, int offset) {
+            for ( int i = 0; i < 4; i++ ) {
+                int c = sub.children[4*from+i];
+                children[4*to+i] = c < 0 ? -1 : c + offset;
+            }
+            value[to] = sub.value[from];
+            hasChildren[to] = sub.hasChildren[from];
+            mass[to] = sub.mass[from];
+            comX[to] = sub.comX[from];
+            comY[to] = sub.comY[from];
         }
-    } // end of inner class QuadTreeNodeFactory
+    } // end of inner class QuadTree
 
 } // end of class NBodyForce
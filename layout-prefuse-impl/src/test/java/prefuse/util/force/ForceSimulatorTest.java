@@ -0,0 +1,137 @@
+package prefuse.util.force;
+
+/*
+ * #%L
+ * Cytoscape Prefuse Layout Impl (layout-prefuse-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.Iterator;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Test;
+
+
+/**
+ * Checks that the forces computed on several threads above
+ * {@link ForceSimulator#PARALLEL_THRESHOLD} are the ones the serial code
+ * computes for the same items.
+ */
+public class ForceSimulatorTest {
+
+	private static final int N = 3 * ForceSimulator.PARALLEL_THRESHOLD;
+	private static final int STEPS = 5;
+
+	@After
+	public void tearDown() {
+		ForceExecutor.enabled = true;
+	}
+
+	@Test
+	public void testParallelAccumulateMatchesSerial() {
+		assumeTrue(ForceExecutor.isParallel(N, ForceSimulator.PARALLEL_THRESHOLD));
+
+		final ForceSimulator serial = createSimulator();
+		final ForceSimulator parallel = createSimulator();
+
+		ForceExecutor.enabled = false;
+		serial.accumulate();
+		ForceExecutor.enabled = true;
+		parallel.accumulate();
+
+		assertSameItems(serial, parallel);
+	}
+
+	@Test
+	public void testParallelStepsMatchSerial() {
+		assumeTrue(ForceExecutor.isParallel(N, ForceSimulator.PARALLEL_THRESHOLD));
+
+		final ForceSimulator serial = createSimulator();
+		final ForceSimulator parallel = createSimulator();
+
+		// The tree is rebuilt from the new locations at every step
+		for (int i = 0; i < STEPS; i++) {
+			ForceExecutor.enabled = false;
+			serial.runSimulator(50L);
+			ForceExecutor.enabled = true;
+			parallel.runSimulator(50L);
+
+			assertSameItems(serial, parallel);
+		}
+	}
+
+	@Test
+	public void testSmallSimulationsStaySerial() {
+		assertFalse(ForceExecutor.isParallel(ForceSimulator.PARALLEL_THRESHOLD - 1,
+		                                     ForceSimulator.PARALLEL_THRESHOLD));
+	}
+
+	/**
+	 * Items at random locations, with some groups sharing a location so that
+	 * the quadtree has to stack them and the n-body force adds noise.
+	 */
+	private static ForceSimulator createSimulator() {
+		final Random random = new Random(42L);
+		final ForceSimulator sim = new ForceSimulator(new RungeKuttaIntegrator());
+		sim.addForce(new NBodyForce());
+		sim.addForce(new SpringForce());
+		sim.addForce(new DragForce());
+
+		final ForceItem[] items = new ForceItem[N];
+		for (int i = 0; i < N; i++) {
+			final ForceItem item = new ForceItem();
+			if (i % 50 == 1) {
+				item.location[0] = items[i - 1].location[0];
+				item.location[1] = items[i - 1].location[1];
+			} else {
+				item.location[0] = random.nextFloat() * 1000.0f;
+				item.location[1] = random.nextFloat() * 1000.0f;
+			}
+			item.mass = 1.0f + random.nextInt(3);
+			items[i] = item;
+			sim.addItem(item);
+		}
+
+		for (int i = 0; i < N; i++)
+			sim.addSpring(items[i], items[random.nextInt(N)]);
+
+		return sim;
+	}
+
+	private static void assertSameItems(final ForceSimulator expected, final ForceSimulator actual) {
+		final Iterator expectedIter = expected.getItems();
+		final Iterator actualIter = actual.getItems();
+
+		for (int i = 0; i < N; i++) {
+			final ForceItem e = (ForceItem) expectedIter.next();
+			final ForceItem a = (ForceItem) actualIter.next();
+			assertEquals("force x of item " + i, e.force[0], a.force[0], 0.0f);
+			assertEquals("force y of item " + i, e.force[1], a.force[1], 0.0f);
+			assertEquals("location x of item " + i, e.location[0], a.location[0], 0.0f);
+			assertEquals("location y of item " + i, e.location[1], a.location[1], 0.0f);
+		}
+	}
+}
@@ -0,0 +1,356 @@
+package org.cytoscape.layout.internal.util;
+
+/*
+ * #%L
+ * Cytoscape Layout Util (layout-util)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.cytoscape.model.CyNode;
+import org.cytoscape.view.layout.AbstractPartitionLayoutTask;
+import org.cytoscape.view.layout.LayoutNode;
+import org.cytoscape.view.layout.LayoutPartition;
+import org.cytoscape.view.layout.PartitionUtil;
+import org.cytoscape.view.model.CyNetworkView;
+import org.cytoscape.view.model.View;
+import org.cytoscape.work.TaskMonitor;
+import org.cytoscape.work.undo.UndoSupport;
+
+/**
+ * A partition layout that lays out the partitions of the network at the same
+ * time.  Each partition is laid out by its own copy of the task, so the
+ * per-partition state of a layout doesn't need to be thread safe.  The
+ * biggest partitions are started first, and the partitions are packed in
+ * their original order once all of them are done, so the result doesn't
+ * depend on which thread finishes first.
+ * <p>
+ * The partitions run on the common fork/join pool, which is also where
+ * layouts should run any work they split up themselves, so that nesting
+ * doesn't multiply the number of threads.  Partitions whose layout keeps
+ * all processors busy on its own, see {@link #isLayoutParallel}, are laid
+ * out one after the other instead.  Single node partitions aren't laid out,
+ * they are just put in the next free spot when the partitions are packed.
+ * <p>
+ * This class is shared by the layout bundles, each of which embeds its
+ * package.
+ */
+public abstract class AbstractConcurrentPartitionLayoutTask extends AbstractPartitionLayoutTask {
+
+	/**
+	 * Space left between packed partitions
+	 */
+	private static final double INCR = 100;
+
+	private static final ForkJoinPool POOL = ForkJoinPool.commonPool();
+
+	/**
+	 * The constructor arguments that subclasses need to create their copies
+	 */
+	protected final String displayName;
+	protected final UndoSupport undoSupport;
+
+	private final List<AbstractConcurrentPartitionLayoutTask> workers =
+		new ArrayList<AbstractConcurrentPartitionLayoutTask>();
+
+	/**
+	 * True for the copies that lay out a single partition
+	 */
+	private boolean worker;
+
+	public AbstractConcurrentPartitionLayoutTask(final String displayName, boolean singlePartition,
+			CyNetworkView networkView, Set<View<CyNode>> nodesToLayOut, String attrName, UndoSupport undo) {
+		super(displayName, singlePartition, networkView, nodesToLayOut, attrName, undo);
+		this.displayName = displayName;
+		this.undoSupport = undo;
+	}
+
+	/**
+	 * Creates a task with the same settings as this one, which is used to
+	 * lay out one partition while other partitions are laid out by other
+	 * copies.
+	 */
+	protected abstract AbstractConcurrentPartitionLayoutTask createPartitionTask();
+
+	/**
+	 * Tells whether laying out the given partition spreads its work over
+	 * threads other than those of the common pool.  Such partitions are laid
+	 * out one at a time on the calling thread, before the others.
+	 */
+	protected boolean isLayoutParallel(LayoutPartition partition) {
+		return false;
+	}
+
+	@Override
+	public void doLayout(final TaskMonitor taskMonitor) {
+		// Only partitions of the whole network are laid out concurrently,
+		// everything else goes through the usual path
+		if (singlePartition || (nodesToLayOut.size() < networkView.getNodeViews().size())
+				|| (POOL.getParallelism() < 2)) {
+			super.doLayout(taskMonitor);
+			return;
+		}
+
+		this.taskMonitor = taskMonitor;
+
+		if (edgeWeighter != null)
+			edgeWeighter.reset();
+
+		taskMonitor.setStatusMessage("Partitioning the network");
+		final List<LayoutPartition> partitionList = PartitionUtil.partition(networkView, false, edgeWeighter);
+		if (partitionList.isEmpty())
+			return;
+
+		if (partitionList.size() == 1) {
+			if (partitionList.get(0).nodeCount() > 1)
+				layoutPartition(partitionList.get(0));
+			return;
+		}
+
+		// Set up offsets -- we start with the overall min and max
+		double xStart = partitionList.get(0).getMinX();
+		double yStart = partitionList.get(0).getMinY();
+
+		for (LayoutPartition partition: partitionList) {
+			xStart = Math.min(xStart, partition.getMinX());
+			yStart = Math.min(yStart, partition.getMinY());
+		}
+
+		layoutPartitions(partitionList, taskMonitor);
+
+		if (cancelled)
+			return;
+
+		double next_x_start = xStart;
+		double next_y_start = yStart;
+		double current_max_y = 0;
+
+		double max_dimensions = Math.sqrt((double) networkView.getNodeViews().size());
+		// give each node room
+		max_dimensions *= INCR;
+		max_dimensions += xStart;
+
+		for (LayoutPartition partition: partitionList) {
+			if (partition.nodeCount() > 1) {
+				partition.offset(next_x_start, next_y_start);
+			} else {
+				// Single node partitions
+				for (LayoutNode node: partition.getNodeList()) {
+					if (node.isLocked())
+						continue;
+
+					node.setX(next_x_start);
+					node.setY(next_y_start);
+					partition.moveNodeToLocation(node);
+				}
+			}
+
+			double last_max_x = partition.getMaxX();
+			double last_max_y = partition.getMaxY();
+
+			if (last_max_y > current_max_y)
+				current_max_y = last_max_y;
+
+			if (last_max_x > max_dimensions) {
+				next_x_start = xStart;
+				next_y_start = current_max_y + INCR;
+			} else {
+				next_x_start = last_max_x + INCR;
+			}
+		}
+	}
+
+	/**
+	 * Lays out every partition of more than one node with its own copy of
+	 * this task, biggest partitions first, and waits for all of them.
+	 * Partitions that are parallel on their own go first, one at a time.
+	 */
+	private void layoutPartitions(final List<LayoutPartition> partitionList, final TaskMonitor taskMonitor) {
+		final int count = partitionList.size();
+		final Integer[] order = new Integer[count];
+		for (int i = 0; i < count; i++)
+			order[i] = i;
+
+		Arrays.sort(order, new Comparator<Integer>() {
+			public int compare(Integer i1, Integer i2) {
+				int size1 = partitionList.get(i1).size();
+				int size2 = partitionList.get(i2).size();
+				return size1 != size2 ? (size2 > size1 ? 1 : -1) : i1.compareTo(i2);
+			}
+		});
+
+		// The copies are created up front, on this thread, since their
+		// constructors may share settings objects with this task
+		final ProgressMonitor progress = new ProgressMonitor(taskMonitor, partitionList);
+		final AbstractConcurrentPartitionLayoutTask[] tasks = new AbstractConcurrentPartitionLayoutTask[count];
+		for (int i = 0; i < count; i++) {
+			// Single node partitions are placed when packing
+			if (partitionList.get(i).nodeCount() <= 1)
+				continue;
+			tasks[i] = createPartitionTask();
+			tasks[i].worker = true;
+			tasks[i].taskMonitor = progress.forPartition(i);
+		}
+
+		synchronized (workers) {
+			if (cancelled)
+				return;
+			for (AbstractConcurrentPartitionLayoutTask task: tasks) {
+				if (task != null)
+					workers.add(task);
+			}
+		}
+
+		final List<Integer> concurrent = new ArrayList<Integer>(count);
+		final List<Integer> serial = new ArrayList<Integer>();
+		for (Integer partition: order) {
+			if (tasks[partition] == null)
+				continue;
+			if (isLayoutParallel(partitionList.get(partition)))
+				serial.add(partition);
+			else
+				concurrent.add(partition);
+		}
+
+		final AtomicInteger next = new AtomicInteger();
+		final List<RecursiveAction> runners = new ArrayList<RecursiveAction>();
+		for (int i = 0; i < Math.min(POOL.getParallelism(), concurrent.size()); i++) {
+			runners.add(new RecursiveAction() {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void compute() {
+					int index;
+					while (!cancelled && ((index = next.getAndIncrement()) < concurrent.size())) {
+						int partition = concurrent.get(index);
+						tasks[partition].layoutPartition(partitionList.get(partition));
+					}
+				}
+			});
+		}
+
+		try {
+			for (Integer partition: serial) {
+				if (cancelled)
+					return;
+				tasks[partition].layoutPartition(partitionList.get(partition));
+			}
+
+			if (cancelled || runners.isEmpty())
+				return;
+
+			POOL.invoke(new RecursiveAction() {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void compute() {
+					invokeAll(runners);
+				}
+			});
+		} finally {
+			synchronized (workers) {
+				workers.clear();
+			}
+		}
+	}
+
+	@Override
+	public void cancel() {
+		super.cancel();
+
+		synchronized (workers) {
+			for (AbstractConcurrentPartitionLayoutTask task: workers)
+				task.cancel();
+		}
+	}
+
+	@Override
+	public void setTaskStatus(int percent) {
+		// The copies report the progress of their own partition
+		if (worker) {
+			if (taskMonitor != null)
+				taskMonitor.setProgress(percent / 100.0);
+		} else {
+			super.setTaskStatus(percent);
+		}
+	}
+
+	/**
+	 * Combines the progress of the partitions that are laid out, weighted by
+	 * their number of nodes, into the progress of the whole layout.
+	 */
+	private static final class ProgressMonitor {
+		private final TaskMonitor taskMonitor;
+		private final double[] weights;
+		private final double[] progress;
+		private double total;
+
+		ProgressMonitor(final TaskMonitor taskMonitor, final List<LayoutPartition> partitionList) {
+			this.taskMonitor = taskMonitor;
+			this.weights = new double[partitionList.size()];
+			this.progress = new double[partitionList.size()];
+
+			double nodeCount = 0;
+			for (LayoutPartition partition: partitionList) {
+				if (partition.nodeCount() > 1)
+					nodeCount += partition.size();
+			}
+			for (int i = 0; i < weights.length; i++) {
+				if (nodeCount > 0 && partitionList.get(i).nodeCount() > 1)
+					weights[i] = partitionList.get(i).size() / nodeCount;
+			}
+		}
+
+		synchronized void setProgress(int partition, double value) {
+			value = Math.max(0.0, Math.min(1.0, value));
+			total += weights[partition] * (value - progress[partition]);
+			progress[partition] = value;
+			taskMonitor.setProgress(total);
+		}
+
+		TaskMonitor forPartition(final int partition) {
+			return new TaskMonitor() {
+				public void setTitle(String title) {
+				}
+
+				public void setProgress(double value) {
+					ProgressMonitor.this.setProgress(partition, value);
+				}
+
+				public void setStatusMessage(String statusMessage) {
+					taskMonitor.setStatusMessage(statusMessage);
+				}
+
+				public void showMessage(TaskMonitor.Level level, String message) {
+					taskMonitor.showMessage(level, message);
+				}
+			};
+		}
+	}
+}
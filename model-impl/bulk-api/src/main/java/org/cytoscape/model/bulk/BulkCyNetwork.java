@@ -0,0 +1,46 @@
+package org.cytoscape.model.bulk;
+
+/*
+ * #%L
+ * Cytoscape Model Bulk API (model-bulk-api)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import org.cytoscape.model.CyNetwork;
+
+
+/**
+ * A {@link CyNetwork} whose topology can be read in bulk from an immutable
+ * snapshot.  The networks created by the model implement it.  Algorithms that
+ * walk the whole topology, such as layouts and filters, check for it with
+ * instanceof and fall back to the CyNetwork methods on other networks.
+ */
+public interface BulkCyNetwork extends CyNetwork {
+
+	/**
+	 * Returns an immutable copy of the current topology.  The copy is shared
+	 * and only rebuilt after the network has changed, so asking for it again
+	 * is cheap while the network stays the same.  It does not follow later
+	 * changes to the network.
+	 */
+	NetworkSnapshot getAdjacencySnapshot();
+}
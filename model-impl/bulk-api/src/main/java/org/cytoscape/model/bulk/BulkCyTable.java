@@ -0,0 +1,52 @@
+package org.cytoscape.model.bulk;
+
+/*
+ * #%L
+ * Cytoscape Model Bulk API (model-bulk-api)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.Map;
+
+import org.cytoscape.model.CyTable;
+
+
+/**
+ * A {@link CyTable} that can set one column of many rows at once.  The tables
+ * created by the model implement it, and so do the facades of network tables.
+ * Importers check for it with instanceof and set the cells one at a time on
+ * tables that don't implement it.
+ */
+public interface BulkCyTable extends CyTable {
+
+	/**
+	 * Sets one column of many rows at once.  All values are checked before any
+	 * of them is stored, and a single RowsSetEvent is fired for the whole
+	 * column instead of one RowSetRecord payload per cell.  A null value unsets
+	 * the cell.  Rows that don't exist yet are created.
+	 * @param columnName the name of an existing column
+	 * @param keyToValueMap the values, keyed by the primary key of their row
+	 * @throws IllegalArgumentException if the column doesn't exist or a value
+	 *         doesn't have the type of the column
+	 */
+	void setColumnValues(String columnName, Map<?, ?> keyToValueMap);
+}
@@ -0,0 +1,89 @@
+package org.cytoscape.model.bulk;
+
+/*
+ * #%L
+ * Cytoscape Model Bulk API (model-bulk-api)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyNode;
+
+
+/**
+ * An immutable copy of the topology of a {@link BulkCyNetwork}.  Nodes and
+ * edges are numbered 0..n-1 in the order of the network's node and edge lists,
+ * and the adjacency of node i is stored in the slots getAdjacencyStart(i) to
+ * getAdjacencyEnd(i) - 1.  A snapshot never changes once taken, so it can be
+ * read from any thread without locking, and the index based methods don't
+ * allocate.
+ * <p>
+ * The adjacency of a node lists the edges whose source is the node first and
+ * then the edges whose target is the node.  A self-edge therefore has two
+ * slots, and {@link #matches(int, CyEdge.Type)} decides which of them to count.
+ */
+public interface NetworkSnapshot {
+
+	int getNodeCount();
+
+	int getEdgeCount();
+
+	CyNode getNode(int index);
+
+	CyEdge getEdge(int index);
+
+	/**
+	 * @return the index of the node in this snapshot, or -1 if the node was
+	 * not part of the network when the snapshot was taken.
+	 */
+	int getNodeIndex(CyNode node);
+
+	/**
+	 * @return the index of the edge in this snapshot, or -1 if the edge was
+	 * not part of the network when the snapshot was taken.
+	 */
+	int getEdgeIndex(CyEdge edge);
+
+	int getEdgeSourceIndex(int edgeIndex);
+
+	int getEdgeTargetIndex(int edgeIndex);
+
+	boolean isEdgeDirected(int edgeIndex);
+
+	/** First adjacency slot of the node. */
+	int getAdjacencyStart(int nodeIndex);
+
+	/** One past the last adjacency slot of the node. */
+	int getAdjacencyEnd(int nodeIndex);
+
+	/** Index of the edge in the given adjacency slot. */
+	int getAdjacentEdge(int slot);
+
+	/** Index of the node at the other end of the edge in the given adjacency slot. */
+	int getAdjacentNode(int slot);
+
+	/**
+	 * Whether the edge in the given adjacency slot is adjacent to its node
+	 * for the given edge type.  Each edge matches at most once per node.
+	 */
+	boolean matches(int slot, CyEdge.Type type);
+}
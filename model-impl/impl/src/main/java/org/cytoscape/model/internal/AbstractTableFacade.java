@@ -38,6 +38,7 @@ import org.cytoscape.model.CyTable;
 import org.cytoscape.model.SUIDFactory;
 import org.cytoscape.model.SavePolicy;
 import org.cytoscape.model.VirtualColumnInfo;
+import org.cytoscape.model.bulk.BulkCyTable;
 import org.cytoscape.model.events.RowsDeletedEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -48,7 +49,7 @@ import com.google.common.collect.MapMaker;
 /**
  * An abstract table facade class. 
  */
-public abstract class AbstractTableFacade implements CyTable {
+public abstract class AbstractTableFacade implements BulkCyTable {
 	
 	private static final Logger logger = LoggerFactory.getLogger(AbstractTableFacade.class);
 	
@@ -202,6 +203,21 @@ public abstract class AbstractTableFacade implements CyTable {
 		return frows;
 	}
 	
+	/**
+	 * Sets one column of many rows at once.  If the actual table is a
+	 * {@link BulkCyTable}, it fires a single RowsSetEvent for the whole
+	 * column, otherwise the cells are set one at a time.
+	 */
+	@Override
+	public void setColumnValues(final String columnName, final Map<?, ?> keyToValueMap) {
+		if (actual instanceof BulkCyTable) {
+			((BulkCyTable) actual).setColumnValues(columnName, keyToValueMap);
+		} else {
+			for (final Map.Entry<?, ?> entry : keyToValueMap.entrySet())
+				actual.getRow(entry.getKey()).set(columnName, entry.getValue());
+		}
+	}
+
 	@Override
 	public int countMatchingRows(String columnName, Object value) {
 		return actual.countMatchingRows(columnName, value);
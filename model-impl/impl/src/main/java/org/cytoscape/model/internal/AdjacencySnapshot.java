@@ -0,0 +1,315 @@
+package org.cytoscape.model.internal;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2016 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.bulk.NetworkSnapshot;
+
+import cern.colt.map.tlong.OpenLongIntHashMap;
+
+
+/**
+ * An immutable, compressed sparse row (CSR) copy of the topology of a
+ * {@link SimpleNetwork}.  Nodes and edges are numbered 0..n-1 in the order
+ * of the network's node and edge lists, and the adjacency of node i is stored
+ * in the slots getAdjacencyStart(i) to getAdjacencyEnd(i) - 1.  A snapshot
+ * never changes once built, so it can be read from any thread without locking
+ * and the index based methods don't allocate.
+ * <p>
+ * The adjacency of a node lists the edges whose source is the node first and
+ * then the edges whose target is the node, which is the order the network's
+ * own adjacency methods return them in.  A self-edge therefore has two slots,
+ * and {@link #matches(int, CyEdge.Type)} decides which of them to count.
+ */
+public final class AdjacencySnapshot implements NetworkSnapshot {
+
+	private static final byte SOURCE_SIDE = 1;
+	private static final byte DIRECTED = 2;
+	private static final byte SELF_EDGE = 4;
+
+	private final CyNode[] nodes;
+	private final CyEdge[] edges;
+
+	// SUID -> index + 1, so that a missing key (0) is not a valid index
+	private final OpenLongIntHashMap nodeIndices;
+	private final OpenLongIntHashMap edgeIndices;
+
+	private final int[] edgeSources;
+	private final int[] edgeTargets;
+
+	private final int[] adjacencyOffsets;
+	private final int[] adjacentEdges;
+	private final int[] adjacentNodes;
+	private final byte[] adjacencyFlags;
+
+	/**
+	 * Must be called with the lock of the network held.
+	 */
+	static AdjacencySnapshot build(final PointerStore store) {
+		return new AdjacencySnapshot(store);
+	}
+
+	private AdjacencySnapshot(final PointerStore store) {
+		final int nodeCount = store.getNodeCount();
+		final int edgeCount = store.getEdgeCount();
+
+		nodes = new CyNode[nodeCount];
+		edges = new CyEdge[edgeCount];
+		nodeIndices = new OpenLongIntHashMap(nodeCount);
+		edgeIndices = new OpenLongIntHashMap(edgeCount);
+		edgeSources = new int[edgeCount];
+		edgeTargets = new int[edgeCount];
+		adjacencyOffsets = new int[nodeCount + 1];
+
+		// Snapshot indices in list order, by store slot
+		final int[] nodeIndexOfSlot = new int[store.getNodeSlotLimit()];
+		final int[] edgeIndexOfSlot = new int[store.getEdgeSlotLimit()];
+
+		int n = 0;
+		for (int node = store.getFirstNode(); node != PointerStore.NONE; node = store.getNextNode(node), n++) {
+			nodes[n] = store.getNode(node);
+			nodeIndices.put(nodes[n].getSUID(), n + 1);
+			nodeIndexOfSlot[node] = n;
+		}
+
+		// Edges in the same order as SimpleNetwork.getEdgeList()
+		int e = 0;
+		n = 0;
+		for (int node = store.getFirstNode(); node != PointerStore.NONE; node = store.getNextNode(node), n++) {
+			for (int edge = store.getFirstOutEdge(node); edge != PointerStore.NONE; edge = store.getNextOutEdge(edge)) {
+				edges[e] = store.getEdge(edge);
+				edgeIndices.put(edges[e].getSUID(), e + 1);
+				edgeIndexOfSlot[edge] = e;
+				edgeSources[e] = n;
+				edgeTargets[e] = nodeIndexOfSlot[store.getTarget(edge)];
+				e++;
+			}
+		}
+
+		// Every edge is in the outgoing list of its source and the incoming
+		// list of its target, so it takes two slots.
+		adjacentEdges = new int[2 * edgeCount];
+		adjacentNodes = new int[2 * edgeCount];
+		adjacencyFlags = new byte[2 * edgeCount];
+
+		int slot = 0;
+		n = 0;
+		for (int node = store.getFirstNode(); node != PointerStore.NONE; node = store.getNextNode(node), n++) {
+			adjacencyOffsets[n] = slot;
+			for (int edge = store.getFirstOutEdge(node); edge != PointerStore.NONE; edge = store.getNextOutEdge(edge)) {
+				adjacentEdges[slot] = edgeIndexOfSlot[edge];
+				adjacentNodes[slot] = nodeIndexOfSlot[store.getTarget(edge)];
+				adjacencyFlags[slot] = flags(store, edge, SOURCE_SIDE);
+				slot++;
+			}
+			for (int edge = store.getFirstInEdge(node); edge != PointerStore.NONE; edge = store.getNextInEdge(edge)) {
+				adjacentEdges[slot] = edgeIndexOfSlot[edge];
+				adjacentNodes[slot] = nodeIndexOfSlot[store.getSource(edge)];
+				adjacencyFlags[slot] = flags(store, edge, (byte) 0);
+				slot++;
+			}
+		}
+		adjacencyOffsets[nodeCount] = slot;
+	}
+
+	private static byte flags(final PointerStore store, final int edge, byte flags) {
+		if (store.isDirected(edge))
+			flags |= DIRECTED;
+		if (store.getSource(edge) == store.getTarget(edge))
+			flags |= SELF_EDGE;
+
+		return flags;
+	}
+
+	public int getNodeCount() {
+		return nodes.length;
+	}
+
+	public int getEdgeCount() {
+		return edges.length;
+	}
+
+	public CyNode getNode(final int index) {
+		return nodes[index];
+	}
+
+	public CyEdge getEdge(final int index) {
+		return edges[index];
+	}
+
+	/**
+	 * @return the index of the node in this snapshot, or -1 if the node was
+	 * not part of the network when the snapshot was taken.
+	 */
+	public int getNodeIndex(final CyNode node) {
+		if (node == null)
+			return -1;
+
+		final int index = nodeIndices.get(node.getSUID()) - 1;
+		return index >= 0 && nodes[index].equals(node) ? index : -1;
+	}
+
+	/**
+	 * @return the index of the edge in this snapshot, or -1 if the edge was
+	 * not part of the network when the snapshot was taken.
+	 */
+	public int getEdgeIndex(final CyEdge edge) {
+		if (edge == null)
+			return -1;
+
+		final int index = edgeIndices.get(edge.getSUID()) - 1;
+		return index >= 0 && edges[index].equals(edge) ? index : -1;
+	}
+
+	public int getEdgeSourceIndex(final int edgeIndex) {
+		return edgeSources[edgeIndex];
+	}
+
+	public int getEdgeTargetIndex(final int edgeIndex) {
+		return edgeTargets[edgeIndex];
+	}
+
+	public boolean isEdgeDirected(final int edgeIndex) {
+		return edges[edgeIndex].isDirected();
+	}
+
+	/** First adjacency slot of the node. */
+	public int getAdjacencyStart(final int nodeIndex) {
+		return adjacencyOffsets[nodeIndex];
+	}
+
+	/** One past the last adjacency slot of the node. */
+	public int getAdjacencyEnd(final int nodeIndex) {
+		return adjacencyOffsets[nodeIndex + 1];
+	}
+
+	/** Index of the edge in the given adjacency slot. */
+	public int getAdjacentEdge(final int slot) {
+		return adjacentEdges[slot];
+	}
+
+	/** Index of the node at the other end of the edge in the given adjacency slot. */
+	public int getAdjacentNode(final int slot) {
+		return adjacentNodes[slot];
+	}
+
+	/**
+	 * Whether the edge in the given adjacency slot is adjacent to its node
+	 * for the given edge type.  Each edge matches at most once per node.
+	 */
+	public boolean matches(final int slot, final CyEdge.Type type) {
+		final byte flags = adjacencyFlags[slot];
+		final boolean directed = (flags & DIRECTED) != 0;
+		final boolean undirected = type == CyEdge.Type.UNDIRECTED || type == CyEdge.Type.ANY;
+		final boolean sourceSide = (directed && (type == CyEdge.Type.DIRECTED || type == CyEdge.Type.ANY || type == CyEdge.Type.OUTGOING))
+		                           || (undirected && !directed);
+
+		if ((flags & SOURCE_SIDE) != 0)
+			return sourceSide;
+
+		// Self-edges that were already counted on the source side
+		if ((flags & SELF_EDGE) != 0 && sourceSide)
+			return false;
+
+		return (directed && (type == CyEdge.Type.DIRECTED || type == CyEdge.Type.ANY || type == CyEdge.Type.INCOMING))
+		       || (undirected && !directed);
+	}
+
+	public List<CyNode> getNodeList() {
+		return new ArrayList<CyNode>(Arrays.asList(nodes));
+	}
+
+	public List<CyEdge> getEdgeList() {
+		return new ArrayList<CyEdge>(Arrays.asList(edges));
+	}
+
+	public List<CyNode> getNeighborList(final CyNode node, final CyEdge.Type type) {
+		final int n = getNodeIndex(node);
+		if (n < 0)
+			return Collections.emptyList();
+
+		final int end = getAdjacencyEnd(n);
+		final List<CyNode> ret = new ArrayList<CyNode>(end - getAdjacencyStart(n));
+		for (int slot = getAdjacencyStart(n); slot < end; slot++) {
+			if (matches(slot, type))
+				ret.add(nodes[adjacentNodes[slot]]);
+		}
+
+		return ret;
+	}
+
+	public List<CyEdge> getAdjacentEdgeList(final CyNode node, final CyEdge.Type type) {
+		final int n = getNodeIndex(node);
+		if (n < 0)
+			return Collections.emptyList();
+
+		final int end = getAdjacencyEnd(n);
+		final List<CyEdge> ret = new ArrayList<CyEdge>(end - getAdjacencyStart(n));
+		for (int slot = getAdjacencyStart(n); slot < end; slot++) {
+			if (matches(slot, type))
+				ret.add(edges[adjacentEdges[slot]]);
+		}
+
+		return ret;
+	}
+
+	public List<CyEdge> getConnectingEdgeList(final CyNode source, final CyNode target, final CyEdge.Type type) {
+		final int s = getNodeIndex(source);
+		final int t = getNodeIndex(target);
+		if (s < 0 || t < 0)
+			return Collections.emptyList();
+
+		final List<CyEdge> ret = new ArrayList<CyEdge>(2);
+		final int end = getAdjacencyEnd(s);
+		for (int slot = getAdjacencyStart(s); slot < end; slot++) {
+			if (adjacentNodes[slot] == t && matches(slot, type))
+				ret.add(edges[adjacentEdges[slot]]);
+		}
+
+		return ret;
+	}
+
+	public boolean containsEdge(final CyNode n1, final CyNode n2) {
+		final int s = getNodeIndex(n1);
+		final int t = getNodeIndex(n2);
+		if (s < 0 || t < 0)
+			return false;
+
+		final int end = getAdjacencyEnd(s);
+		for (int slot = getAdjacencyStart(s); slot < end; slot++) {
+			if (adjacentNodes[slot] == t && matches(slot, CyEdge.Type.ANY))
+				return true;
+		}
+
+		return false;
+	}
+}
@@ -0,0 +1,52 @@
+package org.cytoscape.model.internal;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2016 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.Collection;
+
+
+/**
+ * Storage for the values of one column of a {@link CyTableImpl}, keyed by the
+ * primary key of the row.  Values are either of the column type or an
+ * Equation.  Implementations are not thread safe, the table lock guards them.
+ */
+interface ColumnData {
+
+	/** Returns the value or equation stored for the key, or null if there is none. */
+	Object get(Object key);
+
+	void put(Object key, Object value);
+
+	void remove(Object key);
+
+	/** Returns the keys of all rows that have a value or equation in this column. */
+	Collection<Object> keySet();
+
+	/** Returns the keys of all rows whose stored value equals the given value. */
+	Collection<Object> getMatchingKeys(Object value);
+
+	int countMatchingValues(Object value);
+}
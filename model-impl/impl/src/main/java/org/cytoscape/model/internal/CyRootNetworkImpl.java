@@ -45,6 +45,7 @@ import org.cytoscape.model.CyTableFactory;
 import org.cytoscape.model.CyTableFactory.InitialTableSize;
 import org.cytoscape.model.SUIDFactory;
 import org.cytoscape.model.SavePolicy;
+import org.cytoscape.model.bulk.BulkCyNetwork;
 import org.cytoscape.model.events.ColumnCreatedListener;
 import org.cytoscape.model.events.NetworkAddedEvent;
 import org.cytoscape.model.events.NetworkAddedListener;
@@ -59,7 +60,7 @@ import org.cytoscape.service.util.CyServiceRegistrar;
  * for addNodes/addEdges that is missing from SimpleNetwork and provides support 
  * for subnetworks.
  */
-public final class CyRootNetworkImpl extends DefaultTablesNetwork implements CyRootNetwork, NetworkAddedListener {
+public final class CyRootNetworkImpl extends DefaultTablesNetwork implements CyRootNetwork, BulkCyNetwork, NetworkAddedListener {
 
 	private final long suid;
 	private SavePolicy savePolicy;
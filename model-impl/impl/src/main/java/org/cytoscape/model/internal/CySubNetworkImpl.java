@@ -40,6 +40,7 @@ import org.cytoscape.model.CyIdentifiable;
 import org.cytoscape.model.CyTableFactory;
 import org.cytoscape.model.CyTableManager;
 import org.cytoscape.model.SavePolicy;
+import org.cytoscape.model.bulk.BulkCyNetwork;
 import org.cytoscape.model.events.AboutToRemoveEdgesEvent;
 import org.cytoscape.model.events.AboutToRemoveNodesEvent;
 import org.cytoscape.model.events.AddedEdgesEvent;
@@ -59,7 +60,7 @@ import org.cytoscape.model.subnetwork.CySubNetwork;
  * and then call the appropriate internal methods.  A few other methods
  * wrap those in SimpleNetwork to fire appropriate events.
  */
-public final class CySubNetworkImpl extends DefaultTablesNetwork implements CySubNetwork, NetworkAddedListener {
+public final class CySubNetworkImpl extends DefaultTablesNetwork implements CySubNetwork, BulkCyNetwork, NetworkAddedListener {
 
 	private SavePolicy savePolicy;
 	
@@ -51,13 +51,24 @@ public class CyTableFactoryImpl implements CyTableFactory {
 	private final Interpreter interpreter;
 	private final CyServiceRegistrar serviceRegistrar;
 	private final WeakEventDelegator eventDelegator; 
+	private final TableStorage storage;
 
 	public CyTableFactoryImpl(final CyEventHelper help, final Interpreter interpreter,
 	                          final CyServiceRegistrar serviceRegistrar)
+	{
+		this(help, interpreter, serviceRegistrar, TableStorage.getDefault());
+	}
+
+	/**
+	 * Creates a factory whose tables store their values as specified by storage.
+	 */
+	public CyTableFactoryImpl(final CyEventHelper help, final Interpreter interpreter,
+	                          final CyServiceRegistrar serviceRegistrar, final TableStorage storage)
 	{
 		this.help             = help;
 		this.interpreter      = interpreter;
 		this.serviceRegistrar = serviceRegistrar;
+		this.storage          = storage;
 		this.eventDelegator = new WeakEventDelegator();
 		this.serviceRegistrar.registerService(eventDelegator, TableAddedListener.class, new Properties()); 
 	}
@@ -71,7 +82,7 @@ public class CyTableFactoryImpl implements CyTableFactory {
 				   final boolean pub, final boolean isMutable, final CyTableFactory.InitialTableSize size)
 	{
 		final CyTableImpl table = new CyTableImpl(name, primaryKey, primaryKeyType, pub, isMutable,
-		                                      SavePolicy.SESSION_FILE, help, interpreter, size.getSize());
+		                                      SavePolicy.SESSION_FILE, help, interpreter, size.getSize(), storage);
 		eventDelegator.addListener(table);
 		return table;
 	}
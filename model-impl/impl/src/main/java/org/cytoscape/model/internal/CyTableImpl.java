@@ -31,9 +31,9 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -46,6 +46,7 @@ import org.cytoscape.model.CyTable;
 import org.cytoscape.model.SUIDFactory;
 import org.cytoscape.model.SavePolicy;
 import org.cytoscape.model.VirtualColumnInfo;
+import org.cytoscape.model.bulk.BulkCyTable;
 import org.cytoscape.model.events.ColumnCreatedEvent;
 import org.cytoscape.model.events.ColumnDeletedEvent;
 import org.cytoscape.model.events.ColumnNameChangedEvent;
@@ -61,12 +62,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 
-public final class CyTableImpl implements CyTable, TableAddedListener {
+public final class CyTableImpl implements BulkCyTable, TableAddedListener {
 	
 	private static final Logger logger = LoggerFactory.getLogger(CyTableImpl.class);
 
 	private Set<String> currentlyActiveAttributes;
-	private Map<String, Map<Object, Object>> attributes; // Maps column names to (key,value) pairs, where "key" is the primary key.
+	private Map<String, ColumnData> attributes; // Maps column names to (key,value) pairs, where "key" is the primary key.
+	private RowSlotMap rowSlots; // Only used by the columnar storage.
 	private Map<Object, CyRow> rows; // Maps the primary key to CyRow.
 	private Map<String, CyColumn> types;
 	private ArrayList<CyColumn> colList; //Stores the list of columns in the table
@@ -76,6 +78,15 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 	// every time a column or value is retrieved.
 	private Map<String/*name*/, String/*normalized name*/> normalizedColumnNames; 
 
+	// Results of equation cells, by normalized column name and then primary key.  An entry stays
+	// valid until a column it was computed from changes in the same row (see equationReferences).
+	private Map<String, Map<Object, Object>> equationResults;
+	// Maps a normalized column name to the normalized names of the equation columns with cached
+	// results that read it.
+	private Map<String, Set<String>> equationReferences;
+	// Set while evaluating an equation if anything it read can change without this table knowing.
+	private boolean volatileEvaluation;
+
 	// This is not unique and might be changed by user.
 	private String title;
 
@@ -93,6 +104,7 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 	private final CyEventHelper eventHelper;
 	private final Interpreter interpreter;
 	private final int defaultInitSize;
+	private final TableStorage storage;
 
 	String lastInternalError;
 
@@ -115,6 +127,23 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 						final CyEventHelper eventHelper,
 						final Interpreter interpreter,
 						final int defaultInitSize) {
+		this(title, primaryKey, primaryKeyType, pub, isMutable, savePolicy, eventHelper, interpreter,
+		     defaultInitSize, TableStorage.MAP);
+	}
+
+	/**
+	 * Creates a new CyTableImpl object that stores its values as specified by storage.
+	 */
+	public CyTableImpl(	final String title,
+						final String primaryKey,
+						Class<?> primaryKeyType,
+						final boolean pub,
+						final boolean isMutable,
+						SavePolicy savePolicy,
+						final CyEventHelper eventHelper,
+						final Interpreter interpreter,
+						final int defaultInitSize,
+						final TableStorage storage) {
 		this.title = title;
 		this.primaryKey = primaryKey;
 		this.pub = pub;
@@ -125,9 +154,11 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 		this.savePolicy = savePolicy;
 		this.fireEvents = false;
 		this.defaultInitSize = defaultInitSize;
+		this.storage = storage;
 
 		currentlyActiveAttributes = new HashSet<String>();
-		attributes = new HashMap<String, Map<Object, Object>>();
+		attributes = new HashMap<String, ColumnData>();
+		rowSlots = storage.createRowSlotMap(primaryKeyType, defaultInitSize);
 		
 		rows = new ConcurrentHashMap<Object, CyRow>(defaultInitSize, 0.5f, 2);
 		types = new ConcurrentHashMap<String, CyColumn>(16, 0.75f, 2);
@@ -136,6 +167,8 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 		
 		dependents = new HashMap<String, Set<CyColumn>>();
 		normalizedColumnNames = new HashMap<String, String>();
+		equationResults = new HashMap<String, Map<Object, Object>>();
+		equationReferences = new HashMap<String, Set<String>>();
 		
 		VirtualColumnInfo virtualInfo = NonVirtualColumnInfo.create(true);
 		final String normalizedPKName = normalizeColumnName(primaryKey);
@@ -150,7 +183,7 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 		colList.add(getColumn(normalizedPKName));
 		// Using a ConcurrentHashMap for attributes because this speeds up initial access times
 		// for getMatchingRows()
-		attributes.put(normalizedPKName, new HashMap<Object, Object>(defaultInitSize));
+		attributes.put(normalizedPKName, new MapColumnData(defaultInitSize));
 
 		virtualColumnMap = new HashMap<String, VirtualColumn>();
 	}
@@ -165,9 +198,13 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 			currentlyActiveAttributes = other.currentlyActiveAttributes;
 			other.currentlyActiveAttributes = tempCurrentlyActiveAttributes;
 	
-			final Map<String, Map<Object, Object>> tempAttributes = attributes;
+			final Map<String, ColumnData> tempAttributes = attributes;
 			attributes = other.attributes;
 			other.attributes = tempAttributes;
+
+			final RowSlotMap tempRowSlots = rowSlots;
+			rowSlots = other.rowSlots;
+			other.rowSlots = tempRowSlots;
 	
 			final Map<Object, CyRow> tempRows = rows;
 			rows = other.rows;
@@ -216,6 +253,14 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 			final Map<String, Set<CyColumn>> tempDependents = dependents;
 			dependents = other.dependents;
 			other.dependents = tempDependents;
+
+			final Map<String, Map<Object, Object>> tempEquationResults = equationResults;
+			equationResults = other.equationResults;
+			other.equationResults = tempEquationResults;
+
+			final Map<String, Set<String>> tempEquationReferences = equationReferences;
+			equationReferences = other.equationReferences;
+			other.equationReferences = tempEquationReferences;
 			
 			final SavePolicy tempSavePolicy = savePolicy;
 			savePolicy = other.savePolicy;
@@ -241,7 +286,7 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 
 			String normalizedOldColName = normalizeColumnName(oldColumnName);
 			String normalizedNewColName = normalizeColumnName(newColumnName);
-			final Map<Object, Object> keyValuePairs = attributes.get(normalizedOldColName);
+			final ColumnData keyValuePairs = attributes.get(normalizedOldColName);
 			if (keyValuePairs != null) {
 				attributes.remove(normalizedOldColName);
 				attributes.put(normalizedNewColName, keyValuePairs);
@@ -262,6 +307,9 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 				dependents.remove(normalizedOldColName);
 				dependents.put(normalizedNewColName, columnDependents);
 			}
+
+			// Equations refer to columns by name, so a rename may change what they read.
+			clearEquationResults();
 		}
 
 		eventHelper.fireEvent(new ColumnNameChangedEvent(this, oldColumnName, newColumnName));
@@ -388,6 +436,7 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 					colList.remove(types.get(normalizedColName));
 					types.remove(normalizedColName);
 				}
+				clearEquationResults();
 			}
 		}
 
@@ -449,7 +498,7 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 							                              /* isPrimaryKey = */ false,
 							                              isImmutable,
 							                              defaultValue));
-			attributes.put(normalizedColName, new HashMap<Object, Object>(defaultInitSize));
+			attributes.put(normalizedColName, storage.createColumnData(type, rowSlots, defaultInitSize));
 			colList.add(types.get(normalizedColName));
 		}
 		
@@ -489,7 +538,7 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 							       /* isPrimaryKey = */ false,
 							       isImmutable,
 								   defaultValue));
-			attributes.put(normalizedColName, new HashMap<Object, Object>(defaultInitSize));
+			attributes.put(normalizedColName, storage.createColumnData(List.class, rowSlots, defaultInitSize));
 			colList.add(types.get(normalizedColName));
 		}
 
@@ -517,20 +566,16 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 			if (virtColumn != null)
 				return virtColumn.getColumnValues();
 	
-			Map<Object, Object> vals = attributes.get(normalizedColName);
+			ColumnData vals = attributes.get(normalizedColName);
 			if (vals == null)
 				throw new IllegalArgumentException("column \"" + columnName + "\" does not exist.");
 	
-			List l = new ArrayList(vals.size());
-			for (final Object suid : vals.keySet()) {
+			final Collection<Object> keys = vals.keySet();
+			List l = new ArrayList(keys.size());
+			for (final Object suid : keys) {
 				final Object value = vals.get(suid);
 				if (value instanceof Equation) {
-					final StringBuilder errorMsg = new StringBuilder();
-					final Object eqnValue =
-						EqnSupport.evalEquation((Equation)value, suid, interpreter,
-									currentlyActiveAttributes,
-									columnName, errorMsg, this);
-					lastInternalError = errorMsg.toString();
+					final Object eqnValue = evalEquation((Equation)value, suid, columnName, true);
 					if (eqnValue == null)
 						throw new IllegalStateException("can't convert an equation to a value.");
 					l.add(eqnValue);
@@ -609,13 +654,12 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 				return matchingRows;
 			}
 			
-			final Map<Object, Object> keyToValueMap = attributes.get(normalizedColName);
-			final ArrayList<CyRow> matchingRows = new ArrayList<CyRow>(rows.size());
+			final ColumnData keyToValueMap = attributes.get(normalizedColName);
+			final Collection<Object> matchingKeys = keyToValueMap.getMatchingKeys(value);
+			final ArrayList<CyRow> matchingRows = new ArrayList<CyRow>(matchingKeys.size());
 			
-			for(Entry<Object, Object> entry: keyToValueMap.entrySet()) {
-				if(entry.getValue().equals(value))
-					matchingRows.add(rows.get(entry.getKey()));
-			}
+			for (final Object key : matchingKeys)
+				matchingRows.add(rows.get(key));
 	
 			return matchingRows;
 		}
@@ -630,8 +674,8 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 			if (virtColumn != null)
 				return virtColumn.countMatchingRows(value);
 			
-			final Map<Object, Object> keyToValueMap = attributes.get(normalizedColName);
-			return Collections.frequency(keyToValueMap.values(), value);
+			final ColumnData keyToValueMap = attributes.get(normalizedColName);
+			return keyToValueMap.countMatchingValues(value);
 		}
 	}
 
@@ -666,23 +710,21 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 				newValue = virtColumn.getValue(key);
 				newRawValue = virtColumn.getRawValue(key);
 			} else {
-				Map<Object, Object> keyToValueMap = attributes.get(normalizedColName);
+				ColumnData keyToValueMap = attributes.get(normalizedColName);
 
 				if (!columnType.isAssignableFrom(value.getClass())
 				    && !EqnSupport.scalarEquationIsCompatible(value, columnType))
 					throw new IllegalArgumentException("value of \"" + columnName + "\" is not of type " + columnType);
 
+				invalidateEquationResults(key, normalizedColName);
+
 				if (value instanceof Equation) {
 					newRawValue = value;
 					final Equation equation = (Equation)value;
 					// TODO this is an implicit addRow - not sure if we want to refactor this or not
 					keyToValueMap.put(key, equation);
 
-					final StringBuilder errorMsg = new StringBuilder();
-					newValue = EqnSupport.evalEquation(equation, key, interpreter,
-									   currentlyActiveAttributes, columnName,
-									   errorMsg, this);
-					lastInternalError = errorMsg.toString();
+					newValue = evalEquation(equation, key, columnName, true);
 					if (newValue == null)
 						logger.warn("attempted premature evaluation evaluation for " + equation);
 				} else {
@@ -699,6 +741,186 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 		}
 	}
 
+	/**
+	 * Sets one column of many rows at once.  The table lock is taken once, all
+	 * values are checked before any of them is stored, and instead of one
+	 * RowSetRecord payload per cell a single RowsSetEvent is fired for this
+	 * table and for each table with a virtual column that depends on this one.
+	 * A null value unsets the cell.  Rows that don't exist yet are created.
+	 */
+	@Override
+	public void setColumnValues(final String columnName, final Map<?, ?> keyToValueMap) {
+		if (columnName == null)
+			throw new NullPointerException("columnName must not be null.");
+		if (keyToValueMap == null)
+			throw new NullPointerException("keyToValueMap must not be null.");
+		if (keyToValueMap.isEmpty())
+			return;
+
+		final List<Object> keys = new ArrayList<Object>(keyToValueMap.size());
+		final List<RowSetRecord> records = new ArrayList<RowSetRecord>(keyToValueMap.size());
+		boolean perCell = false;
+
+		synchronized(lock) {
+			final String normalizedColName = normalizeColumnName(columnName);
+			final CyColumn column = types.get(normalizedColName);
+			if (column == null)
+				throw new IllegalArgumentException("column: '" + columnName + "' does not yet exist.");
+
+			final Class<?> columnType = column.getType();
+
+			// List and virtual columns have their own per cell logic.
+			if (columnType == List.class || column.isPrimaryKey() || virtualColumnMap.containsKey(normalizedColName)) {
+				perCell = true;
+			} else {
+				for (final Map.Entry<?, ?> entry : keyToValueMap.entrySet()) {
+					checkKey(entry.getKey());
+					final Object value = entry.getValue();
+					if (value == null)
+						continue;
+					if (!(value instanceof Equation))
+						checkType(value);
+					if (!columnType.isAssignableFrom(value.getClass())
+					    && !EqnSupport.scalarEquationIsCompatible(value, columnType))
+						throw new IllegalArgumentException("value of \"" + columnName + "\" is not of type " + columnType);
+				}
+
+				final ColumnData keyToValue = attributes.get(normalizedColName);
+
+				for (final Map.Entry<?, ?> entry : keyToValueMap.entrySet()) {
+					final Object key = entry.getKey();
+					final Object value = entry.getValue();
+					final CyRow row = getRow(key);
+					final Object newValue;
+
+					if (value == null) {
+						if (keyToValue.get(key) == null)
+							continue;
+						invalidateEquationResults(key, normalizedColName);
+						keyToValue.remove(key);
+						newValue = null;
+					} else if (value instanceof Equation) {
+						invalidateEquationResults(key, normalizedColName);
+						keyToValue.put(key, value);
+						newValue = evalEquation((Equation)value, key, columnName, true);
+						if (newValue == null)
+							logger.warn("attempted premature evaluation evaluation for " + value);
+					} else {
+						invalidateEquationResults(key, normalizedColName);
+						newValue = columnType.cast(value);
+						keyToValue.put(key, newValue);
+					}
+
+					keys.add(key);
+					records.add(new RowSetRecord(row, columnName, newValue, value));
+				}
+			}
+		}
+
+		if (perCell) {
+			for (final Map.Entry<?, ?> entry : keyToValueMap.entrySet())
+				getRow(entry.getKey()).set(columnName, entry.getValue());
+			return;
+		}
+
+		if (fireEvents && !records.isEmpty())
+			fireBulkRowSetEvents(this, columnName, keys, records,
+			                     Collections.newSetFromMap(new IdentityHashMap<VirtualColumnInfo, Boolean>()));
+	}
+
+	/**
+	 * Sets a batch of rows, given as primary key to (column name to value) maps.
+	 * The batch is applied one column at a time with {@link #setColumnValues(String, Map)}.
+	 */
+	public void setRowValues(final Map<?, ? extends Map<String, ?>> rowValues) {
+		if (rowValues == null)
+			throw new NullPointerException("rowValues must not be null.");
+
+		final Map<String, Map<Object, Object>> columnValues = new LinkedHashMap<String, Map<Object, Object>>();
+		for (final Map.Entry<?, ? extends Map<String, ?>> row : rowValues.entrySet()) {
+			for (final Map.Entry<String, ?> cell : row.getValue().entrySet()) {
+				Map<Object, Object> values = columnValues.get(cell.getKey());
+				if (values == null) {
+					values = new LinkedHashMap<Object, Object>(rowValues.size() * 4 / 3 + 1);
+					columnValues.put(cell.getKey(), values);
+				}
+				values.put(row.getKey(), cell.getValue());
+			}
+		}
+
+		for (final Map.Entry<String, Map<Object, Object>> column : columnValues.entrySet())
+			setColumnValues(column.getKey(), column.getValue());
+	}
+
+	private void fireBulkRowSetEvents(final CyTableImpl table, final String columnName, final List<Object> keys,
+	                                  final List<RowSetRecord> records, final Set<VirtualColumnInfo> seen) {
+		eventHelper.fireEvent(new RowsSetEvent(table, records));
+
+		final List<CyColumn> columnDependents;
+		synchronized (table.lock) {
+			final Set<CyColumn> deps = table.dependents.get(table.normalizeColumnName(columnName));
+			if (deps == null || deps.isEmpty())
+				return;
+			columnDependents = new ArrayList<CyColumn>(deps);
+		}
+
+		for (final CyColumn dependent : columnDependents) {
+			final VirtualColumnInfo info = dependent.getVirtualColumnInfo();
+			if (!seen.add(info))
+				continue;
+
+			final CyTableImpl table2 = (CyTableImpl) dependent.getTable();
+			final String targetJoinKey = info.getTargetJoinKey();
+			final List<Object> keys2 = new ArrayList<Object>();
+			final List<RowSetRecord> records2 = new ArrayList<RowSetRecord>();
+
+			if (targetJoinKey.equals(table2.getPrimaryKey().getName())) {
+				for (int i = 0; i < keys.size(); i++) {
+					final CyRow row2 = table2.getRowNoCreate(keys.get(i));
+					if (row2 != null) {
+						final RowSetRecord record = records.get(i);
+						keys2.add(keys.get(i));
+						records2.add(new RowSetRecord(row2, dependent.getName(), record.getValue(), record.getRawValue()));
+					}
+				}
+			} else {
+				// Index the join column once rather than scanning it for every key.
+				final Map<Object, List<Object>> joinIndex = new HashMap<Object, List<Object>>();
+				synchronized (table2.lock) {
+					final ColumnData joinValues = table2.attributes.get(table2.normalizeColumnName(targetJoinKey));
+					if (joinValues == null)
+						continue;
+					for (final Object key2 : joinValues.keySet()) {
+						final Object joinValue = joinValues.get(key2);
+						List<Object> keysForValue = joinIndex.get(joinValue);
+						if (keysForValue == null) {
+							keysForValue = new ArrayList<Object>(1);
+							joinIndex.put(joinValue, keysForValue);
+						}
+						keysForValue.add(key2);
+					}
+				}
+
+				for (int i = 0; i < keys.size(); i++) {
+					final List<Object> joinedKeys = joinIndex.get(keys.get(i));
+					if (joinedKeys == null)
+						continue;
+					final RowSetRecord record = records.get(i);
+					for (final Object key2 : joinedKeys) {
+						final CyRow row2 = table2.getRowNoCreate(key2);
+						if (row2 != null) {
+							keys2.add(key2);
+							records2.add(new RowSetRecord(row2, dependent.getName(), record.getValue(), record.getRawValue()));
+						}
+					}
+				}
+			}
+
+			if (!records2.isEmpty() && table2.eventsEnabled())
+				fireBulkRowSetEvents(table2, dependent.getName(), keys2, records2, seen);
+		}
+	}
+
 	private void fireVirtualColumnRowSetEvent(CyTableImpl table, Object key, String columnName, Object newValue, Object newRawValue, Set<VirtualColumnInfo> seen) {
 		// Fire an event for this table
 		CyRow row = table.getRowNoCreate(key);
@@ -729,7 +951,7 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 				fireVirtualColumnRowSetEvent(table2, key, dependent.getName(), newValue, newRawValue, seen);
 			} else {
 				String normalizedTargetJoinKey = table2.normalizeColumnName(targetJoinKey);		
-				Map<Object, Object> keyToValueMap = table2.attributes.get(normalizedTargetJoinKey);
+				ColumnData keyToValueMap = table2.attributes.get(normalizedTargetJoinKey);
 				if(keyToValueMap != null) {
 					for (Object key2: keyToValueMap.keySet()) {
 						if (keyToValueMap.get(key2).equals(key)) {
@@ -776,8 +998,9 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 				virtColumn.setValue(key, rawValue);
 				newValue = virtColumn.getListValue(key);
 			} else {
-				Map<Object, Object> keyToValueMap = attributes.get(normalizedColName);
+				ColumnData keyToValueMap = attributes.get(normalizedColName);
 
+				invalidateEquationResults(key, normalizedColName);
 				// TODO this is an implicit addRow - not sure if we want to refactor this or not
 				keyToValueMap.put(key, rawValue);
 				if (rawValue instanceof Equation) {
@@ -806,7 +1029,7 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 			if (virtColumn != null)
 				virtColumn.setValue(key, null);
 			else {
-				final Map<Object, Object> keyToValueMap = attributes.get(normalizedColName);
+				final ColumnData keyToValueMap = attributes.get(normalizedColName);
 				if (!types.containsKey(normalizedColName) || keyToValueMap == null)
 					throw new IllegalArgumentException("column: '" + columnName + "' does not yet exist.");
 
@@ -814,6 +1037,7 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 				if (value == null)
 					return;
 
+				invalidateEquationResults(key, normalizedColName);
 				keyToValueMap.remove(key);
 			}
 		}
@@ -841,7 +1065,7 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 			if (virtColumn != null)
 				return virtColumn.getRawValue(key);
 			
-			final Map<Object, Object> keyToValueMap = attributes.get(normalizedColName);
+			final ColumnData keyToValueMap = attributes.get(normalizedColName);
 			if (keyToValueMap == null)
 				return null;
 			
@@ -873,6 +1097,12 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 		final String normalizedColName = normalizeColumnName(columnName);
 		final VirtualColumn virtColumn = virtualColumnMap.get(normalizedColName);
 		final Object vl = getValueOrEquation(key, columnName, virtColumn);
+
+		// Values of virtual columns are owned by another table, and lists may be modified in place,
+		// so equations reading them can't be cached.
+		if (virtColumn != null || vl instanceof List)
+			volatileEvaluation = true;
+
 		if (virtColumn != null && vl == null)
 			return virtColumn.getValue(key);
 
@@ -880,12 +1110,7 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 			return null;
 
 		if (vl instanceof Equation) {
-			final StringBuilder errorMsg = new StringBuilder();
-			final Object value =
-				EqnSupport.evalEquation((Equation)vl, key, interpreter,
-							currentlyActiveAttributes, columnName,
-							errorMsg, this);
-			lastInternalError = errorMsg.toString();
+			final Object value = evalEquation((Equation)vl, key, columnName, virtColumn == null);
 			if ( type == null )
 				return value;
 			else if(value != null)
@@ -896,6 +1121,103 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 			return vl;
 	}
 
+	/**
+	 * Evaluates an equation cell, or returns its cached result.  Results are only cached when
+	 * "cacheable" is true, the equation's functions are pure and everything it read, directly or
+	 * through other equations, is stored in this table.  Must be called while holding the lock.
+	 */
+	private Object evalEquation(final Equation equation, final Object key, final String columnName,
+	                            final boolean cacheable) {
+		final String normalizedColName = normalizeColumnName(columnName);
+		if (cacheable) {
+			final Map<Object, Object> results = equationResults.get(normalizedColName);
+			final Object result = results == null ? null : results.get(key);
+			if (result != null) {
+				lastInternalError = "";
+				return result;
+			}
+		}
+
+		final boolean outerEvaluationIsVolatile = volatileEvaluation;
+		volatileEvaluation = !cacheable || !EqnSupport.resultIsCacheable(equation);
+
+		final StringBuilder errorMsg = new StringBuilder();
+		final Object result = EqnSupport.evalEquation(equation, key, interpreter, currentlyActiveAttributes,
+		                                              columnName, errorMsg, this);
+		lastInternalError = errorMsg.toString();
+
+		// Lists are mutable, so the caller has to get a fresh one every time, and so does any
+		// equation that reads this one.
+		final boolean isVolatile = volatileEvaluation || result instanceof List;
+		volatileEvaluation = outerEvaluationIsVolatile || isVolatile;
+
+		if (!isVolatile && result != null)
+			cacheEquationResult(equation, key, normalizedColName, result);
+
+		return result;
+	}
+
+	private void cacheEquationResult(final Equation equation, final Object key, final String normalizedColName,
+	                                 final Object result) {
+		Map<Object, Object> results = equationResults.get(normalizedColName);
+		if (results == null) {
+			results = new HashMap<Object, Object>();
+			equationResults.put(normalizedColName, results);
+		}
+		results.put(key, result);
+
+		// Rows of the same column may hold different equations, so register every one of them.
+		for (final String reference : equation.getVariableReferences()) {
+			final String normalizedReference = normalizeColumnName(reference);
+			Set<String> referencingColumns = equationReferences.get(normalizedReference);
+			if (referencingColumns == null) {
+				referencingColumns = new HashSet<String>();
+				equationReferences.put(normalizedReference, referencingColumns);
+			}
+			referencingColumns.add(normalizedColName);
+		}
+	}
+
+	/**
+	 * Drops the cached results of the row "key" that were computed, directly or through other
+	 * equations, from the column "normalizedColName", as well as the cell itself.  Must be called
+	 * while holding the lock.
+	 */
+	private void invalidateEquationResults(final Object key, final String normalizedColName) {
+		if (equationResults.isEmpty())
+			return;
+
+		final Map<Object, Object> results = equationResults.get(normalizedColName);
+		if (results != null)
+			results.remove(key);
+
+		final Set<String> referencingColumns = equationReferences.get(normalizedColName);
+		if (referencingColumns == null)
+			return;
+
+		final Set<String> seen = new HashSet<String>();
+		seen.add(normalizedColName);
+		final List<String> pending = new ArrayList<String>(referencingColumns);
+		while (!pending.isEmpty()) {
+			final String columnName = pending.remove(pending.size() - 1);
+			if (!seen.add(columnName))
+				continue;
+
+			final Map<Object, Object> referencingResults = equationResults.get(columnName);
+			if (referencingResults != null)
+				referencingResults.remove(key);
+
+			final Set<String> next = equationReferences.get(columnName);
+			if (next != null)
+				pending.addAll(next);
+		}
+	}
+
+	private void clearEquationResults() {
+		equationResults.clear();
+		equationReferences.clear();
+	}
+
 	private final <T> T getDefaultValue(final String columnName, final T defaultValue) {
 		if ( defaultValue == null ) {
 			final CyColumn column = this.getColumn(columnName);
@@ -943,12 +1265,7 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 				return getDefaultValue(columnName,defaultValue);
 	
 			if (vl instanceof Equation) {
-				final StringBuilder errorMsg = new StringBuilder();
-				final Object result =
-					EqnSupport.evalEquation((Equation)vl, key, interpreter,
-								currentlyActiveAttributes, columnName,
-								errorMsg, this);
-				lastInternalError = errorMsg.toString();
+				final Object result = evalEquation((Equation)vl, key, columnName, virtColumn == null);
 				return (List)result;
 			} else
 				return (List)vl;
@@ -967,7 +1284,7 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 			if (virtColumn != null) {
 				return virtColumn.getRawValue(key) != null;
 			} else {
-				final Map<Object, Object> keyToValueMap = attributes.get(normalizedColName);
+				final ColumnData keyToValueMap = attributes.get(normalizedColName);
 				
 				return keyToValueMap != null && keyToValueMap.get(key) != null;
 			}
@@ -1045,9 +1362,10 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 
 			final String normalizedTargetName = normalizeColumnName(targetName);
 			types.put(normalizedTargetName, targetColumn);
-			attributes.put(normalizedTargetName, new HashMap<Object, Object>(defaultInitSize));
+			attributes.put(normalizedTargetName, new MapColumnData(defaultInitSize));
 			virtualColumnMap.put(normalizedTargetName, virtualColumn);
 			colList.add(types.get(normalizedTargetName));
+			clearEquationResults();
 		}
 
 		eventHelper.fireEvent(new ColumnCreatedEvent(this, targetName));
@@ -1070,6 +1388,7 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 				((CyTableImpl) info.getSourceTable()).removeDependent(info.getSourceColumn(), column);
 			}
 			virtualColumnMap.clear();
+			clearEquationResults();
 		}
 	}
 
@@ -1159,11 +1478,17 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 
 				for (CyColumn col : getColumns()) {
 					final String normalizedColName = normalizeColumnName(col.getName());
-					final Map<Object, Object> keyToValueMap = attributes.get(normalizedColName);
+					final ColumnData keyToValueMap = attributes.get(normalizedColName);
 					if (keyToValueMap != null) {
 						keyToValueMap.remove(key);
 					}
 				}
+
+				for (final Map<Object, Object> results : equationResults.values())
+					results.remove(key);
+
+				if (rowSlots != null)
+					rowSlots.release(key);
 			}
 		}
 		if(changed)
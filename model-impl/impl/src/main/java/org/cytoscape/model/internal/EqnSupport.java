@@ -26,7 +26,9 @@ package org.cytoscape.model.internal;
 
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -34,6 +36,7 @@ import java.util.TreeMap;
 import java.util.TreeSet;
 
 import org.cytoscape.equations.Equation;
+import org.cytoscape.equations.Function;
 import org.cytoscape.equations.IdentDescriptor;
 import org.cytoscape.equations.Interpreter;
 import org.cytoscape.model.internal.tsort.TopoGraphNode;
@@ -46,8 +49,29 @@ class EqnSupport {
 	
 	private static final Logger logger = LoggerFactory.getLogger(EqnSupport.class);
 
+	// Built-in functions are pure, except for these which depend on the clock.  Functions that are
+	// not built in may look at anything (e.g. the network), so their results are never cached.
+	private static final String BUILTINS_PACKAGE = "org.cytoscape.equations.internal.builtins.";
+	private static final Set<String> VOLATILE_BUILTINS = new HashSet<String>(Arrays.asList("NOW", "TODAY"));
+
 	private EqnSupport() { } // Don't ever create an instance of this class!
 
+	/**
+	 *  @return true if "equation" always evaluates to the same result given the same column values
+	 */
+	static boolean resultIsCacheable(final Equation equation) {
+		for (final Object instruction : equation.getCode()) {
+			if (instruction instanceof Function) {
+				final Function function = (Function)instruction;
+				if (!function.getClass().getName().startsWith(BUILTINS_PACKAGE)
+				    || VOLATILE_BUILTINS.contains(function.getName().toUpperCase()))
+					return false;
+			}
+		}
+
+		return true;
+	}
+
 	static boolean scalarEquationIsCompatible(final Object equationCandidate, final Class<?> targetType) {
 		if (!(equationCandidate instanceof Equation))
 			return false;
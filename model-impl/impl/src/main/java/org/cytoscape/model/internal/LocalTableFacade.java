@@ -26,6 +26,7 @@ package org.cytoscape.model.internal;
 
 
 import java.util.List;
+import java.util.Map;
 
 import org.cytoscape.event.CyEventHelper;
 import org.cytoscape.model.CyColumn;
@@ -126,4 +127,17 @@ public final class LocalTableFacade extends AbstractTableFacade implements CyTab
 		else
 			local.getColumn(oldName).setName(newName);
 	}
+
+	/**
+	 * Columns that are shared by the network collection are only virtual
+	 * columns here, so they are set in the shared table.  That table then
+	 * fires the events for the virtual columns of every local table.
+	 */
+	@Override
+	public void setColumnValues(final String columnName, final Map<?, ?> keyToValueMap) {
+		if (shared.getColumn(columnName) != null)
+			shared.setColumnValues(columnName, keyToValueMap);
+		else
+			super.setColumnValues(columnName, keyToValueMap);
+	}
 }
@@ -0,0 +1,82 @@
+package org.cytoscape.model.internal;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2016 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+
+/**
+ * The original column storage: a hash map from boxed primary keys to boxed values.
+ */
+final class MapColumnData implements ColumnData {
+
+	private final Map<Object, Object> keyToValueMap;
+
+	MapColumnData(final int initSize) {
+		keyToValueMap = new HashMap<Object, Object>(initSize);
+	}
+
+	@Override
+	public Object get(final Object key) {
+		return keyToValueMap.get(key);
+	}
+
+	@Override
+	public void put(final Object key, final Object value) {
+		keyToValueMap.put(key, value);
+	}
+
+	@Override
+	public void remove(final Object key) {
+		keyToValueMap.remove(key);
+	}
+
+	@Override
+	public Collection<Object> keySet() {
+		return keyToValueMap.keySet();
+	}
+
+	@Override
+	public Collection<Object> getMatchingKeys(final Object value) {
+		final List<Object> keys = new ArrayList<Object>();
+		for (final Entry<Object, Object> entry : keyToValueMap.entrySet()) {
+			if (entry.getValue().equals(value))
+				keys.add(entry.getKey());
+		}
+		return keys;
+	}
+
+	@Override
+	public int countMatchingValues(final Object value) {
+		return Collections.frequency(keyToValueMap.values(), value);
+	}
+}
@@ -0,0 +1,399 @@
+package org.cytoscape.model.internal;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2016 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyNode;
+
+import cern.colt.map.tlong.OpenLongIntHashMap;
+
+
+/**
+ * The topology of a {@link SimpleNetwork} as a structure of arrays.  Nodes
+ * and edges are identified by int slots, and the node list and the outgoing
+ * and incoming edge lists of each node are doubly linked lists threaded
+ * through int arrays, so no object is allocated per node or edge beyond the
+ * CyNode/CyEdge itself.  Slots of removed nodes and edges are reused.
+ * <p>
+ * New nodes and edges are inserted at the head of their lists, so the
+ * order of the node, edge and adjacency lists is the same as it was with
+ * pointer objects.  This class is not thread safe; SimpleNetwork guards it
+ * with its lock.
+ */
+final class PointerStore {
+
+	static final int NONE = -1;
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	// SUID -> slot + 1, so that a missing key (0) is not a valid slot
+	private final OpenLongIntHashMap nodeSlots;
+	private final OpenLongIntHashMap edgeSlots;
+
+	// Node columns
+	private CyNode[] nodes;
+	private int[] nextNode;
+	private int[] prevNode;
+	private int[] firstOutEdge;
+	private int[] firstInEdge;
+	private int[] outDegree;
+	private int[] inDegree;
+	private int[] undDegree;
+	private int[] selfEdges;
+	private int[] undSelfEdges;
+
+	// Edge columns
+	private CyEdge[] edges;
+	private int[] source;
+	private int[] target;
+	private int[] nextOutEdge;
+	private int[] prevOutEdge;
+	private int[] nextInEdge;
+	private int[] prevInEdge;
+	private final BitSet directed;
+
+	private int firstNode;
+	private int nodeCount;
+	private int edgeCount;
+
+	// Free slots are chained through nextNode and nextOutEdge
+	private int freeNode;
+	private int freeEdge;
+	private int nodeSlotLimit;
+	private int edgeSlotLimit;
+
+	PointerStore() {
+		nodeSlots = new OpenLongIntHashMap();
+		edgeSlots = new OpenLongIntHashMap();
+
+		nodes = new CyNode[INITIAL_CAPACITY];
+		nextNode = new int[INITIAL_CAPACITY];
+		prevNode = new int[INITIAL_CAPACITY];
+		firstOutEdge = new int[INITIAL_CAPACITY];
+		firstInEdge = new int[INITIAL_CAPACITY];
+		outDegree = new int[INITIAL_CAPACITY];
+		inDegree = new int[INITIAL_CAPACITY];
+		undDegree = new int[INITIAL_CAPACITY];
+		selfEdges = new int[INITIAL_CAPACITY];
+		undSelfEdges = new int[INITIAL_CAPACITY];
+
+		edges = new CyEdge[INITIAL_CAPACITY];
+		source = new int[INITIAL_CAPACITY];
+		target = new int[INITIAL_CAPACITY];
+		nextOutEdge = new int[INITIAL_CAPACITY];
+		prevOutEdge = new int[INITIAL_CAPACITY];
+		nextInEdge = new int[INITIAL_CAPACITY];
+		prevInEdge = new int[INITIAL_CAPACITY];
+		directed = new BitSet(INITIAL_CAPACITY);
+
+		firstNode = NONE;
+		freeNode = NONE;
+		freeEdge = NONE;
+	}
+
+	int getNodeCount() {
+		return nodeCount;
+	}
+
+	int getEdgeCount() {
+		return edgeCount;
+	}
+
+	/** One more than the highest node slot that has ever been handed out. */
+	int getNodeSlotLimit() {
+		return nodeSlotLimit;
+	}
+
+	/** One more than the highest edge slot that has ever been handed out. */
+	int getEdgeSlotLimit() {
+		return edgeSlotLimit;
+	}
+
+	/**
+	 * @return the slot of the node with the given SUID, or NONE.
+	 */
+	int getNodeSlot(final long suid) {
+		return nodeSlots.get(suid) - 1;
+	}
+
+	/**
+	 * @return the slot of the edge with the given SUID, or NONE.
+	 */
+	int getEdgeSlot(final long suid) {
+		return edgeSlots.get(suid) - 1;
+	}
+
+	CyNode getNode(final int node) {
+		return nodes[node];
+	}
+
+	CyEdge getEdge(final int edge) {
+		return edges[edge];
+	}
+
+	int getFirstNode() {
+		return firstNode;
+	}
+
+	int getNextNode(final int node) {
+		return nextNode[node];
+	}
+
+	int getFirstOutEdge(final int node) {
+		return firstOutEdge[node];
+	}
+
+	int getFirstInEdge(final int node) {
+		return firstInEdge[node];
+	}
+
+	int getNextOutEdge(final int edge) {
+		return nextOutEdge[edge];
+	}
+
+	int getNextInEdge(final int edge) {
+		return nextInEdge[edge];
+	}
+
+	int getSource(final int edge) {
+		return source[edge];
+	}
+
+	int getTarget(final int edge) {
+		return target[edge];
+	}
+
+	boolean isDirected(final int edge) {
+		return directed.get(edge);
+	}
+
+	/** The number of directed edges whose source is this node. */
+	int getOutDegree(final int node) {
+		return outDegree[node];
+	}
+
+	/** The number of directed edges whose target is this node. */
+	int getInDegree(final int node) {
+		return inDegree[node];
+	}
+
+	/** The number of undirected edges which touch this node. */
+	int getUndirectedDegree(final int node) {
+		return undDegree[node];
+	}
+
+	/** The number of directed self-edges on this node. */
+	int getSelfEdges(final int node) {
+		return selfEdges[node];
+	}
+
+	/**
+	 * The number of undirected self-edges on this node.  These are counted
+	 * twice in the undirected degree.
+	 */
+	int getUndirectedSelfEdges(final int node) {
+		return undSelfEdges[node];
+	}
+
+	int addNode(final CyNode cyNode) {
+		final int node;
+		if (freeNode != NONE) {
+			node = freeNode;
+			freeNode = nextNode[node];
+		} else {
+			node = nodeSlotLimit++;
+			if (node == nodes.length)
+				growNodes();
+		}
+
+		nodes[node] = cyNode;
+		firstOutEdge[node] = NONE;
+		firstInEdge[node] = NONE;
+		outDegree[node] = 0;
+		inDegree[node] = 0;
+		undDegree[node] = 0;
+		selfEdges[node] = 0;
+		undSelfEdges[node] = 0;
+
+		prevNode[node] = NONE;
+		nextNode[node] = firstNode;
+		if (firstNode != NONE)
+			prevNode[firstNode] = node;
+		firstNode = node;
+
+		nodeSlots.put(cyNode.getSUID(), node + 1);
+		nodeCount++;
+
+		return node;
+	}
+
+	/**
+	 * Removes the node.  Its adjacent edges must have been removed already.
+	 */
+	void removeNode(final int node) {
+		if (prevNode[node] != NONE)
+			nextNode[prevNode[node]] = nextNode[node];
+		else
+			firstNode = nextNode[node];
+
+		if (nextNode[node] != NONE)
+			prevNode[nextNode[node]] = prevNode[node];
+
+		nodeSlots.removeKey(nodes[node].getSUID());
+		nodes[node] = null;
+		firstOutEdge[node] = NONE;
+		firstInEdge[node] = NONE;
+		prevNode[node] = NONE;
+		nextNode[node] = freeNode;
+		freeNode = node;
+		nodeCount--;
+	}
+
+	int addEdge(final int sourceNode, final int targetNode, final boolean isDirected, final CyEdge cyEdge) {
+		final int edge;
+		if (freeEdge != NONE) {
+			edge = freeEdge;
+			freeEdge = nextOutEdge[edge];
+		} else {
+			edge = edgeSlotLimit++;
+			if (edge == edges.length)
+				growEdges();
+		}
+
+		edges[edge] = cyEdge;
+		source[edge] = sourceNode;
+		target[edge] = targetNode;
+		directed.set(edge, isDirected);
+
+		prevOutEdge[edge] = NONE;
+		nextOutEdge[edge] = firstOutEdge[sourceNode];
+		if (firstOutEdge[sourceNode] != NONE)
+			prevOutEdge[firstOutEdge[sourceNode]] = edge;
+		firstOutEdge[sourceNode] = edge;
+
+		prevInEdge[edge] = NONE;
+		nextInEdge[edge] = firstInEdge[targetNode];
+		if (firstInEdge[targetNode] != NONE)
+			prevInEdge[firstInEdge[targetNode]] = edge;
+		firstInEdge[targetNode] = edge;
+
+		if (isDirected) {
+			outDegree[sourceNode]++;
+			inDegree[targetNode]++;
+		} else {
+			undDegree[sourceNode]++;
+			undDegree[targetNode]++;
+		}
+
+		// Self-edge
+		if (sourceNode == targetNode) {
+			if (isDirected)
+				selfEdges[sourceNode]++;
+			else
+				undSelfEdges[sourceNode]++;
+		}
+
+		edgeSlots.put(cyEdge.getSUID(), edge + 1);
+		edgeCount++;
+
+		return edge;
+	}
+
+	void removeEdge(final int edge) {
+		final int sourceNode = source[edge];
+		final int targetNode = target[edge];
+
+		if (prevOutEdge[edge] != NONE)
+			nextOutEdge[prevOutEdge[edge]] = nextOutEdge[edge];
+		else
+			firstOutEdge[sourceNode] = nextOutEdge[edge];
+
+		if (nextOutEdge[edge] != NONE)
+			prevOutEdge[nextOutEdge[edge]] = prevOutEdge[edge];
+
+		if (prevInEdge[edge] != NONE)
+			nextInEdge[prevInEdge[edge]] = nextInEdge[edge];
+		else
+			firstInEdge[targetNode] = nextInEdge[edge];
+
+		if (nextInEdge[edge] != NONE)
+			prevInEdge[nextInEdge[edge]] = prevInEdge[edge];
+
+		final boolean isDirected = directed.get(edge);
+		if (isDirected) {
+			outDegree[sourceNode]--;
+			inDegree[targetNode]--;
+		} else {
+			undDegree[sourceNode]--;
+			undDegree[targetNode]--;
+		}
+
+		// Self-edge.
+		if (sourceNode == targetNode) {
+			if (isDirected)
+				selfEdges[sourceNode]--;
+			else
+				undSelfEdges[sourceNode]--;
+		}
+
+		edgeSlots.removeKey(edges[edge].getSUID());
+		edges[edge] = null;
+		prevOutEdge[edge] = NONE;
+		nextInEdge[edge] = NONE;
+		prevInEdge[edge] = NONE;
+		nextOutEdge[edge] = freeEdge;
+		freeEdge = edge;
+		edgeCount--;
+	}
+
+	private void growNodes() {
+		final int capacity = nodes.length + (nodes.length >> 1) + 1;
+		nodes = Arrays.copyOf(nodes, capacity);
+		nextNode = Arrays.copyOf(nextNode, capacity);
+		prevNode = Arrays.copyOf(prevNode, capacity);
+		firstOutEdge = Arrays.copyOf(firstOutEdge, capacity);
+		firstInEdge = Arrays.copyOf(firstInEdge, capacity);
+		outDegree = Arrays.copyOf(outDegree, capacity);
+		inDegree = Arrays.copyOf(inDegree, capacity);
+		undDegree = Arrays.copyOf(undDegree, capacity);
+		selfEdges = Arrays.copyOf(selfEdges, capacity);
+		undSelfEdges = Arrays.copyOf(undSelfEdges, capacity);
+	}
+
+	private void growEdges() {
+		final int capacity = edges.length + (edges.length >> 1) + 1;
+		edges = Arrays.copyOf(edges, capacity);
+		source = Arrays.copyOf(source, capacity);
+		target = Arrays.copyOf(target, capacity);
+		nextOutEdge = Arrays.copyOf(nextOutEdge, capacity);
+		prevOutEdge = Arrays.copyOf(prevOutEdge, capacity);
+		nextInEdge = Arrays.copyOf(nextInEdge, capacity);
+		prevInEdge = Arrays.copyOf(prevInEdge, capacity);
+	}
+}
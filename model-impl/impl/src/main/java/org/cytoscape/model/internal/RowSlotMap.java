@@ -0,0 +1,125 @@
+package org.cytoscape.model.internal;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2016 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import cern.colt.map.tlong.OpenLongIntHashMap;
+
+
+/**
+ * Assigns every primary key of a table a dense int slot, which the columnar
+ * storage uses as an index into its arrays.  Slots of deleted rows are reused.
+ * Long keys (SUIDs) are stored unboxed.
+ */
+final class RowSlotMap {
+
+	private final OpenLongIntHashMap longSlots;
+	private final Map<Object, Integer> objectSlots;
+	private Object[] keys;
+	private int[] freeSlots;
+	private int freeCount;
+	private int nextSlot;
+
+	RowSlotMap(final Class<?> keyType, final int initSize) {
+		final int size = Math.max(initSize, 16);
+		if (keyType == Long.class) {
+			longSlots = new OpenLongIntHashMap(size);
+			objectSlots = null;
+		} else {
+			longSlots = null;
+			objectSlots = new HashMap<Object, Integer>(size);
+		}
+		keys = new Object[size];
+		freeSlots = new int[16];
+		freeCount = 0;
+		nextSlot = 0;
+	}
+
+	/**
+	 * @return the slot of the key, or -1 if the key has never been stored.
+	 */
+	int getSlot(final Object key) {
+		if (longSlots != null) {
+			final long k = ((Long) key).longValue();
+			return longSlots.containsKey(k) ? longSlots.get(k) : -1;
+		}
+		final Integer slot = objectSlots.get(key);
+		return slot == null ? -1 : slot.intValue();
+	}
+
+	int getOrAllocateSlot(final Object key) {
+		int slot = getSlot(key);
+		if (slot >= 0)
+			return slot;
+
+		if (freeCount > 0) {
+			slot = freeSlots[--freeCount];
+		} else {
+			slot = nextSlot++;
+			if (slot >= keys.length)
+				keys = Arrays.copyOf(keys, Math.max(slot + 1, keys.length + (keys.length >> 1)));
+		}
+
+		keys[slot] = key;
+		if (longSlots != null)
+			longSlots.put(((Long) key).longValue(), slot);
+		else
+			objectSlots.put(key, Integer.valueOf(slot));
+
+		return slot;
+	}
+
+	/**
+	 * Frees the slot of the key.  The columns must not hold a value for it any more.
+	 */
+	void release(final Object key) {
+		final int slot = getSlot(key);
+		if (slot < 0)
+			return;
+
+		if (longSlots != null)
+			longSlots.removeKey(((Long) key).longValue());
+		else
+			objectSlots.remove(key);
+
+		keys[slot] = null;
+		if (freeCount == freeSlots.length)
+			freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+		freeSlots[freeCount++] = slot;
+	}
+
+	Object getKey(final int slot) {
+		return keys[slot];
+	}
+
+	/** One more than the highest slot that has ever been handed out. */
+	int getSlotLimit() {
+		return nextSlot;
+	}
+}
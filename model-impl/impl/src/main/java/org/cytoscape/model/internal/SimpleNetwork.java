@@ -30,11 +30,13 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.cytoscape.model.CyEdge;
 import org.cytoscape.model.CyNode;
-	
-import cern.colt.map.tobject.OpenLongObjectHashMap;
+
+import static org.cytoscape.model.internal.PointerStore.NONE;
 
 
 /**
@@ -48,28 +50,22 @@ class SimpleNetwork {
 	// Unique ID for this
 	private final Long suid;
 
-	// We use OpenLongObjectHashMap here because we really don't want to
-	// constantly convert the int node/edge index to an Interger 
-	// object necessary for a Map<Integer,NodePointer>. That
-	// allocates a bunch of otherwise unused Integer objects
-	// which also takes extra time.
-	private final OpenLongObjectHashMap nodePointers;
-	private final OpenLongObjectHashMap edgePointers;
-
-	private int nodeCount;
-	private int edgeCount;
-	
-	private NodePointer firstNode;
+	// Nodes and edges are int slots in parallel arrays rather than one
+	// pointer object each, see PointerStore.
+	private final PointerStore store;
 	
 	private Object lock = new Object();
 
+	// Readers use the snapshot without locking while it is current. Every change
+	// to the topology drops it, and it is rebuilt once enough reads have come
+	// in without a change to pay for the copy.
+	private static final int MIN_READS_BEFORE_SNAPSHOT = 32;
+	private volatile AdjacencySnapshot snapshot;
+	private final AtomicInteger readsSinceChange = new AtomicInteger();
+
 	SimpleNetwork(final long suid) {
 		this.suid = suid; 
-		nodeCount = 0;
-		edgeCount = 0;
-		firstNode = null; 
-		nodePointers = new OpenLongObjectHashMap();
-		edgePointers = new OpenLongObjectHashMap();
+		store = new PointerStore();
 	}
 
 	public Long getSUID() {
@@ -77,22 +73,30 @@ class SimpleNetwork {
 	}
 
 	public int getNodeCount() {
+		final AdjacencySnapshot s = snapshot;
+		if (s != null)
+			return s.getNodeCount();
+
 		synchronized (lock) {
-			return nodeCount;
+			return store.getNodeCount();
 		}
 	}
 
 	public int getEdgeCount() {
+		final AdjacencySnapshot s = snapshot;
+		if (s != null)
+			return s.getEdgeCount();
+
 		synchronized (lock) {
-			return edgeCount;
+			return store.getEdgeCount();
 		}
 	}
 
 	public CyEdge getEdge(final long e) {
 		synchronized (lock) {
-			final EdgePointer ep = (EdgePointer) edgePointers.get(e);
-			if (ep != null)
-				return ep.cyEdge;
+			final int edge = store.getEdgeSlot(e);
+			if (edge != NONE)
+				return store.getEdge(edge);
 			else
 				return null;
 		}
@@ -100,58 +104,84 @@ class SimpleNetwork {
 
 	public CyNode getNode(final long n) {
 		synchronized (lock) {
-			final NodePointer np = (NodePointer) nodePointers.get(n);
-			if (np != null)
-				return np.cyNode;
+			final int node = store.getNodeSlot(n);
+			if (node != NONE)
+				return store.getNode(node);
 			else
 				return null;
 		}
 	}
 
-	public List<CyNode> getNodeList() {
+	/**
+	 * Returns an immutable copy of the current topology, building it if the
+	 * network has changed since the last one.  The snapshot does not follow
+	 * later changes to the network.  The public networks offer it to other
+	 * bundles through BulkCyNetwork.
+	 */
+	public AdjacencySnapshot getAdjacencySnapshot() {
+		AdjacencySnapshot s = snapshot;
+		if (s != null)
+			return s;
+
 		synchronized (lock) {
-			final List<CyNode> ret = new ArrayList<>(nodeCount);
-			int numRemaining = nodeCount;
-			NodePointer node = firstNode;
-	
-			while (numRemaining > 0) {
-				// possible NPE here if the linked list isn't constructed correctly
-				// this is the correct behavior
-				final CyNode toAdd = node.cyNode;
-				node = node.nextNode;
-				ret.add(toAdd);
-				numRemaining--;
+			s = snapshot;
+			if (s == null) {
+				s = AdjacencySnapshot.build(store);
+				snapshot = s;
 			}
+			return s;
+		}
+	}
+
+	/**
+	 * Returns the snapshot to read from, or null if the caller should walk
+	 * the linked lists under the lock instead.
+	 */
+	private AdjacencySnapshot readSnapshot() {
+		final AdjacencySnapshot s = snapshot;
+		if (s != null)
+			return s;
+
+		if (readsSinceChange.incrementAndGet() < MIN_READS_BEFORE_SNAPSHOT + store.getNodeCount() / 8)
+			return null;
+
+		return getAdjacencySnapshot();
+	}
+
+	/**
+	 * Must be called with the lock held, after each change to the topology.
+	 * Lock free readers may still see the old snapshot until then, which is
+	 * the same as reading just before the change.
+	 */
+	private void invalidateSnapshot() {
+		snapshot = null;
+		readsSinceChange.set(0);
+	}
+
+	public List<CyNode> getNodeList() {
+		final AdjacencySnapshot s = readSnapshot();
+		if (s != null)
+			return s.getNodeList();
+
+		synchronized (lock) {
+			final List<CyNode> ret = new ArrayList<>(store.getNodeCount());
+			for (int node = store.getFirstNode(); node != NONE; node = store.getNextNode(node))
+				ret.add(store.getNode(node));
 	
 			return ret;
 		}
 	}
 
 	public List<CyEdge> getEdgeList() {
+		final AdjacencySnapshot s = readSnapshot();
+		if (s != null)
+			return s.getEdgeList();
+
 		synchronized (lock) {
-			final List<CyEdge> ret = new ArrayList<>(edgeCount);
-			EdgePointer edge = null;
-	
-			int numRemaining = edgeCount;
-			NodePointer node = firstNode;
-			while (numRemaining > 0) {
-				final CyEdge retEdge;
-	
-				if (edge != null) {
-					retEdge = edge.cyEdge;
-				} else {
-					for (edge = node.firstOutEdge; 
-					     edge == null; 
-					     node = node.nextNode, edge = node.firstOutEdge);
-	
-					node = node.nextNode;
-					retEdge = edge.cyEdge;
-				}
-	
-				edge = edge.nextOutEdge;
-				numRemaining--;
-	
-				ret.add(retEdge);
+			final List<CyEdge> ret = new ArrayList<>(store.getEdgeCount());
+			for (int node = store.getFirstNode(); node != NONE; node = store.getNextNode(node)) {
+				for (int edge = store.getFirstOutEdge(node); edge != NONE; edge = store.getNextOutEdge(edge))
+					ret.add(store.getEdge(edge));
 			}
 	
 			return ret;
@@ -159,17 +189,21 @@ class SimpleNetwork {
 	}
 
 	public List<CyNode> getNeighborList(final CyNode n, final CyEdge.Type e) {
+		final AdjacencySnapshot s = readSnapshot();
+		if (s != null)
+			return s.getNeighborList(n, e);
+
 		synchronized (lock) {
 			if (!containsNode(n)) 
 				return Collections.emptyList(); 
 	
-			final NodePointer np = getNodePointer(n);
-			final List<CyNode> ret = new ArrayList<>(countEdges(np, e));
-			final Iterator<EdgePointer> it = edgesAdjacent(np, e);
+			final int node = getNodeSlot(n);
+			final List<CyNode> ret = new ArrayList<>(countEdges(node, e));
+			final AdjacentEdgeCursor it = edgesAdjacent(node, e);
 			while (it.hasNext()) {
-				final EdgePointer edge = it.next();
-				final long neighborIndex = np.index ^ edge.source.index ^ edge.target.index;
-				ret.add(getNode(neighborIndex));
+				final int edge = it.next();
+				final int neighbor = node ^ store.getSource(edge) ^ store.getTarget(edge);
+				ret.add(store.getNode(neighbor));
 			}
 	
 			return ret;
@@ -177,53 +211,68 @@ class SimpleNetwork {
 	}
 
 	public List<CyEdge> getAdjacentEdgeList(final CyNode n, final CyEdge.Type e) {
+		final AdjacencySnapshot s = readSnapshot();
+		if (s != null)
+			return s.getAdjacentEdgeList(n, e);
+
 		synchronized (lock) {
 			if (!containsNode(n)) 
 				return Collections.emptyList(); 
 	
-			final NodePointer np = getNodePointer(n);
-			final List<CyEdge> ret = new ArrayList<>(countEdges(np, e));
-			final Iterator<EdgePointer> it = edgesAdjacent(np, e);
-	
-			while (it.hasNext()) {
-				ret.add(it.next().cyEdge);
-			}
-	
-			return ret;
+			return adjacentEdges(getNodeSlot(n), e);
 		}
 	}
 
+	/**
+	 * Walks the linked lists, so must be called with the lock held.
+	 */
+	private List<CyEdge> adjacentEdges(final int node, final CyEdge.Type e) {
+		final List<CyEdge> ret = new ArrayList<>(countEdges(node, e));
+		final AdjacentEdgeCursor it = edgesAdjacent(node, e);
+
+		while (it.hasNext()) {
+			ret.add(store.getEdge(it.next()));
+		}
+
+		return ret;
+	}
+
 	public Iterable<CyEdge> getAdjacentEdgeIterable(final CyNode n, final CyEdge.Type e) {
+		final AdjacencySnapshot s = readSnapshot();
+		if (s != null)
+			return s.getAdjacentEdgeList(n, e);
+
 		synchronized (lock) {
 			if (!containsNode(n)) 
 				return Collections.emptyList();
 	
-			final NodePointer np = getNodePointer(n);
-			return new IterableEdgeIterator( edgesAdjacent(np, e) ); 
+			return new IterableEdgeIterator( edgesAdjacent(getNodeSlot(n), e) ); 
 		}
 	}
 
 	private class IterableEdgeIterator implements Iterator<CyEdge>, Iterable<CyEdge> {
 		
-		private final Iterator<EdgePointer> epIterator;
+		private final AdjacentEdgeCursor cursor;
 		
-		IterableEdgeIterator(final Iterator<EdgePointer> epIterator) {
-			this.epIterator = epIterator;
+		IterableEdgeIterator(final AdjacentEdgeCursor cursor) {
+			this.cursor = cursor;
 		}
 		
 		@Override
 		public CyEdge next() {
-			return epIterator.next().cyEdge;
+			if (!cursor.hasNext())
+				throw new NoSuchElementException();
+			return store.getEdge(cursor.next());
 		}
 
 		@Override
 		public boolean hasNext() {
-			return epIterator.hasNext();
+			return cursor.hasNext();
 		}
 
 		@Override
 		public void remove() {
-			epIterator.remove();
+			throw new UnsupportedOperationException();
 		}
 
 		@Override
@@ -233,6 +282,10 @@ class SimpleNetwork {
 	}
 
 	public List<CyEdge> getConnectingEdgeList(final CyNode src, final CyNode trg, final CyEdge.Type e) {
+		final AdjacencySnapshot s = readSnapshot();
+		if (s != null)
+			return s.getConnectingEdgeList(src, trg, e);
+
 		synchronized (lock) {
 			if (!containsNode(src)) 
 				return Collections.emptyList(); 
@@ -240,32 +293,32 @@ class SimpleNetwork {
 			if (!containsNode(trg)) 
 				return Collections.emptyList(); 
 	
-			final NodePointer srcP = getNodePointer(src);
-			final NodePointer trgP = getNodePointer(trg);
+			final int srcNode = getNodeSlot(src);
+			final int trgNode = getNodeSlot(trg);
 	
-			final List<CyEdge> ret = new ArrayList<>(Math.min(countEdges(srcP, e), countEdges(trgP, e)));
-			final Iterator<EdgePointer> it = edgesConnecting(srcP, trgP, e);
+			final List<CyEdge> ret = new ArrayList<>(Math.min(countEdges(srcNode, e), countEdges(trgNode, e)));
+			final AdjacentEdgeCursor it = edgesAdjacent(srcNode, e);
 	
-			while (it.hasNext())
-				ret.add(it.next().cyEdge);
+			while (it.hasNext()) {
+				final int edge = it.next();
+				if (trgNode == (srcNode ^ store.getSource(edge) ^ store.getTarget(edge)))
+					ret.add(store.getEdge(edge));
+			}
 	
 			return ret;
 		}
 	}
 
-	/**
-	 * IMPORTANT: this is not protected by synchronized 
-	 * because caller always uses lock.
-	 */
 	CyNode addNodeInternal(final CyNode node) {
-		// node already exists in this network
-		if (containsNode(node))
-			return node;
+		// Subnetworks call this holding their own monitor, not this lock
+		synchronized (lock) {
+			// node already exists in this network
+			if (containsNode(node))
+				return node;
 
-		final NodePointer n = new NodePointer(node);
-		nodePointers.put(node.getSUID(), n);
-		nodeCount++;
-		firstNode = n.insert(firstNode);
+			store.addNode(node);
+			invalidateSnapshot();
+		}
 
 		return node;
 	}
@@ -280,14 +333,13 @@ class SimpleNetwork {
 				if (!containsNode(n)) 
 					continue;
 
-				// remove adjacent edges from network
-				removeEdgesInternal(getAdjacentEdgeList(n, CyEdge.Type.ANY));
-	
-				final NodePointer node = (NodePointer)nodePointers.get(n.getSUID());
-				nodePointers.removeKey(n.getSUID());
-				firstNode = node.remove(firstNode);
+				// remove adjacent edges from network, from the linked lists
+				// rather than a snapshot that is about to be dropped
+				final int node = getNodeSlot(n);
+				removeEdgesInternal(adjacentEdges(node, CyEdge.Type.ANY));
 	
-				nodeCount--;
+				store.removeNode(node);
+				invalidateSnapshot();
 				madeChanges = true;
 			}
 		}
@@ -297,8 +349,6 @@ class SimpleNetwork {
 
 	protected CyEdge addEdgeInternal(final CyNode s, final CyNode t, final boolean directed, final CyEdge edge) {
 
-		final EdgePointer e;
-
 		synchronized (lock) {
 			// here we check with possible sub node, not just root node
 			if (!containsNode(s))
@@ -312,14 +362,8 @@ class SimpleNetwork {
 			if ( containsEdge(edge) )
 				return edge;
 
-			final NodePointer source = getNodePointer(s);
-			final NodePointer target = getNodePointer(t);
-
-			e = new EdgePointer(source, target, directed, edge); 
-
-			edgePointers.put(edge.getSUID(),e);
-
-			edgeCount++;
+			store.addEdge(getNodeSlot(s), getNodeSlot(t), directed, edge);
+			invalidateSnapshot();
 		}
 
 		return edge; 
@@ -335,12 +379,8 @@ class SimpleNetwork {
 				if (!containsEdge(edge))
 					continue;
 	
-				final EdgePointer e = (EdgePointer)edgePointers.get(edge.getSUID());
-				edgePointers.removeKey(edge.getSUID());
-	
-				e.remove();
-	
-				edgeCount--;
+				store.removeEdge(store.getEdgeSlot(edge.getSUID()));
+				invalidateSnapshot();
 				madeChanges = true;
 			}
 		}
@@ -352,35 +392,49 @@ class SimpleNetwork {
 		if (node == null)
 			return false;
 
-		final NodePointer thisNode; 
+		final AdjacencySnapshot s = snapshot;
+		if (s != null)
+			return s.getNodeIndex(node) >= 0;
+
+		final CyNode thisNode; 
 
 		synchronized (lock) {
-			thisNode = (NodePointer)nodePointers.get(node.getSUID());
+			final int slot = store.getNodeSlot(node.getSUID());
+			thisNode = slot != NONE ? store.getNode(slot) : null;
 		}
 
 		if (thisNode == null)
 			return false;
 
-		return thisNode.cyNode.equals(node);
+		return thisNode.equals(node);
 	}
 
 	public boolean containsEdge(final CyEdge edge) {
 		if (edge == null)
 			return false;
 
-		final EdgePointer thisEdge; 
+		final AdjacencySnapshot s = snapshot;
+		if (s != null)
+			return s.getEdgeIndex(edge) >= 0;
+
+		final CyEdge thisEdge; 
 
 		synchronized (lock) {
-			thisEdge = (EdgePointer)edgePointers.get(edge.getSUID());
+			final int slot = store.getEdgeSlot(edge.getSUID());
+			thisEdge = slot != NONE ? store.getEdge(slot) : null;
 		}
 
 		if (thisEdge == null)
 			return false;
 
-		return thisEdge.cyEdge.equals(edge);
+		return thisEdge.equals(edge);
 	}
 
 	public boolean containsEdge(final CyNode n1, final CyNode n2) {
+		final AdjacencySnapshot s = readSnapshot();
+		if (s != null)
+			return s.containsEdge(n1, n2);
+
 		synchronized (lock) {
 			if (!containsNode(n1))
 				return false;
@@ -388,177 +442,131 @@ class SimpleNetwork {
 			if (!containsNode(n2))
 				return false;
 	
-			final Iterator<EdgePointer> it = edgesConnecting(getNodePointer(n1), getNodePointer(n2), CyEdge.Type.ANY);
-	
-			return it.hasNext();
-		}
-	}
+			final int node1 = getNodeSlot(n1);
+			final int node2 = getNodeSlot(n2);
+			final AdjacentEdgeCursor it = edgesAdjacent(node1, CyEdge.Type.ANY);
 
-	private Iterator<EdgePointer> edgesAdjacent(final NodePointer n, final CyEdge.Type edgeType) {
-		assert (n != null);
+			while (it.hasNext()) {
+				final int edge = it.next();
+				if (node2 == (node1 ^ store.getSource(edge) ^ store.getTarget(edge)))
+					return true;
+			}
 
-		final EdgePointer[] edgeLists;
+			return false;
+		}
+	}
 
-		final boolean incoming = assessIncoming(edgeType);
-		final boolean outgoing = assessOutgoing(edgeType);
-		final boolean undirected = assessUndirected(edgeType);
+	private AdjacentEdgeCursor edgesAdjacent(final int n, final CyEdge.Type edgeType) {
+		assert (n != NONE);
+		return new AdjacentEdgeCursor(n, edgeType);
+	}
 
-		if (undirected || (outgoing && incoming)) 
-			edgeLists = new EdgePointer[] { n.firstOutEdge, n.firstInEdge };
-		else if (outgoing) // Cannot also be incoming.
-			edgeLists = new EdgePointer[] { n.firstOutEdge, null };
-		else if (incoming) // Cannot also be outgoing.
-			edgeLists = new EdgePointer[] { null, n.firstInEdge };
-		else // All boolean input parameters are false - can never get here!
-			edgeLists = new EdgePointer[] { null, null };
-
-		final int inEdgeCount = countEdges(n, edgeType);
-		//System.out.println("edgesAdjacent edgeCount: " + inEdgeCount);
-
-		return new Iterator<EdgePointer>() {
-				private int numRemaining = inEdgeCount;
-				private int edgeListIndex = -1;
-				private EdgePointer edge;
-
-				public boolean hasNext() {
-					return numRemaining > 0;
-				}
+	/**
+	 * Walks the outgoing and then the incoming edge list of a node, returning
+	 * the edge slots that are adjacent for the given edge type.
+	 */
+	private final class AdjacentEdgeCursor {
+
+		private final int[] edgeLists;
+		private final boolean incoming;
+		private final boolean outgoing;
+		private final boolean undirected;
+		private int numRemaining;
+		private int edgeListIndex = -1;
+		private int edge = NONE;
+
+		AdjacentEdgeCursor(final int n, final CyEdge.Type edgeType) {
+			incoming = assessIncoming(edgeType);
+			outgoing = assessOutgoing(edgeType);
+			undirected = assessUndirected(edgeType);
+
+			if (undirected || (outgoing && incoming)) 
+				edgeLists = new int[] { store.getFirstOutEdge(n), store.getFirstInEdge(n) };
+			else if (outgoing) // Cannot also be incoming.
+				edgeLists = new int[] { store.getFirstOutEdge(n), NONE };
+			else if (incoming) // Cannot also be outgoing.
+				edgeLists = new int[] { NONE, store.getFirstInEdge(n) };
+			else // All boolean input parameters are false - can never get here!
+				edgeLists = new int[] { NONE, NONE };
+
+			numRemaining = countEdges(n, edgeType);
+		}
 
-				public void remove() {
-					throw new UnsupportedOperationException();
-				}
+		boolean hasNext() {
+			return numRemaining > 0;
+		}
 
-				public EdgePointer next() {
-					// get the first non-null edgePointer
-					while (edge == null)
+		int next() {
+			// get the first non-empty list
+			while (edge == NONE)
+				edge = edgeLists[++edgeListIndex];
+
+			int returnEdge = NONE;
+
+			// look at outgoing edges
+			if (edgeListIndex == 0) {
+				// go to the next edge if the current edge is NOT either
+				// directed when we want outgoing or undirected when we
+				// want undirected
+				while ((edge != NONE) && !matchesOutgoing(edge)) {
+					edge = store.getNextOutEdge(edge);
+
+					// we've hit the last edge in the list
+					// so increment edgeListIndex so we go to 
+					// incoming, set edge, and break
+					if (edge == NONE) {
 						edge = edgeLists[++edgeListIndex];
-
-					long returnIndex = -1;
-
-					// look at outgoing edges
-					if (edgeListIndex == 0) {
-						// go to the next edge if the current edge is NOT either
-						// directed when we want outgoing or undirected when we
-						// want undirected
-						while ((edge != null) && 
-						       !((outgoing && edge.directed) || (undirected && !edge.directed))) {
-							edge = edge.nextOutEdge;
-
-							// we've hit the last edge in the list
-							// so increment edgeListIndex so we go to 
-							// incoming, set edge, and break
-							if (edge == null) {
-								edge = edgeLists[++edgeListIndex];
-								break;
-							}
-						}
-					
-						// if we have a non-null outgoing edge set the 
-						// edge and return values
-						// since edgeListIndex is still for outgoing we'll
-						// just directly to the return
-						if ((edge != null) && (edgeListIndex == 0)) {
-							returnIndex = edge.index;
-							edge = edge.nextOutEdge;
-						}
-					}
-	
-					// look at incoming edges
-					if (edgeListIndex == 1) {
-						
-						// Important NOTE!!!
-						// Possible null pointer exception here if numRemaining, 
-						// i.e. edgeCount is wrong. However, this is probably the
-						// correct behavior since it means the linked lists are
-						// messed up and there isn't a graceful way to deal.
-
-
-						// go to the next edge if the edge is a self edge AND 
-						// either directed when we're looking for outgoing or
-						// undirected when we're looking for undirected 
-						// OR 
-						// go to the next edge if the current edge is NOT either
-						// directed when we want incoming or undirected when we
-						// want undirected
-						while (((edge.source.index == edge.target.index)
-						       && ((outgoing && edge.directed) || (undirected && !edge.directed)))
-						       || !((incoming && edge.directed) || (undirected && !edge.directed))) {
-							edge = edge.nextInEdge;
-						}
-
-						returnIndex = edge.index;
-						edge = edge.nextInEdge;
+						break;
 					}
-
-					numRemaining--;
-					return (EdgePointer)edgePointers.get(returnIndex);
 				}
-			};
-	}
-
-	private Iterator<EdgePointer> edgesConnecting(final NodePointer node0, final NodePointer node1,
-	                                              final CyEdge.Type et) {
-		assert(node0!=null);
-		assert(node1!=null);
-
-		final Iterator<EdgePointer> theAdj;
-		final long nodeZero;
-		final long nodeOne;
-
-		// choose the smaller iterator
-		if (countEdges(node0, et) <= countEdges(node1, et)) {
-			theAdj = edgesAdjacent(node0, et);
-			nodeZero = node0.index;
-			nodeOne = node1.index;
-		} else {
-			theAdj = edgesAdjacent(node1, et);
-			nodeZero = node1.index;
-			nodeOne = node0.index;
-		}
-
-		return new Iterator<EdgePointer>() {
-				private long nextIndex = -1;
-
-				private void ensureComputeNext() {
-					if (nextIndex != -1) {
-						return;
-					}
-
-					while (theAdj.hasNext()) {
-						final EdgePointer e = theAdj.next();
-
-						if (nodeOne == (nodeZero ^ e.source.index ^ e.target.index)) {
-							nextIndex = e.index;
-
-							return;
-						}
-					}
-
-					nextIndex = -2;
+			
+				// if we have an outgoing edge set the 
+				// edge and return values
+				// since edgeListIndex is still for outgoing we'll
+				// just directly to the return
+				if ((edge != NONE) && (edgeListIndex == 0)) {
+					returnEdge = edge;
+					edge = store.getNextOutEdge(edge);
 				}
+			}
 
-				@Override
-				public void remove() {
-					throw new UnsupportedOperationException();
+			// look at incoming edges
+			if (edgeListIndex == 1) {
+				
+				// Important NOTE!!!
+				// Possible ArrayIndexOutOfBoundsException here if numRemaining, 
+				// i.e. edgeCount is wrong. However, this is probably the
+				// correct behavior since it means the linked lists are
+				// messed up and there isn't a graceful way to deal.
+
+				// go to the next edge if the edge is a self edge that was
+				// already returned from the outgoing list
+				// OR 
+				// go to the next edge if the current edge is NOT either
+				// directed when we want incoming or undirected when we
+				// want undirected
+				while (((store.getSource(edge) == store.getTarget(edge)) && matchesOutgoing(edge))
+				       || !matchesIncoming(edge)) {
+					edge = store.getNextInEdge(edge);
 				}
 
-				@Override
-				public boolean hasNext() {
-					ensureComputeNext();
-
-					return (nextIndex >= 0);
-				}
+				returnEdge = edge;
+				edge = store.getNextInEdge(edge);
+			}
 
-				@Override
-				public EdgePointer next() {
-					ensureComputeNext();
+			numRemaining--;
+			return returnEdge;
+		}
 
-					final long returnIndex = nextIndex;
-					nextIndex = -1;
+		private boolean matchesOutgoing(final int e) {
+			final boolean directed = store.isDirected(e);
+			return (outgoing && directed) || (undirected && !directed);
+		}
 
-					return (EdgePointer)edgePointers.get(returnIndex);
-				}
-			};
+		private boolean matchesIncoming(final int e) {
+			final boolean directed = store.isDirected(e);
+			return (incoming && directed) || (undirected && !directed);
+		}
 	}
 
 	private boolean assessUndirected(final CyEdge.Type e) {
@@ -573,8 +581,8 @@ class SimpleNetwork {
 		return e == CyEdge.Type.DIRECTED || e == CyEdge.Type.ANY || e == CyEdge.Type.OUTGOING;
 	}
 
-	private int countEdges(final NodePointer n, final CyEdge.Type edgeType) {
-		assert(n!=null);
+	private int countEdges(final int n, final CyEdge.Type edgeType) {
+		assert(n != NONE);
 		final boolean undirected = assessUndirected(edgeType);
 		final boolean incoming = assessIncoming(edgeType);
 		final boolean outgoing = assessOutgoing(edgeType);
@@ -582,21 +590,24 @@ class SimpleNetwork {
 		int count = 0;
 
 		if (outgoing)
-			count += n.outDegree;
+			count += store.getOutDegree(n);
 		if (incoming)
-			count += n.inDegree;
+			count += store.getInDegree(n);
 		if (undirected)
-			count += n.undDegree;
+			count += store.getUndirectedDegree(n);
 
+		// A self-edge is in both lists of its node but is only returned once
 		if (outgoing && incoming)
-			count -= n.selfEdges;
+			count -= store.getSelfEdges(n);
+		if (undirected)
+			count -= store.getUndirectedSelfEdges(n);
 
 		return count;
 	}
 
-	private NodePointer getNodePointer(final CyNode node) {
+	private int getNodeSlot(final CyNode node) {
 		assert(node != null);
-		return (NodePointer)nodePointers.get(node.getSUID());
+		return store.getNodeSlot(node.getSUID());
 	}
 
 	@Override
@@ -0,0 +1,413 @@
+package org.cytoscape.model.internal;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2016 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Columnar storage for Integer, Long, Double, Boolean and String columns.
+ * Values live in a dense array indexed by the row slot of the table's
+ * {@link RowSlotMap}, with a bitmap recording which slots hold a value.
+ * Strings are dictionary encoded.  Equations are rare, so they are kept in a
+ * small side map instead of widening the arrays to Object.
+ */
+abstract class SlottedColumnData implements ColumnData {
+
+	protected final RowSlotMap rowSlots;
+	private final BitSet present;
+	private Map<Integer, Object> equations;
+
+	protected SlottedColumnData(final RowSlotMap rowSlots) {
+		this.rowSlots = rowSlots;
+		this.present = new BitSet();
+	}
+
+	/**
+	 * @return the columnar storage for the type, or null if the type can only
+	 * be stored in a {@link MapColumnData}.
+	 */
+	static ColumnData create(final Class<?> type, final RowSlotMap rowSlots, final int initSize) {
+		if (type == Integer.class)
+			return new IntColumnData(rowSlots, initSize);
+		else if (type == Long.class)
+			return new LongColumnData(rowSlots, initSize);
+		else if (type == Double.class)
+			return new DoubleColumnData(rowSlots, initSize);
+		else if (type == Boolean.class)
+			return new BooleanColumnData(rowSlots);
+		else if (type == String.class)
+			return new StringColumnData(rowSlots, initSize);
+		else
+			return null;
+	}
+
+	/** Whether the value can be stored in the native array of this column. */
+	protected abstract boolean isNative(Object value);
+
+	protected abstract Object getNative(int slot);
+
+	protected abstract void setNative(int slot, Object value);
+
+	protected abstract void clearNative(int slot);
+
+	protected abstract boolean nativeEquals(int slot, Object value);
+
+	@Override
+	public final Object get(final Object key) {
+		final int slot = rowSlots.getSlot(key);
+		if (slot < 0)
+			return null;
+
+		if (present.get(slot))
+			return getNative(slot);
+
+		return equations == null ? null : equations.get(slot);
+	}
+
+	@Override
+	public final void put(final Object key, final Object value) {
+		final int slot = rowSlots.getOrAllocateSlot(key);
+
+		if (isNative(value)) {
+			if (present.get(slot))
+				clearNative(slot);
+			setNative(slot, value);
+			present.set(slot);
+			if (equations != null)
+				equations.remove(slot);
+		} else {
+			if (present.get(slot)) {
+				clearNative(slot);
+				present.clear(slot);
+			}
+			if (equations == null)
+				equations = new HashMap<Integer, Object>();
+			equations.put(slot, value);
+		}
+	}
+
+	@Override
+	public final void remove(final Object key) {
+		final int slot = rowSlots.getSlot(key);
+		if (slot < 0)
+			return;
+
+		if (present.get(slot)) {
+			clearNative(slot);
+			present.clear(slot);
+		}
+		if (equations != null)
+			equations.remove(slot);
+	}
+
+	@Override
+	public final Collection<Object> keySet() {
+		final List<Object> keys = new ArrayList<Object>(present.cardinality() + (equations == null ? 0 : equations.size()));
+		for (int slot = present.nextSetBit(0); slot >= 0; slot = present.nextSetBit(slot + 1))
+			keys.add(rowSlots.getKey(slot));
+		if (equations != null) {
+			for (final Integer slot : equations.keySet())
+				keys.add(rowSlots.getKey(slot));
+		}
+		return keys;
+	}
+
+	@Override
+	public final Collection<Object> getMatchingKeys(final Object value) {
+		final List<Object> keys = new ArrayList<Object>();
+		if (isNative(value)) {
+			for (int slot = present.nextSetBit(0); slot >= 0; slot = present.nextSetBit(slot + 1)) {
+				if (nativeEquals(slot, value))
+					keys.add(rowSlots.getKey(slot));
+			}
+		}
+		if (equations != null) {
+			for (final Map.Entry<Integer, Object> entry : equations.entrySet()) {
+				if (entry.getValue().equals(value))
+					keys.add(rowSlots.getKey(entry.getKey()));
+			}
+		}
+		return keys;
+	}
+
+	@Override
+	public final int countMatchingValues(final Object value) {
+		int count = 0;
+		if (isNative(value)) {
+			for (int slot = present.nextSetBit(0); slot >= 0; slot = present.nextSetBit(slot + 1)) {
+				if (nativeEquals(slot, value))
+					count++;
+			}
+		}
+		if (equations != null) {
+			for (final Object eqn : equations.values()) {
+				if (eqn.equals(value))
+					count++;
+			}
+		}
+		return count;
+	}
+
+	protected static int grow(final int length, final int minLength) {
+		return Math.max(minLength, length + (length >> 1) + 16);
+	}
+
+	static final class IntColumnData extends SlottedColumnData {
+		private int[] values;
+
+		IntColumnData(final RowSlotMap rowSlots, final int initSize) {
+			super(rowSlots);
+			values = new int[initSize];
+		}
+
+		@Override
+		protected boolean isNative(final Object value) {
+			return value instanceof Integer;
+		}
+
+		@Override
+		protected Object getNative(final int slot) {
+			return Integer.valueOf(values[slot]);
+		}
+
+		@Override
+		protected void setNative(final int slot, final Object value) {
+			if (slot >= values.length)
+				values = Arrays.copyOf(values, grow(values.length, slot + 1));
+			values[slot] = ((Integer) value).intValue();
+		}
+
+		@Override
+		protected void clearNative(final int slot) {
+			values[slot] = 0;
+		}
+
+		@Override
+		protected boolean nativeEquals(final int slot, final Object value) {
+			return values[slot] == ((Integer) value).intValue();
+		}
+	}
+
+	static final class LongColumnData extends SlottedColumnData {
+		private long[] values;
+
+		LongColumnData(final RowSlotMap rowSlots, final int initSize) {
+			super(rowSlots);
+			values = new long[initSize];
+		}
+
+		@Override
+		protected boolean isNative(final Object value) {
+			return value instanceof Long;
+		}
+
+		@Override
+		protected Object getNative(final int slot) {
+			return Long.valueOf(values[slot]);
+		}
+
+		@Override
+		protected void setNative(final int slot, final Object value) {
+			if (slot >= values.length)
+				values = Arrays.copyOf(values, grow(values.length, slot + 1));
+			values[slot] = ((Long) value).longValue();
+		}
+
+		@Override
+		protected void clearNative(final int slot) {
+			values[slot] = 0L;
+		}
+
+		@Override
+		protected boolean nativeEquals(final int slot, final Object value) {
+			return values[slot] == ((Long) value).longValue();
+		}
+	}
+
+	static final class DoubleColumnData extends SlottedColumnData {
+		private double[] values;
+
+		DoubleColumnData(final RowSlotMap rowSlots, final int initSize) {
+			super(rowSlots);
+			values = new double[initSize];
+		}
+
+		@Override
+		protected boolean isNative(final Object value) {
+			return value instanceof Double;
+		}
+
+		@Override
+		protected Object getNative(final int slot) {
+			return Double.valueOf(values[slot]);
+		}
+
+		@Override
+		protected void setNative(final int slot, final Object value) {
+			if (slot >= values.length)
+				values = Arrays.copyOf(values, grow(values.length, slot + 1));
+			values[slot] = ((Double) value).doubleValue();
+		}
+
+		@Override
+		protected void clearNative(final int slot) {
+			values[slot] = 0.0;
+		}
+
+		@Override
+		protected boolean nativeEquals(final int slot, final Object value) {
+			// Same semantics as Double.equals(), so NaN matches NaN.
+			return Double.doubleToLongBits(values[slot]) == Double.doubleToLongBits(((Double) value).doubleValue());
+		}
+	}
+
+	static final class BooleanColumnData extends SlottedColumnData {
+		private final BitSet values;
+
+		BooleanColumnData(final RowSlotMap rowSlots) {
+			super(rowSlots);
+			values = new BitSet();
+		}
+
+		@Override
+		protected boolean isNative(final Object value) {
+			return value instanceof Boolean;
+		}
+
+		@Override
+		protected Object getNative(final int slot) {
+			return Boolean.valueOf(values.get(slot));
+		}
+
+		@Override
+		protected void setNative(final int slot, final Object value) {
+			values.set(slot, ((Boolean) value).booleanValue());
+		}
+
+		@Override
+		protected void clearNative(final int slot) {
+			values.clear(slot);
+		}
+
+		@Override
+		protected boolean nativeEquals(final int slot, final Object value) {
+			return values.get(slot) == ((Boolean) value).booleanValue();
+		}
+	}
+
+	/**
+	 * Stores an int code per slot into a dictionary of the distinct strings of the
+	 * column.  Codes are reference counted, so the dictionary doesn't keep strings
+	 * that are no longer used by any row.
+	 */
+	static final class StringColumnData extends SlottedColumnData {
+		private int[] codes;
+		private final Map<String, Integer> dictionary;
+		private String[] strings;
+		private int[] refCounts;
+		private int[] freeCodes;
+		private int freeCount;
+		private int nextCode;
+
+		StringColumnData(final RowSlotMap rowSlots, final int initSize) {
+			super(rowSlots);
+			codes = new int[initSize];
+			dictionary = new HashMap<String, Integer>();
+			strings = new String[16];
+			refCounts = new int[16];
+			freeCodes = new int[16];
+			freeCount = 0;
+			nextCode = 0;
+		}
+
+		@Override
+		protected boolean isNative(final Object value) {
+			return value instanceof String;
+		}
+
+		@Override
+		protected Object getNative(final int slot) {
+			return strings[codes[slot]];
+		}
+
+		@Override
+		protected void setNative(final int slot, final Object value) {
+			if (slot >= codes.length)
+				codes = Arrays.copyOf(codes, grow(codes.length, slot + 1));
+			codes[slot] = acquireCode((String) value);
+		}
+
+		@Override
+		protected void clearNative(final int slot) {
+			final int code = codes[slot];
+			if (--refCounts[code] == 0) {
+				dictionary.remove(strings[code]);
+				strings[code] = null;
+				if (freeCount == freeCodes.length)
+					freeCodes = Arrays.copyOf(freeCodes, freeCodes.length * 2);
+				freeCodes[freeCount++] = code;
+			}
+			codes[slot] = 0;
+		}
+
+		@Override
+		protected boolean nativeEquals(final int slot, final Object value) {
+			return strings[codes[slot]].equals(value);
+		}
+
+		private int acquireCode(final String value) {
+			final Integer existing = dictionary.get(value);
+			if (existing != null) {
+				refCounts[existing]++;
+				return existing.intValue();
+			}
+
+			final int code;
+			if (freeCount > 0) {
+				code = freeCodes[--freeCount];
+			} else {
+				code = nextCode++;
+				if (code >= strings.length) {
+					final int length = grow(strings.length, code + 1);
+					strings = Arrays.copyOf(strings, length);
+					refCounts = Arrays.copyOf(refCounts, length);
+				}
+			}
+
+			strings[code] = value;
+			refCounts[code] = 1;
+			dictionary.put(value, Integer.valueOf(code));
+			return code;
+		}
+	}
+}
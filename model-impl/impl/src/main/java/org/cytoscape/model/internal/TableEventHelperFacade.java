@@ -26,6 +26,8 @@ package org.cytoscape.model.internal;
 
 import java.lang.ref.Reference;
 import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.WeakHashMap;
 
@@ -38,6 +40,7 @@ import org.cytoscape.model.events.ColumnCreatedEvent;
 import org.cytoscape.model.events.ColumnDeletedEvent;
 import org.cytoscape.model.events.ColumnNameChangedEvent;
 import org.cytoscape.model.events.RowSetRecord;
+import org.cytoscape.model.events.RowsSetEvent;
 import org.cytoscape.model.events.TablePrivacyChangedEvent;
 import org.cytoscape.model.events.TableTitleChangedEvent;
 
@@ -100,6 +103,15 @@ public class TableEventHelperFacade implements CyEventHelper {
 		} else if ( event instanceof ColumnCreatedEvent ) {
 			ColumnCreatedEvent e = (ColumnCreatedEvent)event;
 			facadeEvent = new ColumnCreatedEvent(facade, e.getColumnName());
+
+		} else if ( event instanceof RowsSetEvent ) {
+			// bulk column writes fire their RowsSetEvent directly instead of adding payloads
+			RowsSetEvent e = (RowsSetEvent)event;
+			List<RowSetRecord> records = new ArrayList<RowSetRecord>(e.getPayloadCollection().size());
+			for ( RowSetRecord record : e.getPayloadCollection() )
+				records.add(new RowSetRecord(facade.getRow(record.getRow().get(CyNetwork.SUID, Long.class)),
+						record.getColumn(), record.getValue(), record.getRawValue()));
+			facadeEvent = new RowsSetEvent(facade, records);
 		}
 
 
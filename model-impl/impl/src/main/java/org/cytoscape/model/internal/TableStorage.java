@@ -0,0 +1,73 @@
+package org.cytoscape.model.internal;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2016 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.List;
+
+
+/**
+ * How a {@link CyTableImpl} stores its column values.
+ */
+public enum TableStorage {
+	/** Every column is a hash map from boxed primary keys to boxed values. */
+	MAP,
+
+	/**
+	 * Integer, Long, Double, Boolean and String columns are kept in dense arrays
+	 * indexed by row slot, strings dictionary encoded.  List columns still use maps.
+	 */
+	COLUMNAR;
+
+	/** Name of the system property used to pick the storage of new tables. */
+	public static final String PROPERTY_NAME = "cytoscape.tableStorage";
+
+	/**
+	 * Returns the storage selected by the system property, MAP if it is not set.
+	 */
+	public static TableStorage getDefault() {
+		final String value = System.getProperty(PROPERTY_NAME);
+		if (value != null) {
+			for (final TableStorage storage : values()) {
+				if (storage.name().equalsIgnoreCase(value.trim()))
+					return storage;
+			}
+		}
+		return MAP;
+	}
+
+	RowSlotMap createRowSlotMap(final Class<?> primaryKeyType, final int initSize) {
+		return this == COLUMNAR ? new RowSlotMap(primaryKeyType, initSize) : null;
+	}
+
+	ColumnData createColumnData(final Class<?> type, final RowSlotMap rowSlots, final int initSize) {
+		if (this == COLUMNAR && type != List.class) {
+			final ColumnData data = SlottedColumnData.create(type, rowSlots, initSize);
+			if (data != null)
+				return data;
+		}
+		return new MapColumnData(initSize);
+	}
+}
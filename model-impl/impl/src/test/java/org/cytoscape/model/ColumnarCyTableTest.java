@@ -0,0 +1,138 @@
+package org.cytoscape.model;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2016 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+
+import org.cytoscape.equations.Interpreter;
+import org.cytoscape.equations.internal.interpreter.InterpreterImpl;
+import org.cytoscape.event.CyEventHelper;
+import org.cytoscape.event.DummyCyEventHelper;
+import org.cytoscape.model.events.TableAddedEvent;
+import org.cytoscape.model.internal.CyNetworkManagerImpl;
+import org.cytoscape.model.internal.CyNetworkTableManagerImpl;
+import org.cytoscape.model.internal.CyTableImpl;
+import org.cytoscape.model.internal.CyTableManagerImpl;
+import org.cytoscape.model.internal.TableStorage;
+import org.cytoscape.service.util.CyServiceRegistrar;
+import org.cytoscape.session.CyNetworkNaming;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+/**
+ * Runs the CyTable API tests against the columnar storage.
+ */
+public class ColumnarCyTableTest extends AbstractCyTableTest {
+
+	private CyNetworkNaming namingUtil = mock(CyNetworkNaming.class);
+	private CyServiceRegistrar serviceRegistrar = mock(CyServiceRegistrar.class);
+
+	@Before
+	public void setUp() {
+		eventHelper = new DummyCyEventHelper();
+
+		when(serviceRegistrar.getService(CyEventHelper.class)).thenReturn(eventHelper);
+		when(serviceRegistrar.getService(CyNetworkNaming.class)).thenReturn(namingUtil);
+
+		final Interpreter interpreter = new InterpreterImpl();
+		table = new CyTableImpl("homer", CyIdentifiable.SUID, Long.class, false, true, SavePolicy.SESSION_FILE,
+					eventHelper, interpreter, 1000, TableStorage.COLUMNAR);
+		attrs = table.getRow(1L);
+		table2 = new CyTableImpl("marge", CyIdentifiable.SUID, Long.class, false, true, SavePolicy.SESSION_FILE,
+					 eventHelper, interpreter, 1000, TableStorage.COLUMNAR);
+
+		CyTableManagerImpl tblMgr = new CyTableManagerImpl(eventHelper,new CyNetworkTableManagerImpl(), new CyNetworkManagerImpl(serviceRegistrar));
+		tblMgr.addTable(table);
+		((CyTableImpl)table).handleEvent(new TableAddedEvent(tblMgr, table));
+		tblMgr.addTable(table2);
+		((CyTableImpl)table2).handleEvent(new TableAddedEvent(tblMgr, table2));
+	}
+
+	@After
+	public void tearDown() {
+		eventHelper = null;
+		table = null;
+		attrs = null;
+	}
+
+	@Test
+	public void testDeletedRowSlotIsReused() {
+		table.createColumn("someInt", Integer.class, false);
+		table.createColumn("someString", String.class, false);
+		table.getRow(2L).set("someInt", 42);
+		table.getRow(2L).set("someString", "foo");
+
+		table.deleteRows(Arrays.asList(2L));
+		CyRow row = table.getRow(3L);
+
+		assertFalse(row.isSet("someInt"));
+		assertFalse(row.isSet("someString"));
+		assertNull(row.get("someInt", Integer.class));
+		assertEquals(0, table.countMatchingRows("someInt", 42));
+	}
+
+	@Test
+	public void testDictionaryEncodedStrings() {
+		table.createColumn("someString", String.class, false);
+		for (long i = 10; i < 20; i++)
+			table.getRow(i).set("someString", i % 2 == 0 ? "even" : "odd");
+
+		assertEquals(5, table.countMatchingRows("someString", "even"));
+		assertEquals(5, table.getMatchingRows("someString", "odd").size());
+
+		table.getRow(11L).set("someString", "even");
+		table.getRow(12L).set("someString", null);
+		assertEquals(5, table.countMatchingRows("someString", "even"));
+		assertEquals("even", table.getRow(11L).get("someString", String.class));
+		assertFalse(table.getRow(12L).isSet("someString"));
+	}
+
+	@Test
+	public void testPrimitiveColumnsKeepValues() {
+		table.createColumn("someLong", Long.class, false);
+		table.createColumn("someDouble", Double.class, false);
+		table.createColumn("someBoolean", Boolean.class, false);
+		for (long i = 100; i < 1100; i++) {
+			CyRow row = table.getRow(i);
+			row.set("someLong", i * 3);
+			row.set("someDouble", i / 2.0);
+			row.set("someBoolean", i % 3 == 0);
+		}
+
+		for (long i = 100; i < 1100; i++) {
+			CyRow row = table.getRow(i);
+			assertEquals(Long.valueOf(i * 3), row.get("someLong", Long.class));
+			assertEquals(i / 2.0, row.get("someDouble", Double.class).doubleValue(), 0.0);
+			assertEquals(i % 3 == 0, row.get("someBoolean", Boolean.class).booleanValue());
+		}
+	}
+}
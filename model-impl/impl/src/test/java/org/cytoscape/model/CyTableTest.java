@@ -26,6 +26,7 @@ package org.cytoscape.model;
 
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -45,6 +46,7 @@ import org.cytoscape.model.internal.CyNetworkTableManagerImpl;
 import org.cytoscape.model.internal.CyTableImpl;
 import org.cytoscape.model.internal.CyTableManagerImpl;
 import org.cytoscape.model.events.RowSetRecord;
+import org.cytoscape.model.events.RowsSetEvent;
 import org.cytoscape.model.events.TableAddedEvent;
 import org.cytoscape.service.util.CyServiceRegistrar;
 import org.cytoscape.session.CyNetworkNaming;
@@ -279,4 +281,53 @@ public class CyTableTest extends AbstractCyTableTest {
 			}
 		}
 	}
+	
+	@Test
+	public void testSetColumnValues() {
+		table.createColumn("real", String.class, false);
+		table2.addVirtualColumn("virtual", "real", table, table.getPrimaryKey().getName(), true);
+		table2.getRow(1L);
+		table2.getRow(2L);
+		
+		final Map<Long, String> values = new HashMap<Long, String>();
+		values.put(1L, "foo");
+		values.put(2L, "bar");
+		values.put(3L, "baz");
+		((CyTableImpl) table).setColumnValues("real", values);
+		
+		assertEquals("foo", table.getRow(1L).get("real", String.class));
+		assertEquals("baz", table.getRow(3L).get("real", String.class));
+		assertEquals("bar", table2.getRow(2L).get("virtual", String.class));
+		
+		int tableRecords = 0;
+		int table2Records = 0;
+		for (Object event : eventHelper.getAllLastEvents()) {
+			if (event instanceof RowsSetEvent) {
+				final RowsSetEvent rowsSet = (RowsSetEvent) event;
+				if (rowsSet.getSource() == table)
+					tableRecords += rowsSet.getPayloadCollection().size();
+				else if (rowsSet.getSource() == table2)
+					table2Records += rowsSet.getPayloadCollection().size();
+			}
+		}
+		assertEquals(3, tableRecords);
+		assertEquals(2, table2Records);
+		
+		values.put(1L, null);
+		((CyTableImpl) table).setColumnValues("real", values);
+		assertFalse(table.getRow(1L).isSet("real"));
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testSetColumnValuesChecksAllValuesFirst() {
+		table.createColumn("someInt", Integer.class, false);
+		final Map<Long, Object> values = new LinkedHashMap<Long, Object>();
+		values.put(1L, 1);
+		values.put(2L, "not an int");
+		try {
+			((CyTableImpl) table).setColumnValues("someInt", values);
+		} finally {
+			assertFalse(table.getRow(1L).isSet("someInt"));
+		}
+	}
 }
@@ -27,6 +27,7 @@ import static org.junit.Assert.*;
  */
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -38,6 +39,7 @@ import java.util.concurrent.Future;
 import org.cytoscape.equations.Equation;
 import org.cytoscape.equations.internal.EquationCompilerImpl;
 import org.cytoscape.equations.internal.EquationParserImpl;
+import org.cytoscape.model.internal.CyTableImpl;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -330,5 +332,82 @@ public class EquationTest {
 		assertEquals(Integer.valueOf(2), row.get("c2", Integer.class));
 		assertEquals(Integer.valueOf(3), row.get("c3", Integer.class));
 	}
+	
+	@Test
+	public void testCachedResultsFollowReferencedColumns() {
+		CyTableFactory factory = support.getTableFactory();
+		CyTable table = factory.createTable("MyTable3", "SUID", Long.class, true, true);
+		table.createColumn("c1", Double.class, false);
+		table.createColumn("e1", Double.class, false);
+		table.createColumn("e2", Double.class, false);
+		
+		Equation e1 = parseEquation("=$c1 * 2.0", table);
+		Equation e2 = parseEquation("=$e1 + 1.0", table);
+		
+		CyRow row1 = table.getRow(1L);
+		CyRow row2 = table.getRow(2L);
+		for (CyRow row : new CyRow[] { row1, row2 }) {
+			row.set("c1", 1.0);
+			row.set("e1", e1);
+			row.set("e2", e2);
+		}
+		assertEquals(3.0, row1.get("e2", Double.class), 0);
+		assertEquals(3.0, row2.get("e2", Double.class), 0);
+		
+		// A change to a column read through another equation must reach the dependent cells of that row only.
+		row1.set("c1", 5.0);
+		assertEquals(10.0, row1.get("e1", Double.class), 0);
+		assertEquals(11.0, row1.get("e2", Double.class), 0);
+		assertEquals(3.0, row2.get("e2", Double.class), 0);
+		
+		// Replacing the equation in the middle of the chain.
+		row2.set("e1", parseEquation("=$c1 * 10.0", table));
+		assertEquals(11.0, row2.get("e2", Double.class), 0);
+		
+		// Bulk updates invalidate as well.
+		Map<Long, Double> values = new HashMap<Long, Double>();
+		values.put(1L, 2.0);
+		values.put(2L, 3.0);
+		((CyTableImpl) table).setColumnValues("c1", values);
+		assertEquals(5.0, row1.get("e2", Double.class), 0);
+		assertEquals(31.0, row2.get("e2", Double.class), 0);
+		
+		row1.set("c1", null);
+		assertNull(row1.get("e2", Double.class));
+		
+		// A row that is deleted and created again starts without cached results.
+		table.deleteRows(Collections.singletonList(2L));
+		row2 = table.getRow(2L);
+		row2.set("c1", 4.0);
+		assertNull(row2.get("e2", Double.class));
+		row2.set("e1", e1);
+		row2.set("e2", e2);
+		assertEquals(9.0, row2.get("e2", Double.class), 0);
+		
+		// Equations refer to columns by name.
+		table.getColumn("c1").setName("c9");
+		assertNull(row2.get("e1", Double.class));
+		assertNull(row2.get("e2", Double.class));
+	}
+	
+	@Test
+	public void testEquationReadingVirtualColumnSeesSourceChanges() {
+		CyTableFactory factory = support.getTableFactory();
+		CyTable table1 = factory.createTable("Table 1d", "SUID", Long.class, true, true);
+		CyTable table2 = factory.createTable("Table 2d", "SUID", Long.class, true, true);
+		table1.createColumn("real", Double.class, false);
+		table2.addVirtualColumn("virtual", "real", table1, "SUID", false);
+		table2.createColumn("e1", Double.class, false);
+		
+		CyRow row1 = table1.getRow(1L);
+		row1.set("real", 1.0);
+		CyRow row2 = table2.getRow(1L);
+		row2.set("e1", parseEquation("=$virtual + 1.0", table2));
+		assertEquals(2.0, row2.get("e1", Double.class), 0);
+		
+		// The change happens in the source table, which knows nothing about table 2's equations.
+		row1.set("real", 5.0);
+		assertEquals(6.0, row2.get("e1", Double.class), 0);
+	}
 }
 
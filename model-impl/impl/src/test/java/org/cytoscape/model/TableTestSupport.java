@@ -30,6 +30,7 @@ import static org.mockito.Mockito.mock;
 import org.cytoscape.equations.internal.interpreter.InterpreterImpl;
 import org.cytoscape.event.DummyCyEventHelper;
 import org.cytoscape.model.internal.CyTableFactoryImpl;
+import org.cytoscape.model.internal.TableStorage;
 import org.cytoscape.service.util.CyServiceRegistrar;
 
 
@@ -38,9 +39,13 @@ public class TableTestSupport {
 	protected DummyCyEventHelper eventHelper;
 
 	public TableTestSupport() {
+		this(TableStorage.getDefault());
+	}
+
+	public TableTestSupport(final TableStorage storage) {
 		eventHelper = new DummyCyEventHelper();
 		tableFactory = new CyTableFactoryImpl(eventHelper, new InterpreterImpl(),
-		                                      mock(CyServiceRegistrar.class));
+		                                      mock(CyServiceRegistrar.class), storage);
 	}
 
 	public CyTableFactory getTableFactory() {
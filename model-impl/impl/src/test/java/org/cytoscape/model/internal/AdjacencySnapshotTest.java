@@ -0,0 +1,182 @@
+package org.cytoscape.model.internal;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2016 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.NetworkTestSupport;
+import org.cytoscape.model.bulk.BulkCyNetwork;
+import org.cytoscape.model.bulk.NetworkSnapshot;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class AdjacencySnapshotTest {
+
+	private CySubNetworkImpl net;
+	private CyNode n1;
+	private CyNode n2;
+	private CyNode n3;
+	private CyNode n4;
+	private CyEdge e12;
+	private CyEdge e21;
+	private CyEdge u13;
+	private CyEdge s33;
+	private CyEdge u22;
+	private CyEdge e34;
+
+	@Before
+	public void setUp() {
+		net = (CySubNetworkImpl) new NetworkTestSupport().getNetwork();
+		n1 = net.addNode();
+		n2 = net.addNode();
+		n3 = net.addNode();
+		n4 = net.addNode();
+		e12 = net.addEdge(n1, n2, true);
+		e21 = net.addEdge(n2, n1, true);
+		u13 = net.addEdge(n1, n3, false);
+		s33 = net.addEdge(n3, n3, true);
+		u22 = net.addEdge(n2, n2, false);
+		e34 = net.addEdge(n3, n4, true);
+	}
+
+	@Test
+	public void testSnapshotAnswersLikeLinkedLists() {
+		// Few enough reads that these are answered from the linked lists
+		assertTopology();
+
+		final AdjacencySnapshot snapshot = net.getAdjacencySnapshot();
+		assertTopology();
+
+		assertEquals(4, snapshot.getNodeCount());
+		assertEquals(6, snapshot.getEdgeCount());
+		for (int e = 0; e < snapshot.getEdgeCount(); e++) {
+			final CyEdge edge = snapshot.getEdge(e);
+			assertEquals(e, snapshot.getEdgeIndex(edge));
+			assertSame(edge.getSource(), snapshot.getNode(snapshot.getEdgeSourceIndex(e)));
+			assertSame(edge.getTarget(), snapshot.getNode(snapshot.getEdgeTargetIndex(e)));
+		}
+	}
+
+	@Test
+	public void testSnapshotIsReplacedAfterChange() {
+		final AdjacencySnapshot snapshot = net.getAdjacencySnapshot();
+		assertSame(snapshot, net.getAdjacencySnapshot());
+
+		final CyNode n5 = net.addNode();
+		assertEquals(-1, snapshot.getNodeIndex(n5));
+		assertTrue(net.containsNode(n5));
+
+		final AdjacencySnapshot changed = net.getAdjacencySnapshot();
+		assertNotSame(snapshot, changed);
+		assertTrue(changed.getNodeIndex(n5) >= 0);
+
+		net.removeNodes(Collections.singletonList(n1));
+		assertFalse(net.containsNode(n1));
+		assertFalse(net.containsEdge(e12));
+		assertEquals(set(u22), set(net.getAdjacentEdgeList(n2, CyEdge.Type.ANY)));
+		assertEquals(4, net.getAdjacencySnapshot().getNodeCount());
+		assertEquals(3, net.getAdjacencySnapshot().getEdgeCount());
+	}
+
+	@Test
+	public void testRemovedIsolatedNodeLeavesSnapshot() {
+		final CyNode n5 = net.addNode();
+
+		// Enough reads that the next ones are answered from a snapshot
+		for (int i = 0; i < 1000; i++)
+			net.getAdjacentEdgeList(n5, CyEdge.Type.ANY);
+
+		net.removeNodes(Collections.singletonList(n5));
+		for (int i = 0; i < 1000; i++)
+			assertFalse(net.getNodeList().contains(n5));
+		assertEquals(-1, net.getAdjacencySnapshot().getNodeIndex(n5));
+	}
+
+	@Test
+	public void testSnapshotIsReadableThroughBulkCyNetwork() {
+		assertTrue(net instanceof BulkCyNetwork);
+		assertTrue(net.getRootNetwork() instanceof BulkCyNetwork);
+
+		final NetworkSnapshot snapshot = ((BulkCyNetwork) net).getAdjacencySnapshot();
+		assertEquals(4, snapshot.getNodeCount());
+		assertEquals(6, snapshot.getEdgeCount());
+
+		final int n3 = snapshot.getNodeIndex(this.n3);
+		final Set<Object> adjacent = new HashSet<Object>();
+		for (int slot = snapshot.getAdjacencyStart(n3); slot < snapshot.getAdjacencyEnd(n3); slot++) {
+			if (snapshot.matches(slot, CyEdge.Type.ANY))
+				adjacent.add(snapshot.getEdge(snapshot.getAdjacentEdge(slot)));
+		}
+		assertEquals(set(u13, s33, e34), adjacent);
+
+		final int e34 = snapshot.getEdgeIndex(this.e34);
+		assertSame(this.n3, snapshot.getNode(snapshot.getEdgeSourceIndex(e34)));
+		assertSame(n4, snapshot.getNode(snapshot.getEdgeTargetIndex(e34)));
+	}
+
+	private void assertTopology() {
+		assertEquals(set(n1, n2, n3, n4), set(net.getNodeList()));
+		assertEquals(set(e12, e21, u13, s33, u22, e34), set(net.getEdgeList()));
+
+		assertEquals(set(e12, e21, u13), set(net.getAdjacentEdgeList(n1, CyEdge.Type.ANY)));
+		assertEquals(set(e12), set(net.getAdjacentEdgeList(n1, CyEdge.Type.OUTGOING)));
+		assertEquals(set(e21), set(net.getAdjacentEdgeList(n1, CyEdge.Type.INCOMING)));
+		assertEquals(set(u13), set(net.getAdjacentEdgeList(n1, CyEdge.Type.UNDIRECTED)));
+		assertEquals(set(e12, e21), set(net.getAdjacentEdgeList(n1, CyEdge.Type.DIRECTED)));
+		assertEquals(set(e12, e21, u22), set(net.getAdjacentEdgeList(n2, CyEdge.Type.ANY)));
+		assertEquals(set(u13, s33, e34), set(net.getAdjacentEdgeList(n3, CyEdge.Type.ANY)));
+		assertEquals(set(s33, e34), set(net.getAdjacentEdgeList(n3, CyEdge.Type.OUTGOING)));
+		assertEquals(set(s33), set(net.getAdjacentEdgeList(n3, CyEdge.Type.INCOMING)));
+		assertEquals(0, net.getAdjacentEdgeList(n4, CyEdge.Type.OUTGOING).size());
+
+		assertEquals(3, net.getNeighborList(n3, CyEdge.Type.ANY).size());
+		assertEquals(set(n1, n3, n4), set(net.getNeighborList(n3, CyEdge.Type.ANY)));
+		assertEquals(set(e12, e21), set(net.getConnectingEdgeList(n1, n2, CyEdge.Type.ANY)));
+		assertTrue(net.containsEdge(n3, n4));
+		assertFalse(net.containsEdge(n1, n4));
+	}
+
+	private static Set<Object> set(final Object... elements) {
+		return new HashSet<Object>(Arrays.asList(elements));
+	}
+
+	private static Set<Object> set(final Collection<?> elements) {
+		return new HashSet<Object>(elements);
+	}
+}
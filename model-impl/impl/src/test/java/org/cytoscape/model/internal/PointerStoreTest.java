@@ -0,0 +1,128 @@
+package org.cytoscape.model.internal;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2016 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import static org.cytoscape.model.internal.PointerStore.NONE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyNode;
+import org.junit.Before;
+import org.junit.Test;
+
+
+/**
+ * Bounds the slots the store holds on to.  The memory benchmark in the
+ * performance module is run by hand; this is the part of it that runs with
+ * every build.
+ */
+public class PointerStoreTest {
+
+	private static final int NODE_COUNT = 1000;
+	private static final int EDGE_COUNT = 5000;
+
+	private PointerStore store;
+	private CyNode[] nodes;
+	private int[] nodeSlots;
+	private long nextSuid;
+
+	@Before
+	public void setUp() {
+		store = new PointerStore();
+		nodes = new CyNode[NODE_COUNT];
+		nodeSlots = new int[NODE_COUNT];
+		nextSuid = 1L;
+		for (int i = 0; i < NODE_COUNT; i++) {
+			nodes[i] = new CyNodeImpl(nextSuid++, i, null);
+			nodeSlots[i] = store.addNode(nodes[i]);
+		}
+	}
+
+	@Test
+	public void testSlotsAreDense() {
+		final int[] edges = addEdges(EDGE_COUNT);
+
+		assertEquals(NODE_COUNT, store.getNodeSlotLimit());
+		assertEquals(EDGE_COUNT, store.getEdgeSlotLimit());
+		for (int edge : edges)
+			assertTrue(edge >= 0 && edge < EDGE_COUNT);
+	}
+
+	@Test
+	public void testRemovedEdgeSlotsAreReused() {
+		for (int round = 0; round < 10; round++) {
+			final int[] edges = addEdges(EDGE_COUNT);
+			for (int edge : edges)
+				store.removeEdge(edge);
+		}
+
+		assertEquals(0, store.getEdgeCount());
+		assertEquals(EDGE_COUNT, store.getEdgeSlotLimit());
+	}
+
+	@Test
+	public void testRemovedNodeSlotsAreReused() {
+		for (int i = 0; i < NODE_COUNT; i++)
+			store.removeNode(nodeSlots[i]);
+		assertEquals(NONE, store.getFirstNode());
+
+		for (int i = 0; i < NODE_COUNT; i++)
+			store.addNode(new CyNodeImpl(nextSuid++, i, null));
+
+		assertEquals(NODE_COUNT, store.getNodeCount());
+		assertEquals(NODE_COUNT, store.getNodeSlotLimit());
+	}
+
+	@Test
+	public void testAdjacencyCountsMatchEdges() {
+		addEdges(EDGE_COUNT);
+
+		int outEdges = 0;
+		int inEdges = 0;
+		for (int node = store.getFirstNode(); node != NONE; node = store.getNextNode(node)) {
+			for (int edge = store.getFirstOutEdge(node); edge != NONE; edge = store.getNextOutEdge(edge))
+				outEdges++;
+			for (int edge = store.getFirstInEdge(node); edge != NONE; edge = store.getNextInEdge(edge))
+				inEdges++;
+		}
+
+		assertEquals(EDGE_COUNT, outEdges);
+		assertEquals(EDGE_COUNT, inEdges);
+	}
+
+	private int[] addEdges(final int count) {
+		final int[] edges = new int[count];
+		for (int i = 0; i < count; i++) {
+			final int s = (i * 7) % NODE_COUNT;
+			final int t = (i * 13 + 1) % NODE_COUNT;
+			final boolean directed = (i & 1) == 0;
+			final CyEdge cyEdge = new CyEdgeImpl(nextSuid++, nodes[s], nodes[t], directed, i);
+			edges[i] = store.addEdge(nodeSlots[s], nodeSlots[t], directed, cyEdge);
+		}
+		return edges;
+	}
+}
@@ -25,24 +25,30 @@ package org.cytoscape.model.subnetwork;
  */
 
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.cytoscape.event.DummyCyEventHelper;
 import org.cytoscape.model.CyEdge;
 import org.cytoscape.model.CyNetworkManager;
 import org.cytoscape.model.CyNode;
+import org.cytoscape.model.CyTable;
 import org.cytoscape.model.TestCyNetworkFactory;
+import org.cytoscape.model.bulk.BulkCyTable;
 import org.cytoscape.model.events.AboutToRemoveEdgesEvent;
 import org.cytoscape.model.events.AboutToRemoveNodesEvent;
 import org.cytoscape.model.events.NetworkAddedEvent;
 import org.cytoscape.model.events.RemovedEdgesEvent;
 import org.cytoscape.model.events.RemovedNodesEvent;
+import org.cytoscape.model.events.RowsSetEvent;
 import org.cytoscape.model.internal.CySubNetworkImpl;
 import org.junit.After;
 import org.junit.Before;
@@ -232,4 +238,32 @@ public class CySubNetworkTest extends AbstractCySubNetworkTest {
 		Object payload = deh.getLastPayload();
 		assertNotNull(payload);
 	}
+
+	@Test
+	public void testSetColumnValuesOnDefaultNodeTable() {
+		CySubNetwork sub = root.addSubNetwork();
+		CySubNetwork sub2 = root.addSubNetwork();
+		CyNode nx1 = sub.addNode();
+		CyNode nx2 = sub.addNode();
+		sub2.addNode(nx2);
+
+		CyTable table = sub.getDefaultNodeTable();
+		table.createColumn("score", Double.class, false);
+
+		Map<Long, Object> values = new HashMap<Long, Object>();
+		values.put(nx1.getSUID(), 1.0);
+		values.put(nx2.getSUID(), 2.0);
+		assertTrue( table instanceof BulkCyTable );
+		((BulkCyTable) table).setColumnValues("score", values);
+
+		assertEquals(1.0, sub.getRow(nx1).get("score", Double.class), 0.0);
+		assertEquals(2.0, sub.getRow(nx2).get("score", Double.class), 0.0);
+		// the column is shared, so the other network sees the value too
+		assertEquals(2.0, sub2.getRow(nx2).get("score", Double.class), 0.0);
+
+		boolean fired = false;
+		for ( Object event : deh.getAllLastEvents() )
+			fired |= event instanceof RowsSetEvent;
+		assertTrue( fired );
+	}
 }
@@ -0,0 +1,106 @@
+package org.cytoscape.model; 
+
+
+import static org.junit.Assert.*;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.ops4j.pax.exam.junit.MavenConfiguredJUnit4TestRunner;
+import org.osgi.util.tracker.ServiceTracker;
+
+import org.cytoscape.equations.Interpreter;
+import org.cytoscape.integration.ServiceTestSupport;
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNetworkFactory;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.service.util.CyServiceRegistrar;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+
+/**
+ * Measures the heap used by the topology of a network and the time it
+ * takes to walk its adjacency lists.  Run with a large heap, e.g.
+ * -DedgeCount=10000000 -Xmx8000m, to see the effect at scale.
+ * <p>
+ * This is a manual benchmark: the performance module is not part of the
+ * model-impl build, and the numbers it prints are meant to be compared by
+ * hand against a run of the previous model-impl.  PointerStoreTest bounds
+ * the store's slot use in the regular build.
+ */
+@RunWith(MavenConfiguredJUnit4TestRunner.class)
+public class MemoryFootprintTest extends ServiceTestSupport {
+	private static final int NODE_COUNT = Integer.getInteger("nodeCount", 200000);
+	private static final int EDGE_COUNT = Integer.getInteger("edgeCount", 1000000);
+
+	private CyNetworkFactory networkFactory;
+
+	@Before 
+	public void setup() {
+		registerMockService(Interpreter.class);
+		registerMockService(CyServiceRegistrar.class);
+
+		final ServiceTracker networkFactoryTracker =
+			new ServiceTracker(bundleContext, CyNetworkFactory.class.getName(), null);
+		networkFactoryTracker.open();
+		networkFactory = null;
+		try {
+			final int WAIT_TIME = 10000; // seconds
+			networkFactory = (CyNetworkFactory)networkFactoryTracker.waitForService(WAIT_TIME);
+		} catch (final InterruptedException ie) {
+			fail("Did not get an instance of a CyNetworkFactory service within the specified amount of time!");
+		}
+		assertNotNull(networkFactory);
+	}
+
+	@Test
+	public void measureTopologyFootprint() {
+		final List<CyNode> nodes = new ArrayList<CyNode>(NODE_COUNT);
+		final long before = usedHeap();
+
+		// The network and its root network both store the topology
+		final CyNetwork network = networkFactory.createNetwork();
+		for (int i = 0; i < NODE_COUNT; ++i)
+			nodes.add(network.addNode());
+
+		final Random rand = new Random(1234L);
+		boolean isDirected = true;
+		for (int i = 0; i < EDGE_COUNT; ++i) {
+			final CyNode source = nodes.get(rand.nextInt(NODE_COUNT));
+			final CyNode target = nodes.get(rand.nextInt(NODE_COUNT));
+			network.addEdge(source, target, isDirected);
+			isDirected = !isDirected;
+		}
+
+		final long after = usedHeap();
+		System.err.println("*** CTRT: " + getClass().getName() + ".bytesPerEdge "
+				   + (after - before) / EDGE_COUNT);
+
+		long edgesSeen = 0;
+		final long startTime = System.nanoTime();
+		for (final CyNode node : nodes)
+			edgesSeen += network.getAdjacentEdgeList(node, CyEdge.Type.ANY).size();
+		final long endTime = System.nanoTime();
+		System.err.println("*** CTRT: " + getClass().getName() + ".adjacencyWalk "
+				   + (endTime - startTime));
+
+		assertEquals(EDGE_COUNT, network.getEdgeCount());
+		assertTrue(edgesSeen >= EDGE_COUNT);
+	}
+
+	private static long usedHeap() {
+		final Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 4; ++i) {
+			System.gc();
+			try {
+				Thread.sleep(100);
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
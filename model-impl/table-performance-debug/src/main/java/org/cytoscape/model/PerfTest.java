@@ -28,6 +28,8 @@ package org.cytoscape.model;
 
 import java.util.Random;
 
+import org.cytoscape.model.internal.TableStorage;
+
 
 public class PerfTest {
 
@@ -35,22 +37,30 @@ public class PerfTest {
 	private Class[] colTypes = new Class[] {String.class, Integer.class, Long.class, Double.class, Boolean.class};
 	private Object[] colDefaults = new Object[] {"default", Integer.valueOf(0),Long.valueOf(0), Double.valueOf(0.0), Boolean.FALSE};
 	private final int numRows = 100000;
-	private final Random rand = new Random(numRows);
+	private Random rand;
 	private final int matching = 100;
 	                                        
 
 	private final CyTableFactory tableFactory;
+	private final TableStorage storage;
 
 	public static void main(String[] args) {
-		new PerfTest().testTableUse();
+		for ( TableStorage storage : TableStorage.values() )
+			new PerfTest(storage).testTableUse();
 	}
 
-	public PerfTest() {
-		TableTestSupport testSupport = new TableTestSupport();
+	public PerfTest(TableStorage storage) {
+		TableTestSupport testSupport = new TableTestSupport(storage);
 		tableFactory = testSupport.getTableFactory();
+		this.storage = storage;
 	}
 
 	private void testTableUse() {
+		System.out.println("storage: " + storage);
+		rand = new Random(numRows);
+		final long heapBefore = usedHeap();
+		long begin = System.nanoTime();
+
 		CyTable table = tableFactory.createTable("homer","primaryKey",Integer.class,true,true);
 
 		System.out.println(" create columns");
@@ -63,24 +73,55 @@ public class PerfTest {
 			for ( int j = 0; j<colNames.length; j++)
 				row.set(colNames[j], getRandomValue(colTypes[j%colTypes.length]));
 		}
+		reportThroughput("set", begin);
+
+		final long heapAfter = usedHeap();
+		System.out.println("   heap per row: " + ((heapAfter - heapBefore) / numRows) + " bytes");
 
 		System.out.println(" get a bunch of rows");
+		begin = System.nanoTime();
 		for (int i = 0; i < numRows; i++) {
 			CyRow row = table.getRow(Integer.valueOf(i));
 			for ( int j = 0; j<colNames.length; j++)
 				row.get(colNames[j], colTypes[j%colTypes.length]);
 		}
+		reportThroughput("get", begin);
 
 		System.out.println(" get a bunch of rows in a different way");
+		begin = System.nanoTime();
 		for ( CyRow row : table.getAllRows() ) 
 			for ( int j = 0; j<colNames.length; j++)
 				row.get(colNames[j], colTypes[j%colTypes.length]);
+		reportThroughput("get all", begin);
 
 		System.out.println(" get all matching rows ");
 		for ( int j = 0; j<colNames.length; j++)
 			if ( colTypes[j % colTypes.length] == Integer.class )
 				for ( int x = 0; x < matching; x++ )
 					table.getMatchingRows(colNames[j],Integer.valueOf(x));
+
+		// keep the table reachable until the heap has been measured
+		if ( table.getRowCount() != numRows )
+			System.out.println(" unexpected row count: " + table.getRowCount());
+	}
+
+	private void reportThroughput(String what, long begin) {
+		final double seconds = (System.nanoTime() - begin) / 1.0e9;
+		final long cells = (long)numRows * colNames.length;
+		System.out.println("   " + what + ": " + (long)(cells / seconds) + " cells/s");
+	}
+
+	private static long usedHeap() {
+		final Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 4; i++) {
+			System.gc();
+			try {
+				Thread.sleep(100);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
 	}
 
 	private Object getRandomValue(Class c) {
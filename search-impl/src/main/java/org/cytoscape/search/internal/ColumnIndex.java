@@ -0,0 +1,259 @@
+package org.cytoscape.search.internal;
+
+/*
+ * #%L
+ * Cytoscape Search Impl (search-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.TermAttribute;
+import org.apache.lucene.util.Version;
+import org.cytoscape.model.CyColumn;
+import org.cytoscape.model.CyIdentifiable;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyRow;
+
+
+/**
+ * An index of the values of one column for the nodes or the edges of a network.  Integer and
+ * Double columns are kept as sorted arrays for equality and range lookups; String, Boolean and
+ * List columns are kept as a sorted map from the terms Lucene's analyzer makes of their values,
+ * for term and prefix lookups.  The matches are the same as those of the Lucene index built by
+ * {@link EnhancedSearchIndex}.
+ */
+final class ColumnIndex {
+
+	private final Class<?> type;
+
+	// Numeric columns: the values in ascending order and the SUIDs of their rows.
+	private final double[] values;
+	private final long[] valueSUIDs;
+
+	// Other columns: the SUIDs of the rows each term occurs in.
+	private final TreeMap<String, long[]> terms;
+
+	private ColumnIndex(final Class<?> type, final double[] values, final long[] valueSUIDs,
+	                    final TreeMap<String, long[]> terms) {
+		this.type = type;
+		this.values = values;
+		this.valueSUIDs = valueSUIDs;
+		this.terms = terms;
+	}
+
+	/**
+	 * @return the index, or null if the column has a type that EnhancedSearchIndex doesn't index
+	 */
+	static ColumnIndex build(final CyNetwork network, final List<? extends CyIdentifiable> elements,
+	                         final CyColumn column) {
+		final Class<?> type = column.getType();
+		final String name = column.getName();
+
+		if (type == Integer.class || type == Double.class) {
+			final NumericEntry[] entries = new NumericEntry[elements.size()];
+			int n = 0;
+			for (final CyIdentifiable element : elements) {
+				final Number value = (Number) network.getRow(element).get(name, type);
+				if (value != null)
+					entries[n++] = new NumericEntry(value.doubleValue(), element.getSUID());
+			}
+			Arrays.sort(entries, 0, n);
+
+			final double[] values = new double[n];
+			final long[] suids = new long[n];
+			for (int i = 0; i < n; i++) {
+				values[i] = entries[i].value;
+				suids[i] = entries[i].suid;
+			}
+			return new ColumnIndex(type, values, suids, null);
+		}
+
+		if (type != String.class && type != Boolean.class && type != List.class)
+			return null;
+
+		final StandardAnalyzer analyzer = newAnalyzer();
+		final Map<String, List<Long>> occurrences = new TreeMap<String, List<Long>>();
+		final List<String> tokens = new ArrayList<String>();
+		for (final CyIdentifiable element : elements) {
+			final CyRow row = network.getRow(element);
+			tokens.clear();
+			if (type == List.class) {
+				final List<?> list = row.get(name, List.class);
+				if (list == null)
+					continue;
+				for (final Object item : list)
+					tokenize(analyzer, item.toString(), tokens);
+			} else {
+				final Object value = row.get(name, type);
+				if (value == null)
+					continue;
+				tokenize(analyzer, value.toString(), tokens);
+			}
+
+			final Long suid = element.getSUID();
+			for (final String token : tokens) {
+				List<Long> suids = occurrences.get(token);
+				if (suids == null) {
+					suids = new ArrayList<Long>(1);
+					occurrences.put(token, suids);
+				}
+				// A term may occur several times in the same value.
+				if (suids.isEmpty() || !suids.get(suids.size() - 1).equals(suid))
+					suids.add(suid);
+			}
+		}
+
+		final TreeMap<String, long[]> terms = new TreeMap<String, long[]>();
+		for (final Map.Entry<String, List<Long>> entry : occurrences.entrySet()) {
+			final List<Long> suids = entry.getValue();
+			final long[] array = new long[suids.size()];
+			for (int i = 0; i < array.length; i++)
+				array[i] = suids.get(i);
+			terms.put(entry.getKey(), array);
+		}
+		return new ColumnIndex(type, null, null, terms);
+	}
+
+	static StandardAnalyzer newAnalyzer() {
+		final StandardAnalyzer analyzer = new StandardAnalyzer(Version.LUCENE_30);
+		analyzer.setMaxTokenLength(1024*10);
+		return analyzer;
+	}
+
+	/**
+	 * Splits "text" into terms the way the search index does.
+	 */
+	static void tokenize(final StandardAnalyzer analyzer, final String text, final List<String> tokens) {
+		try {
+			final TokenStream stream = analyzer.tokenStream("", new StringReader(text));
+			final TermAttribute term = stream.addAttribute(TermAttribute.class);
+			while (stream.incrementToken())
+				tokens.add(term.term());
+			stream.close();
+		} catch (IOException e) {
+			// Can't happen when reading from a String.
+			throw new IllegalStateException(e);
+		}
+	}
+
+	Class<?> getType() {
+		return type;
+	}
+
+	boolean isNumeric() {
+		return values != null;
+	}
+
+	/**
+	 * Adds the SUIDs of the rows containing the term to "hits".
+	 */
+	void findTerm(final String term, final Collection<String> hits) {
+		addAll(terms.get(term), hits);
+	}
+
+	/**
+	 * Adds the SUIDs of the rows containing a term that starts with "prefix" to "hits".
+	 */
+	void findPrefix(final String prefix, final Collection<String> hits) {
+		final Collection<long[]> matches = terms.subMap(prefix, prefix + Character.MAX_VALUE).values();
+		if (matches.size() == 1) {
+			addAll(matches.iterator().next(), hits);
+			return;
+		}
+
+		// A row may contain several of the terms.
+		final Set<Long> suids = new HashSet<Long>();
+		for (final long[] match : matches) {
+			for (final long suid : match) {
+				if (suids.add(suid))
+					hits.add(Long.toString(suid));
+			}
+		}
+	}
+
+	/**
+	 * Adds the SUIDs of the rows whose value lies between "low" and "high" to "hits".
+	 */
+	void findRange(final double low, final double high, final boolean inclusive, final Collection<String> hits) {
+		int from = lowerBound(low);
+		if (!inclusive) {
+			while (from < values.length && Double.compare(values[from], low) == 0)
+				from++;
+		}
+
+		for (int i = from; i < values.length; i++) {
+			final int cmp = Double.compare(values[i], high);
+			if (cmp > 0 || (cmp == 0 && !inclusive))
+				break;
+			hits.add(Long.toString(valueSUIDs[i]));
+		}
+	}
+
+	// The first position whose value is not less than "value".
+	private int lowerBound(final double value) {
+		int low = 0;
+		int high = values.length;
+		while (low < high) {
+			final int mid = (low + high) >>> 1;
+			if (Double.compare(values[mid], value) < 0)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+		return low;
+	}
+
+	private static void addAll(final long[] suids, final Collection<String> hits) {
+		if (suids == null)
+			return;
+		for (final long suid : suids)
+			hits.add(Long.toString(suid));
+	}
+
+	private static final class NumericEntry implements Comparable<NumericEntry> {
+		final double value;
+		final long suid;
+
+		NumericEntry(final double value, final long suid) {
+			this.value = value;
+			this.suid = suid;
+		}
+
+		@Override
+		public int compareTo(final NumericEntry other) {
+			return Double.compare(value, other.value);
+		}
+	}
+}
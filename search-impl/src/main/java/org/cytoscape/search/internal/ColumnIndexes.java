@@ -0,0 +1,179 @@
+package org.cytoscape.search.internal;
+
+/*
+ * #%L
+ * Cytoscape Search Impl (search-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cytoscape.model.CyColumn;
+import org.cytoscape.model.CyIdentifiable;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyTable;
+import org.cytoscape.search.internal.util.EnhancedSearchUtils;
+
+
+/**
+ * The column indexes of one network, built when a column is first queried and dropped when
+ * the column or the network changes.
+ */
+public class ColumnIndexes {
+
+	private final CyNetwork network;
+
+	// Field name to the indexes of the node and of the edge column; null entries for missing columns.
+	private final Map<String, ColumnIndex[]> indexes = new HashMap<String, ColumnIndex[]>();
+
+	public ColumnIndexes(final CyNetwork network) {
+		this.network = network;
+	}
+
+	/**
+	 * Answers a query from the column indexes.
+	 * 
+	 * @return false if the columns can't answer this query the way Lucene would, in which case
+	 *         it has to go to the full text index
+	 */
+	public boolean execute(final QueryPlan plan, final List<String> nodeHits, final List<String> edgeHits) {
+		if (plan.getType() == QueryPlan.Type.FULL_TEXT)
+			return false;
+
+		final ColumnIndex[] pair = getIndexes(plan.getField());
+		if (pair == null)
+			return false;
+
+		final ColumnIndex nodeIndex = pair[0];
+		final ColumnIndex edgeIndex = pair[1];
+		if (nodeIndex != null && edgeIndex != null && nodeIndex.getType() != edgeIndex.getType())
+			return false;
+
+		final ColumnIndex index = nodeIndex != null ? nodeIndex : edgeIndex;
+		final List<String> terms = new ArrayList<String>(1);
+
+		if (index.isNumeric()) {
+			if (plan.getType() == QueryPlan.Type.PREFIX)
+				return false;
+
+			final double low;
+			final double high;
+			try {
+				low = parse(index.getType(), plan.getText());
+				high = plan.getType() == QueryPlan.Type.RANGE ? parse(index.getType(), plan.getUpperText()) : low;
+			} catch (NumberFormatException e) {
+				return false;
+			}
+
+			if (nodeIndex != null)
+				nodeIndex.findRange(low, high, plan.isInclusive(), nodeHits);
+			if (edgeIndex != null)
+				edgeIndex.findRange(low, high, plan.isInclusive(), edgeHits);
+			return true;
+		}
+
+		switch (plan.getType()) {
+		case TERM:
+			// Lucene analyzes the query text, which has to give one term for this to be a term query.
+			ColumnIndex.tokenize(ColumnIndex.newAnalyzer(), plan.getText(), terms);
+			if (terms.size() != 1)
+				return false;
+			if (nodeIndex != null)
+				nodeIndex.findTerm(terms.get(0), nodeHits);
+			if (edgeIndex != null)
+				edgeIndex.findTerm(terms.get(0), edgeHits);
+			return true;
+
+		case PREFIX:
+			// Prefixes aren't analyzed.
+			if (nodeIndex != null)
+				nodeIndex.findPrefix(plan.getText(), nodeHits);
+			if (edgeIndex != null)
+				edgeIndex.findPrefix(plan.getText(), edgeHits);
+			return true;
+
+		default:
+			// Ranges of terms.
+			return false;
+		}
+	}
+
+	private static double parse(final Class<?> type, final String text) {
+		// Same as CustomMultiFieldQueryParser.
+		if (type == Integer.class)
+			return Integer.parseInt(text);
+		return Double.parseDouble(text);
+	}
+
+	private synchronized ColumnIndex[] getIndexes(final String field) {
+		ColumnIndex[] pair = indexes.get(field);
+		if (pair != null)
+			return pair;
+
+		final CyColumn nodeColumn = findColumn(network.getDefaultNodeTable(), field);
+		final CyColumn edgeColumn = findColumn(network.getDefaultEdgeTable(), field);
+		if (nodeColumn == null && edgeColumn == null)
+			return null;
+
+		pair = new ColumnIndex[2];
+		if (nodeColumn != null) {
+			pair[0] = ColumnIndex.build(network, network.getNodeList(), nodeColumn);
+			if (pair[0] == null)
+				return null;
+		}
+		if (edgeColumn != null) {
+			pair[1] = ColumnIndex.build(network, network.getEdgeList(), edgeColumn);
+			if (pair[1] == null)
+				return null;
+		}
+
+		indexes.put(field, pair);
+		return pair;
+	}
+
+	private static CyColumn findColumn(final CyTable table, final String field) {
+		for (final CyColumn column : table.getColumns()) {
+			if (EnhancedSearchUtils.replaceWhitespace(column.getName()).toLowerCase().equals(field))
+				return column;
+		}
+		return null;
+	}
+
+	/**
+	 * Drops the index of a column whose values have changed.
+	 */
+	public synchronized void columnChanged(final String columnName) {
+		indexes.remove(EnhancedSearchUtils.replaceWhitespace(columnName).toLowerCase());
+	}
+
+	/**
+	 * Drops all indexes, e.g. because nodes or edges have been added or removed.
+	 */
+	public synchronized void clear() {
+		indexes.clear();
+	}
+}
@@ -26,7 +26,6 @@ package org.cytoscape.search.internal;
 
 
 import org.cytoscape.model.CyNetwork;
-import org.apache.lucene.store.RAMDirectory;
 
 public interface EnhancedSearch {
 
@@ -51,7 +50,25 @@ public interface EnhancedSearch {
 	 * @param network        CyNetwork object
 	 * @return               the index for this network
 	 */
-	RAMDirectory getNetworkIndex(CyNetwork network);
+	EnhancedSearchIndex getNetworkIndex(CyNetwork network);
+
+	/**
+	 * Gets the index associated with the specified network and marks it as in use, so that it
+	 * isn't closed while it is searched.  The index must be given back with
+	 * {@link EnhancedSearchIndex#release()}.
+	 * 
+	 * @param network        CyNetwork object
+	 * @return               the index for this network, or null if there is none
+	 */
+	EnhancedSearchIndex acquireNetworkIndex(CyNetwork network);
+
+	/**
+	 * Gets the column indexes of the specified network, used to answer simple queries.
+	 * 
+	 * @param network        CyNetwork object
+	 * @return               the column indexes for this network
+	 */
+	ColumnIndexes getColumnIndexes(CyNetwork network);
 
 	/**
 	 * Gets the indexing status of a specified network.
@@ -67,7 +84,7 @@ public interface EnhancedSearch {
 	 * @param network        CyNetwork object
 	 * @param index          the index that suits this network
 	 */
-	void setNetworkIndex(CyNetwork network, RAMDirectory index);
+	void setNetworkIndex(CyNetwork network, EnhancedSearchIndex index);
 
 	/**
 	 * Sets the indexing status of the specified network.
@@ -26,18 +26,33 @@ package org.cytoscape.search.internal;
 
 
 
+import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.NumericField;
 import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.MMapDirectory;
 import org.apache.lucene.store.RAMDirectory;
 import org.apache.lucene.util.Version;
-import org.cytoscape.model.CyEdge;
 import org.cytoscape.model.CyNetwork;
 import org.cytoscape.model.CyNode;
 import org.cytoscape.model.CyRow;
@@ -46,55 +61,266 @@ import org.cytoscape.model.CyIdentifiable;
 import org.cytoscape.model.CyTableUtil;
 import org.cytoscape.search.internal.util.EnhancedSearchUtils;
 import org.cytoscape.work.TaskMonitor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 
+/**
+ * The search index of one network.  The index is built once and then kept up to date by
+ * re-indexing only the nodes and edges that have been added, changed or removed since the
+ * last search.  Networks with more than {@link #DISK_THRESHOLD} nodes and edges are indexed
+ * in a memory mapped directory on disk rather than on the heap.
+ */
 public class EnhancedSearchIndex {
-	RAMDirectory idx;
-	final TaskMonitor taskMonitor;
+	
+	private static final Logger logger = LoggerFactory.getLogger(EnhancedSearchIndex.class);
+
+	/** Number of nodes and edges above which the index is kept on disk; negative to never do that. */
+	static final int DISK_THRESHOLD = Integer.getInteger("search.index.diskThreshold", 500000);
+
+	private static final int CHUNK_SIZE = 1024;
+
+	private static final ExecutorService INDEX_EXECUTOR;
+
+	static {
+		final int nThreads = Runtime.getRuntime().availableProcessors();
+		final ThreadPoolExecutor executor = new ThreadPoolExecutor(nThreads, nThreads, 30L, TimeUnit.SECONDS,
+		                                                           new LinkedBlockingQueue<Runnable>(),
+		                                                           new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(final Runnable r) {
+				final Thread t = new Thread(r, "EnhancedSearchIndex-" + count.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		executor.allowCoreThreadTimeOut(true);
+		INDEX_EXECUTOR = executor;
+	}
+
+	private final CyNetwork network;
+	private final TaskMonitor taskMonitor;
+	private final Directory idx;
+	private final File indexDir;
+	private final IndexWriter writer;
+
+	// Elements to re-index or to remove from the index at the next update.
+	private Set<Long> changed = new HashSet<Long>();
+	private Set<Long> removed = new HashSet<Long>();
+	private boolean rebuild;
+
+	// Searches using the index, which must not be closed under them.
+	private int users;
+	private boolean closeRequested;
+
 	// Index the given network
 	public EnhancedSearchIndex(final CyNetwork network, final TaskMonitor taskMonitor) {
 		if(network == null)
 			throw new NullPointerException("Network is null.");
+		this.network = network;
 		this.taskMonitor = taskMonitor;
-		// Construct a RAMDirectory to hold the in-memory representation of the index.		
-		idx = new RAMDirectory();
-		BuildIndex(idx, network);
-	}
-
-	private void BuildIndex(RAMDirectory idx, CyNetwork network) {
 
+		final int size = network.getNodeCount() + network.getEdgeCount();
+		File dir = null;
+		Directory directory = null;
+		IndexWriter indexWriter = null;
 		try {
+			if (DISK_THRESHOLD >= 0 && size > DISK_THRESHOLD) {
+				dir = createIndexDir();
+				directory = new MMapDirectory(dir);
+			} else {
+				// Construct a RAMDirectory to hold the in-memory representation of the index.
+				directory = new RAMDirectory();
+			}
+
 			// Make a writer to create the index
 			StandardAnalyzer analyzer = new StandardAnalyzer(Version.LUCENE_30);
 			analyzer.setMaxTokenLength(1024*10);
-			IndexWriter writer = new IndexWriter(idx, analyzer, IndexWriter.MaxFieldLength.UNLIMITED);
+			indexWriter = new IndexWriter(directory, analyzer, true, IndexWriter.MaxFieldLength.UNLIMITED);
+		} catch (IOException ioe) {
+			logger.warn("Could not create the search index of network " + network.getSUID(), ioe);
+		}
+		this.indexDir = dir;
+		this.idx = directory;
+		this.writer = indexWriter;
+
+		BuildIndex();
+	}
+
+	private static File createIndexDir() throws IOException {
+		final File dir = File.createTempFile("cy-search-index", "");
+		if (!dir.delete() || !dir.mkdir())
+			throw new IOException("can't create index directory " + dir);
+		dir.deleteOnExit();
+		return dir;
+	}
+
+	private void BuildIndex() {
+		if (writer == null)
+			return;
 
+		try {
 			// Add a document for each graph object - node and edge
-			List<CyNode> nodeList = network.getNodeList();
-			
 			this.taskMonitor.setProgress(0.1);
-			for (CyNode cyNode : nodeList) {
-				writer.addDocument(createDocument(network, cyNode, EnhancedSearch.NODE_TYPE, cyNode.getSUID()));
-				
-			}
-			this.taskMonitor.setProgress(0.6);
-		
-			List<CyEdge> edgeList = network.getEdgeList();
-			for (CyEdge cyEdge : edgeList) {
-				writer.addDocument(createDocument(network, cyEdge, EnhancedSearch.EDGE_TYPE, cyEdge.getSUID()));
-			}
-
-			// Optimize and close the writer to finish building the index
-			writer.optimize();
-			writer.close();
+			final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+			addIndexTasks(tasks, network.getNodeList(), false);
+			addIndexTasks(tasks, network.getEdgeList(), false);
+			runAll(tasks);
 
+			writer.commit();
 		} catch (IOException ioe) {
-			ioe.printStackTrace();
+			logger.warn("Could not build the search index of network " + network.getSUID(), ioe);
 		}
 		this.taskMonitor.setProgress(0.95);
 
 	}
 
+	/**
+	 * Brings the index up to date with the changes recorded since the last update.
+	 */
+	public void update(final TaskMonitor taskMonitor) {
+		if (writer == null)
+			return;
+
+		final Set<Long> changedElements;
+		final Set<Long> removedElements;
+		final boolean rebuildAll;
+		synchronized (this) {
+			if (!rebuild && changed.isEmpty() && removed.isEmpty())
+				return;
+			changedElements = changed;
+			removedElements = removed;
+			rebuildAll = rebuild;
+			changed = new HashSet<Long>();
+			removed = new HashSet<Long>();
+			rebuild = false;
+		}
+
+		try {
+			if (rebuildAll) {
+				writer.deleteAll();
+				taskMonitor.setProgress(0.1);
+				final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+				addIndexTasks(tasks, network.getNodeList(), false);
+				addIndexTasks(tasks, network.getEdgeList(), false);
+				runAll(tasks);
+			} else {
+				for (final Long suid : removedElements) {
+					if (!changedElements.contains(suid))
+						writer.deleteDocuments(new Term(EnhancedSearch.INDEX_FIELD, suid.toString()));
+				}
+
+				final List<CyIdentifiable> elements = new ArrayList<CyIdentifiable>(changedElements.size());
+				for (final Long suid : changedElements) {
+					final CyIdentifiable element = getElement(suid);
+					if (element != null)
+						elements.add(element);
+					else
+						writer.deleteDocuments(new Term(EnhancedSearch.INDEX_FIELD, suid.toString()));
+				}
+
+				final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+				addIndexTasks(tasks, elements, true);
+				runAll(tasks);
+			}
+
+			writer.commit();
+		} catch (IOException ioe) {
+			logger.warn("Could not update the search index of network " + network.getSUID(), ioe);
+		}
+		taskMonitor.setProgress(0.95);
+	}
+
+	private CyIdentifiable getElement(final Long suid) {
+		final CyNode node = network.getNode(suid);
+		if (node != null)
+			return node;
+		return network.getEdge(suid);
+	}
+
+	/**
+	 * Records nodes or edges whose values have changed, or which have been added.
+	 */
+	public synchronized void elementsChanged(final Collection<Long> suids) {
+		changed.addAll(suids);
+	}
+
+	/**
+	 * Records nodes or edges that are about to be removed from the network.
+	 */
+	public synchronized void elementsRemoved(final Collection<Long> suids) {
+		removed.addAll(suids);
+	}
+
+	/**
+	 * Makes the next update rebuild the whole index, e.g. because a column has been deleted.
+	 */
+	public synchronized void rebuild() {
+		rebuild = true;
+	}
+
+	/**
+	 * @return true if "suid" is a node or an edge of the indexed network
+	 */
+	public boolean containsElement(final Long suid) {
+		return network.getNode(suid) != null || network.getEdge(suid) != null;
+	}
+
+	private void addIndexTasks(final List<Callable<Void>> tasks, final List<? extends CyIdentifiable> elements,
+	                           final boolean replace) {
+		for (int start = 0; start < elements.size(); start += CHUNK_SIZE) {
+			final List<? extends CyIdentifiable> chunk =
+				elements.subList(start, Math.min(start + CHUNK_SIZE, elements.size()));
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() throws IOException {
+					for (final CyIdentifiable element : chunk) {
+						final String type = element instanceof CyNode ? EnhancedSearch.NODE_TYPE : EnhancedSearch.EDGE_TYPE;
+						final Document doc = createDocument(network, element, type, element.getSUID());
+						// The writer can be shared by several threads.
+						if (replace)
+							writer.updateDocument(new Term(EnhancedSearch.INDEX_FIELD, element.getSUID().toString()), doc);
+						else
+							writer.addDocument(doc);
+					}
+					return null;
+				}
+			});
+		}
+	}
+
+	private static void runAll(final List<Callable<Void>> tasks) throws IOException {
+		if (tasks.isEmpty())
+			return;
+
+		if (tasks.size() == 1) {
+			try {
+				tasks.get(0).call();
+			} catch (IOException e) {
+				throw e;
+			} catch (Exception e) {
+				throw new RuntimeException(e);
+			}
+			return;
+		}
+
+		try {
+			for (final Future<Void> future : INDEX_EXECUTOR.invokeAll(tasks)) {
+				try {
+					future.get();
+				} catch (ExecutionException e) {
+					if (e.getCause() instanceof IOException)
+						throw (IOException) e.getCause();
+					throw new RuntimeException(e.getCause());
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
 	/**
 	 * Make a Document object with an un-indexed identifier field and indexed
 	 * attribute fields
@@ -119,38 +345,36 @@ public class EnhancedSearchIndex {
 			Class<?> valueType = cyDataTable.getColumn(attrName).getType();
 			
 			if (valueType == String.class) {
-				String attrValue = network.getRow(graphObject).get(attrName, String.class);
+				String attrValue = cyRow.get(attrName, String.class);
 				if (attrValue == null){
 					continue;
 				}				
 				doc.add(new Field(attrIndexingName, attrValue, Field.Store.YES, Field.Index.ANALYZED));
 			} else if (valueType == Integer.class) {
-				if (network.getRow(graphObject).get(attrName, Integer.class) == null){
+				Integer attrValue = cyRow.get(attrName, Integer.class);
+				if (attrValue == null){
 					continue;
 				}
 
-				int attrValue = network.getRow(graphObject).get(attrName, Integer.class);
-
 				NumericField field = new NumericField(attrIndexingName);
 				field.setIntValue(attrValue);
 				doc.add(field);
 			} else if (valueType == Double.class) {	
-				if (network.getRow(graphObject).get(attrName, Double.class) == null){
+				Double attrValue = cyRow.get(attrName, Double.class);
+				if (attrValue == null){
 					continue;
 				}
 				
-				double attrValue = network.getRow(graphObject).get(attrName, Double.class);
-				
 				NumericField field = new NumericField(attrIndexingName);
 				field.setDoubleValue(attrValue);
 				doc.add(field);
 			} else if (valueType == Boolean.class) {
-				if (network.getRow(graphObject).get(attrName, Boolean.class) != null){
-					String attrValue = network.getRow(graphObject).get(attrName, Boolean.class).toString();
-					doc.add(new Field(attrIndexingName, attrValue, Field.Store.YES, Field.Index.ANALYZED));					
+				Boolean attrValue = cyRow.get(attrName, Boolean.class);
+				if (attrValue != null){
+					doc.add(new Field(attrIndexingName, attrValue.toString(), Field.Store.YES, Field.Index.ANALYZED));					
 				}
 			} else if (valueType == List.class) {
-				List attrValueList = network.getRow(graphObject).get(attrName, List.class);
+				List attrValueList = cyRow.get(attrName, List.class);
 				if (attrValueList != null) {
 					for (int j = 0; j < attrValueList.size(); j++) {
 						String attrValue = attrValueList.get(j).toString();
@@ -165,7 +389,87 @@ public class EnhancedSearchIndex {
 		return doc;
 	}
 
-	public RAMDirectory getIndex() {
+	public Directory getIndex() {
 		return idx;
 	}
+
+	/**
+	 * @return true if the index is kept on disk rather than on the heap
+	 */
+	public boolean isOnDisk() {
+		return indexDir != null;
+	}
+
+	/**
+	 * @return the heap used by the index, in bytes
+	 */
+	public long getSizeInBytes() {
+		return idx instanceof RAMDirectory ? ((RAMDirectory) idx).sizeInBytes() : 0;
+	}
+
+	/**
+	 * Marks the index as in use until {@link #release()} is called.
+	 * 
+	 * @return false if the index has been closed, in which case it must not be used
+	 */
+	public synchronized boolean acquire() {
+		if (closeRequested)
+			return false;
+		users++;
+		return true;
+	}
+
+	/**
+	 * Gives back an index obtained with {@link #acquire()}, closing it if that was asked for
+	 * while it was in use.
+	 */
+	public void release() {
+		synchronized (this) {
+			if (--users > 0 || !closeRequested)
+				return;
+		}
+		doClose();
+	}
+
+	/**
+	 * @return true if a search is using the index
+	 */
+	public synchronized boolean isInUse() {
+		return users > 0;
+	}
+
+	/**
+	 * Releases the index.  It can't be used any more afterwards.  If it is in use, it is only
+	 * closed once the last user gives it back.
+	 */
+	public void close() {
+		synchronized (this) {
+			if (closeRequested)
+				return;
+			closeRequested = true;
+			if (users > 0)
+				return;
+		}
+		doClose();
+	}
+
+	private void doClose() {
+		try {
+			if (writer != null)
+				writer.close();
+			if (idx != null)
+				idx.close();
+		} catch (IOException ioe) {
+			logger.warn("Could not close the search index of network " + network.getSUID(), ioe);
+		}
+
+		if (indexDir != null) {
+			final File[] files = indexDir.listFiles();
+			if (files != null) {
+				for (final File file : files)
+					file.delete();
+			}
+			indexDir.delete();
+		}
+	}
 }
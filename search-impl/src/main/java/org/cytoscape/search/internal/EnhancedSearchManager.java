@@ -25,14 +25,25 @@ package org.cytoscape.search.internal;
  */
 
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
-import org.apache.lucene.store.RAMDirectory;
 import org.cytoscape.model.CyNetwork;
 
 public class EnhancedSearchManager implements EnhancedSearch {
-	// Keeps the index for each network
-	private HashMap networkIndexMap = new HashMap();
+	// Fraction of the maximum heap above which the least recently used in-memory indexes are dropped
+	private static final double MAX_HEAP_USAGE = 0.75;
+
+	// Keeps the index for each network, least recently used first
+	private final Map<CyNetwork, EnhancedSearchIndex> networkIndexMap =
+		new LinkedHashMap<CyNetwork, EnhancedSearchIndex>(16, 0.75f, true);
+
+	// Keeps the column indexes of each network
+	private final Map<CyNetwork, ColumnIndexes> columnIndexMap = new HashMap<CyNetwork, ColumnIndexes>();
 
 	// Keeps indexing status of each network
 	private HashMap networkIndexStatusMap = new HashMap();
@@ -48,7 +59,10 @@ public class EnhancedSearchManager implements EnhancedSearch {
 	 * @param network        CyNetwork object
 	 */
 	public synchronized void removeNetworkIndex(CyNetwork network) {
-		networkIndexMap.remove(network);
+		final EnhancedSearchIndex index = networkIndexMap.remove(network);
+		if (index != null)
+			index.close();
+		columnIndexMap.remove(network);
 		networkIndexStatusMap.remove(network);
 	}
 
@@ -58,8 +72,66 @@ public class EnhancedSearchManager implements EnhancedSearch {
 	 * @param network        CyNetwork object
 	 * @return               the index for this network
 	 */
-	public synchronized RAMDirectory getNetworkIndex(CyNetwork network) {
-		return (RAMDirectory) networkIndexMap.get(network);
+	public synchronized EnhancedSearchIndex getNetworkIndex(CyNetwork network) {
+		return networkIndexMap.get(network);
+	}
+
+	/**
+	 * Gets the index associated with the specified network and marks it as in use.
+	 * 
+	 * @param network        CyNetwork object
+	 * @return               the index for this network, or null if there is none
+	 */
+	public synchronized EnhancedSearchIndex acquireNetworkIndex(CyNetwork network) {
+		final EnhancedSearchIndex index = networkIndexMap.get(network);
+		return index != null && index.acquire() ? index : null;
+	}
+
+	/**
+	 * Gets the indexes of all networks, e.g. to tell them about changes.
+	 */
+	public synchronized Collection<EnhancedSearchIndex> getNetworkIndexes() {
+		return new ArrayList<EnhancedSearchIndex>(networkIndexMap.values());
+	}
+
+	/**
+	 * Gets the column indexes of the specified network, used to answer simple queries.
+	 * 
+	 * @param network        CyNetwork object
+	 * @return               the column indexes for this network
+	 */
+	public synchronized ColumnIndexes getColumnIndexes(CyNetwork network) {
+		ColumnIndexes indexes = columnIndexMap.get(network);
+		if (indexes == null) {
+			indexes = new ColumnIndexes(network);
+			columnIndexMap.put(network, indexes);
+		}
+		return indexes;
+	}
+
+	/**
+	 * Drops the column indexes of a network whose nodes or edges have changed.
+	 */
+	public synchronized void clearColumnIndexes(CyNetwork network) {
+		final ColumnIndexes indexes = columnIndexMap.get(network);
+		if (indexes != null)
+			indexes.clear();
+	}
+
+	/**
+	 * Drops the indexes of the columns with this name in all networks.
+	 */
+	public synchronized void columnChanged(String columnName) {
+		for (final ColumnIndexes indexes : columnIndexMap.values())
+			indexes.columnChanged(columnName);
+	}
+
+	/**
+	 * Drops the column indexes of all networks.
+	 */
+	public synchronized void clearColumnIndexes() {
+		for (final ColumnIndexes indexes : columnIndexMap.values())
+			indexes.clear();
 	}
 
 	/**
@@ -73,14 +145,40 @@ public class EnhancedSearchManager implements EnhancedSearch {
 	}
 
 	/**
-	 * Sets the index for the specified network.
+	 * Sets the index for the specified network.  If the heap is getting short, the indexes of
+	 * the networks that haven't been searched for the longest time are dropped, unless they
+	 * are being searched right now; they will be rebuilt when these networks are searched again.
 	 * 
 	 * @param network        CyNetwork object
 	 * @param index          the index that suits this network
 	 */
-	public synchronized void setNetworkIndex(CyNetwork network, RAMDirectory index) {
-		networkIndexMap.put(network, index);
+	public synchronized void setNetworkIndex(CyNetwork network, EnhancedSearchIndex index) {
+		final EnhancedSearchIndex oldIndex = networkIndexMap.put(network, index);
+		if (oldIndex != null && oldIndex != index)
+			oldIndex.close();
 		networkIndexStatusMap.put(network, INDEX_SET);
+
+		evictIfMemoryIsShort(network);
+	}
+
+	private void evictIfMemoryIsShort(final CyNetwork current) {
+		final Runtime runtime = Runtime.getRuntime();
+		final long limit = (long) (runtime.maxMemory() * MAX_HEAP_USAGE);
+		long used = runtime.totalMemory() - runtime.freeMemory();
+
+		final Iterator<Map.Entry<CyNetwork, EnhancedSearchIndex>> it = networkIndexMap.entrySet().iterator();
+		while (used > limit && it.hasNext()) {
+			final Map.Entry<CyNetwork, EnhancedSearchIndex> entry = it.next();
+			final EnhancedSearchIndex index = entry.getValue();
+			if (entry.getKey() == current || index.isOnDisk() || index.isInUse())
+				continue;
+
+			// The memory is only given back by the next collection, so estimate rather than measure.
+			used -= index.getSizeInBytes();
+			it.remove();
+			networkIndexStatusMap.remove(entry.getKey());
+			index.close();
+		}
 	}
 
 	/**
@@ -100,8 +198,11 @@ public class EnhancedSearchManager implements EnhancedSearch {
 	/**
 	 * Set the state of the Manger to its original 
 	 */
-	public void clear(){
+	public synchronized void clear(){
+		for (final EnhancedSearchIndex index : networkIndexMap.values())
+			index.close();
 		networkIndexMap.clear();
+		columnIndexMap.clear();
 		networkIndexStatusMap.clear();
 	}
 }
@@ -25,15 +25,31 @@ package org.cytoscape.search.internal;
  */
 
 import java.awt.Component;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Iterator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 import org.cytoscape.application.events.SetCurrentNetworkViewEvent;
 import org.cytoscape.application.events.SetCurrentNetworkViewListener;
 import org.cytoscape.application.swing.AbstractToolBarComponent;
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyIdentifiable;
 import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.events.AboutToRemoveEdgesEvent;
+import org.cytoscape.model.events.AboutToRemoveEdgesListener;
+import org.cytoscape.model.events.AboutToRemoveNodesEvent;
+import org.cytoscape.model.events.AboutToRemoveNodesListener;
+import org.cytoscape.model.events.AddedEdgesEvent;
+import org.cytoscape.model.events.AddedEdgesListener;
+import org.cytoscape.model.events.AddedNodesEvent;
+import org.cytoscape.model.events.AddedNodesListener;
 import org.cytoscape.model.events.ColumnDeletedEvent;
 import org.cytoscape.model.events.ColumnDeletedListener;
+import org.cytoscape.model.events.ColumnNameChangedEvent;
+import org.cytoscape.model.events.ColumnNameChangedListener;
 import org.cytoscape.model.events.NetworkAboutToBeDestroyedEvent;
 import org.cytoscape.model.events.NetworkAboutToBeDestroyedListener;
 import org.cytoscape.model.events.RemovedEdgesEvent;
@@ -49,16 +65,19 @@ import org.cytoscape.session.events.SessionLoadedEvent;
 import org.cytoscape.session.events.SessionLoadedListener;
 
 
+/**
+ * Adds the search field to the tool bar and keeps the search indexes up to date.  Changes are
+ * only recorded here; the affected nodes and edges are re-indexed before the next search.
+ */
 public class EnhancedSearchPlugin extends AbstractToolBarComponent
 	implements SetCurrentNetworkViewListener, NetworkAboutToBeDestroyedListener,
-	           SessionLoadedListener,RowsSetListener, ColumnDeletedListener, RemovedNodesListener,
-	           RemovedEdgesListener {
+	           SessionLoadedListener, RowsSetListener, ColumnDeletedListener, ColumnNameChangedListener,
+	           AddedNodesListener, AddedEdgesListener, AboutToRemoveNodesListener, AboutToRemoveEdgesListener,
+	           RemovedNodesListener, RemovedEdgesListener {
 	
 	private final EnhancedSearchManager searchMgr;
 	private final EnhancedSearchPanel searchPnl; 
 	
-	public static boolean attributeChanged;
-	
 	public EnhancedSearchPlugin(final CyServiceRegistrar serviceRegistrar) {
 		searchMgr = new EnhancedSearchManager();
 		
@@ -96,30 +115,110 @@ public class EnhancedSearchPlugin extends AbstractToolBarComponent
 
 	@Override
 	public void handleEvent(ColumnDeletedEvent e) {
-		attributeChanged = true;
+		for (final EnhancedSearchIndex index : searchMgr.getNetworkIndexes())
+			index.rebuild();
+		searchMgr.clearColumnIndexes();
+	}
+
+	@Override
+	public void handleEvent(ColumnNameChangedEvent e) {
+		for (final EnhancedSearchIndex index : searchMgr.getNetworkIndexes())
+			index.rebuild();
+		searchMgr.clearColumnIndexes();
 	}
 	
 	@Override
 	public void handleEvent(RowsSetEvent e) {
-		Collection<RowSetRecord> records = e.getPayloadCollection();
-		Iterator<RowSetRecord> it = records.iterator();
-		
-		while (it.hasNext()) {
+		final Set<String> columns = new HashSet<String>();
+		for (final RowSetRecord record : e.getPayloadCollection())
+			columns.add(record.getColumn());
+		for (final String column : columns)
+			searchMgr.columnChanged(column);
+
+		final Collection<EnhancedSearchIndex> indexes = searchMgr.getNetworkIndexes();
+		if (indexes.isEmpty())
+			return;
+
+		final List<Long> suids = new ArrayList<Long>();
+		for (final RowSetRecord record : e.getPayloadCollection()) {
 			// Ignore the change of selection attribute
-			if (!it.next().getColumn().equalsIgnoreCase("selected")) {
-				attributeChanged = true;
-				break;
+			if (record.getColumn().equalsIgnoreCase(CyNetwork.SELECTED))
+				continue;
+
+			final Long suid = record.getRow().get(CyIdentifiable.SUID, Long.class);
+			if (suid != null)
+				suids.add(suid);
+		}
+		if (suids.isEmpty())
+			return;
+
+		// A node may belong to several networks, so tell every index that contains it.
+		for (final EnhancedSearchIndex index : indexes) {
+			final List<Long> elements = new ArrayList<Long>();
+			for (final Long suid : suids) {
+				if (index.containsElement(suid))
+					elements.add(suid);
 			}
-		}		
+			if (!elements.isEmpty())
+				index.elementsChanged(elements);
+		}
+	}
+
+	@Override
+	public void handleEvent(AddedNodesEvent e) {
+		searchMgr.clearColumnIndexes(e.getSource());
+		final EnhancedSearchIndex index = searchMgr.getNetworkIndex(e.getSource());
+		if (index != null)
+			index.elementsChanged(getSUIDs(e.getPayloadCollection()));
+	}
+
+	@Override
+	public void handleEvent(AddedEdgesEvent e) {
+		searchMgr.clearColumnIndexes(e.getSource());
+		final EnhancedSearchIndex index = searchMgr.getNetworkIndex(e.getSource());
+		if (index != null)
+			index.elementsChanged(getSUIDs(e.getPayloadCollection()));
+	}
+
+	@Override
+	public void handleEvent(AboutToRemoveNodesEvent e) {
+		searchMgr.clearColumnIndexes(e.getSource());
+		final EnhancedSearchIndex index = searchMgr.getNetworkIndex(e.getSource());
+		if (index == null)
+			return;
+
+		// The edges of the nodes go away with them.
+		final CyNetwork network = e.getSource();
+		final List<Long> suids = getSUIDs(e.getNodes());
+		for (final CyNode node : e.getNodes()) {
+			for (final CyEdge edge : network.getAdjacentEdgeList(node, CyEdge.Type.ANY))
+				suids.add(edge.getSUID());
+		}
+		index.elementsRemoved(suids);
+	}
+
+	@Override
+	public void handleEvent(AboutToRemoveEdgesEvent e) {
+		searchMgr.clearColumnIndexes(e.getSource());
+		final EnhancedSearchIndex index = searchMgr.getNetworkIndex(e.getSource());
+		if (index != null)
+			index.elementsRemoved(getSUIDs(e.getEdges()));
 	}
 
 	@Override
 	public void handleEvent(RemovedNodesEvent e) {
-		attributeChanged = true;
+		searchMgr.clearColumnIndexes(e.getSource());
 	}
 
 	@Override
 	public void handleEvent(RemovedEdgesEvent e) {
-		attributeChanged = true;
+		searchMgr.clearColumnIndexes(e.getSource());
+	}
+
+	private static List<Long> getSUIDs(final Collection<? extends CyIdentifiable> elements) {
+		final List<Long> suids = new ArrayList<Long>(elements.size());
+		for (final CyIdentifiable element : elements)
+			suids.add(element.getSUID());
+		return suids;
 	}
 }
@@ -39,7 +39,7 @@ import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.Searcher;
 import org.apache.lucene.search.Query;
-import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.store.Directory;
 import org.apache.lucene.queryParser.ParseException;
 import org.apache.lucene.util.Version;
 
@@ -55,12 +55,12 @@ public class EnhancedSearchQuery {
 	
 	private static final Logger logger = LoggerFactory.getLogger(EnhancedSearchQuery.class);
 	
-	private final RAMDirectory idx;
+	private final Directory idx;
 	private final CyNetwork network;
 	private IdentifiersCollector hitCollector = null;
 	private Searcher searcher = null;
 
-	public EnhancedSearchQuery(CyNetwork network, RAMDirectory index) {
+	public EnhancedSearchQuery(CyNetwork network, Directory index) {
 		this.network = network;
 		this.idx = index;
 	}
@@ -34,12 +34,13 @@ import java.util.List;
 import javax.swing.JOptionPane;
 import javax.swing.SwingUtilities;
 
-import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.store.Directory;
 import org.cytoscape.application.CyApplicationManager;
 import org.cytoscape.model.CyEdge;
 import org.cytoscape.model.CyNetwork;
 import org.cytoscape.model.CyNode;
 import org.cytoscape.model.CyTableUtil;
+import org.cytoscape.search.internal.util.EnhancedSearchUtils;
 import org.cytoscape.service.util.CyServiceRegistrar;
 import org.cytoscape.task.AbstractNetworkTask;
 import org.cytoscape.view.model.CyNetworkView;
@@ -75,33 +76,61 @@ public class IndexAndSearchTask extends AbstractNetworkTask {
 		// Give the task a title.
 		taskMonitor.setTitle("Searching the network");
 
-		// Index the given network or use existing index
-		RAMDirectory idx = null;
-		final String status = enhancedSearch.getNetworkIndexStatus(network);
-		
-		if (status != null && status.equalsIgnoreCase(EnhancedSearch.INDEX_SET)
-				&& !EnhancedSearchPlugin.attributeChanged) {
-			idx = enhancedSearch.getNetworkIndex(network);
-		} else {
-			taskMonitor.setStatusMessage("Indexing network");
-			final EnhancedSearchIndex indexHandler = new EnhancedSearchIndex(network, taskMonitor);
-			idx = indexHandler.getIndex();
-			enhancedSearch.setNetworkIndex(network, idx);
-			EnhancedSearchPlugin.attributeChanged = false;
-		}
+		final long start = System.nanoTime();
+		final ArrayList<String> nodeHits = new ArrayList<String>();
+		final ArrayList<String> edgeHits = new ArrayList<String>();
 
-		if (cancelled)
-			return;
+		// Simple queries on one column don't need the full text index.
+		QueryPlan plan = QueryPlan.plan(EnhancedSearchUtils.queryToLowerCase(query));
+		if (plan.getType() != QueryPlan.Type.FULL_TEXT) {
+			taskMonitor.setStatusMessage("Executing query");
+			if (!enhancedSearch.getColumnIndexes(network).execute(plan, nodeHits, edgeHits))
+				plan = QueryPlan.fullText();
+		}
 
-		// Execute query
-		taskMonitor.setStatusMessage("Executing query");
-		EnhancedSearchQuery queryHandler = new EnhancedSearchQuery(network, idx);
-		queryHandler.executeQuery(query);
+		if (plan.getType() == QueryPlan.Type.FULL_TEXT) {
+			// Index the given network or bring the existing index up to date.  The index is held
+			// until the query is done, so that it isn't closed to make room for another one.
+			EnhancedSearchIndex indexHandler = enhancedSearch.acquireNetworkIndex(network);
+			final String status = enhancedSearch.getNetworkIndexStatus(network);
+			
+			if (indexHandler != null && status != null && status.equalsIgnoreCase(EnhancedSearch.INDEX_SET)) {
+				taskMonitor.setStatusMessage("Updating index");
+				indexHandler.update(taskMonitor);
+			} else {
+				if (indexHandler != null)
+					indexHandler.release();
+				taskMonitor.setStatusMessage("Indexing network");
+				indexHandler = new EnhancedSearchIndex(network, taskMonitor);
+				indexHandler.acquire();
+				enhancedSearch.setNetworkIndex(network, indexHandler);
+			}
+
+			try {
+				final Directory idx = indexHandler.getIndex();
+
+				if (cancelled)
+					return;
+
+				// Execute query
+				taskMonitor.setStatusMessage("Executing query");
+				EnhancedSearchQuery queryHandler = new EnhancedSearchQuery(network, idx);
+				queryHandler.executeQuery(query);
+
+				if (queryHandler.getNodeHits() != null) {
+					nodeHits.addAll(queryHandler.getNodeHits());
+					edgeHits.addAll(queryHandler.getEdgeHits());
+				}
+			} finally {
+				indexHandler.release();
+			}
+		}
+		plan.recordLatency(System.nanoTime() - start);
 
 		if (cancelled)
 			return;
 		
-		showResults(queryHandler, taskMonitor);
+		showResults(nodeHits, edgeHits, taskMonitor);
 		updateView();
 	}
 
@@ -128,12 +157,13 @@ public class IndexAndSearchTask extends AbstractNetworkTask {
 	}
 
 	// Display results
-	private void showResults(final EnhancedSearchQuery queryHandler, final TaskMonitor taskMonitor) {
+	private void showResults(final ArrayList<String> nodeHits, final ArrayList<String> edgeHits,
+	                         final TaskMonitor taskMonitor) {
 		if (network == null || network.getNodeList().size() == 0)
 			return;
 
-		int nodeHitCount = queryHandler.getNodeHitCount();
-		int edgeHitCount = queryHandler.getEdgeHitCount();
+		int nodeHitCount = nodeHits.size();
+		int edgeHitCount = edgeHits.size();
 		
 		if (nodeHitCount == 0 && edgeHitCount == 0) {
 			taskMonitor.setStatusMessage("Could not find any match.");
@@ -163,9 +193,6 @@ public class IndexAndSearchTask extends AbstractNetworkTask {
 
 		taskMonitor.setStatusMessage("Selecting " + nodeHitCount + " and " + edgeHitCount + " edges");
 
-		ArrayList<String> nodeHits = queryHandler.getNodeHits();
-		ArrayList<String> edgeHits = queryHandler.getEdgeHits();
-
 		final Iterator<String> nodeIt = nodeHits.iterator();
 		int numCompleted = 0;
 
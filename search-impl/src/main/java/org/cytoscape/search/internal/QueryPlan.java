@@ -0,0 +1,164 @@
+package org.cytoscape.search.internal;
+
+/*
+ * #%L
+ * Cytoscape Search Impl (search-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Decides how a query is answered.  Queries on a single column that ask for a term, a prefix
+ * or a range are answered from a {@link ColumnIndex}; everything else is a free text query
+ * and goes to Lucene.  Also keeps the query latency of each kind of plan.
+ */
+final class QueryPlan {
+
+	private static final Logger logger = LoggerFactory.getLogger(QueryPlan.class);
+
+	enum Type { TERM, PREFIX, RANGE, FULL_TEXT }
+
+	// Characters with a meaning in Lucene's query syntax.
+	private static final String SPECIAL = "\\s:\"()\\[\\]{}+\\-!^~*?&|\\\\";
+	private static final Pattern TERM_PATTERN =
+		Pattern.compile("([^" + SPECIAL + "]+):([^" + SPECIAL + "]+)(\\*?)");
+	private static final Pattern RANGE_PATTERN =
+		Pattern.compile("([^" + SPECIAL + "]+):([\\[{])\\s*([^\\s\\]}]+) TO ([^\\s\\]}]+)\\s*([\\]}])");
+
+	private static final AtomicLong[] queryCounts = new AtomicLong[Type.values().length];
+	private static final AtomicLong[] queryNanos = new AtomicLong[Type.values().length];
+
+	static {
+		for (int i = 0; i < queryCounts.length; i++) {
+			queryCounts[i] = new AtomicLong();
+			queryNanos[i] = new AtomicLong();
+		}
+	}
+
+	private final Type type;
+	private final String field;
+	private final String text;
+	private final String upperText;
+	private final boolean inclusive;
+
+	private QueryPlan(final Type type, final String field, final String text, final String upperText,
+	                  final boolean inclusive) {
+		this.type = type;
+		this.field = field;
+		this.text = text;
+		this.upperText = upperText;
+		this.inclusive = inclusive;
+	}
+
+	/**
+	 * @param query  the query, as returned by EnhancedSearchUtils.queryToLowerCase()
+	 */
+	static QueryPlan plan(final String query) {
+		final String trimmed = query.trim();
+
+		Matcher m = TERM_PATTERN.matcher(trimmed);
+		if (m.matches()) {
+			final Type type = m.group(3).isEmpty() ? Type.TERM : Type.PREFIX;
+			return new QueryPlan(type, m.group(1), m.group(2), null, true);
+		}
+
+		m = RANGE_PATTERN.matcher(trimmed);
+		if (m.matches()) {
+			final boolean inclusive = m.group(2).equals("[");
+			// Lucene doesn't support mixing inclusive and exclusive bounds.
+			if (inclusive == m.group(5).equals("]"))
+				return new QueryPlan(Type.RANGE, m.group(1), m.group(3), m.group(4), inclusive);
+		}
+
+		return fullText();
+	}
+
+	static QueryPlan fullText() {
+		return new QueryPlan(Type.FULL_TEXT, null, null, null, false);
+	}
+
+	Type getType() {
+		return type;
+	}
+
+	/** The field name, i.e. the column name in lower case with whitespace replaced. */
+	String getField() {
+		return field;
+	}
+
+	/** The term, the prefix or the lower bound of a range. */
+	String getText() {
+		return text;
+	}
+
+	/** The upper bound of a range. */
+	String getUpperText() {
+		return upperText;
+	}
+
+	boolean isInclusive() {
+		return inclusive;
+	}
+
+	/**
+	 * Records how long answering a query with a plan of this type took.
+	 */
+	void recordLatency(final long nanos) {
+		final int i = type.ordinal();
+		final long count = queryCounts[i].incrementAndGet();
+		final long total = queryNanos[i].addAndGet(nanos);
+		logger.debug(type + " query took " + (nanos / 1000000.0) + " msec ("
+		             + count + " queries of this type, average " + (total / count / 1000000.0) + " msec).");
+	}
+
+	/**
+	 * @return the average latency of the queries answered with plans of "type", in nanoseconds
+	 */
+	static long getAverageLatency(final Type type) {
+		final long count = queryCounts[type.ordinal()].get();
+		return count == 0 ? 0 : queryNanos[type.ordinal()].get() / count;
+	}
+
+	static long getQueryCount(final Type type) {
+		return queryCounts[type.ordinal()].get();
+	}
+
+	@Override
+	public String toString() {
+		switch (type) {
+		case RANGE:
+			return type + " " + field + ":" + (inclusive ? "[" : "{") + text + " TO " + upperText + (inclusive ? "]" : "}");
+		case FULL_TEXT:
+			return type.toString();
+		default:
+			return type + " " + field + ":" + text;
+		}
+	}
+}
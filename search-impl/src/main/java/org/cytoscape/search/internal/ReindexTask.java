@@ -25,8 +25,6 @@ package org.cytoscape.search.internal;
  */
 
 
-import org.apache.lucene.store.RAMDirectory;
-
 import org.cytoscape.model.CyNetwork;
 import org.cytoscape.task.AbstractNetworkTask;
 import org.cytoscape.work.TaskMonitor;
@@ -47,13 +45,9 @@ public class ReindexTask extends AbstractNetworkTask {
 	// Executes Task: Reindex
 	public void run(final TaskMonitor taskMonitor) {
 
-		// Index the given network or use existing index
-		RAMDirectory idx = null;
-
 		taskMonitor.setStatusMessage("Re-indexing network");
 		EnhancedSearchIndex indexHandler = new EnhancedSearchIndex(network, taskMonitor);
-		idx = indexHandler.getIndex();
-		enhancedSearch.setNetworkIndex(network, idx);
+		enhancedSearch.setNetworkIndex(network, indexHandler);
 
 		if (interrupted) {
 			return;
@@ -0,0 +1,236 @@
+package org.cytoscape.search.internal;
+
+/*
+ * #%L
+ * Cytoscape Search Impl (search-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.CyRow;
+import org.cytoscape.model.CyTable;
+import org.cytoscape.model.NetworkTestSupport;
+import org.cytoscape.search.internal.util.EnhancedSearchUtils;
+import org.cytoscape.work.TaskMonitor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+/**
+ * Runs the same queries through the column indexes and through the Lucene index and checks
+ * that they find the same nodes and edges.
+ */
+public class ColumnIndexesTest {
+
+	private CyNetwork network;
+	private ColumnIndexes columnIndexes;
+	private EnhancedSearchIndex luceneIndex;
+
+	@Before
+	public void setUp() {
+		network = new NetworkTestSupport().getNetwork();
+
+		final CyTable nodeTable = network.getDefaultNodeTable();
+		nodeTable.createColumn("Description", String.class, false);
+		nodeTable.createColumn("Gene Type", String.class, false);
+		nodeTable.createColumn("score", Double.class, false);
+		nodeTable.createColumn("count", Integer.class, false);
+		nodeTable.createListColumn("tags", String.class, false);
+
+		final CyTable edgeTable = network.getDefaultEdgeTable();
+		edgeTable.createColumn("Description", String.class, false);
+		edgeTable.createColumn("score", Double.class, false);
+
+		final CyNode n0 = addNode("MAPK1", "Mitogen-activated protein kinase 1", "protein coding", 1.5, 3,
+		                          Arrays.asList("Kinase", "Signaling"));
+		final CyNode n1 = addNode("TP53", "The tumor protein p53", "protein coding", 2.0, 7,
+		                          Arrays.asList("Transcription factor"));
+		final CyNode n2 = addNode("KSR1", "Kinase suppressor of Ras", "Protein Coding", 1.5, 0,
+		                          Arrays.asList("kinase", "scaffold"));
+		final CyNode n3 = addNode("MIR21", "microRNA 21", "ncRNA", -0.5, null, null);
+		final CyNode n4 = addNode("AKT1", "AKT serine/threonine kinase 1", "protein coding", 10.0, 3,
+		                          Collections.<String>emptyList());
+		addNode("X", null, null, null, 12, null);
+		network.getRow(n1).set(CyNetwork.SELECTED, true);
+		network.getRow(n3).set(CyNetwork.SELECTED, true);
+
+		addEdge(n0, n1, "pp", "Protein kinase phosphorylation", 2.0);
+		addEdge(n1, n2, "pd", "binds the promoter", 0.25);
+		addEdge(n2, n4, "pp", null, 1.5);
+		addEdge(n4, n4, "pp", "Kinase autophosphorylation", null);
+
+		columnIndexes = new ColumnIndexes(network);
+		luceneIndex = new EnhancedSearchIndex(network, mock(TaskMonitor.class));
+	}
+
+	@After
+	public void tearDown() {
+		luceneIndex.close();
+	}
+
+	private CyNode addNode(final String name, final String description, final String geneType,
+	                       final Double score, final Integer count, final List<String> tags) {
+		final CyNode node = network.addNode();
+		final CyRow row = network.getRow(node);
+		row.set(CyNetwork.NAME, name);
+		row.set("Description", description);
+		row.set("Gene Type", geneType);
+		row.set("score", score);
+		row.set("count", count);
+		row.set("tags", tags);
+		return node;
+	}
+
+	private void addEdge(final CyNode source, final CyNode target, final String interaction,
+	                     final String description, final Double score) {
+		final CyEdge edge = network.addEdge(source, target, true);
+		final CyRow row = network.getRow(edge);
+		row.set(CyEdge.INTERACTION, interaction);
+		row.set("Description", description);
+		row.set("score", score);
+	}
+
+	@Test
+	public void testTermQueries() {
+		assertEquals(5, assertSameHits("Description:kinase"));
+		assertEquals(5, assertSameHits("description:KINASE"));
+		assertSameHits("description:protein");
+		assertEquals(1, assertSameHits("description:p53"));
+		assertEquals(1, assertSameHits("description:21"));
+		assertEquals(0, assertSameHits("description:zebra"));
+		assertEquals(2, assertSameHits("tags:kinase"));
+		assertEquals(1, assertSameHits("tags:factor"));
+		assertEquals(4, assertSameHits("gene_type:coding"));
+		assertEquals(1, assertSameHits("name:tp53"));
+		assertEquals(3, assertSameHits("interaction:pp"));
+		assertEquals(2, assertSameHits("selected:true"));
+	}
+
+	@Test
+	public void testNumericTermQueries() {
+		assertEquals(3, assertSameHits("score:1.5"));
+		assertEquals(2, assertSameHits("score:2"));
+		assertEquals(2, assertSameHits("count:3"));
+		assertEquals(1, assertSameHits("count:12"));
+		assertEquals(0, assertSameHits("count:4"));
+	}
+
+	@Test
+	public void testPrefixQueries() {
+		assertEquals(5, assertSameHits("description:kin*"));
+		assertSameHits("description:pro*");
+		assertSameHits("description:Auto*");
+		assertEquals(1, assertSameHits("tags:sig*"));
+		assertSameHits("name:m*");
+		assertEquals(0, assertSameHits("description:zebra*"));
+	}
+
+	@Test
+	public void testRangeQueries() {
+		assertEquals(5, assertSameHits("score:[1.5 TO 2.0]"));
+		assertEquals(0, assertSameHits("score:{1.5 TO 2.0}"));
+		assertEquals(5, assertSameHits("score:[-1 TO 1.5]"));
+		assertSameHits("score:{0.25 to 10}");
+		assertEquals(3, assertSameHits("count:[0 TO 3]"));
+		assertEquals(3, assertSameHits("count:{0 TO 12}"));
+		assertEquals(0, assertSameHits("count:[20 TO 30]"));
+	}
+
+	@Test
+	public void testQueriesColumnsCantAnswerFallBack() {
+		// A stop word, which Lucene's analyzer drops
+		assertFallsBack("description:the");
+		// Prefixes of numbers
+		assertFallsBack("count:1*");
+		// Ranges of terms
+		assertFallsBack("description:[a TO k]");
+		// Not an Integer
+		assertFallsBack("count:1.5");
+		assertFallsBack("nosuchcolumn:x");
+
+		assertEquals(QueryPlan.Type.FULL_TEXT, QueryPlan.plan("score:[1 TO 2}").getType());
+		assertEquals(QueryPlan.Type.FULL_TEXT, QueryPlan.plan("kinase").getType());
+		assertEquals(QueryPlan.Type.FULL_TEXT, QueryPlan.plan("description:kinase OR name:tp53").getType());
+	}
+
+	@Test
+	public void testIndexesFollowChangedValues() {
+		assertEquals(1, assertSameHits("count:12"));
+
+		for (final CyNode node : network.getNodeList())
+			network.getRow(node).set("count", 12);
+		columnIndexes.columnChanged("count");
+		luceneIndex.rebuild();
+		luceneIndex.update(mock(TaskMonitor.class));
+
+		assertEquals(6, assertSameHits("count:12"));
+	}
+
+	/**
+	 * @return the number of nodes and edges found
+	 */
+	private int assertSameHits(final String query) {
+		final QueryPlan plan = QueryPlan.plan(EnhancedSearchUtils.queryToLowerCase(query));
+		assertFalse(query, plan.getType() == QueryPlan.Type.FULL_TEXT);
+
+		final List<String> nodeHits = new ArrayList<String>();
+		final List<String> edgeHits = new ArrayList<String>();
+		assertTrue(query, columnIndexes.execute(plan, nodeHits, edgeHits));
+
+		final EnhancedSearchQuery luceneQuery = new EnhancedSearchQuery(network, luceneIndex.getIndex());
+		luceneQuery.executeQuery(query);
+		assertNotNull(query, luceneQuery.getNodeHits());
+
+		assertEquals(query, sorted(luceneQuery.getNodeHits()), sorted(nodeHits));
+		assertEquals(query, sorted(luceneQuery.getEdgeHits()), sorted(edgeHits));
+		return nodeHits.size() + edgeHits.size();
+	}
+
+	private void assertFallsBack(final String query) {
+		final QueryPlan plan = QueryPlan.plan(EnhancedSearchUtils.queryToLowerCase(query));
+		assertFalse(query, plan.getType() == QueryPlan.Type.FULL_TEXT);
+
+		final List<String> nodeHits = new ArrayList<String>();
+		final List<String> edgeHits = new ArrayList<String>();
+		assertFalse(query, columnIndexes.execute(plan, nodeHits, edgeHits));
+		assertTrue(query, nodeHits.isEmpty() && edgeHits.isEmpty());
+	}
+
+	private static List<String> sorted(final List<String> hits) {
+		final List<String> copy = new ArrayList<String>(hits);
+		Collections.sort(copy);
+		return copy;
+	}
+}
@@ -23,8 +23,12 @@ import org.cytoscape.application.events.SetCurrentNetworkListener;
 import org.cytoscape.application.events.SetCurrentNetworkViewEvent;
 import org.cytoscape.application.events.SetCurrentNetworkViewListener;
 import org.cytoscape.application.swing.CyHelpBroker;
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyIdentifiable;
 import org.cytoscape.model.CyNetwork;
 import org.cytoscape.model.CyNetworkTableManager;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.CyRow;
 import org.cytoscape.model.CyTable;
 import org.cytoscape.model.events.ColumnDeletedEvent;
 import org.cytoscape.model.events.ColumnDeletedListener;
@@ -84,6 +88,12 @@ public class NetworkViewMediator implements NetworkViewAddedListener, NetworkVie
 
 	private static final String SHOW_VIEW_TOOLBARS_KEY = "showDetachedViewToolBars";
 	
+	/**
+	 * When more than this fraction of a network's nodes or edges have changed rows,
+	 * the whole style is applied again instead of only to the changed elements.
+	 */
+	private static final double MAX_INCREMENTAL_UPDATE_RATIO = 0.25;
+	
 	private static final Logger logger = LoggerFactory.getLogger(NetworkViewMediator.class);
 
 	@Deprecated
@@ -471,18 +481,29 @@ public class NetworkViewMediator implements NetworkViewAddedListener, NetworkVie
 			if (!nameRecords.isEmpty())
 				updateNetworkViewTitle(nameRecords, tbl);
 			
-			if (tbl.equals(net.getDefaultNodeTable()) || tbl.equals(net.getDefaultEdgeTable())) {
+			final boolean nodeTable = tbl.equals(net.getDefaultNodeTable());
+			
+			if (nodeTable || tbl.equals(net.getDefaultEdgeTable())) {
 				final Collection<CyNetworkView> networkViews = netViewMgr.getNetworkViews(net);
+				// Views that need the whole style applied again
 				final Set<CyNetworkView> viewsToUpdate = new HashSet<>();
+				// Views of this network that only need the style applied to the changed rows
+				final Map<CyNetworkView, Set<CyRow>> rowsToUpdate = new HashMap<>();
 				
-				// Update node/edge selection info
-				final Collection<RowSetRecord> selectedRecords = e.getColumnRecords(CyNetwork.SELECTED);
-				
-				if (!selectedRecords.isEmpty())
-					viewsToUpdate.addAll(netViewMgr.getNetworkViews(net));
+				// Group the records by column, so each column is checked once
+				final Map<String, Set<CyRow>> rowsByColumn = new HashMap<>();
 				
 				for (final RowSetRecord record : e.getPayloadCollection()) {
-					final String columnName = record.getColumn();
+					Set<CyRow> rows = rowsByColumn.get(record.getColumn());
+					
+					if (rows == null)
+						rowsByColumn.put(record.getColumn(), rows = new HashSet<>());
+					
+					rows.add(record.getRow());
+				}
+				
+				for (final Map.Entry<String, Set<CyRow>> entry : rowsByColumn.entrySet()) {
+					final String columnName = entry.getKey();
 					
 					// Reapply locked values that map to changed columns
 					final boolean lockedValuesApplyed = reapplyLockedValues(columnName, networkViews);
@@ -492,12 +513,44 @@ public class NetworkViewMediator implements NetworkViewAddedListener, NetworkVie
 					
 					// Find views that had their styles affected by the RowsSetEvent
 					final Set<VisualStyle> styles = findStylesWithMappedColumn(columnName);
-					viewsToUpdate.addAll(findNetworkViewsWithStyles(styles));
+					final Set<CyNetworkView> affectedViews = findNetworkViewsWithStyles(styles);
+					
+					// Update node/edge selection info
+					if (CyNetwork.SELECTED.equals(columnName))
+						affectedViews.addAll(networkViews);
+					
+					for (final CyNetworkView view : affectedViews) {
+						if (view.getModel() == net) {
+							Set<CyRow> rows = rowsToUpdate.get(view);
+							
+							if (rows == null)
+								rowsToUpdate.put(view, rows = new HashSet<>());
+							
+							rows.addAll(entry.getValue());
+						} else {
+							// The column may be shared by other networks, whose changed rows we don't have
+							viewsToUpdate.add(view);
+						}
+					}
 				}
 				
 				// Update views
 				for (final CyNetworkView view : viewsToUpdate)
 					updateView(view, null);
+				
+				for (final Map.Entry<CyNetworkView, Set<CyRow>> entry : rowsToUpdate.entrySet()) {
+					final CyNetworkView view = entry.getKey();
+					
+					if (viewsToUpdate.contains(view))
+						continue;
+					
+					final int size = nodeTable ? view.getNodeViews().size() : view.getEdgeViews().size();
+					
+					if (entry.getValue().size() > size * MAX_INCREMENTAL_UPDATE_RATIO)
+						updateView(view, null);
+					else
+						updateView(view, entry.getValue(), nodeTable);
+				}
 			}
 		}
 	}
@@ -751,6 +804,42 @@ public class NetworkViewMediator implements NetworkViewAddedListener, NetworkVie
 		}
 	}
 	
+	/**
+	 * Applies the view's style only to the nodes or edges of the given rows,
+	 * then updates the network view once.
+	 */
+	private void updateView(final CyNetworkView view, final Collection<CyRow> rows, final boolean nodeRows) {
+		if (getNetworkViewMainPanel().isGridMode() || view.equals(getNetworkViewMainPanel().getCurrentNetworkView())) {
+			final VisualMappingManager vmm = serviceRegistrar.getService(VisualMappingManager.class);
+			final VisualStyle vs = vmm.getVisualStyle(view);
+			final CyNetwork net = view.getModel();
+			
+			for (final CyRow row : rows) {
+				final Long suid = row.get(CyIdentifiable.SUID, Long.class);
+				
+				if (suid == null)
+					continue;
+				
+				final View<? extends CyIdentifiable> elementView;
+				
+				if (nodeRows) {
+					final CyNode node = net.getNode(suid);
+					elementView = node != null ? view.getNodeView(node) : null;
+				} else {
+					final CyEdge edge = net.getEdge(suid);
+					elementView = edge != null ? view.getEdgeView(edge) : null;
+				}
+				
+				if (elementView != null)
+					vs.apply(row, elementView);
+			}
+			
+			view.updateView();
+		} else {
+			viewUpdateRequired.add(view);
+		}
+	}
+	
 	private static class MappedVisualPropertyValueInfo {
 		
 		private final MappableVisualPropertyValue value;
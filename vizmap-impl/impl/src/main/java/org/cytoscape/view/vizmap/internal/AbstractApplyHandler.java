@@ -26,10 +26,10 @@ package org.cytoscape.view.vizmap.internal;
 
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.cytoscape.application.CyApplicationManager;
 import org.cytoscape.application.NetworkViewRenderer;
@@ -40,7 +40,6 @@ import org.cytoscape.model.CyRow;
 import org.cytoscape.service.util.CyServiceRegistrar;
 import org.cytoscape.view.model.View;
 import org.cytoscape.view.model.VisualLexicon;
-import org.cytoscape.view.model.VisualLexiconNode;
 import org.cytoscape.view.model.VisualProperty;
 import org.cytoscape.view.presentation.property.BasicVisualLexicon;
 import org.cytoscape.view.vizmap.VisualMappingFunction;
@@ -63,6 +62,11 @@ public abstract class AbstractApplyHandler<T extends CyIdentifiable> implements
 	protected final Map<VisualProperty<?>, Set<VisualPropertyDependency<?>>> dependencyChildren;
 	
 	protected volatile boolean updateDependencyMaps = true;
+	
+	/** Incremented on every style change; compiled plans remember the version they were built from. */
+	private final AtomicInteger styleVersion = new AtomicInteger();
+	private volatile ApplyPlan plan;
+	private volatile CyApplicationManager applicationManager;
 
 	AbstractApplyHandler(
 			final VisualStyle style,
@@ -86,88 +90,113 @@ public abstract class AbstractApplyHandler<T extends CyIdentifiable> implements
 
 	@Override
 	public void handleEvent(final VisualStyleChangedEvent e) {
+		styleChanged();
+	}
+
+	/**
+	 * Invalidates the dependency maps and the compiled plan. The style calls this directly
+	 * whenever it is modified, so the next apply sees the change even before the
+	 * {@link VisualStyleChangedEvent} has been delivered.
+	 */
+	void styleChanged() {
 		updateDependencyMaps = true;
+		styleVersion.incrementAndGet();
 	}
 
 	@Override
 	public void apply(final CyRow row, final View<T> view) {
-		if (updateDependencyMaps)
-			updateDependencyMaps();
+		final ApplyPlan plan = getPlan(getCurrentLexicon());
 		
 		// Clear visual properties first
 		view.clearVisualProperties();
 		
-		// Get current Visual Lexicon
-		final CyApplicationManager appMgr = serviceRegistrar.getService(CyApplicationManager.class);
-		final VisualLexicon lexicon = appMgr.getCurrentNetworkViewRenderer()
-				.getRenderingEngineFactory(NetworkViewRenderer.DEFAULT_CONTEXT)
-				.getVisualLexicon();
+		final VisualProperty<?>[] properties = plan.properties;
+		final VisualMappingFunction<?, ?>[] mappings = plan.mappings;
 		
-		final LinkedList<VisualLexiconNode> descendants = new LinkedList<VisualLexiconNode>();
-		descendants.addAll(lexicon.getVisualLexiconNode(rootVisualProperty).getChildren());
-		
-		while (!descendants.isEmpty()) {
-			final VisualLexiconNode node = descendants.pop();
-			final VisualProperty<?> vp = node.getVisualProperty();
+		for (int i = 0; i < properties.length; i++) {
+			final VisualMappingFunction<?, ?> mapping = mappings[i];
+			Object value = mapping != null ? mapping.getMappedValue(row) : null;
+			final boolean isDefault = value == null;
 			
-			if (vp.getTargetDataType() != targetDataType)
-				continue; // Because NETWORK has node/edge properties as descendants as well
+			if (isDefault)
+				value = plan.defaults[i];
 			
-			final VisualMappingFunction<?, ?> mapping = style.getVisualMappingFunction(vp);
-			final Object value = mapping != null ? mapping.getMappedValue(row) : null;
+			final ApplyPlan.Propagation[] propagations = plan.propagations[i];
 			
-			if (value == null) {
-				// Apply the default value...
-				applyDefaultValue(view, vp, lexicon);
-			} else {
-				// Apply the mapped value...
-				applyMappedValue(view, vp, value);
+			// If this property has already received a propagated value from a previous
+			// enabled dependency, do not apply this mapping's value over it.
+			if (propagations == null && !isAnyEnabled(plan.childDependencies[i])) {
+				// TODO: Is this correct? Shouldn't default values be applied through CyNetworkView.setViewDefault instead?
+				if (!(isDefault && plan.ignoreDefaults[i]))
+					view.setVisualProperty(properties[i], value);
+			} else if (propagations != null) {
+				for (final ApplyPlan.Propagation p : propagations) {
+					// The dependency has a higher priority over children's mappings when enabled.
+					if (p.dependency.isDependencyEnabled()) {
+						for (final VisualProperty<?> vp : p.targets) {
+							if (!(isDefault && vp.shouldIgnoreDefault()))
+								view.setVisualProperty(vp, value);
+						}
+					}
+				}
 			}
-			
-			descendants.addAll(node.getChildren());
 		}
 	}
-
-	private void applyDefaultValue(final View<T> view, final VisualProperty<?> vp, final VisualLexicon lexicon) {
-		// This is the view default value.
-		Object value = style.getDefaultValue(vp);
-
-		if (value == null) {
-			((VisualStyleImpl) style).getStyleDefaults().put(vp, vp.getDefault());
-			value = style.getDefaultValue(vp);
-		}
+	
+	/**
+	 * @return the compiled plan for the given lexicon, compiling it first if the style has
+	 *         changed since the last one was built.
+	 */
+	protected ApplyPlan getPlan(final VisualLexicon lexicon) {
+		final ApplyPlan current = plan;
 		
-		final Set<VisualPropertyDependency<?>> depSet = dependencyParents.get(vp);
+		if (current != null && current.isCurrent(lexicon, styleVersion.get()))
+			return current;
 		
-		// If this property has already received a propagated value from a previous
-		// enabled dependency, do not apply this mapping's value over it.
-		if (!isParentOfDependency(vp) && !isChildOfEnabledDependency(vp)) {
-			// TODO: Is this correct? Shouldn't default values be applied through CyNetworkView.setViewDefault instead?
-			if (!vp.shouldIgnoreDefault())
-				view.setVisualProperty(vp, value);
-		} else if (depSet != null) {
-			for (final VisualPropertyDependency<?> dep : depSet) {
-				// The dependency has a higher priority over children's mappings when enabled.
-				if (dep.isDependencyEnabled())
-					propagateValue(view, vp, value, dep.getVisualProperties(), true);
-			}
-		}
+		return compilePlan(lexicon);
 	}
-
-	private void applyMappedValue(final View<T> view, final VisualProperty<?> vp, final Object value) {
-		final Set<VisualPropertyDependency<?>> depSet = dependencyParents.get(vp);
-		
-		// If this property has already received a propagated value from a previous
-		// enabled dependency, do not apply this mapping's value over it.
-		if (!isParentOfDependency(vp) && !isChildOfEnabledDependency(vp)) {
-			view.setVisualProperty(vp, value);
-		} else if (depSet != null) {
-			for (final VisualPropertyDependency<?> dep : depSet) {
-				// The dependency has a higher priority over children's mappings when enabled.
+	
+	private synchronized ApplyPlan compilePlan(final VisualLexicon lexicon) {
+		// Read the version first: a change made while compiling leaves the plan stale, not wrong
+		final int version = styleVersion.get();
+		
+		if (plan != null && plan.isCurrent(lexicon, version))
+			return plan;
+		
+		if (updateDependencyMaps)
+			updateDependencyMaps();
+		
+		return plan = ApplyPlan.compile(style, lexicon, rootVisualProperty, version, dependencyParents,
+				dependencyChildren);
+	}
+	
+	/**
+	 * @return the Visual Lexicon of the current network view renderer.
+	 */
+	protected VisualLexicon getCurrentLexicon() {
+		CyApplicationManager appMgr = applicationManager;
+		
+		if (appMgr == null)
+			applicationManager = appMgr = serviceRegistrar.getService(CyApplicationManager.class);
+		
+		return appMgr.getCurrentNetworkViewRenderer()
+				.getRenderingEngineFactory(NetworkViewRenderer.DEFAULT_CONTEXT)
+				.getVisualLexicon();
+	}
+	
+	/**
+	 * @param deps
+	 * @return true if any of the given dependencies is enabled.
+	 */
+	protected static boolean isAnyEnabled(final VisualPropertyDependency<?>[] deps) {
+		if (deps != null) {
+			for (final VisualPropertyDependency<?> dep : deps) {
 				if (dep.isDependencyEnabled())
-					propagateValue(view, vp, value, dep.getVisualProperties(), false);
+					return true;
 			}
 		}
+		
+		return false;
 	}
 	
 	protected void propagateValue(final View<? extends CyIdentifiable> view,
@@ -0,0 +1,173 @@
+package org.cytoscape.view.vizmap.internal;
+
+/*
+ * #%L
+ * Cytoscape VizMap Impl (vizmap-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.cytoscape.view.model.VisualLexicon;
+import org.cytoscape.view.model.VisualLexiconNode;
+import org.cytoscape.view.model.VisualProperty;
+import org.cytoscape.view.vizmap.VisualMappingFunction;
+import org.cytoscape.view.vizmap.VisualPropertyDependency;
+import org.cytoscape.view.vizmap.VisualStyle;
+
+/**
+ * A Visual Style compiled against one {@link VisualLexicon} for one target data type.
+ * It holds, in lexicon order, every visual property to apply together with its mapping,
+ * its default value and the dependencies it takes part in, so applying the style to a single
+ * view is a loop over flat arrays.
+ * <p>
+ * Plans are immutable. Whether a dependency is enabled can change at any time, so that is
+ * still checked when the plan is applied.
+ */
+final class ApplyPlan {
+
+	final VisualLexicon lexicon;
+	/** The style version this plan was compiled from. */
+	final int version;
+
+	final VisualProperty<?>[] properties;
+	final VisualMappingFunction<?, ?>[] mappings;
+	final Object[] defaults;
+	final boolean[] ignoreDefaults;
+	/** For each property, the dependencies it is the parent of, or null if there are none. */
+	final Propagation[][] propagations;
+	/** For each property, the dependencies it is a child of, or null if there are none. */
+	final VisualPropertyDependency<?>[][] childDependencies;
+
+	private ApplyPlan(final VisualLexicon lexicon, final int version, final int size) {
+		this.lexicon = lexicon;
+		this.version = version;
+		properties = new VisualProperty<?>[size];
+		mappings = new VisualMappingFunction<?, ?>[size];
+		defaults = new Object[size];
+		ignoreDefaults = new boolean[size];
+		propagations = new Propagation[size][];
+		childDependencies = new VisualPropertyDependency<?>[size][];
+	}
+
+	/**
+	 * @return true if this plan was compiled from the given lexicon and style version.
+	 */
+	boolean isCurrent(final VisualLexicon lexicon, final int version) {
+		return this.lexicon == lexicon && this.version == version;
+	}
+
+	static ApplyPlan compile(final VisualStyle style,
+							 final VisualLexicon lexicon,
+							 final VisualProperty<?> rootVisualProperty,
+							 final int version,
+							 final Map<VisualProperty<?>, Set<VisualPropertyDependency<?>>> dependencyParents,
+							 final Map<VisualProperty<?>, Set<VisualPropertyDependency<?>>> dependencyChildren) {
+		final Class<?> targetDataType = rootVisualProperty.getTargetDataType();
+		final List<VisualProperty<?>> vpList = new ArrayList<VisualProperty<?>>();
+		final Deque<VisualLexiconNode> descendants = new ArrayDeque<VisualLexiconNode>();
+		descendants.addAll(lexicon.getVisualLexiconNode(rootVisualProperty).getChildren());
+
+		while (!descendants.isEmpty()) {
+			final VisualLexiconNode node = descendants.pop();
+			final VisualProperty<?> vp = node.getVisualProperty();
+
+			// NETWORK has node/edge properties as descendants as well
+			if (vp.getTargetDataType() == targetDataType)
+				vpList.add(vp);
+
+			descendants.addAll(node.getChildren());
+		}
+
+		final ApplyPlan plan = new ApplyPlan(lexicon, version, vpList.size());
+
+		for (int i = 0; i < vpList.size(); i++) {
+			final VisualProperty<?> vp = vpList.get(i);
+			Object defaultValue = style.getDefaultValue(vp);
+
+			if (defaultValue == null) {
+				((VisualStyleImpl) style).getStyleDefaults().put(vp, vp.getDefault());
+				defaultValue = style.getDefaultValue(vp);
+			}
+
+			plan.properties[i] = vp;
+			plan.mappings[i] = style.getVisualMappingFunction(vp);
+			plan.defaults[i] = defaultValue;
+			plan.ignoreDefaults[i] = vp.shouldIgnoreDefault();
+			plan.propagations[i] = toPropagations(vp, dependencyParents.get(vp));
+			plan.childDependencies[i] = toArray(dependencyChildren.get(vp));
+		}
+
+		return plan;
+	}
+
+	private static Propagation[] toPropagations(final VisualProperty<?> parent,
+												final Set<VisualPropertyDependency<?>> depSet) {
+		final VisualPropertyDependency<?>[] deps = toArray(depSet);
+
+		if (deps == null)
+			return null;
+
+		final Propagation[] propagations = new Propagation[deps.length];
+
+		for (int i = 0; i < deps.length; i++) {
+			final List<VisualProperty<?>> targets = new ArrayList<VisualProperty<?>>();
+
+			for (final VisualProperty<?> vp : deps[i].getVisualProperties()) {
+				// Prevent ClassCastExceptions (the child property can have a different value type)
+				if (parent.getClass() == vp.getClass())
+					targets.add(vp);
+			}
+
+			propagations[i] = new Propagation(deps[i], targets.toArray(new VisualProperty<?>[targets.size()]));
+		}
+
+		return propagations;
+	}
+
+	private static VisualPropertyDependency<?>[] toArray(final Set<VisualPropertyDependency<?>> depSet) {
+		if (depSet == null)
+			return null;
+
+		synchronized (depSet) {
+			return depSet.isEmpty() ? null : depSet.toArray(new VisualPropertyDependency<?>[depSet.size()]);
+		}
+	}
+
+	/**
+	 * A dependency whose parent value is copied to the given child properties while it is enabled.
+	 */
+	static final class Propagation {
+
+		final VisualPropertyDependency<?> dependency;
+		final VisualProperty<?>[] targets;
+
+		Propagation(final VisualPropertyDependency<?> dependency, final VisualProperty<?>[] targets) {
+			this.dependency = dependency;
+			this.targets = targets;
+		}
+	}
+}
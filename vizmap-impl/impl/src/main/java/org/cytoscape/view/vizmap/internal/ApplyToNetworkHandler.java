@@ -25,22 +25,32 @@ package org.cytoscape.view.vizmap.internal;
  */
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import org.cytoscape.application.CyApplicationManager;
-import org.cytoscape.application.NetworkViewRenderer;
+import org.cytoscape.model.CyColumn;
 import org.cytoscape.model.CyEdge;
 import org.cytoscape.model.CyIdentifiable;
 import org.cytoscape.model.CyNetwork;
 import org.cytoscape.model.CyNode;
 import org.cytoscape.model.CyRow;
+import org.cytoscape.model.CyTable;
 import org.cytoscape.service.util.CyServiceRegistrar;
 import org.cytoscape.view.model.CyNetworkView;
 import org.cytoscape.view.model.View;
@@ -51,6 +61,7 @@ import org.cytoscape.view.presentation.property.BasicVisualLexicon;
 import org.cytoscape.view.vizmap.VisualMappingFunction;
 import org.cytoscape.view.vizmap.VisualPropertyDependency;
 import org.cytoscape.view.vizmap.VisualStyle;
+import org.cytoscape.view.vizmap.internal.mappings.BulkMappingFunction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -59,6 +70,31 @@ public class ApplyToNetworkHandler extends AbstractApplyHandler<CyNetwork> {
 	
 	private static final Logger logger = LoggerFactory.getLogger(ApplyToNetworkHandler.class);
 
+	/** Number of views mapped by a single task. */
+	private static final int CHUNK_SIZE = 2048;
+	
+	/**
+	 * Shared by all styles, so that concurrent applies cannot start more threads than there are cores.
+	 * Only tasks that never wait for other tasks are run here.
+	 */
+	private static final ExecutorService APPLY_EXECUTOR;
+	
+	static {
+		final int threads = Runtime.getRuntime().availableProcessors();
+		final ThreadPoolExecutor exe = new ThreadPoolExecutor(threads, threads, 30L, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+					private final AtomicInteger count = new AtomicInteger();
+					
+					@Override
+					public Thread newThread(final Runnable r) {
+						final Thread t = new Thread(r, "VisualStyleApply-" + count.incrementAndGet());
+						t.setDaemon(true);
+						return t;
+					}
+				});
+		exe.allowCoreThreadTimeOut(true);
+		APPLY_EXECUTOR = exe;
+	}
 	
 	ApplyToNetworkHandler(final VisualStyle style, final CyServiceRegistrar serviceRegistrar) {
 		super(style, serviceRegistrar, CyNetwork.class);
@@ -85,32 +121,30 @@ public class ApplyToNetworkHandler extends AbstractApplyHandler<CyNetwork> {
 			v.clearVisualProperties();
 		
 		// Get current Visual Lexicon
-		final CyApplicationManager appMgr = serviceRegistrar.getService(CyApplicationManager.class);
-		final VisualLexicon lexicon = appMgr.getCurrentNetworkViewRenderer()
-				.getRenderingEngineFactory(NetworkViewRenderer.DEFAULT_CONTEXT)
-				.getVisualLexicon();
-		
-		applyDefaultsInParallel(netView, lexicon.getVisualLexiconNode(BasicVisualLexicon.NODE));
-		applyDefaultsInParallel(netView, lexicon.getVisualLexiconNode(BasicVisualLexicon.EDGE));
-		applyDefaultsInParallel(netView, lexicon.getVisualLexiconNode(BasicVisualLexicon.NETWORK));
+		final VisualLexicon lexicon = getCurrentLexicon();
+		
+		final List<Callable<Object>> defaultTasks = new ArrayList<Callable<Object>>();
+		addDefaultTasks(netView, lexicon.getVisualLexiconNode(BasicVisualLexicon.NODE), defaultTasks);
+		addDefaultTasks(netView, lexicon.getVisualLexiconNode(BasicVisualLexicon.EDGE), defaultTasks);
+		addDefaultTasks(netView, lexicon.getVisualLexiconNode(BasicVisualLexicon.NETWORK), defaultTasks);
+		runAll(defaultTasks, "Create apply default failed");
 
 		applyDependencies(netView);
 		
-		final ExecutorService exe = Executors.newCachedThreadPool();
-		exe.submit(new ApplyMappingsTask(netView, nodeViews, BasicVisualLexicon.NODE, lexicon));
-		exe.submit(new ApplyMappingsTask(netView, edgeViews, BasicVisualLexicon.EDGE, lexicon));
-		exe.submit(new ApplyMappingsTask(netView, networkViewSet, BasicVisualLexicon.NETWORK, lexicon));
-		
-		try {
-			exe.shutdown();
-			exe.awaitTermination(15, TimeUnit.MINUTES);
-		} catch (Exception ex) {
-			logger.warn("Create apply operation failed.", ex);
-		}
+		final CyNetwork net = netView.getModel();
+		final List<Callable<Object>> mappingTasks = new ArrayList<Callable<Object>>();
+		addMappingTasks(net, nodeViews, compilePlan(lexicon, BasicVisualLexicon.NODE), mappingTasks);
+		addMappingTasks(net, edgeViews, compilePlan(lexicon, BasicVisualLexicon.EDGE), mappingTasks);
+		addMappingTasks(net, networkViewSet, compilePlan(lexicon, BasicVisualLexicon.NETWORK), mappingTasks);
+		runAll(mappingTasks, "Create apply operation failed.");
 	}
 	
-	private void applyDefaultsInParallel(final CyNetworkView netView, final VisualLexiconNode rootNode) {
-		final ExecutorService exe = Executors.newCachedThreadPool();
+	private ApplyPlan compilePlan(final VisualLexicon lexicon, final VisualProperty<?> root) {
+		return ApplyPlan.compile(style, lexicon, root, 0, dependencyParents, dependencyChildren);
+	}
+	
+	private void addDefaultTasks(final CyNetworkView netView, final VisualLexiconNode rootNode,
+			final List<Callable<Object>> tasks) {
 		final Deque<VisualLexiconNode> deque = new ArrayDeque<>();
 		deque.addAll(rootNode.getChildren());
 		
@@ -131,19 +165,40 @@ public class ApplyToNetworkHandler extends AbstractApplyHandler<CyNetwork> {
 					defaultValue = style.getDefaultValue(vp);
 				}
 				
-				exe.submit(new ApplyDefaultTask(netView, vp, defaultValue));
+				tasks.add(Executors.callable(new ApplyDefaultTask(netView, vp, defaultValue)));
 			}
 			
 			deque.addAll(children);
 		}
+	}
+	
+	private static void addMappingTasks(final CyNetwork net,
+										final Collection<? extends View<? extends CyIdentifiable>> views,
+										final ApplyPlan plan,
+										final List<Callable<Object>> tasks) {
+		final List<View<? extends CyIdentifiable>> viewList = new ArrayList<View<? extends CyIdentifiable>>(views);
 		
+		for (int from = 0; from < viewList.size(); from += CHUNK_SIZE) {
+			final int to = Math.min(from + CHUNK_SIZE, viewList.size());
+			tasks.add(Executors.callable(new ApplyMappingsTask(net, viewList.subList(from, to), plan)));
+		}
+	}
+	
+	/**
+	 * Runs the tasks on the shared executor and waits for all of them to finish.
+	 */
+	private static void runAll(final List<Callable<Object>> tasks, final String errorMessage) {
 		try {
-			exe.shutdown();
-			exe.awaitTermination(10, TimeUnit.MINUTES);
-		} catch (Exception ex) {
-			logger.warn("Create apply default failed", ex);
-		} finally {
-
+			for (final Future<Object> f : APPLY_EXECUTOR.invokeAll(tasks)) {
+				try {
+					f.get();
+				} catch (ExecutionException ex) {
+					logger.warn(errorMessage, ex.getCause());
+				}
+			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			logger.warn(errorMessage, ex);
 		}
 	}
 	
@@ -165,63 +220,115 @@ public class ApplyToNetworkHandler extends AbstractApplyHandler<CyNetwork> {
 		}
 	}
 
-	private final class ApplyMappingsTask implements Runnable {
+	/**
+	 * Applies the mappings of a plan to a chunk of views one visual property at a time: each mapping
+	 * column is read once for the whole chunk and, when the mapping supports it, mapped in bulk.
+	 */
+	private static final class ApplyMappingsTask implements Runnable {
 
-		private final CyNetworkView netView;
-		private final Collection<? extends View<? extends CyIdentifiable>> views;
-		private final VisualProperty<?> rootVisualProperty;
-		private final VisualLexicon lexicon;
-		
-		ApplyMappingsTask(final CyNetworkView netView,
-						  final Collection<? extends View<? extends CyIdentifiable>> views,
-						  final VisualProperty<?> rootVisualProperty,
-						  final VisualLexicon lexicon) {
-			this.netView = netView;
+		private final CyNetwork net;
+		private final List<View<? extends CyIdentifiable>> views;
+		private final ApplyPlan plan;
+		
+		ApplyMappingsTask(final CyNetwork net, final List<View<? extends CyIdentifiable>> views,
+				final ApplyPlan plan) {
+			this.net = net;
 			this.views = views;
-			this.rootVisualProperty = rootVisualProperty;
-			this.lexicon = lexicon;
+			this.plan = plan;
 		}
 		
 		@Override
 		public void run() {
-			final Class<? extends CyIdentifiable> targetDataType = rootVisualProperty.getTargetDataType();
-			final LinkedList<VisualLexiconNode> descendants = new LinkedList<VisualLexiconNode>();
-			descendants.addAll(lexicon.getVisualLexiconNode(rootVisualProperty).getChildren());
+			final int count = views.size();
+			final CyRow[] rows = new CyRow[count];
+			
+			for (int i = 0; i < count; i++)
+				rows[i] = net.getRow(views.get(i).getModel());
 			
-			while (!descendants.isEmpty()) {
-				final VisualLexiconNode node = descendants.pop();
-				final VisualProperty<?> vp = node.getVisualProperty();
+			// Mappings of the same column share the values read for the chunk
+			final Map<String, Object[]> columnValues = new HashMap<String, Object[]>();
+			final Object[] values = new Object[count];
+			
+			for (int p = 0; p < plan.properties.length; p++) {
+				final VisualMappingFunction<?, ?> mapping = plan.mappings[p];
 				
-				if (vp.getTargetDataType() != targetDataType)
-					continue; // Because NETWORK has node/edge properties as descendants as well
+				if (mapping == null)
+					continue;
 				
-				final VisualMappingFunction<?, ?> mapping = style.getVisualMappingFunction(vp);
-
-				if (mapping != null) {
-					final CyNetwork net = netView.getModel();
-					final Set<VisualPropertyDependency<?>> depSet = dependencyParents.get(vp);
-
-					for (final View<? extends CyIdentifiable> view : views) {
-						final Object value = mapping.getMappedValue(net.getRow(view.getModel()));
-						
-						if (value != null) {
-							// If this property has already received a propagated value from a previous
-							// enabled dependency, do not apply this mapping's value over it.
-							if (!isParentOfDependency(vp) && !isChildOfEnabledDependency(vp)) {
-								view.setVisualProperty(vp, value);
-							} else if (depSet != null) {
-								for (final VisualPropertyDependency<?> dep : depSet) {
-									// The dependency has a higher priority over children's mappings when enabled.
-									if (dep.isDependencyEnabled())
-										propagateValue(view, vp, value, dep.getVisualProperties(), false);
-								}
-							}
+				if (mapping instanceof BulkMappingFunction) {
+					final String columnName = mapping.getMappingColumnName();
+					Object[] column = columnValues.get(columnName);
+					
+					if (column == null)
+						columnValues.put(columnName, column = getColumnValues(rows, columnName));
+					
+					((BulkMappingFunction<?, ?>) mapping).getMappedValues(column, values, count);
+				} else {
+					for (int i = 0; i < count; i++)
+						values[i] = mapping.getMappedValue(rows[i]);
+				}
+				
+				setValues(p, values);
+			}
+		}
+		
+		private void setValues(final int p, final Object[] values) {
+			final VisualProperty<?> vp = plan.properties[p];
+			final ApplyPlan.Propagation[] propagations = plan.propagations[p];
+			// If this property has already received a propagated value from a previous
+			// enabled dependency, do not apply this mapping's value over it.
+			final boolean direct = propagations == null && !isAnyEnabled(plan.childDependencies[p]);
+			
+			if (!direct && propagations == null)
+				return;
+			
+			for (int i = 0; i < values.length; i++) {
+				final Object value = values[i];
+				
+				if (value == null)
+					continue;
+				
+				final View<? extends CyIdentifiable> view = views.get(i);
+				
+				if (direct) {
+					view.setVisualProperty(vp, value);
+				} else {
+					for (final ApplyPlan.Propagation prop : propagations) {
+						// The dependency has a higher priority over children's mappings when enabled.
+						if (prop.dependency.isDependencyEnabled()) {
+							for (final VisualProperty<?> target : prop.targets)
+								view.setVisualProperty(target, value);
 						}
 					}
 				}
+			}
+		}
+		
+		private static Object[] getColumnValues(final CyRow[] rows, final String columnName) {
+			final Object[] values = new Object[rows.length];
+			
+			if (rows.length == 0)
+				return values;
+			
+			final CyTable table = rows[0].getTable();
+			final CyColumn column = table.getColumn(columnName);
+			
+			if (column == null)
+				return values;
+			
+			final Class<?> type = column.getType();
+			final Class<?> listElementType = column.getListElementType();
+			
+			for (int i = 0; i < rows.length; i++) {
+				final CyRow row = rows[i];
 				
-				descendants.addAll(node.getChildren());
+				// Skip if source attribute is not defined.
+				if (row != null && row.isSet(columnName))
+					values[i] = type == List.class ? row.getList(columnName, listElementType)
+												   : row.get(columnName, type);
 			}
+			
+			return values;
 		}
 	}
 	
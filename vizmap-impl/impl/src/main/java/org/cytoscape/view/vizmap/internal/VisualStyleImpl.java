@@ -116,8 +116,7 @@ public class VisualStyleImpl implements VisualStyle, VisualMappingFunctionChange
 		synchronized (lock) {
 			mappings.put(mapping.getVisualProperty(), mapping);
 		}
-		eventHelper.addEventPayload((VisualStyle) this, new VisualStyleChangeRecord(),
-				VisualStyleChangedEvent.class);
+		fireStyleChanged();
 	}
 
 	@Override
@@ -133,8 +132,7 @@ public class VisualStyleImpl implements VisualStyle, VisualMappingFunctionChange
 		synchronized (lock) {
 			mappings.remove(t);
 		}
-		eventHelper.addEventPayload((VisualStyle) this, new VisualStyleChangeRecord(),
-				VisualStyleChangedEvent.class);
+		fireStyleChanged();
 	}
 
 	@SuppressWarnings("unchecked")
@@ -150,8 +148,7 @@ public class VisualStyleImpl implements VisualStyle, VisualMappingFunctionChange
 		synchronized (lock) {
 			styleDefaults.put(vp, value);
 		}
-		eventHelper.addEventPayload((VisualStyle) this, new VisualStyleChangeRecord(),
-				VisualStyleChangedEvent.class);
+		fireStyleChanged();
 	}
 
 	@Override
@@ -229,8 +226,7 @@ public class VisualStyleImpl implements VisualStyle, VisualMappingFunctionChange
 		synchronized (lock) {
 			dependencies.add(dependency);
 		}
-		eventHelper.addEventPayload((VisualStyle) this, new VisualStyleChangeRecord(),
-				VisualStyleChangedEvent.class);
+		fireStyleChanged();
 	}
 
 	@Override
@@ -238,8 +234,7 @@ public class VisualStyleImpl implements VisualStyle, VisualMappingFunctionChange
 		synchronized (lock) {
 			dependencies.remove(dependency);
 		}
-		eventHelper.addEventPayload((VisualStyle) this, new VisualStyleChangeRecord(),
-				VisualStyleChangedEvent.class);
+		fireStyleChanged();
 	}
 
 	/**
@@ -267,7 +262,19 @@ public class VisualStyleImpl implements VisualStyle, VisualMappingFunctionChange
 			hasMapping = mappings.containsValue(mapping);
 		}
 		if (hasMapping) {
-			eventHelper.addEventPayload((VisualStyle)this, new VisualStyleChangeRecord(), VisualStyleChangedEvent.class);
+			fireStyleChanged();
 		}
 	}
+
+	/**
+	 * Invalidates the compiled apply plans right away and notifies the listeners.
+	 */
+	private void fireStyleChanged() {
+		synchronized (lock) {
+			for (final ApplyHandler<?> handler : applyHandlersMap.values())
+				((AbstractApplyHandler<?>) handler).styleChanged();
+		}
+		eventHelper.addEventPayload((VisualStyle) this, new VisualStyleChangeRecord(),
+				VisualStyleChangedEvent.class);
+	}
 }
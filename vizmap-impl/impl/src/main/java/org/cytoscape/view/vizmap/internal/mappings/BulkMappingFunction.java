@@ -0,0 +1,45 @@
+package org.cytoscape.view.vizmap.internal.mappings;
+
+/*
+ * #%L
+ * Cytoscape VizMap Impl (vizmap-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import org.cytoscape.view.vizmap.VisualMappingFunction;
+
+/**
+ * A {@link VisualMappingFunction} that can map the values of many rows in one call.
+ * The caller reads the mapping column once for all rows, which avoids the per-cell
+ * column lookup and type check of {@link VisualMappingFunction#getMappedValue}.
+ */
+public interface BulkMappingFunction<K, V> {
+
+	/**
+	 * Maps the first <code>count</code> column values.
+	 * 
+	 * @param columnValues the values of the mapping column, read with the column's own type
+	 *                     (lists for list columns), or null for rows where the column is not set.
+	 * @param results receives the mapped value of each row, or null where there is none.
+	 * @param count the number of rows to map.
+	 */
+	void getMappedValues(Object[] columnValues, Object[] results, int count);
+}
@@ -59,7 +59,8 @@ import org.cytoscape.view.vizmap.mappings.ContinuousMappingPoint;
  *            cytoscape.visual.mappings.continuous.README.txt.
  * 
  */
-public class ContinuousMappingImpl<K, V> extends AbstractVisualMappingFunction<K, V> implements ContinuousMapping<K, V> {
+public class ContinuousMappingImpl<K, V> extends AbstractVisualMappingFunction<K, V> implements ContinuousMapping<K, V>,
+		BulkMappingFunction<K, V> {
 	
 	// used to interpolate between boundaries
 	private Interpolator<K, V> interpolator;
@@ -143,65 +144,95 @@ public class ContinuousMappingImpl<K, V> extends AbstractVisualMappingFunction<K
 		return value;
 	}
 
+	@Override
+	@SuppressWarnings("unchecked")
+	public void getMappedValues(final Object[] columnValues, final Object[] results, final int count) {
+		// Copy the sorted domain once, so each value is found with a binary search over primitives
+		final List<ContinuousMappingPoint<K, V>> points = new ArrayList<ContinuousMappingPoint<K, V>>(this.points);
+		final double[] domains = new double[points.size()];
+
+		for (int i = 0; i < domains.length; i++)
+			domains[i] = toDouble(points.get(i).getValue());
+
+		for (int i = 0; i < count; i++) {
+			final Object attrValue = columnValues[i];
+			V value = null;
+
+			if (attrValue instanceof Number && !points.isEmpty()) {
+				final double d = ((Number) attrValue).doubleValue();
+
+				if (!Double.isNaN(d)) {
+					// Index of the first point whose domain value is not less than d
+					int low = 0;
+					int high = domains.length;
+
+					while (low < high) {
+						final int mid = (low + high) >>> 1;
+
+						if (domains[mid] < d)
+							low = mid + 1;
+						else
+							high = mid;
+					}
+
+					value = getRangeValue(points, low, low < domains.length && domains[low] == d, (K) attrValue);
+				}
+			}
+
+			results[i] = value;
+		}
+	}
+
 	private V getRangeValue(K domainValue) {
 		if (points.isEmpty() || domainValue == null ||
 				(domainValue instanceof Number && Double.isNaN(((Number)domainValue).doubleValue())))
 			return null;
-		
-		ContinuousMappingPoint<K, V> firstPoint = points.get(0);
-		K minDomain = firstPoint.getValue();
 
-		// if given domain value is smaller than any in our list,
-		// return the range value for the smallest domain value we have.
-		int firstCmp = compareValues(domainValue, minDomain);
+		// Note that the list of Points is sorted, so find the first point
+		// whose domain value is not less than the given one.
+		final double d = toDouble(domainValue);
+		int low = 0;
+		int high = points.size();
 
-		if (firstCmp <= 0) {
-			BoundaryRangeValues<V> bv = firstPoint.getRange();
+		while (low < high) {
+			final int mid = (low + high) >>> 1;
 
-			if (firstCmp < 0)
-				return bv.lesserValue;
+			if (toDouble(points.get(mid).getValue()) < d)
+				low = mid + 1;
 			else
-				return bv.equalValue;
+				high = mid;
 		}
 
-		// if given domain value is larger than any in our Vector,
-		// return the range value for the largest domain value we have.
-		ContinuousMappingPoint<K, V> lastPoint = points.get(points.size() - 1);
-		K maxDomain = lastPoint.getValue();
-
-		if (compareValues(domainValue, maxDomain) > 0) {
-			BoundaryRangeValues<V> bv = lastPoint.getRange();
+		final boolean equal = low < points.size() && toDouble(points.get(low).getValue()) == d;
 
-			return bv.greaterValue;
-		}
-
-		// OK, it's somewhere in the middle, so find the boundaries and
-		// pass to our interpolator function. First check for a null
-		// interpolator function
-		if (this.interpolator == null)
-			return null;
-
-		// Note that the list of Points is sorted.
-		// Also, the case of the inValue equalling the smallest key was
-		// checked above.
-		ContinuousMappingPoint<K, V> currentPoint;
-		int index = 0;
+		return getRangeValue(points, low, equal, domainValue);
+	}
 
-		for (index = 0; index < points.size(); index++) {
-			currentPoint = points.get(index);
+	/**
+	 * @param index the index of the first point whose domain value is not less than domainValue.
+	 * @param equal true if the domain value of that point equals domainValue.
+	 */
+	private V getRangeValue(final List<ContinuousMappingPoint<K, V>> points, final int index, final boolean equal,
+			final K domainValue) {
+		if (equal)
+			return points.get(index).getRange().equalValue;
 
-			K currentValue = currentPoint.getValue();
-			int cmpValue = compareValues(domainValue, currentValue);
+		// if given domain value is smaller than any in our list,
+		// return the range value for the smallest domain value we have.
+		if (index == 0)
+			return points.get(0).getRange().lesserValue;
 
-			if (cmpValue == 0) {
-				BoundaryRangeValues<V> bv = currentPoint.getRange();
+		// if given domain value is larger than any in our list,
+		// return the range value for the largest domain value we have.
+		if (index == points.size())
+			return points.get(index - 1).getRange().greaterValue;
 
-				return bv.equalValue;
-			} else if (cmpValue < 0)
-				break;
-		}
+		// OK, it's somewhere in the middle, so pass the boundaries to our
+		// interpolator function. First check for a null interpolator function
+		if (this.interpolator == null)
+			return null;
 
-		return getRangeValue(index, domainValue);
+		return getRangeValue(points, index, domainValue);
 	}
 
 	/**
@@ -211,7 +242,7 @@ public class ContinuousMappingImpl<K, V> extends AbstractVisualMappingFunction<K
 	 * the "lesser" field of the upper boundary value (semantic difficulties).
 	 */
 	@SuppressWarnings("unchecked")
-	private V getRangeValue(int index, K domainValue) {
+	private V getRangeValue(final List<ContinuousMappingPoint<K, V>> points, int index, K domainValue) {
 		// Get Lower Domain and Range
 		ContinuousMappingPoint<K, V> lowerBound = points.get(index - 1);
 		K lowerDomain = lowerBound.getValue();
@@ -258,18 +289,9 @@ public class ContinuousMappingImpl<K, V> extends AbstractVisualMappingFunction<K
 	/**
 	 * Helper function to compare Number objects. This is needed because Java
 	 * doesn't allow comparing, for example, Integer objects to Double objects.
+	 * A null value sorts before any number.
 	 */
-	private int compareValues(K probe, K target) {
-		final Number n1 = (Number) probe;
-		final Number n2 = (Number) target;
-		double d1 = n1 != null ? n1.doubleValue() : Double.NEGATIVE_INFINITY;
-		double d2 = n2 != null ? n2.doubleValue() : Double.NEGATIVE_INFINITY;
-
-		if (d1 < d2)
-			return -1;
-		else if (d1 > d2)
-			return 1;
-		else
-			return 0;
+	private static double toDouble(final Object value) {
+		return value != null ? ((Number) value).doubleValue() : Double.NEGATIVE_INFINITY;
 	}
 }
@@ -44,7 +44,8 @@ import org.cytoscape.view.vizmap.mappings.DiscreteMapping;
  * data value is extracted from a bundle of attributes by using a specified data
  * attribute name.
  */
-public class DiscreteMappingImpl<K, V> extends AbstractVisualMappingFunction<K, V> implements DiscreteMapping<K, V> {
+public class DiscreteMappingImpl<K, V> extends AbstractVisualMappingFunction<K, V> implements DiscreteMapping<K, V>,
+		BulkMappingFunction<K, V> {
 
 	// contains the actual map elements (sorted)
 	private final Map<K, V> attribute2visualMap;
@@ -102,6 +103,28 @@ public class DiscreteMappingImpl<K, V> extends AbstractVisualMappingFunction<K,
 		return value;
 	}
 
+	@Override
+	public void getMappedValues(final Object[] columnValues, final Object[] results, final int count) {
+		for (int i = 0; i < count; i++) {
+			final Object attrValue = columnValues[i];
+			V value = null;
+
+			if (attrValue instanceof List) {
+				for (final Object item : (List<?>) attrValue) {
+					// TODO: should we convert other types to String?
+					value = attribute2visualMap.get(item.toString());
+
+					if (value != null)
+						break;
+				}
+			} else if (columnType.isInstance(attrValue)) {
+				value = attribute2visualMap.get(attrValue);
+			}
+
+			results[i] = value;
+		}
+	}
+
 	@Override
 	public V getMapValue(K key) {
 		return attribute2visualMap.get(key);
@@ -24,6 +24,9 @@ package org.cytoscape.view.vizmap.internal.mappings;
  * #L%
  */
 
+import java.util.HashMap;
+import java.util.Map;
+
 import org.cytoscape.event.CyEventHelper;
 import org.cytoscape.model.CyColumn;
 import org.cytoscape.model.CyRow;
@@ -35,7 +38,7 @@ import org.cytoscape.view.vizmap.mappings.ValueTranslator;
 /**
  */
 public class PassthroughMappingImpl<K, V> extends AbstractVisualMappingFunction<K, V> implements
-		PassthroughMapping<K, V> {
+		PassthroughMapping<K, V>, BulkMappingFunction<K, V> {
 
 	private final ValueTranslator<K, V> translator;
 
@@ -90,4 +93,39 @@ public class PassthroughMappingImpl<K, V> extends AbstractVisualMappingFunction<
 		
 		return null;
 	}
-}
\ No newline at end of file
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public void getMappedValues(final Object[] columnValues, final Object[] results, final int count) {
+		// Columns mapped through often repeat a few strings (shapes, fonts...), so parse each one only once
+		Map<String, Object> parsedValues = null;
+
+		for (int i = 0; i < count; i++) {
+			final Object tableValue = columnValues[i];
+			Object value = null;
+
+			if (tableValue != null) {
+				try {
+					value = translator.translate((K) tableValue);
+				} catch (ClassCastException cce) {
+					// Invalid
+				}
+
+				if (value instanceof String) {
+					if (parsedValues == null)
+						parsedValues = new HashMap<String, Object>();
+
+					final String str = (String) value;
+					value = parsedValues.get(str);
+
+					if (value == null && !parsedValues.containsKey(str)) {
+						value = vp.parseSerializableString(str);
+						parsedValues.put(str, value);
+					}
+				}
+			}
+
+			results[i] = value;
+		}
+	}
+}
@@ -42,6 +42,7 @@ import org.cytoscape.event.CyEventHelper;
 import org.cytoscape.model.CyIdentifiable;
 import org.cytoscape.model.CyNetwork;
 import org.cytoscape.model.CyNode;
+import org.cytoscape.model.CyRow;
 import org.cytoscape.model.CyTable;
 import org.cytoscape.service.util.CyServiceRegistrar;
 import org.cytoscape.view.model.CyNetworkView;
@@ -164,6 +165,50 @@ public class VisualStyleTest extends AbstractVisualStyleTest {
 		return System.currentTimeMillis() - start2;
 	}
 	
+	@Test
+	public void testApplyPerElementPerformance() throws Exception {
+		NetworkViewTestSupport nvts = new NetworkViewTestSupport();
+		final CyNetwork largeNetwork = nvts.getNetworkFactory().createNetwork();
+		for(int i=0; i<NETWORK_SIZE; i++) {
+			largeNetwork.addNode();
+		}
+		
+		final CyNetworkView largeNetworkView = nvts.getNetworkViewFactory().createNetworkView(largeNetwork);
+		final List<View<CyNode>> views = new ArrayList<View<CyNode>>(largeNetworkView.getNodeViews());
+		
+		// Warm up, which also compiles the plan
+		runApplyPerElement(largeNetwork, views);
+		
+		final int repeat = 5;
+		long total = 0;
+		for(int i=0; i<repeat; i++)
+			total += runApplyPerElement(largeNetwork, views);
+		
+		System.out.println("* Apply to a single node takes: " + total / ((long) repeat * NETWORK_SIZE) + " nsec.");
+	}
+	
+	private long runApplyPerElement(final CyNetwork largeNetwork, final List<View<CyNode>> views) {
+		final long start = System.nanoTime();
+		for (final View<CyNode> view : views)
+			style.apply(largeNetwork.getRow(view.getModel()), view);
+		return System.nanoTime() - start;
+	}
+	
+	@Test
+	public void testDefaultChangeAppliedBeforeEventIsDelivered() {
+		// The event helper is a mock, so no VisualStyleChangedEvent is ever delivered here
+		final View<CyNode> nodeView1 = networkView.getNodeView(node1);
+		final CyRow row = network.getRow(node1);
+		
+		style.setDefaultValue(BasicVisualLexicon.NODE_FILL_COLOR, Color.red);
+		style.apply(row, nodeView1);
+		assertEquals(Color.red, nodeView1.getVisualProperty(BasicVisualLexicon.NODE_FILL_COLOR));
+		
+		style.setDefaultValue(BasicVisualLexicon.NODE_FILL_COLOR, Color.blue);
+		style.apply(row, nodeView1);
+		assertEquals(Color.blue, nodeView1.getVisualProperty(BasicVisualLexicon.NODE_FILL_COLOR));
+	}
+	
 	@Test
 	public void testNodeBypass() {
 
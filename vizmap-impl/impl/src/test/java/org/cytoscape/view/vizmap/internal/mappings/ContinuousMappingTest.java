@@ -0,0 +1,60 @@
+package org.cytoscape.view.vizmap.internal.mappings;
+
+/*
+ * #%L
+ * Cytoscape VizMap Impl (vizmap-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+
+import org.cytoscape.event.CyEventHelper;
+import org.cytoscape.view.presentation.property.BasicVisualLexicon;
+import org.cytoscape.view.vizmap.mappings.BoundaryRangeValues;
+import org.junit.Test;
+
+public class ContinuousMappingTest {
+
+	@Test
+	public void testBulkMappingMatchesSingleValues() {
+		final CyEventHelper eventHelper = mock(CyEventHelper.class);
+		final ContinuousMappingImpl<Double, Double> mapping = new ContinuousMappingImpl<Double, Double>("score",
+				Double.class, BasicVisualLexicon.NODE_SIZE, eventHelper);
+		mapping.addPoint(0d, new BoundaryRangeValues<Double>(1d, 2d, 3d));
+		mapping.addPoint(10d, new BoundaryRangeValues<Double>(10d, 20d, 30d));
+		
+		final Object[] values = { -1d, 0d, 5d, 10d, 11d, Double.NaN, null, "x" };
+		final Object[] results = new Object[values.length];
+		mapping.getMappedValues(values, results, values.length);
+		
+		assertEquals(1d, results[0]);
+		assertEquals(2d, results[1]);
+		assertEquals(6.5d, results[2]);
+		assertEquals(20d, results[3]);
+		assertEquals(30d, results[4]);
+		assertNull(results[5]);
+		assertNull(results[6]);
+		assertNull(results[7]);
+	}
+}